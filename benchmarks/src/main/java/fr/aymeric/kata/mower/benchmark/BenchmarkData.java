@@ -0,0 +1,91 @@
+package fr.aymeric.kata.mower.benchmark;
+
+import fr.aymeric.kata.mower.model.Lawn;
+import fr.aymeric.kata.mower.model.Mower;
+import fr.aymeric.kata.mower.util.EnumOrientation;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Random;
+
+/**
+ * BenchmarkData generates the random lawns, mowers and programs used by the benchmarks. <br>
+ * Generation is seeded, so every run measures the same data.
+ */
+final class BenchmarkData {
+    /**
+     * Seed of the random generators.
+     */
+    static final long SEED = 20240611L;
+    /**
+     * Instruction keys, forward moves being twice as frequent as each rotation.
+     */
+    private static final String INSTRUCTION_KEYS = "AAGD";
+    /**
+     * Utility class, not instantiable.
+     */
+    private BenchmarkData() {
+    }
+
+    /**
+     * Generates a random instruction string.
+     *
+     * @param random Random generator.
+     * @param length Number of instructions.
+     * @return The instruction keys.
+     */
+    static String instructions(Random random, int length) {
+        StringBuilder instructions = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            instructions.append(INSTRUCTION_KEYS.charAt(random.nextInt(INSTRUCTION_KEYS.length())));
+        }
+        return instructions.toString();
+    }
+
+    /**
+     * Adds mowers at random valid positions of a lawn, out of its obstacles.
+     *
+     * @param random Random generator.
+     * @param lawn Lawn to fill.
+     * @param count Number of mowers to add, bounded by the number of cells of the lawn.
+     */
+    static void addMowers(Random random, Lawn lawn, long count) {
+        long cells = ((long) lawn.getSizeX() + 1) * ((long) lawn.getSizeY() + 1);
+        long remaining = Math.min(count, cells - 1);
+        while (remaining > 0) {
+            int x = random.nextInt(lawn.getSizeX() + 1);
+            int y = random.nextInt(lawn.getSizeY() + 1);
+            if (lawn.isPositionValid(x, y)) {
+                lawn.addMower(new Mower(lawn, x, y, EnumOrientation.NORTH));
+                remaining--;
+            }
+        }
+    }
+
+    /**
+     * Writes a random instruction file. <br>
+     * Each mower starts facing north or south on its own column and only makes half turns, so it never leaves its
+     * column: no mower can start on the final position of a previous one.
+     *
+     * @param writer Writer of the file.
+     * @param mowerCount Number of mowers.
+     * @param instructionLength Number of instructions of each mower.
+     * @throws IOException If the file cannot be written.
+     */
+    static void writeInstructionFile(Writer writer, int mowerCount, int instructionLength) throws IOException {
+        Random random = new Random(SEED);
+        int size = Math.max(10, mowerCount * 2);
+        writer.write(size + " " + size + "\n");
+        StringBuilder instructions = new StringBuilder(instructionLength + 1);
+        for (int i = 0; i < mowerCount; i++) {
+            writer.write((i * 2) + " " + random.nextInt(size + 1) + " " + (random.nextBoolean() ? 'N' : 'S') + "\n");
+            instructions.setLength(0);
+            while (instructions.length() < instructionLength) {
+                int key = random.nextInt(4);
+                instructions.append(key == 0 ? "GG" : key == 1 ? "DD" : "A");
+            }
+            writer.write(instructions.length() == 0 ? "D" : instructions.toString());
+            writer.write("\n");
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package fr.aymeric.kata.mower.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Entry point of the benchmarks. <br>
+ * It runs the JMH benchmarks with the GC profiler, reporting the allocation rate, and writes the results as JSON
+ * so that runs can be compared. Any JMH command line option can be given, for example a benchmark name filter.
+ * <p>
+ * Usage:
+ * <pre>
+ * java -jar target/benchmarks.jar [JMH options]
+ * </pre>
+ * Results are written to "jmh-result.json" unless another file is given with "-rff".
+ * </p>
+ */
+public class BenchmarkRunner {
+    /**
+     * Default file of the results.
+     */
+    private static final String DEFAULT_RESULT_FILE = "jmh-result.json";
+
+    /**
+     * Runs the benchmarks.
+     *
+     * @param args JMH command line options.
+     * @throws CommandLineOptionException If the options are invalid.
+     * @throws RunnerException If a benchmark fails.
+     */
+    public static void main(String[] args) throws CommandLineOptionException, RunnerException {
+        CommandLineOptions commandLineOptions = new CommandLineOptions(args);
+        Options options = new OptionsBuilder()
+                .parent(commandLineOptions)
+                .addProfiler(GCProfiler.class)
+                .resultFormat(ResultFormatType.JSON)
+                .result(commandLineOptions.getResult().orElse(DEFAULT_RESULT_FILE))
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,112 @@
+package fr.aymeric.kata.mower.benchmark;
+
+import fr.aymeric.kata.mower.KataMowerMain;
+import fr.aymeric.kata.mower.MowerProgramExecutor;
+import fr.aymeric.kata.mower.ParallelMowerProgramExecutor;
+import fr.aymeric.kata.mower.model.Lawn;
+import fr.aymeric.kata.mower.output.BufferedResultSink;
+import fr.aymeric.kata.mower.output.ResultSink;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+
+/**
+ * End-to-end benchmarks of the parsing and execution of an instruction file, by number of mowers and program length.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ExecutorBenchmark {
+    /**
+     * Number of mowers of the file.
+     */
+    @Param({"100", "10000"})
+    public int mowerCount;
+
+    /**
+     * Number of instructions of each mower.
+     */
+    @Param({"10", "1000"})
+    public int instructionLength;
+
+    /**
+     * Generated instruction file.
+     */
+    private File instructionFile;
+    /**
+     * Sink formatting the final positions and discarding them.
+     */
+    private final ResultSink resultSink = new BufferedResultSink(new OutputStream() {
+        @Override
+        public void write(int b) {
+            // Discarded
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            // Discarded
+        }
+    }, false);
+
+    /**
+     * Generates the instruction file and silences the run summaries.
+     *
+     * @throws IOException If the file cannot be written.
+     */
+    @Setup
+    public void setUp() throws IOException {
+        KataMowerMain.getLogger().setLevel(Level.OFF);
+        instructionFile = File.createTempFile("mower-benchmark", ".txt");
+        try (Writer writer = new BufferedWriter(new FileWriter(instructionFile))) {
+            BenchmarkData.writeInstructionFile(writer, mowerCount, instructionLength);
+        }
+    }
+
+    /**
+     * Deletes the instruction file.
+     */
+    @TearDown
+    public void tearDown() {
+        if (!instructionFile.delete()) {
+            instructionFile.deleteOnExit();
+        }
+    }
+
+    /**
+     * @return the lawn after a sequential execution
+     */
+    @Benchmark
+    public Lawn sequential() {
+        return MowerProgramExecutor.readAndExecuteInstructions(instructionFile, resultSink);
+    }
+
+    /**
+     * @return the lawn after a parallel execution
+     */
+    @Benchmark
+    public Lawn parallel() {
+        return ParallelMowerProgramExecutor.readAndExecuteInstructions(instructionFile, ForkJoinPool.commonPool(), resultSink);
+    }
+}
@@ -0,0 +1,96 @@
+package fr.aymeric.kata.mower.benchmark;
+
+import fr.aymeric.kata.mower.model.Lawn;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the {@link Lawn#isPositionFree(int, int)} and {@link Lawn#isPositionValid(int, int)} checks,
+ * by lawn size and number of mowers.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LawnBenchmark {
+    /**
+     * Number of queried positions, a power of two.
+     */
+    private static final int QUERY_COUNT = 1 << 12;
+
+    /**
+     * Size of the lawn on each axis.
+     */
+    @Param({"100", "10000", "1000000"})
+    public int lawnSize;
+
+    /**
+     * Number of mowers on the lawn.
+     */
+    @Param({"10", "1000", "100000"})
+    public int mowerCount;
+
+    /**
+     * Lawn under test.
+     */
+    private Lawn lawn;
+    /**
+     * X positions of the queries.
+     */
+    private final int[] queryX = new int[QUERY_COUNT];
+    /**
+     * Y positions of the queries.
+     */
+    private final int[] queryY = new int[QUERY_COUNT];
+    /**
+     * Index of the next query.
+     */
+    private int query;
+
+    /**
+     * Creates the lawn, its mowers and the queried positions.
+     */
+    @Setup
+    public void setUp() {
+        Random random = new Random(BenchmarkData.SEED);
+        lawn = new Lawn(lawnSize, lawnSize);
+        BenchmarkData.addMowers(random, lawn, mowerCount);
+        for (int i = 0; i < QUERY_COUNT; i++) {
+            // Query positions around the lawn, some of them outside
+            queryX[i] = random.nextInt(lawnSize + 3) - 1;
+            queryY[i] = random.nextInt(lawnSize + 3) - 1;
+        }
+    }
+
+    /**
+     * @return the result of a free position check
+     */
+    @Benchmark
+    public boolean isPositionFree() {
+        int i = query++ & (QUERY_COUNT - 1);
+        return lawn.isPositionFree(queryX[i], queryY[i]);
+    }
+
+    /**
+     * @return the result of a valid position check
+     */
+    @Benchmark
+    public boolean isPositionValid() {
+        int i = query++ & (QUERY_COUNT - 1);
+        return lawn.isPositionValid(queryX[i], queryY[i]);
+    }
+}
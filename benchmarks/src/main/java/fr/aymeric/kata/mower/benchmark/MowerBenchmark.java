@@ -0,0 +1,141 @@
+package fr.aymeric.kata.mower.benchmark;
+
+import fr.aymeric.kata.mower.MowerProgram;
+import fr.aymeric.kata.mower.MowerProgramCompiler;
+import fr.aymeric.kata.mower.MowerProgramInterpreter;
+import fr.aymeric.kata.mower.model.Lawn;
+import fr.aymeric.kata.mower.model.Mower;
+import fr.aymeric.kata.mower.model.MowerEngine;
+import fr.aymeric.kata.mower.util.EnumInstruction;
+import fr.aymeric.kata.mower.util.EnumOrientation;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the execution of a mower program, by program length and density of the other mowers on the lawn.
+ * <br>
+ * The mower is not reset between invocations: it keeps executing the same random program from where it stopped,
+ * which stays a random walk on the lawn.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MowerBenchmark {
+    /**
+     * Size of the lawn on each axis.
+     */
+    private static final int LAWN_SIZE = 1000;
+
+    /**
+     * Number of instructions of the program.
+     */
+    @Param({"100", "10000", "1000000"})
+    public int instructionLength;
+
+    /**
+     * Ratio of the cells of the lawn occupied by other mowers, blocking the moves.
+     */
+    @Param({"0.0", "0.1", "0.5"})
+    public double collisionDensity;
+
+    /**
+     * Mower executing the program.
+     */
+    private Mower mower;
+    /**
+     * Program, as instructions.
+     */
+    private EnumInstruction[] instructions;
+    /**
+     * Program, as instruction keys.
+     */
+    private byte[] instructionKeys;
+    /**
+     * Program, compiled.
+     */
+    private MowerProgram program;
+
+    /**
+     * Creates the lawn, the mowers and the program.
+     */
+    @Setup
+    public void setUp() {
+        Random random = new Random(BenchmarkData.SEED);
+        Lawn lawn = new Lawn(LAWN_SIZE, LAWN_SIZE);
+        mower = new Mower(lawn, LAWN_SIZE / 2, LAWN_SIZE / 2, EnumOrientation.NORTH);
+        lawn.addMower(mower);
+        BenchmarkData.addMowers(random, lawn, (long) (collisionDensity * (LAWN_SIZE + 1) * (LAWN_SIZE + 1)));
+        String keys = BenchmarkData.instructions(random, instructionLength);
+        instructionKeys = keys.getBytes(StandardCharsets.US_ASCII);
+        instructions = new EnumInstruction[instructionLength];
+        for (int i = 0; i < instructionLength; i++) {
+            instructions[i] = EnumInstruction.fromKey(keys.charAt(i));
+        }
+        program = MowerProgramCompiler.compile(keys);
+    }
+
+    /**
+     * Executes the program with {@link Mower#executeInstruction(EnumInstruction)}.
+     *
+     * @return the final mower
+     */
+    @Benchmark
+    public Mower executeInstruction() {
+        for (EnumInstruction instruction : instructions) {
+            mower.executeInstruction(instruction);
+        }
+        return mower;
+    }
+
+    /**
+     * Executes the program with the {@link MowerEngine}.
+     *
+     * @return the final mower
+     */
+    @Benchmark
+    public Mower engine() {
+        MowerEngine.execute(mower, instructionKeys, 0, instructionKeys.length);
+        return mower;
+    }
+
+    /**
+     * Executes the compiled program with the {@link MowerProgramInterpreter}.
+     *
+     * @return the final mower
+     */
+    @Benchmark
+    public Mower interpreter() {
+        MowerProgramInterpreter.execute(program, mower);
+        return mower;
+    }
+
+    /**
+     * Compiles the program.
+     *
+     * @return the compiled program
+     */
+    @Benchmark
+    public MowerProgram compile() {
+        MowerProgramCompiler compiler = new MowerProgramCompiler();
+        for (byte key : instructionKeys) {
+            compiler.append((char) key);
+        }
+        return compiler.build();
+    }
+}
@@ -0,0 +1,102 @@
+package fr.aymeric.kata.mower.benchmark;
+
+import fr.aymeric.kata.mower.model.Lawn;
+import fr.aymeric.kata.mower.model.occupancy.ObstacleIndex;
+import fr.aymeric.kata.mower.planner.PathPlanner;
+import fr.aymeric.kata.mower.planner.Plan;
+import fr.aymeric.kata.mower.util.EnumOrientation;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of the {@link PathPlanner}, planning a mower across a square lawn with scattered obstacles and mowers.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PlannerBenchmark {
+    /**
+     * Number of planned targets, a power of two.
+     */
+    private static final int TARGET_COUNT = 1 << 6;
+
+    /**
+     * Size of the lawn on each axis.
+     */
+    @Param({"1000", "10000"})
+    public int lawnSize;
+
+    /**
+     * Number of obstacles, and of mowers, on the lawn.
+     */
+    @Param({"1000"})
+    public int obstacleCount;
+
+    /**
+     * Lawn under test.
+     */
+    private Lawn lawn;
+    /**
+     * Planner, reused between the plans.
+     */
+    private final PathPlanner planner = new PathPlanner();
+    /**
+     * X positions of the targets.
+     */
+    private final int[] targetX = new int[TARGET_COUNT];
+    /**
+     * Y positions of the targets.
+     */
+    private final int[] targetY = new int[TARGET_COUNT];
+    /**
+     * Index of the next target.
+     */
+    private int target;
+
+    /**
+     * Creates the lawn, its obstacles and mowers, and the targets.
+     */
+    @Setup
+    public void setUp() {
+        Random random = new Random(BenchmarkData.SEED);
+        lawn = new Lawn(lawnSize, lawnSize);
+        ObstacleIndex.Builder obstacles = new ObstacleIndex.Builder();
+        for (int i = 0; i < obstacleCount; i++) {
+            int x = 1 + random.nextInt(lawnSize - 10);
+            int y = 1 + random.nextInt(lawnSize - 10);
+            obstacles.addRectangle(x, y, x + random.nextInt(8), y + random.nextInt(8));
+        }
+        lawn.setObstacles(obstacles.build());
+        BenchmarkData.addMowers(random, lawn, obstacleCount);
+        for (int i = 0; i < TARGET_COUNT; i++) {
+            do {
+                targetX[i] = random.nextInt(lawnSize + 1);
+                targetY[i] = random.nextInt(lawnSize + 1);
+            } while (!lawn.isPositionValid(targetX[i], targetY[i]));
+        }
+    }
+
+    /**
+     * @return a plan from the corner of the lawn to a target
+     */
+    @Benchmark
+    public Plan planTo() {
+        int i = target++ & (TARGET_COUNT - 1);
+        return planner.planTo(lawn, 0, 0, EnumOrientation.NORTH, targetX[i], targetY[i], null);
+    }
+}
@@ -0,0 +1,116 @@
+package fr.aymeric.kata.mower.benchmark;
+
+import fr.aymeric.kata.mower.model.Lawn;
+import fr.aymeric.kata.mower.model.MowerEngine;
+import fr.aymeric.kata.mower.model.MowerFleet;
+import fr.aymeric.kata.mower.trace.TraceRecorder;
+import fr.aymeric.kata.mower.util.EnumOrientation;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the overhead of the {@link TraceRecorder} on the execution of a mower of a lawn by the
+ * {@link MowerEngine}, without trace, with every step traced, and with 1 step out of 16, 256 (the default of the
+ * executors) or 1024.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TraceBenchmark {
+    /**
+     * Size of the lawn on each axis.
+     */
+    private static final int LAWN_SIZE = 1000;
+    /**
+     * Number of instructions of the program.
+     */
+    private static final int INSTRUCTION_LENGTH = 100000;
+
+    /**
+     * Interval of the steps traced, 0 for no trace.
+     */
+    @Param({"0", "1", "16", "256", "1024"})
+    public int stepInterval;
+
+    /**
+     * Fleet of the mower executing the program.
+     */
+    private MowerFleet fleet;
+    /**
+     * Index of the mower in the fleet.
+     */
+    private int mowerIndex;
+    /**
+     * Program, as instruction keys.
+     */
+    private byte[] instructionKeys;
+    /**
+     * Recorder of the trace, null if the steps are not traced.
+     */
+    private TraceRecorder recorder;
+    /**
+     * Trace file, deleted at the end of the benchmark.
+     */
+    private File traceFile;
+
+    /**
+     * Creates the lawn, the mowers, the program and the recorder.
+     *
+     * @throws IOException if the trace file cannot be created
+     */
+    @Setup
+    public void setUp() throws IOException {
+        Random random = new Random(BenchmarkData.SEED);
+        Lawn lawn = new Lawn(LAWN_SIZE, LAWN_SIZE);
+        if (stepInterval > 0) {
+            traceFile = File.createTempFile("trace", ".bin");
+            recorder = TraceRecorder.open(traceFile, TraceRecorder.DEFAULT_CAPACITY, stepInterval, 1);
+            lawn.setTraceRecorder(recorder);
+        }
+        mowerIndex = lawn.addMower(LAWN_SIZE / 2, LAWN_SIZE / 2, EnumOrientation.NORTH);
+        fleet = lawn.getFleet();
+        BenchmarkData.addMowers(random, lawn, (long) (0.1 * (LAWN_SIZE + 1) * (LAWN_SIZE + 1)));
+        instructionKeys = BenchmarkData.instructions(random, INSTRUCTION_LENGTH).getBytes(StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Closes the recorder and deletes the trace file.
+     */
+    @TearDown
+    public void tearDown() {
+        if (recorder != null) {
+            recorder.close();
+            traceFile.delete();
+        }
+    }
+
+    /**
+     * Executes the program with the {@link MowerEngine}.
+     *
+     * @return the fleet of the mower
+     */
+    @Benchmark
+    public MowerFleet engine() {
+        MowerEngine.execute(fleet, mowerIndex, instructionKeys, 0, instructionKeys.length);
+        return fleet;
+    }
+}
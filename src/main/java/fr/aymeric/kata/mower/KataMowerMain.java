@@ -1,7 +1,16 @@
 package fr.aymeric.kata.mower;
 
+import fr.aymeric.kata.mower.cache.ResultCache;
+import fr.aymeric.kata.mower.io.BinaryInstructionConverter;
+import fr.aymeric.kata.mower.io.BinaryInstructionReader;
+import fr.aymeric.kata.mower.metrics.SimulationMetrics;
+import fr.aymeric.kata.mower.output.ResultSink;
+import fr.aymeric.kata.mower.server.SimulationServer;
+
 import java.io.File;
 import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.file.Paths;
 import java.util.logging.Logger;
 
 /**
@@ -14,8 +23,14 @@ import java.util.logging.Logger;
  * Usage:
  * <pre>
  * java -jar MowerProgram.jar [inputFile]
+ * java -jar MowerProgram.jar --serve [port]
  * </pre>
- * If no input file is provided, it defaults to "input_instructions.txt".
+ * If no input file is provided, it defaults to "input_instructions.txt". The input file can also be a binary
+ * instruction file, see {@link BinaryInstructionConverter}. With {@code --serve}, the program runs a
+ * {@link SimulationServer} on the local host instead, until it is stopped.
+ * </p>
+ * <p>
+ * The metrics of the run are exposed through JMX, see {@link SimulationMetrics}.
  * </p>
  */
 public class KataMowerMain {
@@ -23,16 +38,37 @@ public class KataMowerMain {
      * Logger for this project.
      */
     private static final Logger logger = Logger.getLogger(KataMowerMain.class.getName());
+    /**
+     * Option running the program as a simulation server.
+     */
+    private static final String SERVE_OPTION = "--serve";
+    /**
+     * System property giving the directory of a disk cache of the results, see {@link ResultCache}.
+     */
+    public static final String CACHE_DIRECTORY_PROPERTY = "fr.aymeric.kata.mower.cache.directory";
+    /**
+     * Maximum size of the disk cache of the results.
+     */
+    private static final long DISK_CACHE_SIZE = 256L << 20;
 
     /**
      * Main method to start the Mower Program. <br>
      * The first argument is optional and can be the path to the input file. It defaults to "input_instructions.txt".
      *
      * @param args Command line arguments.
-     *             args[0]: Optional path to the input file.
-     * @throws FileNotFoundException If the input file is not found.
+     *             args[0]: Optional path to the input file, or {@code --serve}.
+     *             args[1]: Optional port of the server, {@link SimulationServer#DEFAULT_PORT} by default.
+     * @throws IOException If the input file is not found or cannot be read, or the server port cannot be bound.
+     * @throws InterruptedException If the server is interrupted.
      */
-    public static void main(String[] args) throws FileNotFoundException {
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length > 0 && SERVE_OPTION.equals(args[0])) {
+            SimulationMetrics.get().registerMBean();
+            SimulationServer server = SimulationServer.start(
+                    args.length > 1 ? Integer.parseInt(args[1]) : SimulationServer.DEFAULT_PORT);
+            server.awaitClose();
+            return;
+        }
         String inputFile = "input_instructions.txt";
         if (args.length > 0) {
             inputFile = args[0];
@@ -41,7 +77,16 @@ public class KataMowerMain {
         if (!instructionsFile.exists()) {
             throw new FileNotFoundException("Instructions file not found: " + inputFile);
         }
-        MowerProgramExecutor.readAndExecuteInstructions(instructionsFile);
+        SimulationMetrics.get().registerMBean();
+        if (BinaryInstructionReader.isBinaryFile(instructionsFile)) {
+            MowerProgramExecutor.readAndExecuteBinaryInstructions(instructionsFile, ResultSink.stdout());
+        } else if (System.getProperty(CACHE_DIRECTORY_PROPERTY) != null) {
+            // A single run only benefits from the disk tier
+            ResultCache cache = new ResultCache(0, Paths.get(System.getProperty(CACHE_DIRECTORY_PROPERTY)), DISK_CACHE_SIZE);
+            MowerProgramExecutor.readAndExecuteInstructions(instructionsFile, ResultSink.stdout(), cache);
+        } else {
+            MowerProgramExecutor.readAndExecuteInstructions(instructionsFile);
+        }
     }
 
     /**
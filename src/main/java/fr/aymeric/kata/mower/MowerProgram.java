@@ -0,0 +1,205 @@
+package fr.aymeric.kata.mower;
+
+/**
+ * MowerProgram is the compiled form of a mower instruction string, built by {@link MowerProgramCompiler}. <br>
+ * Operations are packed at 2 bits each in a long array, 32 operations per long, the first operation in the lowest bits.
+ * Consecutive rotations are folded into their net rotation, and long runs of forward moves are stored as a single
+ * {@link #OP_FORWARD_RUN} operation whose number of moves is kept in a separate array. <br>
+ * When the program starts with a block of operations repeated several times, the compiler records it so that
+ * {@link MowerProgramInterpreter} can skip the repetitions once the mower state becomes periodic.
+ */
+public final class MowerProgram {
+    /**
+     * Operation moving the mower forward once.
+     */
+    public static final int OP_FORWARD = 0;
+    /**
+     * Operation rotating the mower to the left.
+     */
+    public static final int OP_LEFT = 1;
+    /**
+     * Operation rotating the mower to the right.
+     */
+    public static final int OP_RIGHT = 2;
+    /**
+     * Operation moving the mower forward several times, the number of moves is the next entry of the run lengths.
+     */
+    public static final int OP_FORWARD_RUN = 3;
+    /**
+     * Number of bits of an operation.
+     */
+    static final int OP_BITS = 2;
+    /**
+     * Number of operations stored in a long.
+     */
+    static final int OPS_PER_WORD = Long.SIZE / OP_BITS;
+
+    /**
+     * Packed operations.
+     */
+    private final long[] ops;
+    /**
+     * Number of operations.
+     */
+    private final int opCount;
+    /**
+     * Number of moves of each {@link #OP_FORWARD_RUN} operation, in order.
+     */
+    private final int[] runLengths;
+    /**
+     * Number of instructions of the source program.
+     */
+    private final long instructionCount;
+    /**
+     * Number of forward moves of the program, blocked or not.
+     */
+    private final long forwardMoveCount;
+    /**
+     * Number of operations of the block repeated at the start of the program, 0 if there is none.
+     */
+    private int blockLength;
+    /**
+     * Number of forward run operations in the repeated block.
+     */
+    private int blockRunCount;
+    /**
+     * Number of complete repetitions of the block at the start of the program.
+     */
+    private int blockRepetitions;
+
+    /**
+     * Constructor of the program, used by the compiler. The arrays are not copied.
+     *
+     * @param ops Packed operations.
+     * @param opCount Number of operations.
+     * @param runLengths Number of moves of each forward run operation.
+     * @param instructionCount Number of instructions of the source program.
+     * @param forwardMoveCount Number of forward moves of the program.
+     */
+    MowerProgram(long[] ops, int opCount, int[] runLengths, long instructionCount, long forwardMoveCount) {
+        this.ops = ops;
+        this.opCount = opCount;
+        this.runLengths = runLengths;
+        this.instructionCount = instructionCount;
+        this.forwardMoveCount = forwardMoveCount;
+    }
+
+    /**
+     * Get an operation of the program.
+     *
+     * @param index Index of the operation.
+     * @return The operation, one of the OP_ constants.
+     * @throws IndexOutOfBoundsException If the index is out of the program.
+     */
+    public int getOp(int index) {
+        if (index < 0 || index >= opCount) {
+            throw new IndexOutOfBoundsException("Operation " + index + " out of " + opCount);
+        }
+        return opAt(ops, index);
+    }
+
+    /**
+     * @return the number of operations of the program
+     */
+    public int getOpCount() {
+        return opCount;
+    }
+
+    /**
+     * @return the number of instructions of the source program
+     */
+    public long getInstructionCount() {
+        return instructionCount;
+    }
+
+    /**
+     * Get the number of forward moves of the program. <br>
+     * A mower executing the program never goes further than this number of cells from its start position.
+     *
+     * @return the number of forward moves of the program
+     */
+    public long getForwardMoveCount() {
+        return forwardMoveCount;
+    }
+
+    /**
+     * Get the number of moves of a forward run operation.
+     *
+     * @param runIndex Index of the forward run operation among the forward run operations of the program.
+     * @return The number of moves of the run.
+     */
+    public int getRunLength(int runIndex) {
+        return runLengths[runIndex];
+    }
+
+    /**
+     * @return the number of operations of the block repeated at the start of the program, 0 if there is none
+     */
+    public int getBlockLength() {
+        return blockLength;
+    }
+
+    /**
+     * @return the number of complete repetitions of the block at the start of the program
+     */
+    public int getBlockRepetitions() {
+        return blockRepetitions;
+    }
+
+    /**
+     * @return the number of forward run operations in the repeated block
+     */
+    int getBlockRunCount() {
+        return blockRunCount;
+    }
+
+    /**
+     * Set the block repeated at the start of the program, used by the compiler.
+     *
+     * @param blockLength Number of operations of the block, 0 if there is none.
+     * @param blockRunCount Number of forward run operations in the block.
+     * @param blockRepetitions Number of complete repetitions of the block at the start of the program.
+     */
+    void setRepeatedBlock(int blockLength, int blockRunCount, int blockRepetitions) {
+        this.blockLength = blockLength;
+        this.blockRunCount = blockRunCount;
+        this.blockRepetitions = blockRepetitions;
+    }
+
+    /**
+     * @return the packed operations, not copied
+     */
+    long[] getOps() {
+        return ops;
+    }
+
+    /**
+     * @return the number of moves of each forward run operation, not copied
+     */
+    int[] getRunLengths() {
+        return runLengths;
+    }
+
+    /**
+     * Decode an operation from packed operations.
+     *
+     * @param ops Packed operations.
+     * @param index Index of the operation.
+     * @return The operation.
+     */
+    static int opAt(long[] ops, int index) {
+        return (int) (ops[index / OPS_PER_WORD] >>> ((index % OPS_PER_WORD) * OP_BITS)) & 3;
+    }
+
+    @Override
+    public String toString() {
+        return "MowerProgram{" +
+                "opCount=" + opCount +
+                ", runCount=" + runLengths.length +
+                ", instructionCount=" + instructionCount +
+                ", forwardMoveCount=" + forwardMoveCount +
+                ", blockLength=" + blockLength +
+                ", blockRepetitions=" + blockRepetitions +
+                '}';
+    }
+}
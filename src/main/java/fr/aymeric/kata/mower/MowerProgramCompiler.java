@@ -0,0 +1,281 @@
+package fr.aymeric.kata.mower;
+
+import fr.aymeric.kata.mower.util.EnumInstruction;
+
+import java.util.Arrays;
+
+/**
+ * MowerProgramCompiler validates a mower instruction string and compiles it into a packed {@link MowerProgram}. <br>
+ * Instructions are appended one by one, so a program can be compiled while it is read. The compiler is reusable
+ * after {@link #build()}. <br>
+ * The compiler also records a block of operations repeated at the very start of the program, see
+ * {@link MowerProgram#getBlockLength()}. Only a repetition starting at the first operation is detected: a program
+ * whose loop follows other instructions, even a single one, has no repeated block and is executed operation by
+ * operation.
+ */
+public class MowerProgramCompiler {
+    /**
+     * Minimum number of consecutive forward moves stored as a {@link MowerProgram#OP_FORWARD_RUN}. <br>
+     * Shorter runs take less memory as individual {@link MowerProgram#OP_FORWARD} operations.
+     */
+    static final int MIN_RUN_LENGTH = 16;
+    /**
+     * Number of operations at the start of a program searched for a repeated block. <br>
+     * The block is searched with a prefix function, whose memory is linear in the number of operations searched.
+     */
+    static final int REPETITION_WINDOW = 1 << 16;
+
+    /**
+     * Packed operations compiled so far.
+     */
+    private long[] ops = new long[4];
+    /**
+     * Number of operations compiled so far.
+     */
+    private int opCount;
+    /**
+     * Number of moves of the forward runs compiled so far.
+     */
+    private int[] runLengths = new int[4];
+    /**
+     * Number of forward runs compiled so far.
+     */
+    private int runCount;
+    /**
+     * Number of instructions appended.
+     */
+    private long instructionCount;
+    /**
+     * Number of forward moves appended.
+     */
+    private long forwardMoveCount;
+    /**
+     * Net rotation of the pending rotations, in quarter turns to the left, between 0 and 3.
+     */
+    private int pendingRotation;
+    /**
+     * Number of pending forward moves.
+     */
+    private int pendingForwardMoves;
+    /**
+     * Number of operations of the block repeated at the start of the program, 0 if there is none.
+     */
+    private int blockLength;
+    /**
+     * Number of forward runs of the repeated block.
+     */
+    private int blockRunCount;
+    /**
+     * Number of complete repetitions of the repeated block at the start of the program.
+     */
+    private int blockRepetitions;
+
+    /**
+     * Compiles an instruction string.
+     *
+     * @param instructions Instruction keys, for example "GAGAD".
+     * @return The compiled program.
+     * @throws IllegalArgumentException If an invalid instruction is found.
+     */
+    public static MowerProgram compile(CharSequence instructions) {
+        MowerProgramCompiler compiler = new MowerProgramCompiler();
+        for (int i = 0; i < instructions.length(); i++) {
+            compiler.append(instructions.charAt(i));
+        }
+        return compiler.build();
+    }
+
+    /**
+     * Appends an instruction to the program.
+     *
+     * @param instructionKey Key of the instruction.
+     * @throws IllegalArgumentException If the instruction is invalid.
+     */
+    public void append(char instructionKey) {
+        EnumInstruction instruction = EnumInstruction.fromKey(instructionKey);
+        switch (instruction) {
+            case FRONT:
+                flushRotation();
+                if (pendingForwardMoves == Integer.MAX_VALUE) {
+                    flushForwardMoves();
+                }
+                pendingForwardMoves++;
+                forwardMoveCount++;
+                break;
+            case LEFT:
+                flushForwardMoves();
+                pendingRotation = (pendingRotation + 1) & 3;
+                break;
+            case RIGHT:
+                flushForwardMoves();
+                pendingRotation = (pendingRotation + 3) & 3;
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown instruction " + instruction);
+        }
+        instructionCount++;
+    }
+
+    /**
+     * Builds the program from the appended instructions and resets the compiler.
+     *
+     * @return The compiled program.
+     */
+    public MowerProgram build() {
+        flushRotation();
+        flushForwardMoves();
+        findRepeatedBlock();
+        MowerProgram program = new MowerProgram(
+                Arrays.copyOf(ops, (opCount + MowerProgram.OPS_PER_WORD - 1) / MowerProgram.OPS_PER_WORD),
+                opCount, Arrays.copyOf(runLengths, runCount), instructionCount, forwardMoveCount);
+        program.setRepeatedBlock(blockLength, blockRunCount, blockRepetitions);
+        Arrays.fill(ops, 0L);
+        opCount = 0;
+        runCount = 0;
+        instructionCount = 0;
+        forwardMoveCount = 0;
+        blockLength = 0;
+        blockRunCount = 0;
+        blockRepetitions = 0;
+        return program;
+    }
+
+    /**
+     * Finds the block repeated at the start of the operations compiled so far, if any. A block repeated after other
+     * operations is not searched. <br>
+     * The longest prefix of the first {@link #REPETITION_WINDOW} operations made of a repeated block is found with
+     * a prefix function. When it covers the whole window, the repetition is followed as far as it goes in the rest of
+     * the program.
+     */
+    private void findRepeatedBlock() {
+        int window = Math.min(opCount, REPETITION_WINDOW);
+        long[] symbols = new long[window];
+        int runIndex = 0;
+        for (int i = 0; i < window; i++) {
+            symbols[i] = symbolAt(i, runIndex);
+            if ((symbols[i] & 3) == MowerProgram.OP_FORWARD_RUN) {
+                runIndex++;
+            }
+        }
+        int[] prefix = new int[window];
+        for (int i = 1; i < window; i++) {
+            int k = prefix[i - 1];
+            while (k > 0 && symbols[i] != symbols[k]) {
+                k = prefix[k - 1];
+            }
+            if (symbols[i] == symbols[k]) {
+                k++;
+            }
+            prefix[i] = k;
+        }
+        // Longest prefix of the window made of at least two repetitions of its shortest period
+        int end = window;
+        int period = 0;
+        while (end > 1 && period == 0) {
+            int prefixPeriod = end - prefix[end - 1];
+            if (prefixPeriod <= end / 2) {
+                period = prefixPeriod;
+            } else {
+                end--;
+            }
+        }
+        if (period == 0) {
+            return;
+        }
+        int periodRunCount = 0;
+        for (int i = 0; i < period; i++) {
+            if ((symbols[i] & 3) == MowerProgram.OP_FORWARD_RUN) {
+                periodRunCount++;
+            }
+        }
+        // Follow the repetition after the window, comparing each operation with the one a block before
+        boolean wholeWindow = end == window;
+        int runIndexBefore = runIndex - periodRunCount;
+        while (wholeWindow && end < opCount) {
+            long symbol = symbolAt(end, runIndex);
+            if (symbol != symbolAt(end - period, runIndexBefore)) {
+                break;
+            }
+            if ((symbol & 3) == MowerProgram.OP_FORWARD_RUN) {
+                runIndex++;
+                runIndexBefore++;
+            }
+            end++;
+        }
+        blockLength = period;
+        blockRunCount = periodRunCount;
+        blockRepetitions = end / period;
+    }
+
+    /**
+     * Get an operation compiled so far with its run length, so that two forward runs of different lengths differ.
+     *
+     * @param index Index of the operation.
+     * @param runIndex Index of the next forward run of the program.
+     * @return The operation in the lowest 2 bits, and the run length above for a forward run.
+     */
+    private long symbolAt(int index, int runIndex) {
+        int op = MowerProgram.opAt(ops, index);
+        if (op == MowerProgram.OP_FORWARD_RUN) {
+            return op | ((long) runLengths[runIndex] << MowerProgram.OP_BITS);
+        }
+        return op;
+    }
+
+    /**
+     * Emits the operations of the pending rotations: none, a left, a right or a half turn made of two lefts.
+     */
+    private void flushRotation() {
+        switch (pendingRotation) {
+            case 1:
+                emit(MowerProgram.OP_LEFT);
+                break;
+            case 2:
+                emit(MowerProgram.OP_LEFT);
+                emit(MowerProgram.OP_LEFT);
+                break;
+            case 3:
+                emit(MowerProgram.OP_RIGHT);
+                break;
+            default:
+                break;
+        }
+        pendingRotation = 0;
+    }
+
+    /**
+     * Emits the operations of the pending forward moves, as a single run if they are numerous enough.
+     */
+    private void flushForwardMoves() {
+        if (pendingForwardMoves >= MIN_RUN_LENGTH) {
+            emit(MowerProgram.OP_FORWARD_RUN);
+            if (runCount == runLengths.length) {
+                runLengths = Arrays.copyOf(runLengths, runCount << 1);
+            }
+            runLengths[runCount++] = pendingForwardMoves;
+        } else {
+            for (int i = 0; i < pendingForwardMoves; i++) {
+                emit(MowerProgram.OP_FORWARD);
+            }
+        }
+        pendingForwardMoves = 0;
+    }
+
+    /**
+     * Appends an operation to the packed operations.
+     *
+     * @param op The operation.
+     * @throws IllegalStateException If the program has too many operations.
+     */
+    private void emit(int op) {
+        if (opCount == Integer.MAX_VALUE) {
+            throw new IllegalStateException("Program too long");
+        }
+        int word = opCount / MowerProgram.OPS_PER_WORD;
+        if (word == ops.length) {
+            ops = Arrays.copyOf(ops, Math.max(ops.length << 1, word + 1));
+        }
+        ops[word] |= (long) op << ((opCount % MowerProgram.OPS_PER_WORD) * MowerProgram.OP_BITS);
+        opCount++;
+    }
+}
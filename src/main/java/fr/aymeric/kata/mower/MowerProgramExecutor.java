@@ -1,104 +1,576 @@
 package fr.aymeric.kata.mower;
 
+import fr.aymeric.kata.mower.cache.CachedResult;
+import fr.aymeric.kata.mower.cache.ResultCache;
+import fr.aymeric.kata.mower.io.BinaryInstructionReader;
+import fr.aymeric.kata.mower.io.InstructionReader;
+import fr.aymeric.kata.mower.io.ParallelInstructionReader;
+import fr.aymeric.kata.mower.metrics.RunMetrics;
+import fr.aymeric.kata.mower.metrics.SimulationMetrics;
+import fr.aymeric.kata.mower.model.CoverageTracker;
 import fr.aymeric.kata.mower.model.Lawn;
 import fr.aymeric.kata.mower.model.Mower;
-import fr.aymeric.kata.mower.util.EnumInstruction;
+import fr.aymeric.kata.mower.model.MowerEngine;
+import fr.aymeric.kata.mower.model.MowerFleet;
+import fr.aymeric.kata.mower.model.occupancy.ObstacleIndex;
+import fr.aymeric.kata.mower.output.ResultSink;
+import fr.aymeric.kata.mower.trace.TraceRecorder;
 import fr.aymeric.kata.mower.util.EnumOrientation;
 
+import java.io.Closeable;
 import java.io.File;
-import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.util.NoSuchElementException;
-import java.util.Scanner;
+import java.util.concurrent.ForkJoinPool;
+import java.util.logging.Level;
 
 /**
  * MowerProgramExecutor class is responsible for reading and executing mower instructions from a file.
  */
 public class MowerProgramExecutor {
+    /**
+     * Number of instructions read and executed at once.
+     */
+    private static final int INSTRUCTION_CHUNK_SIZE = 8192;
+    /**
+     * Key of an obstacle line on a single cell: "O x y".
+     */
+    static final char OBSTACLE_CELL_KEY = 'O';
+    /**
+     * Key of an obstacle line on a rectangle, given by two opposite corners: "R x1 y1 x2 y2".
+     */
+    static final char OBSTACLE_RECTANGLE_KEY = 'R';
+    /**
+     * Size from which a text instructions file is parsed in parallel, if the common pool has several threads.
+     */
+    static final long PARALLEL_PARSING_THRESHOLD = 256L * 1024 * 1024;
+
     /**
      * Entry point of the program.
-     * Reads and executes the mower instructions from the given file.
+     * Reads and executes the mower instructions from the given file, the final positions are written to the standard output.
      *
      * @param instructionFile File containing the instructions.
      * @return The lawn after executing the instructions.
-     * @throws RuntimeException If the file format is invalid or the file is not found.
+     * @throws RuntimeException If the file format is invalid, the file is not found or cannot be read.
      */
     public static Lawn readAndExecuteInstructions(File instructionFile) {
-        try (Scanner scanner = new Scanner(instructionFile)) {
-            Lawn lawn = createLawn(scanner);
-            int mowerIndex = 0;
-            while(scanner.hasNext()) {
-                Mower mower = createMower(scanner, lawn);
-                String instructions = scanner.next();
-                executeMowerInstructions(mower, instructions);
-                String finalPosition = String.format("Mower %d position: %s", mowerIndex + 1, mower.getCurrentPosition());
-                KataMowerMain.getLogger().info(finalPosition);
-                mowerIndex++;
+        return readAndExecuteInstructions(instructionFile, ResultSink.stdout());
+    }
+
+    /**
+     * Reads and executes the mower instructions from the given file. <br>
+     * The final position of each mower is given to the sink, which is flushed at the end of the run but not closed,
+     * so the positions of the mowers executed before an error are written too.
+     * The run is recorded in its own {@link RunMetrics}, added to the {@link SimulationMetrics}, and a summary is
+     * logged at the end. <br>
+     * Files of at least 256MB are parsed in parallel in the common fork-join pool, when it has several threads.
+     *
+     * @param instructionFile File containing the instructions.
+     * @param resultSink Sink of the final positions.
+     * @return The lawn after executing the instructions.
+     * @throws RuntimeException If the file format is invalid, the file is not found or cannot be read.
+     */
+    public static Lawn readAndExecuteInstructions(File instructionFile, ResultSink resultSink) {
+        if (instructionFile.length() >= PARALLEL_PARSING_THRESHOLD && ForkJoinPool.getCommonPoolParallelism() > 1) {
+            return readAndExecuteInstructions(instructionFile, resultSink, ForkJoinPool.commonPool());
+        }
+        return execute(() -> new TextSource(InstructionReader.open(instructionFile)), resultSink, true);
+    }
+
+    /**
+     * Reads and executes the mower instructions from the given file, parsed by chunks in a pool with a
+     * {@link ParallelInstructionReader}. <br>
+     * The mowers are still executed one after the other in the order of the file, so the result, the errors and
+     * their line numbers are the ones of {@link #readAndExecuteInstructions(File, ResultSink)}.
+     *
+     * @param instructionFile File containing the instructions.
+     * @param resultSink Sink of the final positions.
+     * @param pool Pool parsing the chunks of the file.
+     * @return The lawn after executing the instructions.
+     * @throws RuntimeException If the file format is invalid, the file is not found or cannot be read.
+     */
+    public static Lawn readAndExecuteInstructions(File instructionFile, ResultSink resultSink, ForkJoinPool pool) {
+        return readAndExecuteInstructions(instructionFile, resultSink, pool, ParallelInstructionReader.DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Reads and executes the mower instructions from the given file, parsed by chunks in a pool.
+     *
+     * @param instructionFile File containing the instructions.
+     * @param resultSink Sink of the final positions.
+     * @param pool Pool parsing the chunks of the file.
+     * @param chunkSize Size of the chunks parsed in parallel.
+     * @return The lawn after executing the instructions.
+     * @throws RuntimeException If the file format is invalid, the file is not found or cannot be read.
+     */
+    static Lawn readAndExecuteInstructions(File instructionFile, ResultSink resultSink, ForkJoinPool pool,
+                                           int chunkSize) {
+        return execute(() -> new ParallelSource(ParallelInstructionReader.open(instructionFile, pool, chunkSize)),
+                resultSink, true);
+    }
+
+    /**
+     * Reads and executes the mower instructions from the given file, unless the result of the same content is in the
+     * cache. <br>
+     * On a hit, the file is only hashed: the final positions are given to the sink from the cache, without parsing nor
+     * executing the instructions, and the metrics are not updated. On a miss, the instructions are executed like by
+     * {@link #readAndExecuteInstructions(File, ResultSink)} and the result is added to the cache. <br>
+     * The file is read once, and the same bytes are hashed then parsed, unless it is large enough to be parsed in
+     * parallel: it is then hashed as a stream and read again on a miss.
+     *
+     * @param instructionFile File containing the instructions.
+     * @param resultSink Sink of the final positions.
+     * @param cache Cache of the results by content.
+     * @return The lawn after executing the instructions.
+     * @throws RuntimeException If the file format is invalid, the file is not found or cannot be read.
+     */
+    public static Lawn readAndExecuteInstructions(File instructionFile, ResultSink resultSink, ResultCache cache) {
+        byte[] content = null;
+        String key;
+        try {
+            if (instructionFile.length() < PARALLEL_PARSING_THRESHOLD) {
+                content = Files.readAllBytes(instructionFile.toPath());
+                key = ResultCache.key(content);
+            } else {
+                key = ResultCache.key(instructionFile);
             }
+        } catch (IOException | UncheckedIOException e) {
+            throw inputError(e);
+        }
+        CachedResult cached = cache.get(key);
+        if (cached != null) {
+            return cached.replay(resultSink);
+        }
+        Lawn lawn;
+        if (content != null) {
+            ByteBuffer input = ByteBuffer.wrap(content);
+            lawn = execute(() -> new TextSource(new InstructionReader(input)), resultSink, true);
+        } else {
+            lawn = readAndExecuteInstructions(instructionFile, resultSink);
+        }
+        cache.put(key, CachedResult.of(lawn));
+        return lawn;
+    }
+
+    /**
+     * Reads and executes the mower instructions from a channel, like
+     * {@link #readAndExecuteInstructions(File, ResultSink)} does from a file. <br>
+     * The channel is read until its end and closed. Since a server executes many such runs concurrently, the run is
+     * never traced, and its summary is only logged at the {@link Level#FINE} level.
+     *
+     * @param input Channel giving the instructions, in the text format.
+     * @param resultSink Sink of the final positions.
+     * @return The lawn after executing the instructions.
+     * @throws RuntimeException If the input format is invalid or the input cannot be read.
+     */
+    public static Lawn readAndExecuteInstructions(ReadableByteChannel input, ResultSink resultSink) {
+        return execute(() -> new TextSource(new InstructionReader(input)), resultSink, false);
+    }
+
+    /**
+     * Reads and executes the mowers of a source one after the other, giving their final positions to the sink. <br>
+     * This is the run shared by all the input formats: the metrics, the coverage, the trace and the errors are handled
+     * the same way whatever the source.
+     *
+     * @param opener Opener of the source of the mowers.
+     * @param resultSink Sink of the final positions.
+     * @param fileRun True for the run of a file, false for the run of a channel: such runs are executed concurrently by
+     *                a server, so they are not traced and their summary is only logged at the {@link Level#FINE} level.
+     * @return The lawn after executing the instructions.
+     * @throws RuntimeException If the input format is invalid, the input is not found or cannot be read.
+     * @throws IllegalArgumentException If a mower position or instruction is invalid.
+     * @throws UncheckedIOException If the requested trace file cannot be written.
+     */
+    private static Lawn execute(SourceOpener opener, ResultSink resultSink, boolean fileRun) {
+        // The trace is opened and closed out of the input errors mapping, so its own errors are not reported as such
+        try (TraceRecorder trace = fileRun ? openRequestedTrace() : null) {
+            return execute(opener, resultSink, fileRun, trace);
+        }
+    }
+
+    /**
+     * Reads and executes the mowers of a source one after the other, see
+     * {@link #execute(SourceOpener, ResultSink, boolean)}.
+     *
+     * @param opener Opener of the source of the mowers.
+     * @param resultSink Sink of the final positions.
+     * @param fileRun True for the run of a file, false for the run of a channel.
+     * @param trace Recorder of the trace of the run, closed by the caller, or null if the run is not traced.
+     * @return The lawn after executing the instructions.
+     * @throws RuntimeException If the input format is invalid, the input is not found or cannot be read.
+     * @throws IllegalArgumentException If a mower position or instruction is invalid.
+     */
+    private static Lawn execute(SourceOpener opener, ResultSink resultSink, boolean fileRun, TraceRecorder trace) {
+        RunMetrics metrics = new RunMetrics();
+        long startTime = System.nanoTime();
+        long executeTime = 0;
+        try (MowerSource source = opener.open()) {
+            Lawn lawn = source.createLawn();
+            lawn.setMetrics(metrics);
+            enableRequestedCoverage(lawn);
+            lawn.setTraceRecorder(trace);
+            MowerFleet fleet = lawn.getFleet();
+            while(source.hasNextMower()) {
+                int mowerIndex = source.nextMower(lawn);
+                executeTime += source.executeInstructions(fleet, mowerIndex);
+                metrics.recordMowerProcessed();
+                resultSink.accept(mowerIndex + 1, fleet.getPositionX(mowerIndex), fleet.getPositionY(mowerIndex),
+                        fleet.getOrientation(mowerIndex));
+            }
+            logCoverage(lawn);
             return lawn;
-        } catch (NoSuchElementException e) {
-            throw new RuntimeException("Invalid instruction file format", e);
-        } catch (FileNotFoundException e) {
-            throw new RuntimeException("Instructions file not found", e);
+        } catch (NoSuchElementException | IOException | UncheckedIOException e) {
+            throw inputError(e);
+        } finally {
+            resultSink.flush();
+            metrics.recordExecuteTime(executeTime);
+            metrics.recordParseTime(System.nanoTime() - startTime - executeTime);
+            KataMowerMain.getLogger().log(fileRun ? Level.INFO : Level.FINE,
+                    () -> "Run summary: " + metrics.snapshot().summary());
+        }
+    }
+
+    /**
+     * Translates an error of the input of a run into the error reported by the executors.
+     *
+     * @param e Error thrown while reading the input.
+     * @return The exception to throw, whose cause is the read error.
+     */
+    static RuntimeException inputError(Exception e) {
+        Throwable cause = e instanceof UncheckedIOException ? e.getCause() : e;
+        if (cause instanceof NoSuchElementException) {
+            return new RuntimeException("Invalid instruction file format", cause);
+        }
+        if (cause instanceof NoSuchFileException) {
+            return new RuntimeException("Instructions file not found", cause);
         }
+        return new RuntimeException("Unable to read instructions file", cause);
     }
 
     /**
-     * Creates a Lawn object from the scanner input. <br>
-     * The input format must be: "sizeX sizeY".
+     * Reads and executes the mower instructions from a file in the {@link fr.aymeric.kata.mower.io.BinaryInstructionFormat}.
+     * <br>
+     * The mowers are executed in order like with {@link #readAndExecuteInstructions(File, ResultSink)}, their
+     * packed instructions are unpacked and executed by chunks.
      *
-     * @param scanner Scanner to read the input.
+     * @param instructionFile Binary file containing the instructions.
+     * @param resultSink Sink of the final positions.
+     * @return The lawn after executing the instructions.
+     * @throws RuntimeException If the file format is invalid, the file is not found or cannot be read.
+     */
+    public static Lawn readAndExecuteBinaryInstructions(File instructionFile, ResultSink resultSink) {
+        return execute(() -> new BinarySource(BinaryInstructionReader.open(instructionFile)), resultSink, true);
+    }
+
+    /**
+     * Creates a Lawn object from the reader input, with its obstacles. <br>
+     * The input format must be: "sizeX sizeY", optionally followed by obstacle lines "O x y" or "R x1 y1 x2 y2"
+     * before the first mower.
+     *
+     * @param reader Reader of the input.
      * @return The created Lawn object.
      * @throws NoSuchElementException If the input format is invalid.
+     * @throws IllegalArgumentException If an obstacle is outside of the lawn.
      */
-    private static Lawn createLawn(Scanner scanner) throws NoSuchElementException {
-        int sizeX = scanner.nextInt();
-        int sizeY = scanner.nextInt();
-        return new Lawn(sizeX, sizeY);
+    static Lawn createLawn(InstructionReader reader) throws NoSuchElementException {
+        int sizeX = reader.nextInt();
+        int sizeY = reader.nextInt();
+        Lawn lawn = new Lawn(sizeX, sizeY);
+        ObstacleIndex.Builder obstacles = null;
+        int key;
+        while ((key = reader.peekToken()) == OBSTACLE_CELL_KEY || key == OBSTACLE_RECTANGLE_KEY) {
+            if (obstacles == null) {
+                obstacles = new ObstacleIndex.Builder(sizeX, sizeY);
+            }
+            reader.nextChar();
+            if (key == OBSTACLE_CELL_KEY) {
+                obstacles.addCell(reader.nextInt(), reader.nextInt());
+            } else {
+                obstacles.addRectangle(reader.nextInt(), reader.nextInt(), reader.nextInt(), reader.nextInt());
+            }
+        }
+        if (obstacles != null) {
+            lawn.setObstacles(obstacles.build());
+        }
+        return lawn;
     }
 
     /**
-     * Creates a Mower object from the scanner input. <br>
+     * Tracks the cells mowed on a lawn if the {@link CoverageTracker#COVERAGE_PROPERTY} system property is true.
+     *
+     * @param lawn Lawn of a run, before its mowers are added.
+     */
+    static void enableRequestedCoverage(Lawn lawn) {
+        if (Boolean.getBoolean(CoverageTracker.COVERAGE_PROPERTY)) {
+            lawn.enableCoverage();
+        }
+    }
+
+    /**
+     * Opens the recorder of the trace of a run, if the {@link TraceRecorder#TRACE_PROPERTY} system property is set.
+     * The sampling is given by the {@link TraceRecorder#STEP_INTERVAL_PROPERTY} and
+     * {@link TraceRecorder#MOWER_INTERVAL_PROPERTY} system properties, by default 1 step out of
+     * {@link TraceRecorder#DEFAULT_STEP_INTERVAL} and every mower.
+     *
+     * @return A new recorder to be closed at the end of the run, or null if the run is not traced.
+     * @throws UncheckedIOException If the trace file cannot be written, like when the recorder is closed.
+     */
+    static TraceRecorder openRequestedTrace() {
+        String traceFile = System.getProperty(TraceRecorder.TRACE_PROPERTY);
+        if (traceFile == null) {
+            return null;
+        }
+        try {
+            return TraceRecorder.open(new File(traceFile), TraceRecorder.DEFAULT_CAPACITY,
+                    Integer.getInteger(TraceRecorder.STEP_INTERVAL_PROPERTY, TraceRecorder.DEFAULT_STEP_INTERVAL),
+                    Integer.getInteger(TraceRecorder.MOWER_INTERVAL_PROPERTY, 1));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to write trace file", e);
+        }
+    }
+
+    /**
+     * Logs the summary of the cells mowed on a lawn, if they are tracked.
+     *
+     * @param lawn Lawn at the end of a run.
+     */
+    static void logCoverage(Lawn lawn) {
+        if (lawn.getCoverage() != null) {
+            KataMowerMain.getLogger().info("Coverage: " + lawn.getCoverage().summary());
+        }
+    }
+
+    /**
+     * Creates a mower from the reader input and adds it to the lawn, without creating a Mower object. <br>
      * The input format must be: "positionX positionY orientation".
      *
-     * @param scanner Scanner to read the input.
+     * @param reader Reader of the input.
      * @param lawn Lawn where the mower will move.
-     * @return The created Mower object.
+     * @return The index of the mower in the fleet of the lawn.
      * @throws NoSuchElementException If the input format is invalid.
-     * @throws IllegalArgumentException If the orientation is invalid.
+     * @throws IllegalArgumentException If the orientation or the position is invalid.
      */
-    private static Mower createMower(Scanner scanner, Lawn lawn) throws NoSuchElementException, IllegalArgumentException {
-        int positionX = scanner.nextInt();
-        int positionY = scanner.nextInt();
-        char orientationKey = scanner.next().charAt(0);
+    private static int createMower(InstructionReader reader, Lawn lawn) throws NoSuchElementException, IllegalArgumentException {
+        int positionX = reader.nextInt();
+        int positionY = reader.nextInt();
+        char orientationKey = reader.nextChar();
         EnumOrientation orientation = EnumOrientation.fromKey(orientationKey);
-        Mower mower = new Mower(lawn, positionX, positionY, orientation);
-        lawn.addMower(mower);
-        return mower;
+        return lawn.addMower(positionX, positionY, orientation);
     }
 
     /**
-     * Executes the given instructions on the given mower.
+     * Executes the instructions of the current token of the reader on the given mower. <br>
+     * Instructions are read by chunks and executed by the {@link MowerEngine} as they are read,
+     * so the memory used doesn't depend on the length of the program.
      *
-     * @param mower Mower to execute the instructions on.
-     * @param instructions Instructions to execute.
+     * @param fleet Fleet storing the state of the mower.
+     * @param mowerIndex Index of the mower in the fleet.
+     * @param reader Reader positioned at the beginning of the instructions token.
+     * @param chunk Reusable buffer for the instructions.
+     * @return The wall time spent executing the instructions, without reading them, in nanoseconds.
      * @throws IllegalArgumentException If an invalid instruction is found.
      */
-    private static void executeMowerInstructions(Mower mower, String instructions) throws IllegalArgumentException{
-        for(char instructionKey : instructions.toCharArray()) {
-            EnumInstruction instruction = EnumInstruction.fromKey(instructionKey);
-            switch(instruction) {
-                case FRONT:
-                    mower.moveForwardIfValid();
-                    break;
-                case LEFT:
-                    mower.rotateLeft();
-                    break;
-                case RIGHT:
-                    mower.rotateRight();
-                    break;
-                default:
-                    throw new IllegalArgumentException("Unknown instruction " + instruction);
-            }
+    private static long executeMowerInstructions(MowerFleet fleet, int mowerIndex, InstructionReader reader, byte[] chunk) throws IllegalArgumentException{
+        long executeTime = 0;
+        int count;
+        while((count = reader.readTokenBytes(chunk)) > 0) {
+            long chunkStart = System.nanoTime();
+            MowerEngine.execute(fleet, mowerIndex, chunk, 0, count);
+            executeTime += System.nanoTime() - chunkStart;
+        }
+        return executeTime;
+    }
+
+    /**
+     * Source of the mowers of a run, read in the order of the input.
+     */
+    private interface MowerSource extends Closeable {
+        /**
+         * @return the lawn read from the header of the input, with its obstacles
+         * @throws IOException if the input cannot be read
+         */
+        Lawn createLawn() throws IOException;
+
+        /**
+         * @return true if there is another mower to read
+         * @throws IOException if the input cannot be read
+         */
+        boolean hasNextMower() throws IOException;
+
+        /**
+         * Reads the next mower and adds it to the lawn.
+         *
+         * @param lawn Lawn where the mower will move.
+         * @return The index of the mower in the fleet of the lawn.
+         * @throws IOException If the input cannot be read.
+         */
+        int nextMower(Lawn lawn) throws IOException;
+
+        /**
+         * Reads and executes the instructions of the mower read by the last call to {@link #nextMower(Lawn)}.
+         *
+         * @param fleet Fleet storing the state of the mower.
+         * @param mowerIndex Index of the mower in the fleet.
+         * @return The wall time spent executing the instructions, in nanoseconds.
+         * @throws IllegalArgumentException If an invalid instruction is found.
+         */
+        long executeInstructions(MowerFleet fleet, int mowerIndex);
+    }
+
+    /**
+     * Source of the mowers of a text input, whose instructions are read by chunks.
+     */
+    private static final class TextSource implements MowerSource {
+        /**
+         * Reader of the input.
+         */
+        private final InstructionReader reader;
+        /**
+         * Reusable buffer for the instructions.
+         */
+        private final byte[] instructionChunk = new byte[INSTRUCTION_CHUNK_SIZE];
+
+        /**
+         * @param reader Reader of the input, closed with the source.
+         */
+        TextSource(InstructionReader reader) {
+            this.reader = reader;
+        }
+
+        @Override
+        public Lawn createLawn() {
+            return MowerProgramExecutor.createLawn(reader);
+        }
+
+        @Override
+        public boolean hasNextMower() {
+            return reader.hasNext();
+        }
+
+        @Override
+        public int nextMower(Lawn lawn) {
+            int mowerIndex = createMower(reader, lawn);
+            reader.startToken();
+            return mowerIndex;
+        }
+
+        @Override
+        public long executeInstructions(MowerFleet fleet, int mowerIndex) {
+            return executeMowerInstructions(fleet, mowerIndex, reader, instructionChunk);
+        }
+
+        @Override
+        public void close() throws IOException {
+            reader.close();
+        }
+    }
+
+    /**
+     * Source of the mowers of a text file parsed by chunks with a {@link ParallelInstructionReader}.
+     */
+    private static final class ParallelSource implements MowerSource {
+        /**
+         * Reader of the file.
+         */
+        private final ParallelInstructionReader reader;
+
+        /**
+         * @param reader Reader of the file, closed with the source.
+         */
+        ParallelSource(ParallelInstructionReader reader) {
+            this.reader = reader;
+        }
+
+        @Override
+        public Lawn createLawn() {
+            return MowerProgramExecutor.createLawn(reader.getHeaderReader());
+        }
+
+        @Override
+        public boolean hasNextMower() throws IOException {
+            return reader.hasNextMower();
+        }
+
+        @Override
+        public int nextMower(Lawn lawn) throws IOException {
+            return reader.nextMower(lawn);
         }
+
+        @Override
+        public long executeInstructions(MowerFleet fleet, int mowerIndex) {
+            long start = System.nanoTime();
+            reader.executeInstructions(fleet, mowerIndex);
+            return System.nanoTime() - start;
+        }
+
+        @Override
+        public void close() throws IOException {
+            reader.close();
+        }
+    }
+
+    /**
+     * Source of the mowers of a file in the {@link fr.aymeric.kata.mower.io.BinaryInstructionFormat}.
+     */
+    private static final class BinarySource implements MowerSource {
+        /**
+         * Reader of the file.
+         */
+        private final BinaryInstructionReader reader;
+        /**
+         * Mower read by the last call to {@link #nextMower(Lawn)}.
+         */
+        private Mower mower;
+
+        /**
+         * @param reader Reader of the file, closed with the source.
+         */
+        BinarySource(BinaryInstructionReader reader) {
+            this.reader = reader;
+        }
+
+        @Override
+        public Lawn createLawn() {
+            return reader.createLawn();
+        }
+
+        @Override
+        public boolean hasNextMower() {
+            return reader.hasNextMower();
+        }
+
+        @Override
+        public int nextMower(Lawn lawn) {
+            mower = reader.nextMower(lawn);
+            return lawn.getFleet().size() - 1;
+        }
+
+        @Override
+        public long executeInstructions(MowerFleet fleet, int mowerIndex) {
+            long start = System.nanoTime();
+            reader.executeInstructions(mower);
+            return System.nanoTime() - start;
+        }
+
+        @Override
+        public void close() throws IOException {
+            reader.close();
+        }
+    }
+
+    /**
+     * Opener of the source of a run, whose errors are reported like the reading errors.
+     */
+    private interface SourceOpener {
+        /**
+         * @return a new source, closed by the executor
+         * @throws IOException if the input cannot be opened
+         */
+        MowerSource open() throws IOException;
     }
 }
@@ -0,0 +1,124 @@
+package fr.aymeric.kata.mower;
+
+import fr.aymeric.kata.mower.model.Lawn;
+import fr.aymeric.kata.mower.model.Mower;
+import fr.aymeric.kata.mower.util.EnumOrientation;
+
+/**
+ * MowerProgramInterpreter executes a compiled {@link MowerProgram} on a mower.
+ */
+public final class MowerProgramInterpreter {
+    /**
+     * Utility class, not instantiable.
+     */
+    private MowerProgramInterpreter() {
+    }
+
+    /**
+     * Executes a program on a mower. <br>
+     * The operations are decoded a long at a time, and forward runs are executed by {@link Mower#moveForward(int)}.
+     * When the program starts with a repeated block, the repetitions are skipped as soon as the state of the mower
+     * after a block becomes periodic, see {@link #executeRepeatedBlock(MowerProgram, Mower)}.
+     *
+     * @param program Program to execute.
+     * @param mower Mower to execute the program on.
+     */
+    public static void execute(MowerProgram program, Mower mower) {
+        int from = 0;
+        int runIndex = 0;
+        if (program.getBlockRepetitions() > 1) {
+            executeRepeatedBlock(program, mower);
+            from = program.getBlockLength() * program.getBlockRepetitions();
+            runIndex = program.getBlockRunCount() * program.getBlockRepetitions();
+        }
+        executeOps(program, mower, from, program.getOpCount(), runIndex);
+        mower.getLawn().getMetrics().recordInstructions(program.getInstructionCount());
+    }
+
+    /**
+     * Executes the repetitions of the block at the start of a program. <br>
+     * Nothing else moves while the mower runs, so the state reached after a block only depends on the state before
+     * it: once a state comes back, the following states repeat with the same period. The repetition is detected with
+     * Brent's algorithm, which compares the current state with a single saved state and therefore needs no memory,
+     * then all the complete periods left are skipped at once. The program is executed in O(start + period) blocks.
+     * <br>
+     * The moves blocked since the saved state are the ones of one period, they are counted again for each skipped
+     * period.
+     *
+     * @param program Program to execute, with a repeated block.
+     * @param mower Mower to execute the program on.
+     */
+    private static void executeRepeatedBlock(MowerProgram program, Mower mower) {
+        int blockLength = program.getBlockLength();
+        int repetitions = program.getBlockRepetitions();
+        int savedX = mower.getPositionX();
+        int savedY = mower.getPositionY();
+        EnumOrientation savedOrientation = mower.getOrientation();
+        Lawn lawn = mower.getLawn();
+        long[] savedBlockedMoves = lawn.getPendingBlockedMoves();
+        int power = 1;
+        int period = 1;
+        executeOps(program, mower, 0, blockLength, 0);
+        int done = 1;
+        while (done < repetitions) {
+            if (mower.getPositionX() == savedX && mower.getPositionY() == savedY
+                    && mower.getOrientation() == savedOrientation) {
+                int skipped = (repetitions - done) / period;
+                lawn.countRepeatedBlockedMoves(savedBlockedMoves, skipped);
+                done += skipped * period;
+                break;
+            }
+            if (period == power) {
+                savedX = mower.getPositionX();
+                savedY = mower.getPositionY();
+                savedOrientation = mower.getOrientation();
+                savedBlockedMoves = lawn.getPendingBlockedMoves();
+                power <<= 1;
+                period = 0;
+            }
+            executeOps(program, mower, 0, blockLength, 0);
+            done++;
+            period++;
+        }
+        for (; done < repetitions; done++) {
+            executeOps(program, mower, 0, blockLength, 0);
+        }
+    }
+
+    /**
+     * Executes a range of operations of a program on a mower.
+     *
+     * @param program Program to execute.
+     * @param mower Mower to execute the program on.
+     * @param from Index of the first operation to execute.
+     * @param to Index after the last operation to execute.
+     * @param runIndex Index of the first forward run operation of the range among the forward run operations.
+     */
+    private static void executeOps(MowerProgram program, Mower mower, int from, int to, int runIndex) {
+        long[] ops = program.getOps();
+        int[] runLengths = program.getRunLengths();
+        long word = from < to ? ops[from / MowerProgram.OPS_PER_WORD]
+                >>> ((from % MowerProgram.OPS_PER_WORD) * MowerProgram.OP_BITS) : 0;
+        for (int i = from; i < to; i++) {
+            if (i % MowerProgram.OPS_PER_WORD == 0) {
+                word = ops[i / MowerProgram.OPS_PER_WORD];
+            }
+            int op = (int) word & 3;
+            word >>>= MowerProgram.OP_BITS;
+            switch (op) {
+                case MowerProgram.OP_FORWARD:
+                    mower.moveForwardIfValid();
+                    break;
+                case MowerProgram.OP_LEFT:
+                    mower.rotateLeft();
+                    break;
+                case MowerProgram.OP_RIGHT:
+                    mower.rotateRight();
+                    break;
+                default:
+                    mower.moveForward(runLengths[runIndex++]);
+                    break;
+            }
+        }
+    }
+}
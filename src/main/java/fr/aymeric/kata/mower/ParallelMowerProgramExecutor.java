@@ -0,0 +1,382 @@
+package fr.aymeric.kata.mower;
+
+import fr.aymeric.kata.mower.io.InstructionReader;
+import fr.aymeric.kata.mower.metrics.RunMetrics;
+import fr.aymeric.kata.mower.metrics.SimulationMetrics;
+import fr.aymeric.kata.mower.model.CoverageTracker;
+import fr.aymeric.kata.mower.model.Lawn;
+import fr.aymeric.kata.mower.model.Mower;
+import fr.aymeric.kata.mower.model.occupancy.HashOccupancyIndex;
+import fr.aymeric.kata.mower.output.ResultSink;
+import fr.aymeric.kata.mower.trace.TraceRecorder;
+import fr.aymeric.kata.mower.util.EnumOrientation;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * ParallelMowerProgramExecutor reads mower instructions from a file and executes independent mowers in parallel. <br>
+ * A mower never goes further from its start position than its number of forward moves, which gives the box of the
+ * cells it can reach. Mowers whose boxes overlap, directly or through other mowers, form a group executed in order,
+ * and the groups are executed in parallel on a fork-join pool. Final positions are the same as with
+ * {@link MowerProgramExecutor}. The run is recorded in its own {@link RunMetrics}, added to the {@link SimulationMetrics}.
+ * <br>
+ * The coverage requested by the {@link CoverageTracker#COVERAGE_PROPERTY} is tracked on the lawn of each group, then
+ * merged into the lawn of the run. The steps of the groups are not ordered, so the run can't be traced.
+ */
+public class ParallelMowerProgramExecutor {
+    /**
+     * Reads and executes the mower instructions from the given file, using the common fork-join pool. <br>
+     * The final positions are written to the standard output.
+     *
+     * @param instructionFile File containing the instructions.
+     * @return The lawn after executing the instructions.
+     * @throws RuntimeException If the file format is invalid, the file is not found or cannot be read.
+     * @throws IllegalArgumentException If a mower position or instruction is invalid.
+     */
+    public static Lawn readAndExecuteInstructions(File instructionFile) {
+        return readAndExecuteInstructions(instructionFile, ForkJoinPool.commonPool(), ResultSink.stdout());
+    }
+
+    /**
+     * Reads and executes the mower instructions from the given file. <br>
+     * The whole file is read before the execution, up to the first mower that can't be read. If several mowers fail,
+     * while being read or executed, the error of the first one is thrown, like with a sequential execution, after the
+     * positions of the mowers before it. The sink is flushed at the end of the run, even if it fails, but not closed.
+     *
+     * @param instructionFile File containing the instructions.
+     * @param pool Pool executing the groups of mowers.
+     * @param resultSink Sink of the final positions.
+     * @return The lawn after executing the instructions.
+     * @throws RuntimeException If the file format is invalid, the file is not found or cannot be read.
+     * @throws IllegalArgumentException If a mower position or instruction is invalid.
+     * @throws UnsupportedOperationException If the {@link TraceRecorder#TRACE_PROPERTY} system property is set.
+     */
+    public static Lawn readAndExecuteInstructions(File instructionFile, ForkJoinPool pool, ResultSink resultSink) {
+        if (System.getProperty(TraceRecorder.TRACE_PROPERTY) != null) {
+            throw new UnsupportedOperationException("Runs of the parallel executor are not traced, unset the "
+                    + TraceRecorder.TRACE_PROPERTY + " property");
+        }
+        RunMetrics metrics = new RunMetrics();
+        long parseStart = System.nanoTime();
+        Lawn lawn;
+        List<ParsedMower> mowers = new ArrayList<>();
+        RuntimeException readFailure;
+        try (InstructionReader reader = InstructionReader.open(instructionFile)) {
+            lawn = MowerProgramExecutor.createLawn(reader);
+            lawn.setMetrics(metrics);
+            MowerProgramExecutor.enableRequestedCoverage(lawn);
+            readFailure = readMowers(reader, mowers);
+        } catch (NoSuchElementException | IOException | UncheckedIOException e) {
+            throw MowerProgramExecutor.inputError(e);
+        } finally {
+            metrics.recordParseTime(System.nanoTime() - parseStart);
+        }
+        long executeStart = System.nanoTime();
+        List<int[]> groups = findIndependentGroups(mowers, lawn.getSizeX(), lawn.getSizeY());
+        try {
+            pool.submit(() -> groups.parallelStream().forEach(group -> executeGroup(group, mowers, lawn))).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while executing the mowers", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Unable to execute the mowers", e.getCause());
+        } finally {
+            metrics.recordExecuteTime(System.nanoTime() - executeStart);
+        }
+        try {
+            for (int mowerIndex = 0; mowerIndex < mowers.size(); mowerIndex++) {
+                ParsedMower parsed = mowers.get(mowerIndex);
+                if (parsed.failure != null) {
+                    throw parsed.failure;
+                }
+                lawn.addMower(parsed.finalX, parsed.finalY, parsed.finalOrientation);
+                metrics.recordMowerProcessed();
+                resultSink.accept(mowerIndex + 1, parsed.finalX, parsed.finalY, parsed.finalOrientation);
+            }
+            if (readFailure != null) {
+                throw readFailure;
+            }
+        } finally {
+            resultSink.flush();
+        }
+        MowerProgramExecutor.logCoverage(lawn);
+        KataMowerMain.getLogger().info("Run summary: " + metrics.snapshot().summary());
+        return lawn;
+    }
+
+    /**
+     * Reads the mowers and compiles their programs, until the end of the file or the first mower that can't be read.
+     * <br>
+     * The error of this mower is returned instead of being thrown, so that the mowers before it are still executed
+     * and their positions written, like with a sequential execution.
+     *
+     * @param reader Reader positioned after the lawn size.
+     * @param mowers List receiving the mowers read, in the order of the file.
+     * @return The error thrown by the executors for the mower that can't be read, null if the whole file is read.
+     */
+    private static RuntimeException readMowers(InstructionReader reader, List<ParsedMower> mowers) {
+        MowerProgramCompiler compiler = new MowerProgramCompiler();
+        try {
+            while (reader.hasNext()) {
+                int positionX = reader.nextInt();
+                int positionY = reader.nextInt();
+                EnumOrientation orientation = EnumOrientation.fromKey(reader.nextChar());
+                reader.startToken();
+                int instructionKey;
+                while ((instructionKey = reader.nextTokenByte()) >= 0) {
+                    compiler.append((char) instructionKey);
+                }
+                mowers.add(new ParsedMower(positionX, positionY, orientation, compiler.build()));
+            }
+            return null;
+        } catch (NoSuchElementException | UncheckedIOException e) {
+            return MowerProgramExecutor.inputError(e);
+        } catch (IllegalArgumentException e) {
+            return e;
+        }
+    }
+
+    /**
+     * Splits the mowers in groups that can't interact with each other. <br>
+     * Boxes are swept by increasing minimum on one axis, each box being compared with the boxes still open on this
+     * axis. The axis is the one where the boxes overlap the least, so that a column or a row of mowers doesn't keep
+     * all of them open. The boxes are sorted as packed {@code minimum << 32 | index} keys.
+     *
+     * @param mowers Mowers to split.
+     * @param sizeX Size of the lawn on X axis.
+     * @param sizeY Size of the lawn on Y axis.
+     * @return The groups, each one being the sorted indexes of its mowers.
+     */
+    static List<int[]> findIndependentGroups(List<ParsedMower> mowers, int sizeX, int sizeY) {
+        int count = mowers.size();
+        int[] minX = new int[count];
+        int[] maxX = new int[count];
+        int[] minY = new int[count];
+        int[] maxY = new int[count];
+        for (int i = 0; i < count; i++) {
+            ParsedMower mower = mowers.get(i);
+            long reach = mower.program.getForwardMoveCount();
+            minX[i] = (int) Math.max(0, mower.x - reach);
+            maxX[i] = (int) Math.min(sizeX, mower.x + reach);
+            minY[i] = (int) Math.max(0, mower.y - reach);
+            maxY[i] = (int) Math.min(sizeY, mower.y + reach);
+        }
+        boolean sweepX = overlapDensity(minX, maxX) <= overlapDensity(minY, maxY);
+        int[] sweepMin = sweepX ? minX : minY;
+        int[] sweepMax = sweepX ? maxX : maxY;
+        int[] otherMin = sweepX ? minY : minX;
+        int[] otherMax = sweepX ? maxY : maxX;
+        long[] sorted = new long[count];
+        for (int i = 0; i < count; i++) {
+            sorted[i] = (long) sweepMin[i] << 32 | i;
+        }
+        Arrays.sort(sorted);
+
+        int[] parents = new int[count];
+        for (int i = 0; i < count; i++) {
+            parents[i] = i;
+        }
+        int[] open = new int[count];
+        int openCount = 0;
+        for (long key : sorted) {
+            int index = (int) key;
+            int start = sweepMin[index];
+            int kept = 0;
+            for (int i = 0; i < openCount; i++) {
+                int other = open[i];
+                if (sweepMax[other] >= start) {
+                    open[kept++] = other;
+                    if (otherMin[other] <= otherMax[index] && otherMin[index] <= otherMax[other]) {
+                        union(parents, index, other);
+                    }
+                }
+            }
+            open[kept] = index;
+            openCount = kept + 1;
+        }
+
+        int[] groupSizes = new int[count];
+        for (int i = 0; i < count; i++) {
+            groupSizes[find(parents, i)]++;
+        }
+        int[][] groupsByRoot = new int[count][];
+        int[] filled = new int[count];
+        List<int[]> groups = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            int root = find(parents, i);
+            if (groupsByRoot[root] == null) {
+                groupsByRoot[root] = new int[groupSizes[root]];
+                groups.add(groupsByRoot[root]);
+            }
+            groupsByRoot[root][filled[root]++] = i;
+        }
+        return groups;
+    }
+
+    /**
+     * Executes the mowers of a group in order, on a private lawn holding only the mowers of the group. <br>
+     * A failing mower stops the group, the following mowers of the group are not executed. If the coverage of the run
+     * is tracked, the cells mowed by the group are merged into it at the end of the group.
+     *
+     * @param group Sorted indexes of the mowers of the group.
+     * @param mowers All the mowers, whose final state is updated.
+     * @param lawn The lawn giving the size, the obstacles, the metrics and the coverage of the run.
+     */
+    private static void executeGroup(int[] group, List<ParsedMower> mowers, Lawn lawn) {
+        Lawn groupLawn = new Lawn(lawn.getSizeX(), lawn.getSizeY(), new HashOccupancyIndex());
+        groupLawn.setObstacles(lawn.getObstacles());
+        groupLawn.setMetrics(lawn.getMetrics());
+        CoverageTracker coverage = lawn.getCoverage();
+        if (coverage != null) {
+            groupLawn.enableCoverage();
+        }
+        try {
+            executeMowers(group, mowers, groupLawn);
+        } finally {
+            if (coverage != null) {
+                synchronized (coverage) {
+                    coverage.merge(groupLawn.getCoverage(), group);
+                }
+            }
+        }
+    }
+
+    /**
+     * Executes the mowers of a group in order on the lawn of the group, until one of them fails.
+     *
+     * @param group Sorted indexes of the mowers of the group.
+     * @param mowers All the mowers, whose final state is updated.
+     * @param groupLawn Lawn of the group, without mowers.
+     */
+    private static void executeMowers(int[] group, List<ParsedMower> mowers, Lawn groupLawn) {
+        for (int index : group) {
+            ParsedMower parsed = mowers.get(index);
+            try {
+                Mower mower = new Mower(groupLawn, parsed.x, parsed.y, parsed.orientation);
+                groupLawn.addMower(mower);
+                MowerProgramInterpreter.execute(parsed.program, mower);
+                parsed.finalX = mower.getPositionX();
+                parsed.finalY = mower.getPositionY();
+                parsed.finalOrientation = mower.getOrientation();
+            } catch (RuntimeException e) {
+                parsed.failure = e;
+                return;
+            }
+        }
+    }
+
+    /**
+     * Measures how much boxes overlap on an axis: the sum of their extents divided by the extent they span together.
+     *
+     * @param min Minimum of each box on the axis.
+     * @param max Maximum of each box on the axis.
+     * @return The average number of boxes over a position of the axis.
+     */
+    private static double overlapDensity(int[] min, int[] max) {
+        long lowest = Long.MAX_VALUE;
+        long highest = Long.MIN_VALUE;
+        long extents = 0;
+        for (int i = 0; i < min.length; i++) {
+            lowest = Math.min(lowest, min[i]);
+            highest = Math.max(highest, max[i]);
+            extents += (long) max[i] - min[i] + 1;
+        }
+        return min.length == 0 ? 0 : (double) extents / (highest - lowest + 1);
+    }
+
+    /**
+     * Finds the root of a union-find set, compressing the path.
+     *
+     * @param parents Parent of each element.
+     * @param element The element.
+     * @return The root of the set of the element.
+     */
+    private static int find(int[] parents, int element) {
+        int root = element;
+        while (parents[root] != root) {
+            root = parents[root];
+        }
+        while (parents[element] != root) {
+            int next = parents[element];
+            parents[element] = root;
+            element = next;
+        }
+        return root;
+    }
+
+    /**
+     * Merges the union-find sets of two elements.
+     *
+     * @param parents Parent of each element.
+     * @param first First element.
+     * @param second Second element.
+     */
+    private static void union(int[] parents, int first, int second) {
+        int firstRoot = find(parents, first);
+        int secondRoot = find(parents, second);
+        if (firstRoot != secondRoot) {
+            parents[Math.max(firstRoot, secondRoot)] = Math.min(firstRoot, secondRoot);
+        }
+    }
+
+    /**
+     * A mower read from the file, with its compiled program and its state after the execution.
+     */
+    static final class ParsedMower {
+        /**
+         * Initial X position.
+         */
+        private final int x;
+        /**
+         * Initial Y position.
+         */
+        private final int y;
+        /**
+         * Initial orientation.
+         */
+        private final EnumOrientation orientation;
+        /**
+         * Compiled program.
+         */
+        private final MowerProgram program;
+        /**
+         * Final X position.
+         */
+        private int finalX;
+        /**
+         * Final Y position.
+         */
+        private int finalY;
+        /**
+         * Final orientation.
+         */
+        private EnumOrientation finalOrientation;
+        /**
+         * Error raised while executing the mower, if any.
+         */
+        private RuntimeException failure;
+
+        /**
+         * Constructor of a parsed mower.
+         *
+         * @param x Initial X position.
+         * @param y Initial Y position.
+         * @param orientation Initial orientation.
+         * @param program Compiled program.
+         */
+        ParsedMower(int x, int y, EnumOrientation orientation, MowerProgram program) {
+            this.x = x;
+            this.y = y;
+            this.orientation = orientation;
+            this.program = program;
+        }
+    }
+}
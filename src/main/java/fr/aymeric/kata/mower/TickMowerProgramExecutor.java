@@ -0,0 +1,116 @@
+package fr.aymeric.kata.mower;
+
+import fr.aymeric.kata.mower.io.InstructionReader;
+import fr.aymeric.kata.mower.metrics.RunMetrics;
+import fr.aymeric.kata.mower.metrics.SimulationMetrics;
+import fr.aymeric.kata.mower.model.Lawn;
+import fr.aymeric.kata.mower.model.MowerFleet;
+import fr.aymeric.kata.mower.model.TickSimulation;
+import fr.aymeric.kata.mower.output.ResultSink;
+import fr.aymeric.kata.mower.trace.TraceRecorder;
+import fr.aymeric.kata.mower.util.EnumOrientation;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * TickMowerProgramExecutor reads mower instructions from a file and executes the mowers simultaneously, one
+ * instruction per mower and per tick, with a {@link TickSimulation}. <br>
+ * All the mowers are placed before the first tick, so unlike {@link MowerProgramExecutor} a mower cannot start on
+ * the final position of a previous one but on its initial position, and the final positions depend on the
+ * collisions between mowers moving at the same time.
+ */
+public class TickMowerProgramExecutor {
+    /**
+     * Reads and executes the mower instructions from the given file, using the common fork-join pool. <br>
+     * The final positions are written to the standard output.
+     *
+     * @param instructionFile File containing the instructions.
+     * @return The lawn after executing the instructions.
+     * @throws RuntimeException If the file format is invalid, the file is not found or cannot be read.
+     * @throws IllegalArgumentException If a mower position or instruction is invalid.
+     */
+    public static Lawn readAndExecuteInstructions(File instructionFile) {
+        return readAndExecuteInstructions(instructionFile, ForkJoinPool.commonPool(), ResultSink.stdout());
+    }
+
+    /**
+     * Reads and executes the mower instructions from the given file. <br>
+     * The whole file is read before the first tick. The sink is flushed at the end of the run, even if it fails, but
+     * not closed.
+     *
+     * @param instructionFile File containing the instructions.
+     * @param pool Pool executing the ticks.
+     * @param resultSink Sink of the final positions.
+     * @return The lawn after executing the instructions.
+     * @throws RuntimeException If the file format is invalid, the file is not found or cannot be read.
+     * @throws IllegalArgumentException If a mower position or instruction is invalid.
+     * @throws UncheckedIOException If the requested trace file cannot be written.
+     */
+    public static Lawn readAndExecuteInstructions(File instructionFile, ForkJoinPool pool, ResultSink resultSink) {
+        RunMetrics metrics = new RunMetrics();
+        long parseStart = System.nanoTime();
+        // Opened out of the input errors mapping, so the errors of the trace are not reported as such
+        try (TraceRecorder trace = MowerProgramExecutor.openRequestedTrace()) {
+            Lawn lawn;
+            TickSimulation simulation;
+            try (InstructionReader reader = InstructionReader.open(instructionFile)) {
+                lawn = MowerProgramExecutor.createLawn(reader);
+                lawn.setMetrics(metrics);
+                MowerProgramExecutor.enableRequestedCoverage(lawn);
+                lawn.setTraceRecorder(trace);
+                simulation = new TickSimulation(lawn, readPrograms(reader, lawn), pool);
+            } catch (NoSuchElementException | IOException | UncheckedIOException e) {
+                throw MowerProgramExecutor.inputError(e);
+            } finally {
+                metrics.recordParseTime(System.nanoTime() - parseStart);
+            }
+            long executeStart = System.nanoTime();
+            try {
+                simulation.run();
+            } finally {
+                metrics.recordExecuteTime(System.nanoTime() - executeStart);
+            }
+            MowerFleet fleet = lawn.getFleet();
+            for (int mowerIndex = 0; mowerIndex < fleet.size(); mowerIndex++) {
+                metrics.recordMowerProcessed();
+                resultSink.accept(mowerIndex + 1, fleet.getPositionX(mowerIndex), fleet.getPositionY(mowerIndex),
+                        fleet.getOrientation(mowerIndex));
+            }
+            MowerProgramExecutor.logCoverage(lawn);
+            KataMowerMain.getLogger().info("Run summary: " + simulation.getTick() + " ticks, "
+                    + metrics.snapshot().summary());
+            return lawn;
+        } finally {
+            resultSink.flush();
+        }
+    }
+
+    /**
+     * Reads all the mowers, adds them to the lawn and reads their instructions.
+     *
+     * @param reader Reader positioned after the lawn size.
+     * @param lawn Lawn where the mowers are added.
+     * @return The instruction keys of each mower, by index in the fleet of the lawn.
+     * @throws NoSuchElementException If the input format is invalid.
+     * @throws IllegalArgumentException If an orientation or a position is invalid.
+     */
+    private static byte[][] readPrograms(InstructionReader reader, Lawn lawn) {
+        List<byte[]> programs = new ArrayList<>();
+        while (reader.hasNext()) {
+            int positionX = reader.nextInt();
+            int positionY = reader.nextInt();
+            EnumOrientation orientation = EnumOrientation.fromKey(reader.nextChar());
+            lawn.addMower(positionX, positionY, orientation);
+            int length = reader.nextToken();
+            programs.add(Arrays.copyOf(reader.getToken(), length));
+        }
+        return programs.toArray(new byte[0][]);
+    }
+}
@@ -0,0 +1,186 @@
+package fr.aymeric.kata.mower.cache;
+
+import fr.aymeric.kata.mower.model.Lawn;
+import fr.aymeric.kata.mower.model.MowerFleet;
+import fr.aymeric.kata.mower.model.occupancy.ObstacleIndex;
+import fr.aymeric.kata.mower.output.ResultSink;
+import fr.aymeric.kata.mower.util.EnumOrientation;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * CachedResult holds the final state of a run: the size and the obstacles of the lawn, and the final position of each
+ * mower. <br>
+ * It is enough to rebuild the lawn returned by the executors and to give the final positions to a sink, without
+ * reading nor executing the instructions again.
+ */
+public final class CachedResult {
+    /**
+     * Version of the serialized form, written first.
+     */
+    private static final int FORMAT_VERSION = 2;
+    /**
+     * Orientations by ordinal.
+     */
+    private static final EnumOrientation[] ORIENTATIONS = EnumOrientation.values();
+
+    /**
+     * Size of the lawn on X axis.
+     */
+    private final int sizeX;
+    /**
+     * Size of the lawn on Y axis.
+     */
+    private final int sizeY;
+    /**
+     * X position, Y position and orientation ordinal of each mower, in the order of the run.
+     */
+    private final int[] states;
+    /**
+     * Obstacles of the lawn, shared with the lawns rebuilt from the result.
+     */
+    private final ObstacleIndex obstacles;
+    /**
+     * Obstacles of the lawn as segments of rows, see {@link ObstacleIndex#getRowSegments()}.
+     */
+    private final int[] obstacleSegments;
+
+    /**
+     * Constructor of a result. The arrays are not copied.
+     *
+     * @param sizeX Size of the lawn on X axis.
+     * @param sizeY Size of the lawn on Y axis.
+     * @param states X position, Y position and orientation ordinal of each mower.
+     * @param obstacles Obstacles of the lawn.
+     * @param obstacleSegments Obstacles of the lawn as segments of rows.
+     */
+    private CachedResult(int sizeX, int sizeY, int[] states, ObstacleIndex obstacles, int[] obstacleSegments) {
+        this.sizeX = sizeX;
+        this.sizeY = sizeY;
+        this.states = states;
+        this.obstacles = obstacles;
+        this.obstacleSegments = obstacleSegments;
+    }
+
+    /**
+     * Creates the result of a run from its final lawn.
+     *
+     * @param lawn Lawn after the execution of the instructions.
+     * @return The result of the run.
+     */
+    public static CachedResult of(Lawn lawn) {
+        MowerFleet fleet = lawn.getFleet();
+        int[] states = new int[fleet.size() * 3];
+        for (int i = 0; i < fleet.size(); i++) {
+            states[i * 3] = fleet.getPositionX(i);
+            states[i * 3 + 1] = fleet.getPositionY(i);
+            states[i * 3 + 2] = fleet.getOrientation(i).ordinal();
+        }
+        ObstacleIndex obstacles = lawn.getObstacles();
+        return new CachedResult(lawn.getSizeX(), lawn.getSizeY(), states, obstacles, obstacles.getRowSegments());
+    }
+
+    /**
+     * Gives the final positions to a sink, and rebuilds the final lawn. <br>
+     * The sink is flushed but not closed, like by the executors.
+     *
+     * @param resultSink Sink of the final positions.
+     * @return A lawn holding the obstacles and the mowers at their final positions.
+     */
+    public Lawn replay(ResultSink resultSink) {
+        Lawn lawn = new Lawn(sizeX, sizeY);
+        if (!obstacles.isEmpty()) {
+            lawn.setObstacles(obstacles);
+        }
+        for (int i = 0; i < getMowerCount(); i++) {
+            EnumOrientation orientation = ORIENTATIONS[states[i * 3 + 2]];
+            lawn.addMower(states[i * 3], states[i * 3 + 1], orientation);
+            resultSink.accept(i + 1, states[i * 3], states[i * 3 + 1], orientation);
+        }
+        resultSink.flush();
+        return lawn;
+    }
+
+    /**
+     * @return the number of mowers of the run
+     */
+    public int getMowerCount() {
+        return states.length / 3;
+    }
+
+    /**
+     * @return the approximate number of bytes taken by the result in memory
+     */
+    long getWeight() {
+        // The segments of the obstacles are also held by the rows and the columns of their index
+        return 64 + 4L * states.length + 12L * obstacleSegments.length;
+    }
+
+    /**
+     * Writes the result.
+     *
+     * @param output Stream to write to.
+     * @throws IOException If the result cannot be written.
+     */
+    void writeTo(DataOutputStream output) throws IOException {
+        output.writeInt(FORMAT_VERSION);
+        output.writeInt(sizeX);
+        output.writeInt(sizeY);
+        output.writeInt(getMowerCount());
+        for (int state : states) {
+            output.writeInt(state);
+        }
+        output.writeInt(obstacleSegments.length / 3);
+        for (int value : obstacleSegments) {
+            output.writeInt(value);
+        }
+    }
+
+    /**
+     * Reads a result written by {@link #writeTo(DataOutputStream)}.
+     *
+     * @param input Stream to read from.
+     * @return The result.
+     * @throws IOException If the result cannot be read or is invalid.
+     */
+    static CachedResult readFrom(DataInputStream input) throws IOException {
+        if (input.readInt() != FORMAT_VERSION) {
+            throw new IOException("Unsupported cached result version");
+        }
+        int sizeX = input.readInt();
+        int sizeY = input.readInt();
+        int mowerCount = input.readInt();
+        if (mowerCount < 0 || mowerCount > Integer.MAX_VALUE / 3) {
+            throw new IOException("Invalid cached mower count: " + mowerCount);
+        }
+        int[] states = new int[mowerCount * 3];
+        for (int i = 0; i < states.length; i++) {
+            states[i] = input.readInt();
+        }
+        for (int i = 2; i < states.length; i += 3) {
+            if (states[i] < 0 || states[i] >= ORIENTATIONS.length) {
+                throw new IOException("Invalid cached orientation: " + states[i]);
+            }
+        }
+        int segmentCount = input.readInt();
+        if (segmentCount < 0 || segmentCount > Integer.MAX_VALUE / 3) {
+            throw new IOException("Invalid cached obstacle count: " + segmentCount);
+        }
+        int[] obstacleSegments = new int[segmentCount * 3];
+        ObstacleIndex.Builder obstacles = new ObstacleIndex.Builder(sizeX, sizeY);
+        for (int i = 0; i < obstacleSegments.length; i += 3) {
+            obstacleSegments[i] = input.readInt();
+            obstacleSegments[i + 1] = input.readInt();
+            obstacleSegments[i + 2] = input.readInt();
+            try {
+                obstacles.addRectangle(obstacleSegments[i + 1], obstacleSegments[i], obstacleSegments[i + 2],
+                        obstacleSegments[i]);
+            } catch (IllegalArgumentException e) {
+                throw new IOException("Invalid cached obstacle", e);
+            }
+        }
+        return new CachedResult(sizeX, sizeY, states, obstacles.build(), obstacleSegments);
+    }
+}
@@ -0,0 +1,475 @@
+package fr.aymeric.kata.mower.cache;
+
+import fr.aymeric.kata.mower.KataMowerMain;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+
+/**
+ * ResultCache keeps the results of runs by the SHA-256 hash of their input, so that running the same instructions
+ * again skips both the parsing and the execution. <br>
+ * Results are kept in two tiers:
+ * <ul>
+ *     <li>a memory tier, bounded by the approximate size of its results, evicting the least recently used;</li>
+ *     <li>an optional disk tier, one file per result in a directory, bounded by the size of its files and evicting
+ *     the least recently used as well. The files are read back when the cache is created, so the tier survives
+ *     restarts. A hit on the disk tier promotes the result to the memory tier.</li>
+ * </ul>
+ * The cache is thread-safe. Hits and misses are counted, see {@link #getStats()}.
+ */
+public class ResultCache {
+    /**
+     * Extension of the files of the disk tier.
+     */
+    private static final String FILE_EXTENSION = ".result";
+    /**
+     * Size of the chunks read to hash a file.
+     */
+    private static final int HASH_CHUNK_SIZE = 1 << 16;
+    /**
+     * Hexadecimal digits, to format the hashes.
+     */
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    /**
+     * Memory tier, in access order.
+     */
+    private final LinkedHashMap<String, CachedResult> memory = new LinkedHashMap<>(16, 0.75f, true);
+    /**
+     * Maximum total weight of the memory tier.
+     */
+    private final long maxMemoryBytes;
+    /**
+     * Total weight of the memory tier.
+     */
+    private long memoryBytes;
+    /**
+     * Directory of the disk tier, null if there is no disk tier.
+     */
+    private final Path directory;
+    /**
+     * Sizes of the files of the disk tier by key, in access order.
+     */
+    private final LinkedHashMap<String, Long> disk = new LinkedHashMap<>(16, 0.75f, true);
+    /**
+     * Maximum total size of the files of the disk tier.
+     */
+    private final long maxDiskBytes;
+    /**
+     * Total size of the files of the disk tier.
+     */
+    private long diskBytes;
+    /**
+     * Number of results found in the memory tier.
+     */
+    private long memoryHits;
+    /**
+     * Number of results found in the disk tier.
+     */
+    private long diskHits;
+    /**
+     * Number of results not found.
+     */
+    private long misses;
+    /**
+     * Number of results evicted from a tier.
+     */
+    private long evictions;
+
+    /**
+     * Constructor of a cache with a memory tier only.
+     *
+     * @param maxMemoryBytes Maximum approximate size of the results kept in memory.
+     */
+    public ResultCache(long maxMemoryBytes) {
+        this.maxMemoryBytes = maxMemoryBytes;
+        this.directory = null;
+        this.maxDiskBytes = 0;
+    }
+
+    /**
+     * Constructor of a cache with a memory tier and a disk tier. <br>
+     * The directory is created if needed, and the results it already holds are part of the disk tier.
+     *
+     * @param maxMemoryBytes Maximum approximate size of the results kept in memory.
+     * @param directory Directory of the disk tier.
+     * @param maxDiskBytes Maximum size of the files of the disk tier.
+     * @throws IOException If the directory cannot be created or listed.
+     */
+    public ResultCache(long maxMemoryBytes, Path directory, long maxDiskBytes) throws IOException {
+        this.maxMemoryBytes = maxMemoryBytes;
+        this.directory = Files.createDirectories(directory);
+        this.maxDiskBytes = maxDiskBytes;
+        loadDiskTier();
+    }
+
+    /**
+     * Computes the key of an input.
+     *
+     * @param content Content of the input.
+     * @return The hexadecimal SHA-256 hash of the content.
+     */
+    public static String key(byte[] content) {
+        MessageDigest digest = newDigest();
+        digest.update(content);
+        return toHex(digest.digest());
+    }
+
+    /**
+     * Computes the key of an input file, without loading the whole file in memory.
+     *
+     * @param file Input file.
+     * @return The hexadecimal SHA-256 hash of the content of the file.
+     * @throws IOException If the file cannot be read, {@link java.nio.file.NoSuchFileException} if it doesn't exist.
+     */
+    public static String key(File file) throws IOException {
+        MessageDigest digest = newDigest();
+        ByteBuffer buffer = ByteBuffer.allocate(HASH_CHUNK_SIZE);
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            while (channel.read(buffer) >= 0) {
+                buffer.flip();
+                digest.update(buffer);
+                buffer.clear();
+            }
+        }
+        return toHex(digest.digest());
+    }
+
+    /**
+     * Looks up a result, in the memory tier then in the disk tier.
+     *
+     * @param key Key of the input, see {@link #key(byte[])}.
+     * @return The result, or null if it is not in the cache.
+     */
+    public synchronized CachedResult get(String key) {
+        CachedResult result = memory.get(key);
+        if (result != null) {
+            memoryHits++;
+            return result;
+        }
+        if (directory != null && disk.get(key) != null) {
+            result = readFile(key);
+            if (result != null) {
+                diskHits++;
+                putInMemory(key, result);
+                return result;
+            }
+        }
+        misses++;
+        return null;
+    }
+
+    /**
+     * Stores a result in the memory tier, and in the disk tier if any.
+     *
+     * @param key Key of the input, see {@link #key(byte[])}.
+     * @param result Result of the run of the input.
+     */
+    public synchronized void put(String key, CachedResult result) {
+        putInMemory(key, result);
+        if (directory != null && !disk.containsKey(key)) {
+            writeFile(key, result);
+        }
+    }
+
+    /**
+     * @return the statistics of the cache since its creation
+     */
+    public synchronized Stats getStats() {
+        return new Stats(memoryHits, diskHits, misses, evictions, memory.size(), memoryBytes, disk.size(), diskBytes);
+    }
+
+    /**
+     * Stores a result in the memory tier, evicting the least recently used results over the maximum size. <br>
+     * A result larger than the whole tier is not kept.
+     *
+     * @param key Key of the input.
+     * @param result Result of the run of the input.
+     */
+    private void putInMemory(String key, CachedResult result) {
+        CachedResult previous = memory.put(key, result);
+        if (previous != null) {
+            memoryBytes -= previous.getWeight();
+        }
+        memoryBytes += result.getWeight();
+        Iterator<Map.Entry<String, CachedResult>> eldest = memory.entrySet().iterator();
+        while (memoryBytes > maxMemoryBytes && eldest.hasNext()) {
+            memoryBytes -= eldest.next().getValue().getWeight();
+            eldest.remove();
+            evictions++;
+        }
+    }
+
+    /**
+     * Writes a result to the disk tier, evicting the least recently used files over the maximum size. <br>
+     * The file is written to a temporary file then renamed, so a crash never leaves a partial result. A write error
+     * only loses the disk copy of the result, and the temporary file is deleted.
+     *
+     * @param key Key of the input.
+     * @param result Result of the run of the input.
+     */
+    private void writeFile(String key, CachedResult result) {
+        Path file = directory.resolve(key + FILE_EXTENSION);
+        Path temporary = null;
+        try {
+            temporary = Files.createTempFile(directory, key, ".tmp");
+            try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+                result.writeTo(output);
+            }
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            temporary = null;
+            long size = Files.size(file);
+            disk.put(key, size);
+            diskBytes += size;
+        } catch (IOException e) {
+            KataMowerMain.getLogger().log(Level.WARNING, "Unable to write the cached result " + file, e);
+            return;
+        } finally {
+            if (temporary != null) {
+                // The write or the move failed
+                deleteFile(temporary);
+            }
+        }
+        Iterator<Map.Entry<String, Long>> eldest = disk.entrySet().iterator();
+        while (diskBytes > maxDiskBytes && eldest.hasNext()) {
+            Map.Entry<String, Long> entry = eldest.next();
+            deleteFile(entry.getKey());
+            diskBytes -= entry.getValue();
+            eldest.remove();
+            evictions++;
+        }
+    }
+
+    /**
+     * Reads a result from the disk tier, and marks the file as recently used. <br>
+     * A file that cannot be read is removed from the tier.
+     *
+     * @param key Key of the input.
+     * @return The result, or null if the file cannot be read.
+     */
+    private CachedResult readFile(String key) {
+        Path file = directory.resolve(key + FILE_EXTENSION);
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            CachedResult result = CachedResult.readFrom(input);
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+            return result;
+        } catch (IOException e) {
+            KataMowerMain.getLogger().log(Level.WARNING, "Unable to read the cached result " + file, e);
+            diskBytes -= disk.remove(key);
+            deleteFile(key);
+            return null;
+        }
+    }
+
+    /**
+     * Deletes a file of the disk tier, a failure only being logged.
+     *
+     * @param key Key of the input.
+     */
+    private void deleteFile(String key) {
+        deleteFile(directory.resolve(key + FILE_EXTENSION));
+    }
+
+    /**
+     * Deletes a file of the directory of the disk tier, a failure only being logged.
+     *
+     * @param file File to delete.
+     */
+    private static void deleteFile(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            KataMowerMain.getLogger().log(Level.WARNING, "Unable to delete the cached result " + file, e);
+        }
+    }
+
+    /**
+     * Lists the files already in the directory of the disk tier, the least recently used first.
+     *
+     * @throws IOException If the directory cannot be listed.
+     */
+    private void loadDiskTier() throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + FILE_EXTENSION)) {
+            for (Path file : stream) {
+                files.add(file);
+            }
+        }
+        List<long[]> times = new ArrayList<>();
+        for (int i = 0; i < files.size(); i++) {
+            times.add(new long[]{Files.getLastModifiedTime(files.get(i)).toMillis(), i});
+        }
+        times.sort((first, second) -> Long.compare(first[0], second[0]));
+        for (long[] time : times) {
+            Path file = files.get((int) time[1]);
+            String name = file.getFileName().toString();
+            long size = Files.size(file);
+            disk.put(name.substring(0, name.length() - FILE_EXTENSION.length()), size);
+            diskBytes += size;
+        }
+    }
+
+    /**
+     * @return a new SHA-256 digest
+     */
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform supports SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * @param bytes bytes to format
+     * @return the bytes in hexadecimal, two lowercase digits per byte
+     */
+    private static String toHex(byte[] bytes) {
+        char[] hex = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            hex[i * 2] = HEX_DIGITS[(bytes[i] >> 4) & 0xF];
+            hex[i * 2 + 1] = HEX_DIGITS[bytes[i] & 0xF];
+        }
+        return new String(hex);
+    }
+
+    /**
+     * Statistics of a cache at a given time.
+     */
+    public static final class Stats {
+        /**
+         * Number of results found in the memory tier.
+         */
+        private final long memoryHits;
+        /**
+         * Number of results found in the disk tier.
+         */
+        private final long diskHits;
+        /**
+         * Number of results not found.
+         */
+        private final long misses;
+        /**
+         * Number of results evicted from a tier.
+         */
+        private final long evictions;
+        /**
+         * Number of results in the memory tier.
+         */
+        private final int memoryEntries;
+        /**
+         * Approximate size of the results of the memory tier.
+         */
+        private final long memoryBytes;
+        /**
+         * Number of results in the disk tier.
+         */
+        private final int diskEntries;
+        /**
+         * Size of the files of the disk tier.
+         */
+        private final long diskBytes;
+
+        /**
+         * Constructor of the statistics.
+         *
+         * @param memoryHits Number of results found in the memory tier.
+         * @param diskHits Number of results found in the disk tier.
+         * @param misses Number of results not found.
+         * @param evictions Number of results evicted from a tier.
+         * @param memoryEntries Number of results in the memory tier.
+         * @param memoryBytes Approximate size of the results of the memory tier.
+         * @param diskEntries Number of results in the disk tier.
+         * @param diskBytes Size of the files of the disk tier.
+         */
+        private Stats(long memoryHits, long diskHits, long misses, long evictions, int memoryEntries,
+                      long memoryBytes, int diskEntries, long diskBytes) {
+            this.memoryHits = memoryHits;
+            this.diskHits = diskHits;
+            this.misses = misses;
+            this.evictions = evictions;
+            this.memoryEntries = memoryEntries;
+            this.memoryBytes = memoryBytes;
+            this.diskEntries = diskEntries;
+            this.diskBytes = diskBytes;
+        }
+
+        /**
+         * @return the number of results found in the memory tier
+         */
+        public long getMemoryHits() {
+            return memoryHits;
+        }
+
+        /**
+         * @return the number of results found in the disk tier
+         */
+        public long getDiskHits() {
+            return diskHits;
+        }
+
+        /**
+         * @return the number of results not found
+         */
+        public long getMisses() {
+            return misses;
+        }
+
+        /**
+         * @return the number of results evicted from a tier
+         */
+        public long getEvictions() {
+            return evictions;
+        }
+
+        /**
+         * @return the number of results in the memory tier
+         */
+        public int getMemoryEntries() {
+            return memoryEntries;
+        }
+
+        /**
+         * @return the number of results in the disk tier
+         */
+        public int getDiskEntries() {
+            return diskEntries;
+        }
+
+        /**
+         * @return the ratio of lookups found in a tier, 0 if there was no lookup
+         */
+        public double getHitRatio() {
+            long lookups = memoryHits + diskHits + misses;
+            return lookups == 0 ? 0 : (double) (memoryHits + diskHits) / lookups;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Stats{%d memory hits, %d disk hits, %d misses, %d evictions, "
+                            + "memory %d results (%d bytes), disk %d results (%d bytes)}",
+                    memoryHits, diskHits, misses, evictions, memoryEntries, memoryBytes, diskEntries, diskBytes);
+        }
+    }
+}
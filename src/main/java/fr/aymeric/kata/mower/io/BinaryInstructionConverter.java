@@ -0,0 +1,144 @@
+package fr.aymeric.kata.mower.io;
+
+import fr.aymeric.kata.mower.util.EnumInstruction;
+import fr.aymeric.kata.mower.util.EnumOrientation;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * BinaryInstructionConverter converts a text instruction file to the {@link BinaryInstructionFormat}. <br>
+ * The instructions of a mower are packed in memory before its record is written, because the record starts with
+ * its length: converting a mower of n instructions needs n / 4 bytes.
+ * <p>
+ * Usage:
+ * <pre>
+ * java -cp MowerProgram.jar fr.aymeric.kata.mower.io.BinaryInstructionConverter textFile binaryFile
+ * </pre>
+ * </p>
+ */
+public class BinaryInstructionConverter {
+    /**
+     * Number of instructions read at once.
+     */
+    private static final int INSTRUCTION_CHUNK_SIZE = 8192;
+
+    /**
+     * Reusable buffer of the instruction keys read.
+     */
+    private final byte[] instructionChunk = new byte[INSTRUCTION_CHUNK_SIZE];
+    /**
+     * Packed instructions of the current mower.
+     */
+    private byte[] packedInstructions = new byte[64];
+
+    /**
+     * Converts a text instruction file.
+     *
+     * @param args Command line arguments.
+     *             args[0]: Path to the text file.
+     *             args[1]: Path to the binary file to write.
+     */
+    public static void main(String[] args) {
+        if (args.length != 2) {
+            System.err.println("Usage: BinaryInstructionConverter textFile binaryFile");
+            return;
+        }
+        convert(new File(args[0]), new File(args[1]));
+    }
+
+    /**
+     * Converts a text instruction file to a binary instruction file. <br>
+     * The instructions are validated, but the mowers are not executed.
+     *
+     * @param textFile Text file to read.
+     * @param binaryFile Binary file to write, replaced if it exists.
+     * @throws RuntimeException If the text file format is invalid, the file is not found or cannot be read,
+     * or the binary file cannot be written.
+     * @throws IllegalArgumentException If an orientation or an instruction is invalid.
+     */
+    public static void convert(File textFile, File binaryFile) {
+        try (InstructionReader reader = InstructionReader.open(textFile);
+             OutputStream out = new BufferedOutputStream(Files.newOutputStream(binaryFile.toPath()))) {
+            new BinaryInstructionConverter().convert(reader, out);
+        } catch (NoSuchElementException e) {
+            throw new RuntimeException("Invalid instruction file format", e);
+        } catch (NoSuchFileException e) {
+            throw new RuntimeException("Instructions file not found", e);
+        } catch (IOException e) {
+            throw new RuntimeException("Unable to convert instructions file", e);
+        }
+    }
+
+    /**
+     * Converts text instructions to binary instructions.
+     *
+     * @param reader Reader of the text instructions.
+     * @param out Stream the binary instructions are written to, not closed.
+     * @throws IOException If the stream cannot be written.
+     * @throws NoSuchElementException If the text format is invalid.
+     * @throws IllegalArgumentException If an orientation or an instruction is invalid.
+     */
+    void convert(InstructionReader reader, OutputStream out) throws IOException {
+        out.write(BinaryInstructionFormat.MAGIC);
+        out.write(BinaryInstructionFormat.VERSION);
+        BinaryInstructionFormat.writeSignedVarint(out, reader.nextInt());
+        BinaryInstructionFormat.writeSignedVarint(out, reader.nextInt());
+        while (reader.hasNext()) {
+            int positionX = reader.nextInt();
+            int positionY = reader.nextInt();
+            EnumOrientation orientation = EnumOrientation.fromKey(reader.nextChar());
+            reader.startToken();
+            long instructionCount = packInstructions(reader);
+            int packedLength = (int) BinaryInstructionFormat.packedLength(instructionCount);
+            long recordLength = BinaryInstructionFormat.signedVarintLength(positionX)
+                    + BinaryInstructionFormat.signedVarintLength(positionY)
+                    + 1
+                    + BinaryInstructionFormat.unsignedVarintLength(instructionCount)
+                    + packedLength;
+            BinaryInstructionFormat.writeUnsignedVarint(out, recordLength);
+            BinaryInstructionFormat.writeSignedVarint(out, positionX);
+            BinaryInstructionFormat.writeSignedVarint(out, positionY);
+            out.write(orientation.ordinal());
+            BinaryInstructionFormat.writeUnsignedVarint(out, instructionCount);
+            out.write(packedInstructions, 0, packedLength);
+            Arrays.fill(packedInstructions, 0, packedLength, (byte) 0);
+        }
+    }
+
+    /**
+     * Packs the instructions of the current token of the reader in {@link #packedInstructions}.
+     *
+     * @param reader Reader positioned at the beginning of the instructions token.
+     * @return The number of instructions.
+     * @throws IllegalArgumentException If an instruction is invalid.
+     * @throws IllegalStateException If there are too many instructions to be packed in memory.
+     */
+    private long packInstructions(InstructionReader reader) {
+        long instructionCount = 0;
+        int count;
+        while ((count = reader.readTokenBytes(instructionChunk)) > 0) {
+            long packedLength = BinaryInstructionFormat.packedLength(instructionCount + count);
+            if (packedLength > packedInstructions.length) {
+                if (packedLength > Integer.MAX_VALUE - 8) {
+                    throw new IllegalStateException("Too many instructions for a mower");
+                }
+                packedInstructions = Arrays.copyOf(packedInstructions,
+                        (int) Math.min(Integer.MAX_VALUE - 8, Math.max(packedLength, (long) packedInstructions.length << 1)));
+            }
+            for (int i = 0; i < count; i++) {
+                int ordinal = EnumInstruction.fromKey((char) (instructionChunk[i] & 0xFF)).ordinal();
+                int index = (int) (instructionCount >>> 2);
+                packedInstructions[index] |= (byte) (ordinal << ((instructionCount & 3) * BinaryInstructionFormat.INSTRUCTION_BITS));
+                instructionCount++;
+            }
+        }
+        return instructionCount;
+    }
+}
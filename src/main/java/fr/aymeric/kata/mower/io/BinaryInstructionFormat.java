@@ -0,0 +1,132 @@
+package fr.aymeric.kata.mower.io;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * BinaryInstructionFormat describes the compact binary form of an instruction file. <br>
+ * The file starts with a header:
+ * <ul>
+ *     <li>the 4 bytes {@link #MAGIC}, then the {@link #VERSION} byte,</li>
+ *     <li>the size of the lawn on X then Y axis, as signed varints.</li>
+ * </ul>
+ * Then each mower is a record, prefixed by its length in bytes as an unsigned varint so that it can be skipped:
+ * <ul>
+ *     <li>the position of the mower on X then Y axis, as signed varints,</li>
+ *     <li>the ordinal of the orientation of the mower, on a byte,</li>
+ *     <li>the number of instructions, as an unsigned varint,</li>
+ *     <li>the ordinals of the instructions packed at 2 bits each, 4 per byte, the first in the lowest bits.</li>
+ * </ul>
+ * Varints store 7 bits per byte, the lowest bits first, the highest bit of a byte being set when another byte follows.
+ * Signed varints are zigzag encoded, so that small negative values stay short.
+ */
+public final class BinaryInstructionFormat {
+    /**
+     * Bytes starting a binary instruction file, "KTMW".
+     */
+    static final byte[] MAGIC = {'K', 'T', 'M', 'W'};
+    /**
+     * Version of the format.
+     */
+    static final int VERSION = 1;
+    /**
+     * Number of bits of an instruction.
+     */
+    static final int INSTRUCTION_BITS = 2;
+    /**
+     * Number of instructions packed in a byte.
+     */
+    static final int INSTRUCTIONS_PER_BYTE = Byte.SIZE / INSTRUCTION_BITS;
+    /**
+     * Maximum number of bytes of a varint.
+     */
+    static final int MAX_VARINT_LENGTH = 10;
+
+    /**
+     * Utility class, not instantiable.
+     */
+    private BinaryInstructionFormat() {
+    }
+
+    /**
+     * Writes an unsigned varint.
+     *
+     * @param out Stream to write to.
+     * @param value Value to write, considered unsigned.
+     * @throws IOException If the stream cannot be written.
+     */
+    static void writeUnsignedVarint(OutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    /**
+     * Writes a signed varint.
+     *
+     * @param out Stream to write to.
+     * @param value Value to write.
+     * @throws IOException If the stream cannot be written.
+     */
+    static void writeSignedVarint(OutputStream out, int value) throws IOException {
+        writeUnsignedVarint(out, zigzag(value));
+    }
+
+    /**
+     * Get the number of bytes of an unsigned varint.
+     *
+     * @param value Value, considered unsigned.
+     * @return The number of bytes of the varint.
+     */
+    static int unsignedVarintLength(long value) {
+        int length = 1;
+        while ((value & ~0x7FL) != 0) {
+            value >>>= 7;
+            length++;
+        }
+        return length;
+    }
+
+    /**
+     * Get the number of bytes of a signed varint.
+     *
+     * @param value Value.
+     * @return The number of bytes of the varint.
+     */
+    static int signedVarintLength(int value) {
+        return unsignedVarintLength(zigzag(value));
+    }
+
+    /**
+     * Get the number of bytes storing packed instructions.
+     *
+     * @param instructionCount Number of instructions.
+     * @return The number of bytes.
+     */
+    static long packedLength(long instructionCount) {
+        return (instructionCount + INSTRUCTIONS_PER_BYTE - 1) / INSTRUCTIONS_PER_BYTE;
+    }
+
+    /**
+     * Zigzag encodes an int: 0, -1, 1, -2... become 0, 1, 2, 3...
+     *
+     * @param value Value to encode.
+     * @return The encoded value, unsigned.
+     */
+    static long zigzag(int value) {
+        return ((value << 1) ^ (value >> 31)) & 0xFFFFFFFFL;
+    }
+
+    /**
+     * Decodes a zigzag encoded int.
+     *
+     * @param value Encoded value.
+     * @return The decoded int.
+     */
+    static int unzigzag(long value) {
+        int encoded = (int) value;
+        return (encoded >>> 1) ^ -(encoded & 1);
+    }
+}
@@ -0,0 +1,370 @@
+package fr.aymeric.kata.mower.io;
+
+import fr.aymeric.kata.mower.model.Lawn;
+import fr.aymeric.kata.mower.model.Mower;
+import fr.aymeric.kata.mower.model.MowerEngine;
+import fr.aymeric.kata.mower.util.EnumOrientation;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.InputMismatchException;
+import java.util.NoSuchElementException;
+
+/**
+ * BinaryInstructionReader reads a file in the {@link BinaryInstructionFormat}, memory-mapped window by window. <br>
+ * The header is read when the reader is opened. Each mower record is then read by {@link #nextMower(Lawn)}, which
+ * places the mower on the lawn, and its instructions are executed by {@link #executeInstructions(Mower)} as they are
+ * unpacked, so the memory used doesn't depend on the length of the programs. Records can also be skipped without
+ * being decoded with {@link #skipMower()}.
+ */
+public class BinaryInstructionReader implements Closeable {
+    /**
+     * Number of instructions unpacked and executed at once, a multiple of the instructions per byte.
+     */
+    private static final int INSTRUCTION_CHUNK_SIZE = 8192;
+    /**
+     * Ordinals of the orientations.
+     */
+    private static final EnumOrientation[] ORIENTATIONS = EnumOrientation.values();
+
+    /**
+     * Channel of the file.
+     */
+    private final FileChannel channel;
+    /**
+     * Size of the file.
+     */
+    private final long fileSize;
+    /**
+     * Size of the memory-mapped windows.
+     */
+    private final int mappingWindow;
+    /**
+     * Current window of the file.
+     */
+    private ByteBuffer buffer;
+    /**
+     * Position in the file of the current window.
+     */
+    private long windowStart;
+    /**
+     * Size of the lawn on X axis.
+     */
+    private final int sizeX;
+    /**
+     * Size of the lawn on Y axis.
+     */
+    private final int sizeY;
+    /**
+     * Position in the file of the end of the current record, which is the start of the next record.
+     */
+    private long recordEnd;
+    /**
+     * Number of instructions of the current record not executed yet.
+     */
+    private long remainingInstructions;
+    /**
+     * Reusable buffer of the packed instructions.
+     */
+    private final byte[] packedChunk = new byte[INSTRUCTION_CHUNK_SIZE / BinaryInstructionFormat.INSTRUCTIONS_PER_BYTE];
+    /**
+     * Reusable buffer of the unpacked instruction ordinals.
+     */
+    private final byte[] instructionChunk = new byte[INSTRUCTION_CHUNK_SIZE];
+
+    /**
+     * Constructor of the reader, the header of the file is read. <br>
+     * The reader takes the ownership of the channel, which is closed when the reader is closed.
+     *
+     * @param channel Channel of the file, positioned at the beginning of the binary instructions.
+     * @param mappingWindow Size of the memory-mapped windows.
+     * @throws IOException If the channel cannot be read.
+     * @throws NoSuchElementException If the header is truncated.
+     * @throws InputMismatchException If the file is not a binary instruction file of a supported version.
+     */
+    BinaryInstructionReader(FileChannel channel, int mappingWindow) throws IOException {
+        this.channel = channel;
+        this.fileSize = channel.size();
+        this.mappingWindow = mappingWindow;
+        this.buffer = ByteBuffer.allocate(0);
+        this.windowStart = channel.position();
+        for (byte expected : BinaryInstructionFormat.MAGIC) {
+            if (readByte() != expected) {
+                throw new InputMismatchException("Not a binary instruction file");
+            }
+        }
+        int version = readByte();
+        if (version != BinaryInstructionFormat.VERSION) {
+            throw new InputMismatchException("Unsupported binary instruction file version: " + version);
+        }
+        this.sizeX = readSignedVarint();
+        this.sizeY = readSignedVarint();
+        this.recordEnd = position();
+    }
+
+    /**
+     * Opens a reader on a file.
+     *
+     * @param file File to read.
+     * @return A new reader, to be closed by the caller.
+     * @throws IOException If the file cannot be opened, {@link java.nio.file.NoSuchFileException} if it doesn't exist.
+     * @throws NoSuchElementException If the header is truncated.
+     * @throws InputMismatchException If the file is not a binary instruction file of a supported version.
+     */
+    public static BinaryInstructionReader open(File file) throws IOException {
+        FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        try {
+            return new BinaryInstructionReader(channel, InstructionReader.MAPPING_WINDOW);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Check if a file starts with the magic bytes of the {@link BinaryInstructionFormat}.
+     *
+     * @param file File to check.
+     * @return True if the file is a binary instruction file.
+     * @throws IOException If the file cannot be read.
+     */
+    public static boolean isBinaryFile(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            ByteBuffer magic = ByteBuffer.allocate(BinaryInstructionFormat.MAGIC.length);
+            while (magic.hasRemaining() && channel.read(magic) >= 0) {
+                // Read until the magic is complete or the end of the file
+            }
+            magic.flip();
+            return magic.remaining() == BinaryInstructionFormat.MAGIC.length
+                    && ByteBuffer.wrap(BinaryInstructionFormat.MAGIC).equals(magic);
+        }
+    }
+
+    /**
+     * @return the size of the lawn on X axis
+     */
+    public int getSizeX() {
+        return sizeX;
+    }
+
+    /**
+     * @return the size of the lawn on Y axis
+     */
+    public int getSizeY() {
+        return sizeY;
+    }
+
+    /**
+     * Creates the lawn described by the header.
+     *
+     * @return The created Lawn object.
+     * @throws IllegalArgumentException If the size of the lawn is invalid.
+     */
+    public Lawn createLawn() {
+        return new Lawn(sizeX, sizeY);
+    }
+
+    /**
+     * Check if there is another mower record.
+     *
+     * @return True if a mower record remains.
+     */
+    public boolean hasNextMower() {
+        return recordEnd < fileSize;
+    }
+
+    /**
+     * Reads the next mower record, creates the mower and adds it to the lawn. <br>
+     * The instructions of the previous mower not executed are skipped. The instructions of the new mower are executed
+     * by {@link #executeInstructions(Mower)}.
+     *
+     * @param lawn Lawn where the mower will move.
+     * @return The created Mower object.
+     * @throws NoSuchElementException If there is no record left, or the record is truncated.
+     * @throws InputMismatchException If the record is invalid.
+     * @throws IllegalArgumentException If the mower cannot be placed on the lawn.
+     * @throws UncheckedIOException If the file cannot be read.
+     */
+    public Mower nextMower(Lawn lawn) {
+        long instructionsEnd = startRecord();
+        int positionX = readSignedVarint();
+        int positionY = readSignedVarint();
+        int orientation = readByte();
+        if (orientation >= ORIENTATIONS.length) {
+            throw new InputMismatchException("Invalid orientation ordinal: " + orientation);
+        }
+        remainingInstructions = readUnsignedVarint();
+        if (remainingInstructions < 0
+                || BinaryInstructionFormat.packedLength(remainingInstructions) != instructionsEnd - position()) {
+            throw new InputMismatchException("Instruction count doesn't match the record length");
+        }
+        Mower mower = new Mower(lawn, positionX, positionY, ORIENTATIONS[orientation]);
+        lawn.addMower(mower);
+        return mower;
+    }
+
+    /**
+     * Skips the next mower record without decoding it.
+     *
+     * @throws NoSuchElementException If there is no record left, or the record is truncated.
+     * @throws UncheckedIOException If the file cannot be read.
+     */
+    public void skipMower() {
+        startRecord();
+        remainingInstructions = 0;
+    }
+
+    /**
+     * Executes the instructions of the mower read by the last call to {@link #nextMower(Lawn)}. <br>
+     * The instructions are unpacked by chunks and executed by the {@link MowerEngine}.
+     *
+     * @param mower Mower to execute the instructions on.
+     * @throws IllegalArgumentException If an invalid instruction is found.
+     * @throws UncheckedIOException If the file cannot be read.
+     */
+    public void executeInstructions(Mower mower) {
+        while (remainingInstructions > 0) {
+            int count = (int) Math.min(remainingInstructions, INSTRUCTION_CHUNK_SIZE);
+            int packedLength = (int) BinaryInstructionFormat.packedLength(count);
+            read(packedChunk, packedLength);
+            for (int i = 0; i < count; i++) {
+                instructionChunk[i] = (byte) ((packedChunk[i >>> 2] >>> ((i & 3) * BinaryInstructionFormat.INSTRUCTION_BITS)) & 3);
+            }
+            remainingInstructions -= count;
+            MowerEngine.executeOrdinals(mower, instructionChunk, 0, count);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Moves to the next record and reads its length.
+     *
+     * @return The position in the file of the end of the record.
+     * @throws NoSuchElementException If there is no record left, or the record is truncated.
+     */
+    private long startRecord() {
+        if (!hasNextMower()) {
+            throw new NoSuchElementException("No mower record left");
+        }
+        seek(recordEnd);
+        long length = readUnsignedVarint();
+        if (length < 0 || length > fileSize - position()) {
+            throw new NoSuchElementException("Truncated mower record");
+        }
+        recordEnd = position() + length;
+        return recordEnd;
+    }
+
+    /**
+     * Read an unsigned varint.
+     *
+     * @return The value.
+     * @throws InputMismatchException If the varint is too long.
+     */
+    private long readUnsignedVarint() {
+        long value = 0;
+        for (int shift = 0; shift < Long.SIZE; shift += 7) {
+            int current = readByte();
+            value |= (long) (current & 0x7F) << shift;
+            if ((current & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new InputMismatchException("Invalid varint");
+    }
+
+    /**
+     * Read a signed varint of an int.
+     *
+     * @return The value.
+     * @throws InputMismatchException If the varint is invalid or out of the int range.
+     */
+    private int readSignedVarint() {
+        long value = readUnsignedVarint();
+        if ((value >>> Integer.SIZE) != 0) {
+            throw new InputMismatchException("Int out of range");
+        }
+        return BinaryInstructionFormat.unzigzag(value);
+    }
+
+    /**
+     * Read a byte.
+     *
+     * @return The byte, unsigned.
+     * @throws NoSuchElementException If the end of the file is reached.
+     */
+    private int readByte() {
+        if (!buffer.hasRemaining()) {
+            map(position());
+        }
+        return buffer.get() & 0xFF;
+    }
+
+    /**
+     * Read bytes.
+     *
+     * @param destination Array to fill.
+     * @param length Number of bytes to read.
+     * @throws NoSuchElementException If the end of the file is reached.
+     */
+    private void read(byte[] destination, int length) {
+        int offset = 0;
+        while (offset < length) {
+            if (!buffer.hasRemaining()) {
+                map(position());
+            }
+            int count = Math.min(length - offset, buffer.remaining());
+            buffer.get(destination, offset, count);
+            offset += count;
+        }
+    }
+
+    /**
+     * @return the position in the file of the next byte to read
+     */
+    private long position() {
+        return windowStart + buffer.position();
+    }
+
+    /**
+     * Move to a position in the file, the current window is kept if it contains the position.
+     *
+     * @param position Position in the file.
+     */
+    private void seek(long position) {
+        if (position >= windowStart && position - windowStart <= buffer.limit()) {
+            buffer.position((int) (position - windowStart));
+        } else {
+            map(position);
+        }
+    }
+
+    /**
+     * Map the window of the file starting at a position.
+     *
+     * @param position Position in the file.
+     * @throws NoSuchElementException If the position is at the end of the file.
+     * @throws UncheckedIOException If the file cannot be mapped.
+     */
+    private void map(long position) {
+        long length = Math.min(fileSize - position, mappingWindow);
+        if (length <= 0) {
+            throw new NoSuchElementException("Unexpected end of the binary instructions");
+        }
+        try {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+            windowStart = position;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to read the instructions", e);
+        }
+    }
+}
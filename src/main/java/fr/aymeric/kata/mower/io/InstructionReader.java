@@ -0,0 +1,417 @@
+package fr.aymeric.kata.mower.io;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.InputMismatchException;
+import java.util.NoSuchElementException;
+
+/**
+ * InstructionReader is a tokenizer reading the bytes of an instruction file directly from a channel. <br>
+ * Tokens are separated by whitespaces, like with a {@link java.util.Scanner}, but ints and characters are decoded
+ * from the bytes without allocating a String per token. <br>
+ * Small inputs are read by chunks in a reusable buffer, large files are memory-mapped window by window. <br>
+ * The reader counts the lines it goes through, and the format errors give the line of the invalid token.
+ */
+public class InstructionReader implements Closeable {
+    /**
+     * Size of the buffer used to read the input by chunks.
+     */
+    static final int CHUNK_SIZE = 64 * 1024;
+    /**
+     * Size of a file from which it is memory-mapped instead of read by chunks.
+     */
+    static final long MAPPING_THRESHOLD = 16L * 1024 * 1024;
+    /**
+     * Size of the memory-mapped windows, a file larger than it is mapped in several windows.
+     */
+    static final int MAPPING_WINDOW = 256 * 1024 * 1024;
+
+    /**
+     * Channel to read the bytes from, null if the whole input is given as a buffer.
+     */
+    private final ReadableByteChannel channel;
+    /**
+     * True if the channel is a file memory-mapped window by window.
+     */
+    private final boolean mapped;
+    /**
+     * Current chunk or window of the input.
+     */
+    private ByteBuffer buffer;
+    /**
+     * Position in the file of the next window to map.
+     */
+    private long mappedPosition;
+    /**
+     * Position in the input of the first byte of the buffer.
+     */
+    private long bufferStart;
+    /**
+     * Number of the line of the next byte, starting at 1.
+     */
+    private long lineNumber = 1;
+    /**
+     * Reusable storage of the last token read by {@link #nextToken()}.
+     */
+    private byte[] token = new byte[64];
+
+    /**
+     * Constructor of the reader. <br>
+     * The reader takes the ownership of the channel, which is closed when the reader is closed.
+     *
+     * @param channel Channel to read the bytes from.
+     * @throws IOException If the size of a file channel cannot be read.
+     */
+    public InstructionReader(ReadableByteChannel channel) throws IOException {
+        this(channel, MAPPING_THRESHOLD);
+    }
+
+    /**
+     * Constructor of the reader with a custom mapping threshold.
+     *
+     * @param channel Channel to read the bytes from.
+     * @param mappingThreshold Size of a file from which it is memory-mapped.
+     * @throws IOException If the size of a file channel cannot be read.
+     */
+    InstructionReader(ReadableByteChannel channel, long mappingThreshold) throws IOException {
+        this.channel = channel;
+        this.mapped = channel instanceof FileChannel && ((FileChannel) channel).size() >= mappingThreshold;
+        this.bufferStart = channel instanceof FileChannel ? ((FileChannel) channel).position() : 0;
+        if (mapped) {
+            this.mappedPosition = bufferStart;
+            this.buffer = ByteBuffer.allocate(0);
+        } else {
+            this.buffer = ByteBuffer.allocate(CHUNK_SIZE);
+            this.buffer.flip();
+        }
+    }
+
+    /**
+     * Constructor of a reader of an input already in memory, or memory-mapped. <br>
+     * Positions are given from the current position of the buffer.
+     *
+     * @param input Bytes to read, from the position to the limit of the buffer.
+     */
+    public InstructionReader(ByteBuffer input) {
+        this.channel = null;
+        this.mapped = false;
+        this.buffer = input.slice();
+    }
+
+    /**
+     * Opens a reader on a file.
+     *
+     * @param file File to read.
+     * @return A new reader, to be closed by the caller.
+     * @throws IOException If the file cannot be opened, {@link java.nio.file.NoSuchFileException} if it doesn't exist.
+     */
+    public static InstructionReader open(File file) throws IOException {
+        FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        try {
+            return new InstructionReader(channel);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Check if there is another token in the input.
+     *
+     * @return True if a token remains, false if only whitespaces remain.
+     * @throws UncheckedIOException If the input cannot be read.
+     */
+    public boolean hasNext() {
+        return skipWhitespaces() >= 0;
+    }
+
+    /**
+     * Get the first byte of the next token without consuming it.
+     *
+     * @return The first byte of the next token, or -1 if only whitespaces remain.
+     * @throws UncheckedIOException If the input cannot be read.
+     */
+    public int peekToken() {
+        return skipWhitespaces();
+    }
+
+    /**
+     * Read the next token as an int. <br>
+     * The token must be made of an optional sign followed by decimal digits.
+     *
+     * @return The decoded int.
+     * @throws NoSuchElementException If there is no token left.
+     * @throws InputMismatchException If the token is not an int or is out of range.
+     * @throws UncheckedIOException If the input cannot be read.
+     */
+    public int nextInt() {
+        int current = skipWhitespaces();
+        if (current < 0) {
+            throw endOfInput("Expected an int");
+        }
+        boolean negative = current == '-';
+        if (current == '-' || current == '+') {
+            buffer.get();
+            current = peek();
+        }
+        if (!isDigit(current)) {
+            throw mismatch("Expected an int");
+        }
+        // Accumulate negatively, so that Integer.MIN_VALUE can be decoded
+        long value = 0;
+        while (isDigit(current)) {
+            value = value * 10 - (current - '0');
+            if (value < Integer.MIN_VALUE) {
+                throw mismatch("Int out of range");
+            }
+            buffer.get();
+            current = peek();
+        }
+        if (current >= 0 && !isWhitespace(current)) {
+            throw mismatch("Expected an int");
+        }
+        if (!negative && value == Integer.MIN_VALUE) {
+            throw mismatch("Int out of range");
+        }
+        return (int) (negative ? value : -value);
+    }
+
+    /**
+     * Read the next token and return its first character, the remaining characters of the token are skipped.
+     *
+     * @return The first character of the token.
+     * @throws NoSuchElementException If there is no token left.
+     * @throws UncheckedIOException If the input cannot be read.
+     */
+    public char nextChar() {
+        int first = skipWhitespaces();
+        if (first < 0) {
+            throw endOfInput("Expected a token");
+        }
+        buffer.get();
+        int current = peek();
+        while (current >= 0 && !isWhitespace(current)) {
+            buffer.get();
+            current = peek();
+        }
+        return (char) first;
+    }
+
+    /**
+     * Read the next token into a reusable buffer, available with {@link #getToken()} until the next call.
+     *
+     * @return The length of the token.
+     * @throws NoSuchElementException If there is no token left.
+     * @throws UncheckedIOException If the input cannot be read.
+     */
+    public int nextToken() {
+        int current = skipWhitespaces();
+        if (current < 0) {
+            throw endOfInput("Expected a token");
+        }
+        int length = 0;
+        while (current >= 0 && !isWhitespace(current)) {
+            if (length == token.length) {
+                token = Arrays.copyOf(token, length << 1);
+            }
+            token[length++] = buffer.get();
+            current = peek();
+        }
+        return length;
+    }
+
+    /**
+     * Move to the beginning of the next token, whose bytes can then be streamed with {@link #nextTokenByte()}. <br>
+     * Unlike {@link #nextToken()}, the token is never stored in memory, whatever its length.
+     *
+     * @throws NoSuchElementException If there is no token left.
+     * @throws UncheckedIOException If the input cannot be read.
+     */
+    public void startToken() {
+        if (skipWhitespaces() < 0) {
+            throw endOfInput("Expected a token");
+        }
+    }
+
+    /**
+     * Read the next byte of the token started with {@link #startToken()}.
+     *
+     * @return The next byte of the token, or -1 at the end of the token.
+     * @throws UncheckedIOException If the input cannot be read.
+     */
+    public int nextTokenByte() {
+        int current = peek();
+        if (current < 0 || isWhitespace(current)) {
+            return -1;
+        }
+        buffer.get();
+        return current;
+    }
+
+    /**
+     * Read the next bytes of the token started with {@link #startToken()} into an array.
+     *
+     * @param destination Array to fill.
+     * @return The number of bytes read, 0 at the end of the token.
+     * @throws UncheckedIOException If the input cannot be read.
+     */
+    public int readTokenBytes(byte[] destination) {
+        int count = 0;
+        while (count < destination.length) {
+            int current = peek();
+            if (current < 0 || isWhitespace(current)) {
+                break;
+            }
+            destination[count++] = buffer.get();
+        }
+        return count;
+    }
+
+    /**
+     * Get the bytes of the last token read by {@link #nextToken()}. <br>
+     * The array is reused and may be longer than the token.
+     *
+     * @return The bytes of the last token.
+     */
+    public byte[] getToken() {
+        return token;
+    }
+
+    /**
+     * Get the number of the line of the next token, or of the next byte after a token.
+     *
+     * @return The number of the line, starting at 1.
+     */
+    public long getLineNumber() {
+        return lineNumber;
+    }
+
+    /**
+     * Set the number of the current line, when the input doesn't start at the beginning of a file.
+     *
+     * @param lineNumber Number of the current line.
+     */
+    void setLineNumber(long lineNumber) {
+        this.lineNumber = lineNumber;
+    }
+
+    /**
+     * Get the position of the next byte to read: in the file for a file channel, from the first byte read otherwise.
+     *
+     * @return The position of the next byte.
+     */
+    public long getPosition() {
+        return bufferStart + buffer.position();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+        }
+    }
+
+    /**
+     * @param expected description of the expected token
+     * @return the error of the end of the input reached instead of the expected token, with the current line
+     */
+    private NoSuchElementException endOfInput(String expected) {
+        return new NoSuchElementException(expected + " but reached the end of the input at line " + lineNumber);
+    }
+
+    /**
+     * @param reason description of the invalid token
+     * @return the error of an invalid token, with the current line
+     */
+    private InputMismatchException mismatch(String reason) {
+        return new InputMismatchException(reason + " at line " + lineNumber);
+    }
+
+    /**
+     * Skip the whitespaces before the next token.
+     *
+     * @return The first byte of the next token, or -1 at the end of the input.
+     */
+    private int skipWhitespaces() {
+        int current = peek();
+        while (current >= 0 && isWhitespace(current)) {
+            if (current == '\n') {
+                lineNumber++;
+            }
+            buffer.get();
+            current = peek();
+        }
+        return current;
+    }
+
+    /**
+     * Get the next byte without consuming it.
+     *
+     * @return The next byte, or -1 at the end of the input.
+     */
+    private int peek() {
+        if (!buffer.hasRemaining() && !fill()) {
+            return -1;
+        }
+        return buffer.get(buffer.position()) & 0xFF;
+    }
+
+    /**
+     * Load the next chunk or window of the input.
+     *
+     * @return False if the end of the input is reached.
+     * @throws UncheckedIOException If the input cannot be read.
+     */
+    private boolean fill() {
+        if (channel == null) {
+            return false;
+        }
+        try {
+            if (mapped) {
+                FileChannel fileChannel = (FileChannel) channel;
+                long remaining = fileChannel.size() - mappedPosition;
+                if (remaining <= 0) {
+                    return false;
+                }
+                long length = Math.min(remaining, MAPPING_WINDOW);
+                buffer = fileChannel.map(FileChannel.MapMode.READ_ONLY, mappedPosition, length);
+                bufferStart = mappedPosition;
+                mappedPosition += length;
+                return true;
+            }
+            bufferStart += buffer.limit();
+            buffer.clear();
+            int read;
+            do {
+                read = channel.read(buffer);
+            } while (read == 0);
+            buffer.flip();
+            return read > 0;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to read the instructions", e);
+        }
+    }
+
+    /**
+     * @param value a byte
+     * @return true if the byte is an ASCII digit
+     */
+    private static boolean isDigit(int value) {
+        return value >= '0' && value <= '9';
+    }
+
+    /**
+     * @param value a byte
+     * @return true if the byte is an ASCII whitespace, as matched by {@link Character#isWhitespace(char)}
+     */
+    private static boolean isWhitespace(int value) {
+        return value == ' ' || (value >= '\t' && value <= '\r') || (value >= 0x1C && value <= 0x1F);
+    }
+}
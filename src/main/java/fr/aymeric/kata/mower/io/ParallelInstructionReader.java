@@ -0,0 +1,547 @@
+package fr.aymeric.kata.mower.io;
+
+import fr.aymeric.kata.mower.model.Lawn;
+import fr.aymeric.kata.mower.model.MowerEngine;
+import fr.aymeric.kata.mower.model.MowerFleet;
+import fr.aymeric.kata.mower.util.EnumInstruction;
+import fr.aymeric.kata.mower.util.EnumOrientation;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * ParallelInstructionReader reads the mowers of a text instructions file parsed by chunks on several threads. <br>
+ * The lawn is read by the {@link #getHeaderReader() header reader}. The rest of the file is split into byte ranges
+ * which are memory-mapped and parsed in a pool, a few chunks ahead of the mowers consumed, and the mowers are then
+ * given in their original order by {@link #nextMower(Lawn)} and {@link #executeInstructions(MowerFleet, int)}. <br>
+ * A range ends at the beginning of a line which looks like a mower position. This is only a guess: a chunk is only
+ * used up to its first record which is not complete or fails to parse, from where the rest of the file is read by a
+ * sequential {@link InstructionReader}. So the mowers, the errors and their line numbers are exactly the ones of a
+ * sequential read, whatever the layout of the file.
+ */
+public class ParallelInstructionReader implements Closeable {
+    /**
+     * Default size of the chunks parsed in parallel.
+     */
+    public static final int DEFAULT_CHUNK_SIZE = 8 * 1024 * 1024;
+    /**
+     * Size of the buffer used to find the end of a chunk.
+     */
+    private static final int SCAN_BUFFER_SIZE = 8192;
+    /**
+     * Ordinals of the orientations.
+     */
+    private static final EnumOrientation[] ORIENTATIONS = EnumOrientation.values();
+    /**
+     * Ordinal of each orientation key, -1 for invalid keys.
+     */
+    private static final byte[] ORIENTATION_ORDINALS = new byte[256];
+    /**
+     * Part of a mower position line after its orientation, see {@link #nextPositionField(int, byte)}.
+     */
+    private static final int POSITION_END = 5;
+    /**
+     * Ordinal of each instruction key, -1 for invalid keys.
+     */
+    private static final byte[] INSTRUCTION_ORDINALS = new byte[256];
+
+    static {
+        Arrays.fill(ORIENTATION_ORDINALS, (byte) -1);
+        for (EnumOrientation orientation : ORIENTATIONS) {
+            ORIENTATION_ORDINALS[orientation.getOrientationKey()] = (byte) orientation.ordinal();
+        }
+        Arrays.fill(INSTRUCTION_ORDINALS, (byte) -1);
+        for (EnumInstruction instruction : EnumInstruction.values()) {
+            INSTRUCTION_ORDINALS[instruction.getInstructionKey()] = (byte) instruction.ordinal();
+        }
+    }
+
+    /**
+     * Channel of the file.
+     */
+    private final FileChannel channel;
+    /**
+     * Size of the file.
+     */
+    private final long fileSize;
+    /**
+     * Pool parsing the chunks.
+     */
+    private final ForkJoinPool pool;
+    /**
+     * Size of the chunks, before they are extended to the beginning of a mower.
+     */
+    private final int chunkSize;
+    /**
+     * Maximum number of chunks parsed ahead of the current one.
+     */
+    private final int window;
+    /**
+     * Reader of the lawn at the beginning of the file.
+     */
+    private final InstructionReader headerReader;
+    /**
+     * Chunks submitted to the pool, in the order of the file.
+     */
+    private final ArrayDeque<CompletableFuture<Chunk>> pending = new ArrayDeque<>();
+    /**
+     * Reusable buffer used to find the end of a chunk.
+     */
+    private final ByteBuffer scanBuffer = ByteBuffer.allocate(SCAN_BUFFER_SIZE);
+    /**
+     * Position in the file of the next chunk to submit, -1 until the header is read.
+     */
+    private long nextChunkStart = -1;
+    /**
+     * Chunk of the mowers being consumed.
+     */
+    private Chunk chunk;
+    /**
+     * Index in the current chunk of the next mower.
+     */
+    private int mowerIndex;
+    /**
+     * Number of the line of the beginning of the current chunk.
+     */
+    private long chunkLine;
+    /**
+     * Reader of the rest of the file once the chunks cannot be used anymore, null until then.
+     */
+    private InstructionReader sequentialReader;
+    /**
+     * Reusable buffer of the instructions read by the sequential reader.
+     */
+    private byte[] instructionChunk;
+
+    /**
+     * Constructor of the reader. <br>
+     * The reader takes the ownership of the channel, which is closed when the reader is closed.
+     *
+     * @param channel Channel of the file, positioned at the beginning of the instructions.
+     * @param pool Pool parsing the chunks.
+     * @param chunkSize Size of the chunks parsed in parallel.
+     * @throws IOException If the channel cannot be read.
+     */
+    ParallelInstructionReader(FileChannel channel, ForkJoinPool pool, int chunkSize) throws IOException {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Chunk size must be positive");
+        }
+        this.channel = channel;
+        this.fileSize = channel.size();
+        this.pool = pool;
+        this.chunkSize = chunkSize;
+        this.window = 2 * pool.getParallelism();
+        this.headerReader = new InstructionReader(channel);
+    }
+
+    /**
+     * Opens a reader on a file, parsing chunks of the {@link #DEFAULT_CHUNK_SIZE}.
+     *
+     * @param file File to read.
+     * @param pool Pool parsing the chunks.
+     * @return A new reader, to be closed by the caller.
+     * @throws IOException If the file cannot be opened, {@link java.nio.file.NoSuchFileException} if it doesn't exist.
+     */
+    public static ParallelInstructionReader open(File file, ForkJoinPool pool) throws IOException {
+        return open(file, pool, DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Opens a reader on a file.
+     *
+     * @param file File to read.
+     * @param pool Pool parsing the chunks.
+     * @param chunkSize Size of the chunks parsed in parallel.
+     * @return A new reader, to be closed by the caller.
+     * @throws IOException If the file cannot be opened, {@link java.nio.file.NoSuchFileException} if it doesn't exist.
+     */
+    public static ParallelInstructionReader open(File file, ForkJoinPool pool, int chunkSize) throws IOException {
+        FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        try {
+            return new ParallelInstructionReader(channel, pool, chunkSize);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Get the reader of the lawn, which must be read before the first mower.
+     *
+     * @return The reader of the beginning of the file.
+     */
+    public InstructionReader getHeaderReader() {
+        return headerReader;
+    }
+
+    /**
+     * Check if there is another mower in the file.
+     *
+     * @return True if a mower remains.
+     * @throws IOException If the file cannot be read.
+     */
+    public boolean hasNextMower() throws IOException {
+        if (sequentialReader == null && nextChunkStart < 0) {
+            nextChunkStart = headerReader.getPosition();
+            chunkLine = headerReader.getLineNumber();
+        }
+        while (sequentialReader == null && (chunk == null || mowerIndex == chunk.mowerCount)) {
+            if (chunk != null && chunk.stopPosition >= 0) {
+                startSequentialReader(chunk.stopPosition, chunkLine + chunk.stopLine - 1);
+            } else {
+                if (chunk != null) {
+                    chunkLine += chunk.newLines;
+                }
+                submitChunks();
+                if (pending.isEmpty()) {
+                    return false;
+                }
+                chunk = join(pending.poll());
+                mowerIndex = 0;
+            }
+        }
+        return sequentialReader == null || sequentialReader.hasNext();
+    }
+
+    /**
+     * Read the position of the next mower and add it to the lawn.
+     *
+     * @param lawn Lawn where the mower is added.
+     * @return The index of the mower in the fleet of the lawn.
+     * @throws NoSuchElementException If there is no mower left or the input format is invalid.
+     * @throws IllegalArgumentException If the orientation or the position is invalid.
+     * @throws IOException If the file cannot be read.
+     */
+    public int nextMower(Lawn lawn) throws IOException {
+        if (!hasNextMower()) {
+            throw new NoSuchElementException("No mower left");
+        }
+        if (sequentialReader != null) {
+            int positionX = sequentialReader.nextInt();
+            int positionY = sequentialReader.nextInt();
+            return lawn.addMower(positionX, positionY, EnumOrientation.fromKey(sequentialReader.nextChar()));
+        }
+        return lawn.addMower(chunk.positionsX[mowerIndex], chunk.positionsY[mowerIndex],
+                ORIENTATIONS[chunk.orientations[mowerIndex]]);
+    }
+
+    /**
+     * Execute the instructions of the mower read by the last call to {@link #nextMower(Lawn)}.
+     *
+     * @param fleet Fleet storing the state of the mower.
+     * @param index Index of the mower in the fleet.
+     * @throws NoSuchElementException If the instructions are missing.
+     * @throws IllegalArgumentException If an invalid instruction is found.
+     */
+    public void executeInstructions(MowerFleet fleet, int index) {
+        if (sequentialReader != null) {
+            sequentialReader.startToken();
+            int count;
+            while ((count = sequentialReader.readTokenBytes(instructionChunk)) > 0) {
+                MowerEngine.execute(fleet, index, instructionChunk, 0, count);
+            }
+            return;
+        }
+        int from = mowerIndex == 0 ? 0 : chunk.instructionEnds[mowerIndex - 1];
+        MowerEngine.executeOrdinals(fleet, index, chunk.instructions, from, chunk.instructionEnds[mowerIndex]);
+        mowerIndex++;
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (CompletableFuture<Chunk> future : pending) {
+            future.cancel(false);
+        }
+        pending.clear();
+        channel.close();
+    }
+
+    /**
+     * Read the rest of the file sequentially, the chunks parsed ahead are dropped.
+     *
+     * @param position Position in the file to read from.
+     * @param lineNumber Number of the line at this position.
+     * @throws IOException If the file cannot be read.
+     */
+    private void startSequentialReader(long position, long lineNumber) throws IOException {
+        for (CompletableFuture<Chunk> future : pending) {
+            future.cancel(false);
+        }
+        pending.clear();
+        channel.position(position);
+        sequentialReader = new InstructionReader(channel);
+        sequentialReader.setLineNumber(lineNumber);
+        instructionChunk = new byte[SCAN_BUFFER_SIZE];
+        chunk = null;
+    }
+
+    /**
+     * Submit chunks to the pool until the window is full or the end of the file is reached.
+     *
+     * @throws IOException If the file cannot be read.
+     */
+    private void submitChunks() throws IOException {
+        while (pending.size() < window && nextChunkStart < fileSize) {
+            long start = nextChunkStart;
+            long end = findChunkEnd(start + chunkSize);
+            nextChunkStart = end;
+            if (end - start > Integer.MAX_VALUE) {
+                // Too long to be mapped at once, the sequential reader goes on from there
+                pending.add(CompletableFuture.completedFuture(Chunk.unparsed(start)));
+                nextChunkStart = fileSize;
+            } else {
+                pending.add(CompletableFuture.supplyAsync(() -> parse(channel, start, (int) (end - start)), pool));
+            }
+        }
+    }
+
+    /**
+     * Find the end of a chunk: the beginning of the first line after a position which is a whole mower position
+     * "x y O". <br>
+     * The instruction lines have no digit and the obstacle lines start with a letter, so such a line is the start of a
+     * record in the usual layout. A file whose positions are split over several lines has no such line, it is then
+     * parsed in a single chunk.
+     *
+     * @param target Position in the file after which the chunk ends.
+     * @return The position of the end of the chunk, or the size of the file.
+     * @throws IOException If the file cannot be read.
+     */
+    private long findChunkEnd(long target) throws IOException {
+        if (target >= fileSize) {
+            return fileSize;
+        }
+        long position = target - 1;
+        long lineStart = -1;
+        // Part of the position line being read: X, Y and the orientation, with the blanks before them; -1 if the
+        // line cannot be a position
+        int field = -1;
+        scanBuffer.clear().flip();
+        while (position < fileSize) {
+            if (!scanBuffer.hasRemaining()) {
+                scanBuffer.clear();
+                if (channel.read(scanBuffer, position) <= 0) {
+                    break;
+                }
+                scanBuffer.flip();
+            }
+            byte current = scanBuffer.get();
+            position++;
+            if (current == '\n') {
+                if (field == POSITION_END) {
+                    return lineStart;
+                }
+                field = 0;
+                lineStart = position;
+            } else if (field >= 0) {
+                field = nextPositionField(field, current);
+            }
+        }
+        return field == POSITION_END ? lineStart : fileSize;
+    }
+
+    /**
+     * Advances the recognition of a mower position line by one character.
+     *
+     * @param field Part of the line being read: 0 before X, 1 in X, 2 before Y, 3 in Y, 4 before the orientation and
+     *              {@link #POSITION_END} after it.
+     * @param current Character read.
+     * @return The part of the line after the character, or -1 if the line is not a mower position.
+     */
+    private static int nextPositionField(int field, byte current) {
+        boolean blank = current == ' ' || current == '\t' || current == '\r';
+        boolean digit = current >= '0' && current <= '9';
+        switch (field) {
+            case 0:
+            case 2:
+                return blank ? field : digit ? field + 1 : -1;
+            case 1:
+            case 3:
+                return digit ? field : blank ? field + 1 : -1;
+            case 4:
+                return blank ? field : ORIENTATION_ORDINALS[current & 0xFF] >= 0 ? POSITION_END : -1;
+            default:
+                return blank ? field : -1;
+        }
+    }
+
+    /**
+     * Wait for a chunk parsed in the pool.
+     *
+     * @param future Result of the parsing.
+     * @return The parsed chunk.
+     * @throws IOException If the chunk cannot be read.
+     */
+    private static Chunk join(CompletableFuture<Chunk> future) throws IOException {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) e.getCause()).getCause();
+            }
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Parse the mowers of a chunk, until its end or its first record which is not complete or invalid.
+     *
+     * @param channel Channel of the file.
+     * @param start Position of the chunk in the file, at the beginning of a mower.
+     * @param length Length of the chunk.
+     * @return The parsed chunk.
+     * @throws UncheckedIOException If the chunk cannot be mapped.
+     */
+    private static Chunk parse(FileChannel channel, long start, int length) {
+        ByteBuffer bytes;
+        try {
+            bytes = channel.map(FileChannel.MapMode.READ_ONLY, start, length);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        InstructionReader reader = new InstructionReader(bytes);
+        Chunk chunk = new Chunk(length);
+        while (true) {
+            long recordPosition = reader.getPosition();
+            long recordLine = reader.getLineNumber();
+            if (!reader.hasNext()) {
+                break;
+            }
+            if (!chunk.parseMower(reader)) {
+                chunk.stopPosition = start + recordPosition;
+                chunk.stopLine = recordLine;
+                return chunk;
+            }
+        }
+        chunk.newLines = reader.getLineNumber() - 1;
+        return chunk;
+    }
+
+    /**
+     * Mowers parsed from a chunk of the file.
+     */
+    private static final class Chunk {
+        /**
+         * Number of mowers parsed.
+         */
+        private int mowerCount;
+        /**
+         * X positions of the mowers.
+         */
+        private int[] positionsX;
+        /**
+         * Y positions of the mowers.
+         */
+        private int[] positionsY;
+        /**
+         * Orientation ordinals of the mowers.
+         */
+        private byte[] orientations;
+        /**
+         * Index in {@link #instructions} of the end of the instructions of each mower.
+         */
+        private int[] instructionEnds;
+        /**
+         * Instruction ordinals of all the mowers.
+         */
+        private byte[] instructions;
+        /**
+         * Number of instruction ordinals.
+         */
+        private int instructionCount;
+        /**
+         * Number of line separators of the chunk.
+         */
+        private long newLines;
+        /**
+         * Position in the file of the first record which could not be parsed, -1 if the whole chunk is parsed.
+         */
+        private long stopPosition = -1;
+        /**
+         * Number of the line of the first record which could not be parsed, relative to the chunk.
+         */
+        private long stopLine;
+
+        /**
+         * Constructor of a chunk to parse.
+         *
+         * @param length Length of the chunk, to size the buffers.
+         */
+        private Chunk(int length) {
+            int capacity = Math.max(16, length >>> 4);
+            this.positionsX = new int[capacity];
+            this.positionsY = new int[capacity];
+            this.orientations = new byte[capacity];
+            this.instructionEnds = new int[capacity];
+            this.instructions = new byte[length];
+        }
+
+        /**
+         * Create a chunk which is not parsed at all, to be read sequentially.
+         *
+         * @param position Position in the file of the chunk.
+         * @return The chunk, without any mower.
+         */
+        private static Chunk unparsed(long position) {
+            Chunk chunk = new Chunk(0);
+            chunk.stopPosition = position;
+            chunk.stopLine = 1;
+            return chunk;
+        }
+
+        /**
+         * Parse the next mower, unless its record is not complete or invalid.
+         *
+         * @param reader Reader of the chunk, before the position of the mower.
+         * @return True if the mower is parsed, false if the chunk must be read sequentially from this mower.
+         */
+        private boolean parseMower(InstructionReader reader) {
+            if (mowerCount == positionsX.length) {
+                int capacity = mowerCount << 1;
+                positionsX = Arrays.copyOf(positionsX, capacity);
+                positionsY = Arrays.copyOf(positionsY, capacity);
+                orientations = Arrays.copyOf(orientations, capacity);
+                instructionEnds = Arrays.copyOf(instructionEnds, capacity);
+            }
+            int end = instructionCount;
+            try {
+                positionsX[mowerCount] = reader.nextInt();
+                positionsY[mowerCount] = reader.nextInt();
+                char orientationKey = reader.nextChar();
+                byte orientation = orientationKey < ORIENTATION_ORDINALS.length ? ORIENTATION_ORDINALS[orientationKey] : -1;
+                if (orientation < 0) {
+                    return false;
+                }
+                orientations[mowerCount] = orientation;
+                reader.startToken();
+            } catch (NoSuchElementException e) {
+                // Also covers the InputMismatchException, the sequential reader reports the error
+                return false;
+            }
+            int key;
+            while ((key = reader.nextTokenByte()) >= 0) {
+                byte instruction = INSTRUCTION_ORDINALS[key & 0xFF];
+                if (instruction < 0) {
+                    return false;
+                }
+                instructions[end++] = instruction;
+            }
+            instructionCount = end;
+            instructionEnds[mowerCount++] = end;
+            return true;
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package fr.aymeric.kata.mower.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * RunMetrics holds the counters and timers of a single simulation run. <br>
+ * Each value recorded is also added to the {@link SimulationMetrics} of the JVM, so the summary of a run only counts
+ * its own mowers even when several runs execute at the same time, as in the
+ * {@link fr.aymeric.kata.mower.server.SimulationServer}. The counters are {@link LongAdder}s, since the mowers of a
+ * run may be executed on several threads.
+ */
+public final class RunMetrics {
+    /**
+     * Metrics of the JVM, updated with the ones of the run.
+     */
+    private final SimulationMetrics global = SimulationMetrics.get();
+
+    /**
+     * Number of instructions executed.
+     */
+    private final LongAdder instructionsExecuted = new LongAdder();
+    /**
+     * Number of forward moves blocked by the border of the lawn.
+     */
+    private final LongAdder movesBlockedByBoundary = new LongAdder();
+    /**
+     * Number of forward moves blocked by an obstacle.
+     */
+    private final LongAdder movesBlockedByObstacle = new LongAdder();
+    /**
+     * Number of forward moves blocked by another mower.
+     */
+    private final LongAdder movesBlockedByMower = new LongAdder();
+    /**
+     * Number of mowers read and executed.
+     */
+    private final LongAdder mowersProcessed = new LongAdder();
+    /**
+     * Wall time spent parsing, in nanoseconds.
+     */
+    private final LongAdder parseNanos = new LongAdder();
+    /**
+     * Wall time spent executing, in nanoseconds.
+     */
+    private final LongAdder executeNanos = new LongAdder();
+
+    /**
+     * @param count number of instructions executed
+     */
+    public void recordInstructions(long count) {
+        instructionsExecuted.add(count);
+        global.recordInstructions(count);
+    }
+
+    /**
+     * @param count number of forward moves blocked by the border of the lawn
+     */
+    public void recordMovesBlockedByBoundary(long count) {
+        movesBlockedByBoundary.add(count);
+        global.recordMovesBlockedByBoundary(count);
+    }
+
+    /**
+     * @param count number of forward moves blocked by an obstacle
+     */
+    public void recordMovesBlockedByObstacle(long count) {
+        movesBlockedByObstacle.add(count);
+        global.recordMovesBlockedByObstacle(count);
+    }
+
+    /**
+     * @param count number of forward moves blocked by another mower
+     */
+    public void recordMovesBlockedByMower(long count) {
+        movesBlockedByMower.add(count);
+        global.recordMovesBlockedByMower(count);
+    }
+
+    /**
+     * Counts a mower read and executed.
+     */
+    public void recordMowerProcessed() {
+        mowersProcessed.increment();
+        global.recordMowerProcessed();
+    }
+
+    /**
+     * @param nanos wall time spent parsing, in nanoseconds
+     */
+    public void recordParseTime(long nanos) {
+        parseNanos.add(nanos);
+        global.recordParseTime(nanos);
+    }
+
+    /**
+     * @param nanos wall time spent executing, in nanoseconds
+     */
+    public void recordExecuteTime(long nanos) {
+        executeNanos.add(nanos);
+        global.recordExecuteTime(nanos);
+    }
+
+    /**
+     * @return the current values of the metrics of the run
+     */
+    public SimulationMetrics.Snapshot snapshot() {
+        return new SimulationMetrics.Snapshot(instructionsExecuted.sum(), movesBlockedByBoundary.sum(),
+                movesBlockedByObstacle.sum(), movesBlockedByMower.sum(), mowersProcessed.sum(), parseNanos.sum(), executeNanos.sum());
+    }
+}
@@ -0,0 +1,314 @@
+package fr.aymeric.kata.mower.metrics;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * SimulationMetrics holds the counters and timers of the simulation runs of the JVM. <br>
+ * Counters are {@link LongAdder}s, so recording from several threads doesn't contend. Hot loops should count locally
+ * and record their totals once, see {@link fr.aymeric.kata.mower.model.MowerEngine}. The runs record their values in
+ * their own {@link RunMetrics}, which adds them to these ones. The metrics are exposed through
+ * JMX once {@link #registerMBean()} is called, under the name {@link #OBJECT_NAME}.
+ */
+public final class SimulationMetrics implements SimulationMetricsMXBean {
+    /**
+     * JMX name of the metrics.
+     */
+    public static final String OBJECT_NAME = "fr.aymeric.kata.mower:type=SimulationMetrics";
+
+    /**
+     * Metrics of the JVM.
+     */
+    private static final SimulationMetrics INSTANCE = new SimulationMetrics();
+
+    /**
+     * Number of instructions executed.
+     */
+    private final LongAdder instructionsExecuted = new LongAdder();
+    /**
+     * Number of forward moves blocked by the border of the lawn.
+     */
+    private final LongAdder movesBlockedByBoundary = new LongAdder();
+    /**
+     * Number of forward moves blocked by an obstacle.
+     */
+    private final LongAdder movesBlockedByObstacle = new LongAdder();
+    /**
+     * Number of forward moves blocked by another mower.
+     */
+    private final LongAdder movesBlockedByMower = new LongAdder();
+    /**
+     * Number of mowers read and executed.
+     */
+    private final LongAdder mowersProcessed = new LongAdder();
+    /**
+     * Wall time spent parsing, in nanoseconds.
+     */
+    private final LongAdder parseNanos = new LongAdder();
+    /**
+     * Wall time spent executing, in nanoseconds.
+     */
+    private final LongAdder executeNanos = new LongAdder();
+
+    /**
+     * Singleton, see {@link #get()}.
+     */
+    private SimulationMetrics() {
+    }
+
+    /**
+     * @return the metrics of the JVM
+     */
+    public static SimulationMetrics get() {
+        return INSTANCE;
+    }
+
+    /**
+     * Registers the metrics in the platform MBean server, if they are not already registered.
+     *
+     * @throws IllegalStateException If the registration fails.
+     */
+    public void registerMBean() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (!server.isRegistered(name)) {
+                server.registerMBean(this, name);
+            }
+        } catch (InstanceAlreadyExistsException e) {
+            // Registered concurrently by another thread
+        } catch (JMException e) {
+            throw new IllegalStateException("Unable to register the simulation metrics", e);
+        }
+    }
+
+    /**
+     * @param count number of instructions executed
+     */
+    public void recordInstructions(long count) {
+        instructionsExecuted.add(count);
+    }
+
+    /**
+     * @param count number of forward moves blocked by the border of the lawn
+     */
+    public void recordMovesBlockedByBoundary(long count) {
+        movesBlockedByBoundary.add(count);
+    }
+
+    /**
+     * @param count number of forward moves blocked by an obstacle
+     */
+    public void recordMovesBlockedByObstacle(long count) {
+        movesBlockedByObstacle.add(count);
+    }
+
+    /**
+     * @param count number of forward moves blocked by another mower
+     */
+    public void recordMovesBlockedByMower(long count) {
+        movesBlockedByMower.add(count);
+    }
+
+    /**
+     * Counts a mower read and executed.
+     */
+    public void recordMowerProcessed() {
+        mowersProcessed.increment();
+    }
+
+    /**
+     * @param nanos wall time spent parsing, in nanoseconds
+     */
+    public void recordParseTime(long nanos) {
+        parseNanos.add(nanos);
+    }
+
+    /**
+     * @param nanos wall time spent executing, in nanoseconds
+     */
+    public void recordExecuteTime(long nanos) {
+        executeNanos.add(nanos);
+    }
+
+    @Override
+    public long getInstructionsExecuted() {
+        return instructionsExecuted.sum();
+    }
+
+    @Override
+    public long getMovesBlockedByBoundary() {
+        return movesBlockedByBoundary.sum();
+    }
+
+    @Override
+    public long getMovesBlockedByObstacle() {
+        return movesBlockedByObstacle.sum();
+    }
+
+    @Override
+    public long getMovesBlockedByMower() {
+        return movesBlockedByMower.sum();
+    }
+
+    @Override
+    public long getMowersProcessed() {
+        return mowersProcessed.sum();
+    }
+
+    @Override
+    public long getParseTimeMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(parseNanos.sum());
+    }
+
+    @Override
+    public long getExecuteTimeMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(executeNanos.sum());
+    }
+
+    @Override
+    public void reset() {
+        instructionsExecuted.reset();
+        movesBlockedByBoundary.reset();
+        movesBlockedByObstacle.reset();
+        movesBlockedByMower.reset();
+        mowersProcessed.reset();
+        parseNanos.reset();
+        executeNanos.reset();
+    }
+
+    /**
+     * @return the current values of the metrics
+     */
+    public Snapshot snapshot() {
+        return new Snapshot(instructionsExecuted.sum(), movesBlockedByBoundary.sum(), movesBlockedByObstacle.sum(),
+                movesBlockedByMower.sum(), mowersProcessed.sum(), parseNanos.sum(), executeNanos.sum());
+    }
+
+    /**
+     * Values of the metrics at a given time. The difference of two snapshots gives the metrics recorded meanwhile.
+     */
+    public static final class Snapshot {
+        /**
+         * Number of instructions executed.
+         */
+        private final long instructionsExecuted;
+        /**
+         * Number of forward moves blocked by the border of the lawn.
+         */
+        private final long movesBlockedByBoundary;
+        /**
+         * Number of forward moves blocked by an obstacle.
+         */
+        private final long movesBlockedByObstacle;
+        /**
+         * Number of forward moves blocked by another mower.
+         */
+        private final long movesBlockedByMower;
+        /**
+         * Number of mowers read and executed.
+         */
+        private final long mowersProcessed;
+        /**
+         * Wall time spent parsing, in nanoseconds.
+         */
+        private final long parseNanos;
+        /**
+         * Wall time spent executing, in nanoseconds.
+         */
+        private final long executeNanos;
+
+        /**
+         * Constructor of a snapshot.
+         *
+         * @param instructionsExecuted Number of instructions executed.
+         * @param movesBlockedByBoundary Number of forward moves blocked by the border of the lawn.
+         * @param movesBlockedByObstacle Number of forward moves blocked by an obstacle.
+         * @param movesBlockedByMower Number of forward moves blocked by another mower.
+         * @param mowersProcessed Number of mowers read and executed.
+         * @param parseNanos Wall time spent parsing, in nanoseconds.
+         * @param executeNanos Wall time spent executing, in nanoseconds.
+         */
+        Snapshot(long instructionsExecuted, long movesBlockedByBoundary, long movesBlockedByObstacle,
+                 long movesBlockedByMower, long mowersProcessed, long parseNanos, long executeNanos) {
+            this.instructionsExecuted = instructionsExecuted;
+            this.movesBlockedByBoundary = movesBlockedByBoundary;
+            this.movesBlockedByObstacle = movesBlockedByObstacle;
+            this.movesBlockedByMower = movesBlockedByMower;
+            this.mowersProcessed = mowersProcessed;
+            this.parseNanos = parseNanos;
+            this.executeNanos = executeNanos;
+        }
+
+        /**
+         * @param start snapshot taken at the beginning of a run
+         * @return the metrics of the run from the given snapshot to this one
+         */
+        public Snapshot since(Snapshot start) {
+            return new Snapshot(instructionsExecuted - start.instructionsExecuted,
+                    movesBlockedByBoundary - start.movesBlockedByBoundary,
+                    movesBlockedByObstacle - start.movesBlockedByObstacle,
+                    movesBlockedByMower - start.movesBlockedByMower,
+                    mowersProcessed - start.mowersProcessed,
+                    parseNanos - start.parseNanos,
+                    executeNanos - start.executeNanos);
+        }
+
+        /**
+         * @return the number of instructions executed
+         */
+        public long getInstructionsExecuted() {
+            return instructionsExecuted;
+        }
+
+        /**
+         * @return the number of forward moves blocked by the border of the lawn
+         */
+        public long getMovesBlockedByBoundary() {
+            return movesBlockedByBoundary;
+        }
+
+        /**
+         * @return the number of forward moves blocked by an obstacle
+         */
+        public long getMovesBlockedByObstacle() {
+            return movesBlockedByObstacle;
+        }
+
+        /**
+         * @return the number of forward moves blocked by another mower
+         */
+        public long getMovesBlockedByMower() {
+            return movesBlockedByMower;
+        }
+
+        /**
+         * @return the number of mowers read and executed
+         */
+        public long getMowersProcessed() {
+            return mowersProcessed;
+        }
+
+        /**
+         * @return a one line summary of the metrics
+         */
+        public String summary() {
+            return String.format("%d mowers, %d instructions, %d moves blocked (%d by the boundary, "
+                            + "%d by an obstacle, %d by a mower), parse %d ms, execute %d ms",
+                    mowersProcessed, instructionsExecuted,
+                    movesBlockedByBoundary + movesBlockedByObstacle + movesBlockedByMower,
+                    movesBlockedByBoundary, movesBlockedByObstacle, movesBlockedByMower,
+                    TimeUnit.NANOSECONDS.toMillis(parseNanos), TimeUnit.NANOSECONDS.toMillis(executeNanos));
+        }
+
+        @Override
+        public String toString() {
+            return "Snapshot{" + summary() + '}';
+        }
+    }
+}
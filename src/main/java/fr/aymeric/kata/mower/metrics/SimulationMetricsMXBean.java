@@ -0,0 +1,46 @@
+package fr.aymeric.kata.mower.metrics;
+
+/**
+ * Management interface of the {@link SimulationMetrics}, exposed through JMX.
+ */
+public interface SimulationMetricsMXBean {
+    /**
+     * @return the number of instructions executed
+     */
+    long getInstructionsExecuted();
+
+    /**
+     * @return the number of forward moves blocked by the border of the lawn
+     */
+    long getMovesBlockedByBoundary();
+
+    /**
+     * @return the number of forward moves blocked by an obstacle
+     */
+    long getMovesBlockedByObstacle();
+
+    /**
+     * @return the number of forward moves blocked by another mower
+     */
+    long getMovesBlockedByMower();
+
+    /**
+     * @return the number of mowers read and executed
+     */
+    long getMowersProcessed();
+
+    /**
+     * @return the wall time spent parsing instruction files, in milliseconds
+     */
+    long getParseTimeMillis();
+
+    /**
+     * @return the wall time spent executing mower instructions, in milliseconds
+     */
+    long getExecuteTimeMillis();
+
+    /**
+     * Resets all the counters to zero.
+     */
+    void reset();
+}
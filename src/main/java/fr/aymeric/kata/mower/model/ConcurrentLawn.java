@@ -0,0 +1,170 @@
+package fr.aymeric.kata.mower.model;
+
+import fr.aymeric.kata.mower.metrics.RunMetrics;
+import fr.aymeric.kata.mower.model.occupancy.AtomicOccupancyIndex;
+import fr.aymeric.kata.mower.trace.TraceRecorder;
+import fr.aymeric.kata.mower.util.EnumOrientation;
+
+/**
+ * ConcurrentLawn is a lawn whose mowers can be moved from several threads without a global lock. <br>
+ * Each cell is claimed with a compare-and-set in an {@link AtomicOccupancyIndex}: a move first claims the target
+ * cell, which only one mower can win, then releases the source cell. In between, the mower holds both cells, so two
+ * mowers never share a cell. The moves are checked one by one, a run of forward moves stops at the first cell that
+ * cannot be claimed.
+ * <p>
+ * The fleet has a fixed capacity, so that adding a mower never replaces the arrays other threads are writing to.
+ * A mower must be driven by a single thread at a time, and its state is visible to other threads once this thread
+ * has been joined (or has published it in any other way). {@link #getFreeDistance(int, int, EnumOrientation, int)}
+ * only gives a snapshot while mowers are moving.
+ * </p>
+ */
+public class ConcurrentLawn extends Lawn {
+    /**
+     * Index of the cells occupied by the mowers of the lawn.
+     */
+    private final AtomicOccupancyIndex cells;
+
+    /**
+     * Constructor of the lawn.
+     * @param sizeX Size of the lawn on X axis.
+     * @param sizeY Size of the lawn on Y axis.
+     * @param maxMowers Maximum number of mowers of the lawn.
+     * @throws IllegalArgumentException If a size is not greater than 0, or the lawn is too large.
+     */
+    public ConcurrentLawn(int sizeX, int sizeY, int maxMowers) {
+        this(sizeX, sizeY, new AtomicOccupancyIndex(sizeX, sizeY), maxMowers);
+    }
+
+    /**
+     * Constructor of the lawn with its index.
+     * @param sizeX Size of the lawn on X axis.
+     * @param sizeY Size of the lawn on Y axis.
+     * @param cells Empty index of the cells occupied by the mowers.
+     * @param maxMowers Maximum number of mowers of the lawn.
+     */
+    private ConcurrentLawn(int sizeX, int sizeY, AtomicOccupancyIndex cells, int maxMowers) {
+        super(sizeX, sizeY, cells, maxMowers, false);
+        this.cells = cells;
+    }
+
+    /**
+     * Claims the cell of a new mower and adds it to the fleet. <br>
+     * Adding mowers is serialized, moving them is not.
+     * @param x X position of the mower.
+     * @param y Y position of the mower.
+     * @param orientation Orientation of the mower.
+     * @return The index of the mower in the fleet.
+     * @throws IllegalArgumentException If the cell has been claimed by another mower meanwhile.
+     * @throws IllegalStateException If the lawn already has its maximum number of mowers.
+     */
+    @Override
+    synchronized int place(int x, int y, EnumOrientation orientation) {
+        if (!cells.tryOccupy(x, y)) {
+            throw new IllegalArgumentException("Position already occupied by another mower");
+        }
+        try {
+            return getFleet().add(x, y, orientation);
+        } catch (IllegalStateException e) {
+            cells.release(x, y);
+            throw e;
+        }
+    }
+
+    /**
+     * Moves a mower whose new position has already been checked. <br>
+     * On this lawn the check may be outdated, so the move is claimed like in
+     * {@link #tryMoveOccupant(int, int, int, int)}.
+     * @throws IllegalStateException If the new position has been claimed by another mower meanwhile.
+     */
+    @Override
+    void moveOccupant(int fromX, int fromY, int toX, int toY) {
+        if (!tryMoveOccupant(fromX, fromY, toX, toY)) {
+            throw new IllegalStateException("Position already occupied by another mower: " + toX + " " + toY);
+        }
+    }
+
+    /**
+     * The mowers of a concurrent lawn move from several threads, so their instructions are recorded at once in the
+     * metrics instead of being counted on the lawn.
+     */
+    @Override
+    void countInstruction() {
+        getMetrics().recordInstructions(1);
+    }
+
+    /**
+     * The blocked moves are recorded at once in the metrics, like the instructions.
+     */
+    @Override
+    void countBlockedMoves(int x, int y, int count) {
+        RunMetrics metrics = getMetrics();
+        if (!isPositionInside(x, y)) {
+            metrics.recordMovesBlockedByBoundary(count);
+        } else if (isObstacle(x, y)) {
+            metrics.recordMovesBlockedByObstacle(count);
+        } else {
+            metrics.recordMovesBlockedByMower(count);
+        }
+    }
+
+    @Override
+    boolean tryMoveOccupant(int fromX, int fromY, int toX, int toY) {
+        if (!isPositionInside(toX, toY) || isObstacle(toX, toY) || !cells.tryOccupy(toX, toY)) {
+            return false;
+        }
+        cells.release(fromX, fromY);
+        return true;
+    }
+
+    @Override
+    int advanceOccupant(int x, int y, EnumOrientation orientation, int moves) {
+        int done = 0;
+        while (done < moves
+                && tryMoveOccupant(x, y, x + orientation.getStepX(), y + orientation.getStepY())) {
+            x += orientation.getStepX();
+            y += orientation.getStepY();
+            done++;
+        }
+        return done;
+    }
+
+    /**
+     * The coverage is not tracked on a concurrent lawn, whose mowers move from several threads.
+     * @throws UnsupportedOperationException Always.
+     */
+    @Override
+    public CoverageTracker enableCoverage() {
+        throw new UnsupportedOperationException("Coverage is not tracked on a concurrent lawn");
+    }
+
+    /**
+     * The state changes are not recorded on a concurrent lawn, whose mowers move from several threads.
+     * @param traceRecorder Recorder of the state changes, only null is accepted.
+     * @throws UnsupportedOperationException If the recorder is not null.
+     */
+    @Override
+    public void setTraceRecorder(TraceRecorder traceRecorder) {
+        if (traceRecorder != null) {
+            throw new UnsupportedOperationException("State changes are not traced on a concurrent lawn");
+        }
+    }
+
+    @Override
+    boolean allowsDeferredMoves() {
+        return false;
+    }
+
+    /**
+     * {@inheritDoc} <br>
+     * The cells are checked one by one, so the time is linear in the distance returned.
+     */
+    @Override
+    public int getFreeDistance(int x, int y, EnumOrientation orientation, int maxDistance) {
+        int distance = 0;
+        while (distance < maxDistance
+                && isPositionValid(x + orientation.getStepX() * (distance + 1), y + orientation.getStepY() * (distance + 1))) {
+            distance++;
+        }
+        return distance;
+    }
+}
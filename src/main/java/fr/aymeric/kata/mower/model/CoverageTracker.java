@@ -0,0 +1,196 @@
+package fr.aymeric.kata.mower.model;
+
+import fr.aymeric.kata.mower.util.CompressedBitmap;
+import fr.aymeric.kata.mower.util.EnumOrientation;
+
+import java.util.Arrays;
+
+/**
+ * CoverageTracker records the cells mowed on a lawn, by each mower and by all of them. <br>
+ * A cell is mowed once a mower has been on it, from its start position to its final one. The cells are stored as
+ * {@code y * (sizeX + 1) + x} in {@link CompressedBitmap}s, so a mower only takes memory for the areas it went
+ * through, and a straight run of moves along a row is added as a single range. <br>
+ * The tracker is enabled with {@link Lawn#enableCoverage()}. Like the lawn, it is not thread-safe.
+ */
+public class CoverageTracker {
+    /**
+     * System property enabling the coverage of the runs of the executors, whose summary is then logged.
+     */
+    public static final String COVERAGE_PROPERTY = "fr.aymeric.kata.mower.coverage";
+
+    /**
+     * Number of cells of a row of the lawn.
+     */
+    private final long rowLength;
+    /**
+     * Number of cells of the lawn.
+     */
+    private final long cellCount;
+    /**
+     * Cells mowed by any mower.
+     */
+    private final CompressedBitmap lawnCells = new CompressedBitmap();
+    /**
+     * Cells mowed by each mower, by index in the fleet, null for a mower that hasn't been tracked yet.
+     */
+    private CompressedBitmap[] mowerCells = new CompressedBitmap[16];
+
+    /**
+     * Constructor of the tracker of a lawn.
+     *
+     * @param sizeX Size of the lawn on X axis.
+     * @param sizeY Size of the lawn on Y axis.
+     */
+    CoverageTracker(int sizeX, int sizeY) {
+        this.rowLength = (long) sizeX + 1;
+        this.cellCount = rowLength * ((long) sizeY + 1);
+    }
+
+    /**
+     * Records a mower on a cell.
+     *
+     * @param mower Index of the mower in the fleet.
+     * @param x X position of the cell.
+     * @param y Y position of the cell.
+     */
+    void visit(int mower, int x, int y) {
+        long cell = y * rowLength + x;
+        cellsOf(mower).add(cell);
+        lawnCells.add(cell);
+    }
+
+    /**
+     * Records a run of forward moves of a mower.
+     *
+     * @param mower Index of the mower in the fleet.
+     * @param x X position the mower starts from, already recorded.
+     * @param y Y position the mower starts from, already recorded.
+     * @param direction Direction of the moves.
+     * @param moves Number of moves done.
+     */
+    void visitLine(int mower, int x, int y, EnumOrientation direction, int moves) {
+        if (direction.getStepY() == 0) {
+            // The cells of a row are consecutive
+            long first = y * rowLength + Math.min(x + direction.getStepX(), x + direction.getStepX() * moves);
+            cellsOf(mower).addRange(first, first + moves);
+            lawnCells.addRange(first, first + moves);
+            return;
+        }
+        for (int i = 1; i <= moves; i++) {
+            visit(mower, x, y + direction.getStepY() * i);
+        }
+    }
+
+    /**
+     * Adds the cells mowed on another lawn of the same size, such as a lawn executing a part of the mowers of a run.
+     *
+     * @param other Tracker of the other lawn, unchanged.
+     * @param mowers Index in this tracker of each mower of the other tracker.
+     */
+    public void merge(CoverageTracker other, int[] mowers) {
+        for (int mower = 0; mower < other.mowerCells.length && mower < mowers.length; mower++) {
+            if (other.mowerCells[mower] != null) {
+                cellsOf(mowers[mower]).addAll(other.mowerCells[mower]);
+            }
+        }
+        lawnCells.addAll(other.lawnCells);
+    }
+
+    /**
+     * @return the number of cells mowed by any mower
+     */
+    public long getCoveredCells() {
+        return lawnCells.getCardinality();
+    }
+
+    /**
+     * @param mower index of a mower in the fleet
+     * @return the number of cells mowed by the mower
+     */
+    public long getCoveredCells(int mower) {
+        return mower < mowerCells.length && mowerCells[mower] != null ? mowerCells[mower].getCardinality() : 0;
+    }
+
+    /**
+     * @return the percentage of the cells of the lawn mowed by any mower
+     */
+    public double getCoveredPercentage() {
+        return 100.0 * getCoveredCells() / cellCount;
+    }
+
+    /**
+     * @param mower index of a mower in the fleet
+     * @return the percentage of the cells of the lawn mowed by the mower
+     */
+    public double getCoveredPercentage(int mower) {
+        return 100.0 * getCoveredCells(mower) / cellCount;
+    }
+
+    /**
+     * Check if a cell has been mowed.
+     *
+     * @param x X position of the cell.
+     * @param y Y position of the cell.
+     * @return True if a mower has been on the cell.
+     */
+    public boolean isCovered(int x, int y) {
+        return x >= 0 && x < rowLength && y >= 0 && lawnCells.contains(y * rowLength + x);
+    }
+
+    /**
+     * Check if a cell has been mowed by a mower.
+     *
+     * @param mower Index of the mower in the fleet.
+     * @param x X position of the cell.
+     * @param y Y position of the cell.
+     * @return True if the mower has been on the cell.
+     */
+    public boolean isCovered(int mower, int x, int y) {
+        return x >= 0 && x < rowLength && y >= 0 && mower < mowerCells.length && mowerCells[mower] != null
+                && mowerCells[mower].contains(y * rowLength + x);
+    }
+
+    /**
+     * @return the approximate number of bytes taken by the tracked cells
+     */
+    public long getSizeInBytes() {
+        long bytes = lawnCells.getSizeInBytes();
+        for (CompressedBitmap cells : mowerCells) {
+            if (cells != null) {
+                bytes += cells.getSizeInBytes();
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * @return a one line summary of the coverage
+     */
+    public String summary() {
+        return String.format("%d cells mowed (%.2f%% of the lawn), %d KB of coverage data",
+                getCoveredCells(), getCoveredPercentage(), getSizeInBytes() >> 10);
+    }
+
+    /**
+     * Get the cells of a mower, creating them if needed.
+     *
+     * @param mower Index of the mower in the fleet.
+     * @return The cells mowed by the mower.
+     */
+    private CompressedBitmap cellsOf(int mower) {
+        if (mower >= mowerCells.length) {
+            mowerCells = Arrays.copyOf(mowerCells, Math.max(mower + 1, mowerCells.length << 1));
+        }
+        CompressedBitmap cells = mowerCells[mower];
+        if (cells == null) {
+            cells = new CompressedBitmap();
+            mowerCells[mower] = cells;
+        }
+        return cells;
+    }
+
+    @Override
+    public String toString() {
+        return "CoverageTracker{" + summary() + '}';
+    }
+}
@@ -1,11 +1,17 @@
 package fr.aymeric.kata.mower.model;
 
-import java.util.ArrayList;
-import java.util.Collections;
+import fr.aymeric.kata.mower.metrics.RunMetrics;
+import fr.aymeric.kata.mower.model.occupancy.ObstacleIndex;
+import fr.aymeric.kata.mower.model.occupancy.OccupancyIndex;
+import fr.aymeric.kata.mower.model.occupancy.RowColumnIndex;
+import fr.aymeric.kata.mower.trace.TraceRecorder;
+import fr.aymeric.kata.mower.util.EnumOrientation;
+
 import java.util.List;
+import java.util.Objects;
 
 /**
- * Lawn class represents a bounded lawn where mowers can move.
+ * Lawn class represents a bounded lawn where mowers can move, around its static obstacles if it has any.
  */
 public class Lawn {
     /**
@@ -18,41 +24,403 @@ public class Lawn {
     private final int sizeY;
 
     /**
-     * List of mowers on the lawn.
-     * @see Mower
+     * State of the mowers on the lawn.
+     * @see MowerFleet
+     */
+    private final MowerFleet fleet;
+
+    /**
+     * Index of the cells occupied by the mowers of the lawn.
+     * @see OccupancyIndex
+     */
+    private final OccupancyIndex occupancy;
+
+    /**
+     * Occupied cells of each row and column, used to find the nearest mower along a line. It is only built by the
+     * first ray cast and maintained from then on, so the runs which never cast rays don't pay for it. Null until then.
+     * @see #getFreeDistance(int, int, EnumOrientation, int)
+     */
+    private RowColumnIndex lines;
+
+    /**
+     * Static obstacles of the lawn, that no mower can enter.
+     * @see #setObstacles(ObstacleIndex)
+     */
+    private ObstacleIndex obstacles = ObstacleIndex.EMPTY;
+
+    /**
+     * Cells mowed on the lawn, null if the coverage is not tracked.
+     * @see #enableCoverage()
+     */
+    private CoverageTracker coverage;
+    /**
+     * Recorder of the state changes of the mowers, null if they are not traced.
+     * @see #setTraceRecorder(TraceRecorder)
+     */
+    private TraceRecorder traceRecorder;
+    /**
+     * Metrics of the run executing the mowers of the lawn.
+     * @see #setMetrics(RunMetrics)
+     */
+    private RunMetrics metrics = new RunMetrics();
+    /**
+     * Instructions executed by the {@link Mower} objects of the lawn, not yet recorded in the metrics.
      */
-    private final List<Mower> mowers = new ArrayList<>();
+    private long pendingInstructions;
+    /**
+     * Forward moves of the {@link Mower} objects blocked by the border of the lawn, not yet recorded in the metrics.
+     */
+    private long pendingBlockedByBoundary;
+    /**
+     * Forward moves of the {@link Mower} objects blocked by an obstacle, not yet recorded in the metrics.
+     */
+    private long pendingBlockedByObstacle;
+    /**
+     * Forward moves of the {@link Mower} objects blocked by another mower, not yet recorded in the metrics.
+     */
+    private long pendingBlockedByMower;
 
     /**
-     * Constructor of the lawn.
+     * Constructor of the lawn. <br>
+     * The occupancy index is chosen according to the size of the lawn, see {@link OccupancyIndex#forLawn(int, int)}.
      * @param sizeX Size of the lawn on X axis.
      * @param sizeY Size of the lawn on Y axis.
      */
     public Lawn(int sizeX, int sizeY) {
-        if (sizeX <= 0) {
-            throw new IllegalArgumentException("Size X must be greater than 0");
-        }
-        if (sizeY <= 0) {
-            throw new IllegalArgumentException("Size Y must be greater than 0");
+        this(sizeX, sizeY, OccupancyIndex.forLawn(checkSize(sizeX, "X"), checkSize(sizeY, "Y")));
+    }
+
+    /**
+     * Constructor of the lawn with a given occupancy index.
+     * @param sizeX Size of the lawn on X axis.
+     * @param sizeY Size of the lawn on Y axis.
+     * @param occupancy Empty index used to track the cells occupied by the mowers.
+     * @throws NullPointerException If the occupancy index is null.
+     */
+    public Lawn(int sizeX, int sizeY, OccupancyIndex occupancy) {
+        this(sizeX, sizeY, occupancy, 16, true);
+    }
+
+    /**
+     * Constructor of the lawn with a given occupancy index and fleet capacity.
+     * @param sizeX Size of the lawn on X axis.
+     * @param sizeY Size of the lawn on Y axis.
+     * @param occupancy Empty index used to track the cells occupied by the mowers.
+     * @param fleetCapacity Initial number of mowers the fleet can store.
+     * @param growableFleet False if the fleet capacity is fixed, see {@link MowerFleet}.
+     * @throws NullPointerException If the occupancy index is null.
+     */
+    Lawn(int sizeX, int sizeY, OccupancyIndex occupancy, int fleetCapacity, boolean growableFleet) {
+        Objects.requireNonNull(occupancy, "Occupancy index cannot be null");
+        this.sizeX = checkSize(sizeX, "X");
+        this.sizeY = checkSize(sizeY, "Y");
+        this.occupancy = occupancy;
+        this.fleet = new MowerFleet(this, fleetCapacity, growableFleet);
+    }
+
+    /**
+     * Check the size of the lawn on an axis.
+     * @param size Size to check.
+     * @param axis Name of the axis, used in the error message.
+     * @return The given size.
+     * @throws IllegalArgumentException If the size is not greater than 0.
+     */
+    private static int checkSize(int size, String axis) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("Size " + axis + " must be greater than 0");
         }
-        this.sizeX = sizeX;
-        this.sizeY = sizeY;
+        return size;
     }
 
     /**
-     * Add a mower to the lawn.
+     * Add a mower to the lawn. <br>
+     * From now on, the state of the mower is stored in the {@link MowerFleet} of the lawn and the mower object is a
+     * view on it, and its position is tracked by the occupancy index of the lawn.
      * @param mower Mower to add.
+     * @throws IllegalArgumentException If the mower was created on another lawn, or if its position is already
+     *                                  occupied by another mower.
+     * @throws IllegalStateException If the mower has already been added to a lawn.
      */
     public void addMower(Mower mower) {
-        mowers.add(mower);
+        if (mower.getLawn() != this) {
+            throw new IllegalArgumentException("Mower created on another lawn");
+        }
+        if (mower.isPlaced()) {
+            throw new IllegalStateException("Mower already added to a lawn");
+        }
+        if (occupancy.isOccupied(mower.getPositionX(), mower.getPositionY())) {
+            throw new IllegalArgumentException("Position already occupied by another mower");
+        }
+        mower.bind(fleet, place(mower.getPositionX(), mower.getPositionY(), mower.getOrientation()));
+    }
+
+    /**
+     * Add a mower to the lawn without creating a {@link Mower} object. <br>
+     * The mower is only stored in the {@link MowerFleet} of the lawn. The position is checked like by the
+     * constructor of {@link Mower}.
+     * @param x X position of the mower.
+     * @param y Y position of the mower.
+     * @param orientation Orientation of the mower.
+     * @return The index of the mower in the fleet.
+     * @throws NullPointerException If the orientation is null.
+     * @throws IllegalArgumentException If the position is invalid (outside of the lawn or occupied).
+     */
+    public int addMower(int x, int y, EnumOrientation orientation) {
+        Objects.requireNonNull(orientation, "Orientation cannot be null");
+        if (!isPositionValid(x, y)) {
+            throw new IllegalArgumentException("Invalid initial position");
+        }
+        return place(x, y, orientation);
+    }
+
+    /**
+     * Add a mower to the fleet and the indexes of the lawn, the position is already checked.
+     * @param x X position of the mower.
+     * @param y Y position of the mower.
+     * @param orientation Orientation of the mower.
+     * @return The index of the mower in the fleet.
+     */
+    int place(int x, int y, EnumOrientation orientation) {
+        occupancy.occupy(x, y);
+        if (lines != null) {
+            lines.occupy(x, y);
+        }
+        int index = fleet.add(x, y, orientation);
+        if (coverage != null) {
+            coverage.visit(index, x, y);
+        }
+        if (traceRecorder != null) {
+            traceRecorder.recordPlacement(index, x, y, orientation.ordinal());
+        }
+        return index;
+    }
+
+    /**
+     * Update the indexes of the lawn when a mower of the lawn moves, the new position is already checked.
+     * @param fromX Previous X position of the mower.
+     * @param fromY Previous Y position of the mower.
+     * @param toX New X position of the mower.
+     * @param toY New Y position of the mower.
+     */
+    void moveOccupant(int fromX, int fromY, int toX, int toY) {
+        occupancy.release(fromX, fromY);
+        occupancy.occupy(toX, toY);
+        if (lines != null) {
+            lines.release(fromX, fromY);
+            lines.occupy(toX, toY);
+        }
+    }
+
+    /**
+     * Move a mower of the lawn to a new position if it is valid, and update the indexes of the lawn.
+     * @param fromX Current X position of the mower.
+     * @param fromY Current Y position of the mower.
+     * @param toX New X position of the mower.
+     * @param toY New Y position of the mower.
+     * @return True if the mower moved, false if the new position is invalid.
+     */
+    boolean tryMoveOccupant(int fromX, int fromY, int toX, int toY) {
+        if (!isPositionValid(toX, toY)) {
+            return false;
+        }
+        moveOccupant(fromX, fromY, toX, toY);
+        return true;
+    }
+
+    /**
+     * Move a mower of the lawn forward several times, stopping at the first blocked move, and update the indexes
+     * of the lawn. <br>
+     * The moves are a single ray cast, see {@link #getFreeDistance(int, int, EnumOrientation, int)}.
+     * @param x Current X position of the mower.
+     * @param y Current Y position of the mower.
+     * @param orientation Direction of the moves.
+     * @param moves Number of moves.
+     * @return The number of moves done.
+     */
+    int advanceOccupant(int x, int y, EnumOrientation orientation, int moves) {
+        int done = getFreeDistance(x, y, orientation, moves);
+        if (done > 0) {
+            moveOccupant(x, y, x + orientation.getStepX() * done, y + orientation.getStepY() * done);
+        }
+        return done;
+    }
+
+    /**
+     * Check if the moves of a mower can be checked against the lawn and applied to its indexes only once,
+     * at the end of a sequence of instructions, like {@link MowerEngine} does.
+     * @return True if nothing else can move on the lawn while a mower executes its instructions.
+     */
+    boolean allowsDeferredMoves() {
+        return true;
     }
 
     /**
-     * Get the list of mowers on the lawn.
-     * @return Unmodifiable list of mowers.
+     * Set the static obstacles of the lawn. <br>
+     * The obstacles must be set before adding any mower, and cannot change afterwards.
+     * @param obstacles Obstacles of the lawn, which can be shared with other lawns of the same size.
+     * @throws NullPointerException If the obstacles are null.
+     * @throws IllegalArgumentException If an obstacle is outside of the lawn.
+     * @throws IllegalStateException If the lawn already has mowers.
+     */
+    public void setObstacles(ObstacleIndex obstacles) {
+        Objects.requireNonNull(obstacles, "Obstacles cannot be null");
+        if (fleet.size() > 0) {
+            throw new IllegalStateException("Obstacles must be set before adding mowers");
+        }
+        if (obstacles.getMaxX() > sizeX || obstacles.getMaxY() > sizeY) {
+            throw new IllegalArgumentException("Obstacle outside of the lawn");
+        }
+        this.obstacles = obstacles;
+    }
+
+    /**
+     * Get the static obstacles of the lawn.
+     * @return The obstacles of the lawn, {@link ObstacleIndex#EMPTY} if none have been set.
+     */
+    public ObstacleIndex getObstacles() {
+        return obstacles;
+    }
+
+    /**
+     * Start tracking the cells mowed on the lawn. <br>
+     * The cells of the mowers already on the lawn are recorded as mowed, then each cell a mower of the lawn moves
+     * to. Mowers not added to the lawn are not tracked.
+     * @return The tracker of the cells mowed on the lawn.
+     */
+    public CoverageTracker enableCoverage() {
+        if (coverage == null) {
+            coverage = new CoverageTracker(sizeX, sizeY);
+            for (int i = 0; i < fleet.size(); i++) {
+                coverage.visit(i, fleet.getPositionX(i), fleet.getPositionY(i));
+            }
+        }
+        return coverage;
+    }
+
+    /**
+     * Get the cells mowed on the lawn.
+     * @return The tracker of the cells mowed on the lawn, null if {@link #enableCoverage()} has not been called.
+     */
+    public CoverageTracker getCoverage() {
+        return coverage;
+    }
+
+    /**
+     * Get the metrics of the run executing the mowers of the lawn. <br>
+     * The moves counted by the {@link Mower} objects since the last call are recorded first.
+     * @return the metrics of the run executing the mowers of the lawn
+     */
+    public RunMetrics getMetrics() {
+        if ((pendingInstructions | pendingBlockedByBoundary | pendingBlockedByObstacle | pendingBlockedByMower) != 0) {
+            metrics.recordInstructions(pendingInstructions);
+            metrics.recordMovesBlockedByBoundary(pendingBlockedByBoundary);
+            metrics.recordMovesBlockedByObstacle(pendingBlockedByObstacle);
+            metrics.recordMovesBlockedByMower(pendingBlockedByMower);
+            pendingInstructions = 0;
+            pendingBlockedByBoundary = 0;
+            pendingBlockedByObstacle = 0;
+            pendingBlockedByMower = 0;
+        }
+        return metrics;
+    }
+
+    /**
+     * Set the metrics where the moves of the mowers of the lawn are recorded, so that several lawns of a run share
+     * them. By default, each lawn has its own metrics.
+     * @param metrics Metrics of the run.
+     */
+    public void setMetrics(RunMetrics metrics) {
+        // The moves counted so far belong to the previous metrics
+        getMetrics();
+        this.metrics = metrics;
+    }
+
+    /**
+     * Count an instruction executed by a {@link Mower} of the lawn. <br>
+     * A {@link Mower} executes one instruction per call, so its counts are kept on the lawn and recorded once in the
+     * metrics when they are read with {@link #getMetrics()}, like the {@link MowerEngine} counts in locals.
+     */
+    void countInstruction() {
+        pendingInstructions++;
+    }
+
+    /**
+     * Count forward moves of a {@link Mower} of the lawn blocked before a position, by reason, like
+     * {@link #countInstruction()}.
+     * @param x X position the mower could not move to.
+     * @param y Y position the mower could not move to.
+     * @param count Number of blocked moves.
+     */
+    void countBlockedMoves(int x, int y, int count) {
+        if (!isPositionInside(x, y)) {
+            pendingBlockedByBoundary += count;
+        } else if (isObstacle(x, y)) {
+            pendingBlockedByObstacle += count;
+        } else {
+            pendingBlockedByMower += count;
+        }
+    }
+
+    /**
+     * Get the forward moves of the {@link Mower} objects of the lawn blocked since the metrics were last read, to
+     * measure the moves blocked by a sequence of instructions, see {@link #countRepeatedBlockedMoves(long[], long)}.
+     * @return The moves blocked by the border of the lawn, by an obstacle and by another mower.
+     */
+    public long[] getPendingBlockedMoves() {
+        return new long[] {pendingBlockedByBoundary, pendingBlockedByObstacle, pendingBlockedByMower};
+    }
+
+    /**
+     * Count again the forward moves blocked since a call to {@link #getPendingBlockedMoves()}, for a sequence of
+     * instructions whose execution is skipped because its result is known.
+     * @param since Moves returned by {@link #getPendingBlockedMoves()} at the start of the sequence.
+     * @param times Number of times the sequence is skipped.
+     */
+    public void countRepeatedBlockedMoves(long[] since, long times) {
+        pendingBlockedByBoundary += (pendingBlockedByBoundary - since[0]) * times;
+        pendingBlockedByObstacle += (pendingBlockedByObstacle - since[1]) * times;
+        pendingBlockedByMower += (pendingBlockedByMower - since[2]) * times;
+    }
+
+    /**
+     * Start recording the state changes of the mowers of the lawn. <br>
+     * The size of the lawn and the mowers already on the lawn are recorded first. Mowers not added to the lawn are
+     * not traced. The recorder is not closed by the lawn.
+     * @param traceRecorder Recorder of the state changes, null to stop recording them.
+     */
+    public void setTraceRecorder(TraceRecorder traceRecorder) {
+        this.traceRecorder = traceRecorder;
+        if (traceRecorder != null) {
+            traceRecorder.recordLawn(sizeX, sizeY);
+            for (int i = 0; i < fleet.size(); i++) {
+                traceRecorder.recordPlacement(i, fleet.getPositionX(i), fleet.getPositionY(i),
+                        fleet.getOrientationOrdinal(i));
+            }
+        }
+    }
+
+    /**
+     * Get the recorder of the state changes of the mowers.
+     * @return The recorder, null if the state changes are not recorded.
+     */
+    public TraceRecorder getTraceRecorder() {
+        return traceRecorder;
+    }
+
+    /**
+     * Get the list of mowers on the lawn, in the order they were added.
+     * @return Unmodifiable list of views of the mowers, see {@link MowerFleet#get(int)}.
      */
     public List<Mower> getMowers() {
-        return Collections.unmodifiableList(mowers);
+        return fleet.asList();
+    }
+
+    /**
+     * Get the state of the mowers on the lawn.
+     * @return The fleet of the lawn.
+     */
+    public MowerFleet getFleet() {
+        return fleet;
     }
 
     /**
@@ -79,7 +447,18 @@ public class Lawn {
      * @return True if the position is free, false otherwise.
      */
     public boolean isPositionFree(int x, int y) {
-        return mowers.stream().noneMatch(mower -> mower.getPositionX() == x && mower.getPositionY() == y);
+        return !occupancy.isOccupied(x, y);
+    }
+
+    /**
+     * Check if a position is blocked by a static obstacle of the lawn.
+     *
+     * @param x X position to check.
+     * @param y Y position to check.
+     * @return True if the position is part of an obstacle, false otherwise.
+     */
+    public boolean isObstacle(int x, int y) {
+        return obstacles.contains(x, y);
     }
 
     /**
@@ -96,14 +475,65 @@ public class Lawn {
 
     /**
      * Check if a position is valid on the lawn. <br>
-     * A position is considered valid if it is inside the lawn and free (not occupied by another mower).
+     * A position is considered valid if it is inside the lawn, not an obstacle and free (not occupied by another
+     * mower).
      *
      * @param x X position to check.
      * @param y Y position to check.
      * @return True if the position is valid, false otherwise.
      */
     public boolean isPositionValid(int x, int y) {
-        return isPositionInside(x, y) && isPositionFree(x, y);
+        return isPositionInside(x, y) && !isObstacle(x, y) && isPositionFree(x, y);
+    }
+
+    /**
+     * Get the number of valid positions in a row from a position in a given direction, up to a maximum. <br>
+     * The distance is bounded by the border of the lawn and by the nearest mower or obstacle of the row or column,
+     * so it is the number of forward moves a mower at the given position can make before being blocked.
+     *
+     * @param x X position to start from, inside the lawn and excluded from the distance.
+     * @param y Y position to start from, inside the lawn and excluded from the distance.
+     * @param orientation Direction to look at.
+     * @param maxDistance Maximum distance to return.
+     * @return The number of valid positions in a row, between 0 and the maximum distance.
+     */
+    public int getFreeDistance(int x, int y, EnumOrientation orientation, int maxDistance) {
+        RowColumnIndex occupied = getLines();
+        long distance;
+        switch(orientation) {
+            case NORTH:
+                distance = Math.min(Math.min((long) sizeY + 1, occupied.nextOnColumn(x, y)),
+                        obstacles.nextOnColumn(x, y)) - y - 1;
+                break;
+            case EAST:
+                distance = Math.min(Math.min((long) sizeX + 1, occupied.nextOnRow(y, x)), obstacles.nextOnRow(y, x)) - x - 1;
+                break;
+            case SOUTH:
+                distance = y - Math.max(Math.max(-1, occupied.previousOnColumn(x, y)),
+                        obstacles.previousOnColumn(x, y)) - 1;
+                break;
+            case WEST:
+                distance = x - Math.max(Math.max(-1, occupied.previousOnRow(y, x)),
+                        obstacles.previousOnRow(y, x)) - 1;
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown orientation " + orientation);
+        }
+        return (int) Math.max(0, Math.min(maxDistance, distance));
+    }
+
+    /**
+     * Get the index of the occupied cells of each row and column, building it from the fleet on the first call.
+     * @return The index of the occupied cells by line.
+     */
+    private RowColumnIndex getLines() {
+        if (lines == null) {
+            lines = new RowColumnIndex();
+            for (int i = 0; i < fleet.size(); i++) {
+                lines.occupy(fleet.getPositionX(i), fleet.getPositionY(i));
+            }
+        }
+        return lines;
     }
 
     @Override
@@ -111,7 +541,8 @@ public class Lawn {
         return "Lawn{" +
                 "sizeX=" + sizeX +
                 ", sizeY=" + sizeY +
-                ", mowers=" + mowers +
+                ", obstacles=" + obstacles.getObstacleCount() +
+                ", mowers=" + fleet.asList() +
                 '}';
     }
 }
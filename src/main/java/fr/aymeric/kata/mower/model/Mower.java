@@ -1,12 +1,17 @@
 package fr.aymeric.kata.mower.model;
 
+import fr.aymeric.kata.mower.trace.TraceRecorder;
 import fr.aymeric.kata.mower.util.EnumInstruction;
 import fr.aymeric.kata.mower.util.EnumOrientation;
 
 import java.util.Objects;
 
 /**
- * Mower class represents a mower that can move on a lawn.
+ * Mower class represents a mower that can move on a lawn. <br>
+ * Until it is added to its lawn, the mower keeps its own state. Once added, its state is stored in the
+ * {@link MowerFleet} of the lawn and the mower is only a view on it. <br>
+ * Two mowers added to a lawn are equal if they are views on the same mower of the same fleet, so a view returned by
+ * {@link Lawn#getMowers()} equals the mower that was added. A mower not added to a lawn is only equal to itself.
  */
 public class Mower {
     /**
@@ -14,17 +19,25 @@ public class Mower {
      */
     private final Lawn lawn;
     /**
-     * Current X position of the mower.
+     * Current X position of the mower, until it is added to the lawn.
      */
     private int positionX;
     /**
-     * Current Y position of the mower.
+     * Current Y position of the mower, until it is added to the lawn.
      */
     private int positionY;
     /**
-     * Current orientation of the mower.
+     * Current orientation of the mower, until it is added to the lawn.
      */
     private EnumOrientation orientation;
+    /**
+     * Fleet storing the state of the mower once it is added to the lawn, null before.
+     */
+    private MowerFleet fleet;
+    /**
+     * Index of the mower in the fleet.
+     */
+    private int index;
 
     /**
      * Constructor of the mower.
@@ -47,12 +60,23 @@ public class Mower {
         this.orientation = orientation;
     }
 
+    /**
+     * Constructor of a view on a mower of a fleet.
+     * @param fleet Fleet storing the state of the mower.
+     * @param index Index of the mower in the fleet.
+     */
+    Mower(MowerFleet fleet, int index) {
+        this.lawn = fleet.getLawn();
+        this.fleet = fleet;
+        this.index = index;
+    }
+
     /**
      * Get the current X position of the mower.
      * @return Current X position of the mower.
      */
     public int getPositionX() {
-        return positionX;
+        return fleet == null ? positionX : fleet.getPositionX(index);
     }
 
     /**
@@ -60,7 +84,7 @@ public class Mower {
      * @return Current Y position of the mower.
      */
     public int getPositionY() {
-        return positionY;
+        return fleet == null ? positionY : fleet.getPositionY(index);
     }
 
     /**
@@ -68,7 +92,7 @@ public class Mower {
      * @return Current orientation of the mower.
      */
     public EnumOrientation getOrientation() {
-        return orientation;
+        return fleet == null ? orientation : fleet.getOrientation(index);
     }
 
     /**
@@ -78,7 +102,12 @@ public class Mower {
      */
     public void setOrientation(EnumOrientation orientation) {
         Objects.requireNonNull(orientation, "Orientation cannot be null");
-        this.orientation = orientation;
+        if (fleet != null) {
+            fleet.setOrientation(index, orientation);
+        } else {
+            this.orientation = orientation;
+        }
+        recordTrace(1, false);
     }
 
     /**
@@ -87,49 +116,170 @@ public class Mower {
      * @param y New Y position.
      */
     public void moveToPositionIfValid(int x, int y) {
-        if(!lawn.isPositionValid(x, y)) {
+        boolean moved = fleet == null ? lawn.isPositionValid(x, y)
+                : lawn.tryMoveOccupant(getPositionX(), getPositionY(), x, y);
+        if (!moved) {
+            lawn.countBlockedMoves(x, y, 1);
+            recordTrace(1, true);
+            return;
+        }
+        relocate(x, y, getOrientation());
+        CoverageTracker coverage = fleet == null ? null : lawn.getCoverage();
+        if (coverage != null) {
+            coverage.visit(index, x, y);
+        }
+        recordTrace(1, false);
+    }
+
+    /**
+     * Bind the mower to the fleet of its lawn, when it is added to the lawn.
+     * @param fleet Fleet storing the state of the mower from now on.
+     * @param index Index of the mower in the fleet.
+     */
+    void bind(MowerFleet fleet, int index) {
+        this.fleet = fleet;
+        this.index = index;
+    }
+
+    /**
+     * @return true if the mower has been added to its lawn
+     */
+    boolean isPlaced() {
+        return fleet != null;
+    }
+
+    /**
+     * @return the fleet storing the state of the mower, null if it has not been added to its lawn
+     */
+    MowerFleet getFleet() {
+        return fleet;
+    }
+
+    /**
+     * @return the index of the mower in its fleet
+     */
+    int getIndex() {
+        return index;
+    }
+
+    /**
+     * @return the lawn where the mower is moving
+     */
+    public Lawn getLawn() {
+        return lawn;
+    }
+
+    /**
+     * Set the state of the mower, without checking the validity of the position nor updating the lawn. <br>
+     * Once the mower is added to its lawn, the state is written to the fleet.
+     * @param x New X position, already checked.
+     * @param y New Y position, already checked.
+     * @param orientation New orientation.
+     */
+    void relocate(int x, int y, EnumOrientation orientation) {
+        if (fleet != null) {
+            fleet.setState(index, x, y, orientation);
             return;
         }
         positionX = x;
         positionY = y;
+        this.orientation = orientation;
     }
 
     /**
      * Move the mower forward if the new position is valid (unoccupied and inside of the lawn).
      */
     public void moveForwardIfValid() {
-        switch(orientation) {
+        int x = getPositionX();
+        int y = getPositionY();
+        switch(getOrientation()) {
             case NORTH:
-                moveToPositionIfValid(positionX, positionY + 1);
+                moveToPositionIfValid(x, y + 1);
                 break;
             case EAST:
-                moveToPositionIfValid(positionX + 1, positionY);
+                moveToPositionIfValid(x + 1, y);
                 break;
             case SOUTH:
-                moveToPositionIfValid(positionX, positionY - 1);
+                moveToPositionIfValid(x, y - 1);
                 break;
             case WEST:
-                moveToPositionIfValid(positionX - 1, positionY);
+                moveToPositionIfValid(x - 1, y);
                 break;
         }
     }
 
+    /**
+     * Move the mower forward several times, stopping at the first blocked move. <br>
+     * The moves are executed as a single ray cast: the lawn gives the distance to the nearest border or mower,
+     * and the mower moves directly to the last valid position. The result is the same as moving one cell at a time,
+     * the moves after the first blocked one being counted as blocked.
+     * @param moves Number of moves.
+     * @return The number of moves done.
+     */
+    public int moveForward(int moves) {
+        if (moves <= 0) {
+            return 0;
+        }
+        int x = getPositionX();
+        int y = getPositionY();
+        EnumOrientation direction = getOrientation();
+        int stepX = direction.getStepX();
+        int stepY = direction.getStepY();
+        int done = fleet == null ? lawn.getFreeDistance(x, y, direction, moves)
+                : lawn.advanceOccupant(x, y, direction, moves);
+        TraceRecorder trace = fleet == null ? null : lawn.getTraceRecorder();
+        if (trace != null) {
+            // Traced one move at a time, like the instructions executed by the engine
+            for (int i = 1; i <= done; i++) {
+                trace.record(index, x + stepX * i, y + stepY * i, direction.ordinal(), false);
+            }
+        }
+        if (done > 0) {
+            CoverageTracker coverage = fleet == null ? null : lawn.getCoverage();
+            if (coverage != null) {
+                coverage.visitLine(index, x, y, direction, done);
+            }
+            x += stepX * done;
+            y += stepY * done;
+            relocate(x, y, direction);
+        }
+        if (done < moves) {
+            lawn.countBlockedMoves(x + stepX, y + stepY, moves - done);
+            recordTrace(moves - done, true);
+        }
+        return done;
+    }
+
+    /**
+     * Record the current state of the mower in the trace of its lawn, if it is on the lawn and traced.
+     * @param count Number of steps with this state.
+     * @param blocked True if the steps are blocked moves.
+     */
+    private void recordTrace(int count, boolean blocked) {
+        TraceRecorder trace = fleet == null ? null : lawn.getTraceRecorder();
+        if (trace != null) {
+            for (int i = 0; i < count; i++) {
+                trace.record(index, getPositionX(), getPositionY(), getOrientation().ordinal(), blocked);
+            }
+        }
+    }
+
     /**
      * Rotate the mower to the left.
      */
     public void rotateLeft() {
-        switch(orientation) {
+        switch(getOrientation()) {
             case NORTH:
-                orientation = EnumOrientation.WEST;
+                setOrientation(EnumOrientation.WEST);
                 break;
             case EAST:
-                orientation = EnumOrientation.NORTH;
+                setOrientation(EnumOrientation.NORTH);
                 break;
             case SOUTH:
-                orientation = EnumOrientation.EAST;
+                setOrientation(EnumOrientation.EAST);
                 break;
             case WEST:
-                orientation = EnumOrientation.SOUTH;
+                setOrientation(EnumOrientation.SOUTH);
                 break;
         }
     }
@@ -138,18 +288,18 @@ public class Mower {
      * Rotate the mower to the right.
      */
     public void rotateRight() {
-        switch(orientation) {
+        switch(getOrientation()) {
             case NORTH:
-                orientation = EnumOrientation.EAST;
+                setOrientation(EnumOrientation.EAST);
                 break;
             case EAST:
-                orientation = EnumOrientation.SOUTH;
+                setOrientation(EnumOrientation.SOUTH);
                 break;
             case SOUTH:
-                orientation = EnumOrientation.WEST;
+                setOrientation(EnumOrientation.WEST);
                 break;
             case WEST:
-                orientation = EnumOrientation.NORTH;
+                setOrientation(EnumOrientation.NORTH);
                 break;
         }
     }
@@ -162,6 +312,7 @@ public class Mower {
      */
     public void executeInstruction(EnumInstruction instruction) {
         Objects.requireNonNull(instruction, "Instruction cannot be null");
+        lawn.countInstruction();
         switch(instruction) {
             case FRONT:
                 moveForwardIfValid();
@@ -182,15 +333,38 @@ public class Mower {
      * @return Current position of the mower
      */
     public String getCurrentPosition() {
-        return positionX + " " + positionY + " " + orientation.getOrientationKey();
+        return getPositionX() + " " + getPositionY() + " " + getOrientation().getOrientationKey();
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (fleet == null || !(other instanceof Mower)) {
+            return false;
+        }
+        Mower mower = (Mower) other;
+        return fleet == mower.fleet && index == mower.index;
+    }
+
+    /**
+     * Hash code of the mower. <br>
+     * The hash code of a mower changes when it is added to its lawn, so a mower should not be kept in a hash-based
+     * collection before being added.
+     * @return The hash code of the mower.
+     */
+    @Override
+    public int hashCode() {
+        return fleet == null ? System.identityHashCode(this) : 31 * System.identityHashCode(fleet) + index;
     }
 
     @Override
     public String toString() {
         return "Mower{" +
-                "positionX=" + positionX +
-                ", positionY=" + positionY +
-                ", orientation=" + orientation +
+                "positionX=" + getPositionX() +
+                ", positionY=" + getPositionY() +
+                ", orientation=" + getOrientation() +
                 '}';
     }
 }
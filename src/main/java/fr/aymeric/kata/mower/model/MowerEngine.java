@@ -0,0 +1,280 @@
+package fr.aymeric.kata.mower.model;
+
+import fr.aymeric.kata.mower.metrics.RunMetrics;
+import fr.aymeric.kata.mower.trace.TraceRecorder;
+import fr.aymeric.kata.mower.util.EnumInstruction;
+import fr.aymeric.kata.mower.util.EnumOrientation;
+
+/**
+ * MowerEngine executes instructions on a mower from precomputed transition tables. <br>
+ * The state of the mower is loaded in primitive ints, and each instruction is a lookup of the table entry
+ * (orientation, instruction) giving the new orientation and the move (dx, dy). The result is the same as
+ * {@link Mower#executeInstruction(EnumInstruction)} called for each instruction. Metrics are counted in locals and
+ * recorded once per call.
+ */
+public final class MowerEngine {
+    /**
+     * Number of instructions, the stride of the orientation in the transition tables.
+     */
+    private static final int INSTRUCTION_COUNT = EnumInstruction.values().length;
+    /**
+     * Orientations by ordinal.
+     */
+    private static final EnumOrientation[] ORIENTATIONS = EnumOrientation.values();
+    /**
+     * Ordinal of the new orientation, by {@code orientation * INSTRUCTION_COUNT + instruction}.
+     */
+    private static final int[] NEXT_ORIENTATION = new int[ORIENTATIONS.length * INSTRUCTION_COUNT];
+    /**
+     * Move on X axis, by {@code orientation * INSTRUCTION_COUNT + instruction}.
+     */
+    private static final int[] MOVE_X = new int[NEXT_ORIENTATION.length];
+    /**
+     * Move on Y axis, by {@code orientation * INSTRUCTION_COUNT + instruction}.
+     */
+    private static final int[] MOVE_Y = new int[NEXT_ORIENTATION.length];
+
+    static {
+        // The orientations are declared clockwise, so a rotation is a step of the ordinal
+        int orientationCount = ORIENTATIONS.length;
+        for (EnumOrientation orientation : ORIENTATIONS) {
+            int base = orientation.ordinal() * INSTRUCTION_COUNT;
+            int front = base + EnumInstruction.FRONT.ordinal();
+            NEXT_ORIENTATION[front] = orientation.ordinal();
+            MOVE_X[front] = orientation.getStepX();
+            MOVE_Y[front] = orientation.getStepY();
+            NEXT_ORIENTATION[base + EnumInstruction.LEFT.ordinal()] =
+                    (orientation.ordinal() + orientationCount - 1) % orientationCount;
+            NEXT_ORIENTATION[base + EnumInstruction.RIGHT.ordinal()] = (orientation.ordinal() + 1) % orientationCount;
+        }
+    }
+
+    /**
+     * Utility class, not instantiable.
+     */
+    private MowerEngine() {
+    }
+
+    /**
+     * Executes instructions on a mower. <br>
+     * If an invalid instruction is found, the previous instructions stay executed.
+     *
+     * @param mower Mower to execute the instructions on.
+     * @param instructionKeys Keys of the instructions, one byte per instruction.
+     * @param from Index of the first instruction to execute.
+     * @param to Index after the last instruction to execute.
+     * @throws IllegalArgumentException If an invalid instruction is found.
+     */
+    public static void execute(Mower mower, byte[] instructionKeys, int from, int to) {
+        execute(mower, instructionKeys, from, to, true);
+    }
+
+    /**
+     * Executes instructions given by their ordinal on a mower, as decoded from the binary input format. <br>
+     * If an invalid instruction is found, the previous instructions stay executed.
+     *
+     * @param mower Mower to execute the instructions on.
+     * @param instructionOrdinals Ordinals of the instructions in {@link EnumInstruction}, one byte per instruction.
+     * @param from Index of the first instruction to execute.
+     * @param to Index after the last instruction to execute.
+     * @throws IllegalArgumentException If an invalid instruction ordinal is found.
+     */
+    public static void executeOrdinals(Mower mower, byte[] instructionOrdinals, int from, int to) {
+        execute(mower, instructionOrdinals, from, to, false);
+    }
+
+    /**
+     * Executes instructions on a mower of a fleet, without any {@link Mower} object. <br>
+     * If an invalid instruction is found, the previous instructions stay executed.
+     *
+     * @param fleet Fleet storing the state of the mower.
+     * @param index Index of the mower in the fleet.
+     * @param instructionKeys Keys of the instructions, one byte per instruction.
+     * @param from Index of the first instruction to execute.
+     * @param to Index after the last instruction to execute.
+     * @throws IllegalArgumentException If an invalid instruction is found.
+     */
+    public static void execute(MowerFleet fleet, int index, byte[] instructionKeys, int from, int to) {
+        execute(null, fleet, index, instructionKeys, from, to, true);
+    }
+
+    /**
+     * Executes instructions given by their ordinal on a mower of a fleet, without any {@link Mower} object. <br>
+     * If an invalid instruction is found, the previous instructions stay executed.
+     *
+     * @param fleet Fleet storing the state of the mower.
+     * @param index Index of the mower in the fleet.
+     * @param instructionOrdinals Ordinals of the instructions in {@link EnumInstruction}, one byte per instruction.
+     * @param from Index of the first instruction to execute.
+     * @param to Index after the last instruction to execute.
+     * @throws IllegalArgumentException If an invalid instruction ordinal is found.
+     */
+    public static void executeOrdinals(MowerFleet fleet, int index, byte[] instructionOrdinals, int from, int to) {
+        execute(null, fleet, index, instructionOrdinals, from, to, false);
+    }
+
+    /**
+     * Executes instructions on a mower, on its fleet once it has been added to its lawn.
+     *
+     * @param mower Mower to execute the instructions on.
+     * @param instructions Instructions, one byte per instruction.
+     * @param from Index of the first instruction to execute.
+     * @param to Index after the last instruction to execute.
+     * @param keys True if the instructions are given by their key, false if they are given by their ordinal.
+     * @throws IllegalArgumentException If an invalid instruction is found.
+     */
+    private static void execute(Mower mower, byte[] instructions, int from, int to, boolean keys) {
+        if (mower.isPlaced()) {
+            execute(null, mower.getFleet(), mower.getIndex(), instructions, from, to, keys);
+        } else {
+            execute(mower, null, 0, instructions, from, to, keys);
+        }
+    }
+
+    /**
+     * Executes instructions either on a mower not added to a lawn, or on a mower of a fleet.
+     *
+     * @param mower Mower not added to a lawn, or null to execute on the fleet.
+     * @param fleet Fleet storing the state of the mower, used if the mower is null.
+     * @param index Index of the mower in the fleet.
+     * @param instructions Instructions, one byte per instruction.
+     * @param from Index of the first instruction to execute.
+     * @param to Index after the last instruction to execute.
+     * @param keys True if the instructions are given by their key, false if they are given by their ordinal.
+     * @throws IllegalArgumentException If an invalid instruction is found.
+     */
+    private static void execute(Mower mower, MowerFleet fleet, int index, byte[] instructions, int from, int to,
+                                boolean keys) {
+        boolean inFleet = mower == null;
+        Lawn lawn = inFleet ? fleet.getLawn() : mower.getLawn();
+        // Unless other mowers can move meanwhile, the lawn is only updated once at the end of the execution
+        boolean deferred = !inFleet || lawn.allowsDeferredMoves();
+        CoverageTracker coverage = inFleet ? lawn.getCoverage() : null;
+        TraceRecorder trace = inFleet ? lawn.getTraceRecorder() : null;
+        int startX = inFleet ? fleet.getPositionX(index) : mower.getPositionX();
+        int startY = inFleet ? fleet.getPositionY(index) : mower.getPositionY();
+        int x = startX;
+        int y = startY;
+        int orientation = inFleet ? fleet.getOrientationOrdinal(index) : mower.getOrientation().ordinal();
+        int i = from;
+        // The steps not sampled by the trace are only counted, and reported to the recorder at the sampled ones
+        long unsampled = trace != null ? trace.getUnsampledSteps() : Long.MAX_VALUE;
+        int reported = from;
+        long blockedByBoundary = 0;
+        long blockedByObstacle = 0;
+        long blockedByMower = 0;
+        try {
+            for (; i < to; i++) {
+                int instruction = keys ? EnumInstruction.fromKey((char) (instructions[i] & 0xFF)).ordinal()
+                        : checkOrdinal(instructions[i]);
+                int transition = orientation * INSTRUCTION_COUNT + instruction;
+                orientation = NEXT_ORIENTATION[transition];
+                int moveX = MOVE_X[transition];
+                int moveY = MOVE_Y[transition];
+                boolean blocked = false;
+                if ((moveX | moveY) != 0) {
+                    int nextX = x + moveX;
+                    int nextY = y + moveY;
+                    boolean moved;
+                    if (deferred) {
+                        // The start cell is still marked as occupied by the mower itself until the end of the execution
+                        moved = (inFleet && nextX == startX && nextY == startY) || lawn.isPositionValid(nextX, nextY);
+                    } else {
+                        moved = lawn.tryMoveOccupant(x, y, nextX, nextY);
+                    }
+                    if (moved) {
+                        x = nextX;
+                        y = nextY;
+                        if (coverage != null) {
+                            coverage.visit(index, x, y);
+                        }
+                    } else if (!lawn.isPositionInside(nextX, nextY)) {
+                        blockedByBoundary++;
+                        blocked = true;
+                    } else if (lawn.isObstacle(nextX, nextY)) {
+                        blockedByObstacle++;
+                        blocked = true;
+                    } else {
+                        blockedByMower++;
+                        blocked = true;
+                    }
+                }
+                if (unsampled-- == 0) {
+                    trace.skipSteps(i - reported);
+                    trace.record(index, x, y, orientation, blocked);
+                    reported = i + 1;
+                    unsampled = trace.getUnsampledSteps();
+                }
+            }
+        } finally {
+            if (trace != null) {
+                trace.skipSteps(i - reported);
+                if (i > from) {
+                    trace.checkpoint(index, x, y, orientation);
+                }
+            }
+            if (inFleet) {
+                if (deferred && (x != startX || y != startY)) {
+                    lawn.moveOccupant(startX, startY, x, y);
+                }
+                fleet.setState(index, x, y, ORIENTATIONS[orientation]);
+            } else {
+                mower.relocate(x, y, ORIENTATIONS[orientation]);
+            }
+            RunMetrics metrics = lawn.getMetrics();
+            metrics.recordInstructions(i - from);
+            metrics.recordMovesBlockedByBoundary(blockedByBoundary);
+            metrics.recordMovesBlockedByObstacle(blockedByObstacle);
+            metrics.recordMovesBlockedByMower(blockedByMower);
+        }
+    }
+
+    /**
+     * Get the transition of a mower executing an instruction, to look up in the tables.
+     *
+     * @param orientation Ordinal of the orientation of the mower.
+     * @param instruction Ordinal of the instruction.
+     * @return Index of the transition in the tables.
+     */
+    static int transition(int orientation, int instruction) {
+        return orientation * INSTRUCTION_COUNT + instruction;
+    }
+
+    /**
+     * @param transition index of a transition, see {@link #transition(int, int)}
+     * @return the ordinal of the orientation after the transition
+     */
+    static int nextOrientation(int transition) {
+        return NEXT_ORIENTATION[transition];
+    }
+
+    /**
+     * @param transition index of a transition, see {@link #transition(int, int)}
+     * @return the move on X axis of the transition, if not blocked
+     */
+    static int moveX(int transition) {
+        return MOVE_X[transition];
+    }
+
+    /**
+     * @param transition index of a transition, see {@link #transition(int, int)}
+     * @return the move on Y axis of the transition, if not blocked
+     */
+    static int moveY(int transition) {
+        return MOVE_Y[transition];
+    }
+
+    /**
+     * Check an instruction ordinal.
+     *
+     * @param ordinal Ordinal of an instruction.
+     * @return The ordinal.
+     * @throws IllegalArgumentException If the ordinal is not the one of an instruction.
+     */
+    private static int checkOrdinal(int ordinal) {
+        if (ordinal < 0 || ordinal >= INSTRUCTION_COUNT) {
+            throw new IllegalArgumentException("Invalid instruction ordinal: " + ordinal);
+        }
+        return ordinal;
+    }
+}
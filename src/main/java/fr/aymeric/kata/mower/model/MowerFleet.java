@@ -0,0 +1,235 @@
+package fr.aymeric.kata.mower.model;
+
+import fr.aymeric.kata.mower.util.EnumOrientation;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * MowerFleet stores the state of the mowers of a lawn as a struct of arrays. <br>
+ * Mower i is at ({@code positions[2 * i]}, {@code positions[2 * i + 1]}) with the orientation of ordinal
+ * {@code orientations[i]}, so a mower takes 9 bytes instead of a whole {@link Mower} object. Mowers are identified by
+ * their index, in the order they were added to the lawn. {@link Mower} objects are only lightweight views on the
+ * fleet, see {@link #get(int)}.
+ */
+public class MowerFleet {
+    /**
+     * Orientations by ordinal.
+     */
+    private static final EnumOrientation[] ORIENTATIONS = EnumOrientation.values();
+
+    /**
+     * Lawn where the mowers are moving.
+     */
+    private final Lawn lawn;
+    /**
+     * True if the arrays grow when the fleet is full, false if the capacity is fixed.
+     */
+    private final boolean growable;
+    /**
+     * Positions of the mowers, X then Y for each mower.
+     */
+    private int[] positions;
+    /**
+     * Ordinals of the orientations of the mowers.
+     */
+    private byte[] orientations;
+    /**
+     * Number of mowers.
+     */
+    private int size;
+    /**
+     * View of the fleet as a list of mowers.
+     */
+    private final List<Mower> mowers = new MowerList();
+
+    /**
+     * Constructor of the fleet, used by the lawn.
+     *
+     * @param lawn Lawn where the mowers are moving.
+     * @param capacity Initial number of mowers the fleet can store.
+     * @param growable True if the arrays grow when the fleet is full, false if the capacity is fixed. The arrays of a
+     *                 fleet with a fixed capacity are never replaced, so its mowers can be moved from several threads
+     *                 while other mowers are added.
+     */
+    MowerFleet(Lawn lawn, int capacity, boolean growable) {
+        this.lawn = lawn;
+        this.growable = growable;
+        this.positions = new int[capacity << 1];
+        this.orientations = new byte[capacity];
+    }
+
+    /**
+     * Add a mower at the end of the fleet, the position is not checked.
+     *
+     * @param x X position of the mower.
+     * @param y Y position of the mower.
+     * @param orientation Orientation of the mower.
+     * @return The index of the mower.
+     * @throws IllegalStateException If the capacity of the fleet is fixed and reached.
+     */
+    int add(int x, int y, EnumOrientation orientation) {
+        if (size == orientations.length) {
+            if (!growable) {
+                throw new IllegalStateException("Fleet full: " + size + " mowers");
+            }
+            int capacity = orientations.length << 1;
+            orientations = Arrays.copyOf(orientations, capacity);
+            positions = Arrays.copyOf(positions, capacity << 1);
+        }
+        positions[size << 1] = x;
+        positions[(size << 1) + 1] = y;
+        orientations[size] = (byte) orientation.ordinal();
+        return size++;
+    }
+
+    /**
+     * @return the number of mowers of the fleet
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Get the X position of a mower.
+     *
+     * @param index Index of the mower.
+     * @return X position of the mower.
+     */
+    public int getPositionX(int index) {
+        return positions[checkIndex(index) << 1];
+    }
+
+    /**
+     * Get the Y position of a mower.
+     *
+     * @param index Index of the mower.
+     * @return Y position of the mower.
+     */
+    public int getPositionY(int index) {
+        return positions[(checkIndex(index) << 1) + 1];
+    }
+
+    /**
+     * Get the orientation of a mower.
+     *
+     * @param index Index of the mower.
+     * @return Orientation of the mower.
+     */
+    public EnumOrientation getOrientation(int index) {
+        return ORIENTATIONS[orientations[checkIndex(index)]];
+    }
+
+    /**
+     * Get the current position of a mower as a string, like {@link Mower#getCurrentPosition()}.
+     *
+     * @param index Index of the mower.
+     * @return Current position of the mower.
+     */
+    public String getCurrentPosition(int index) {
+        return getPositionX(index) + " " + getPositionY(index) + " " + getOrientation(index).getOrientationKey();
+    }
+
+    /**
+     * Get a view of a mower. <br>
+     * The view reads and writes the state of the mower in the fleet, it can be discarded at any time.
+     *
+     * @param index Index of the mower.
+     * @return A view of the mower.
+     */
+    public Mower get(int index) {
+        return new Mower(this, checkIndex(index));
+    }
+
+    /**
+     * @return an unmodifiable list of views of the mowers, see {@link #get(int)}
+     */
+    public List<Mower> asList() {
+        return mowers;
+    }
+
+    /**
+     * Executes instructions on a mower of the fleet with the {@link MowerEngine}.
+     *
+     * @param index Index of the mower.
+     * @param instructionKeys Keys of the instructions, one byte per instruction.
+     * @param from Index of the first instruction to execute.
+     * @param to Index after the last instruction to execute.
+     * @throws IllegalArgumentException If an invalid instruction is found.
+     */
+    public void execute(int index, byte[] instructionKeys, int from, int to) {
+        MowerEngine.execute(this, checkIndex(index), instructionKeys, from, to);
+    }
+
+    /**
+     * @return the lawn where the mowers are moving
+     */
+    Lawn getLawn() {
+        return lawn;
+    }
+
+    /**
+     * Get the orientation of a mower by ordinal, without checking the index.
+     *
+     * @param index Index of the mower.
+     * @return Ordinal of the orientation of the mower.
+     */
+    int getOrientationOrdinal(int index) {
+        return orientations[index];
+    }
+
+    /**
+     * Set the state of a mower. The position is not checked, and the indexes of the lawn are not updated.
+     *
+     * @param index Index of the mower.
+     * @param x New X position.
+     * @param y New Y position.
+     * @param orientation New orientation.
+     */
+    void setState(int index, int x, int y, EnumOrientation orientation) {
+        positions[index << 1] = x;
+        positions[(index << 1) + 1] = y;
+        orientations[index] = (byte) orientation.ordinal();
+    }
+
+    /**
+     * Set the orientation of a mower, its position is unchanged.
+     *
+     * @param index Index of the mower.
+     * @param orientation New orientation.
+     */
+    void setOrientation(int index, EnumOrientation orientation) {
+        orientations[index] = (byte) orientation.ordinal();
+    }
+
+    /**
+     * Check the index of a mower.
+     *
+     * @param index Index of a mower.
+     * @return The index.
+     * @throws IndexOutOfBoundsException If there is no mower at this index.
+     */
+    private int checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Mower " + index + " out of " + size);
+        }
+        return index;
+    }
+
+    /**
+     * Unmodifiable list of views of the mowers of the fleet.
+     */
+    private class MowerList extends AbstractList<Mower> implements RandomAccess {
+        @Override
+        public Mower get(int index) {
+            return MowerFleet.this.get(index);
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+}
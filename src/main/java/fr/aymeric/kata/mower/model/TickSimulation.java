@@ -0,0 +1,406 @@
+package fr.aymeric.kata.mower.model;
+
+import fr.aymeric.kata.mower.metrics.RunMetrics;
+import fr.aymeric.kata.mower.trace.TraceRecorder;
+import fr.aymeric.kata.mower.util.EnumInstruction;
+import fr.aymeric.kata.mower.util.EnumOrientation;
+import fr.aymeric.kata.mower.util.LongHashSet;
+import fr.aymeric.kata.mower.util.PackedCoordinates;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+/**
+ * TickSimulation executes the mowers of a lawn simultaneously: at each tick, every mower whose program is not
+ * finished executes its next instruction. <br>
+ * A tick runs in three phases:
+ * <ol>
+ *     <li>Each mower proposes its move in parallel. The lawn and its fleet are only read, so a forward move is
+ *     proposed only if the target cell is inside the lawn and was free at the start of the tick: a cell left during
+ *     the tick cannot be entered before the next one. The proposed cell is claimed in a lock-free spatial hash
+ *     keeping the lowest mower index claiming each cell.</li>
+ *     <li>In parallel, the mowers that won their cell move in the fleet, the others are blocked by a mower.</li>
+ *     <li>The moves are committed together to the indexes of the lawn, the spatial hash is cleared and the mowers
+ *     whose program is finished are removed.</li>
+ * </ol>
+ * The result only depends on the programs, not on the number of threads. Rotations never conflict. Chunks of
+ * mowers are run on a fork-join pool, a tick with few mowers left runs on the calling thread.
+ */
+public class TickSimulation {
+    /**
+     * Number of mowers handled by a task of a phase.
+     */
+    static final int CHUNK_SIZE = 4096;
+    /**
+     * Proposal of a mower that does not move.
+     */
+    private static final int NO_MOVE = -1;
+    /**
+     * Proposal of a mower whose move is blocked by the border of the lawn.
+     */
+    private static final int BLOCKED_BY_BOUNDARY = -2;
+    /**
+     * Proposal of a mower whose move is blocked by a mower present at the start of the tick.
+     */
+    private static final int BLOCKED_BY_MOWER = -3;
+    /**
+     * Proposal of a mower whose move is blocked by an obstacle.
+     */
+    private static final int BLOCKED_BY_OBSTACLE = -4;
+    /**
+     * Orientations by ordinal.
+     */
+    private static final EnumOrientation[] ORIENTATIONS = EnumOrientation.values();
+
+    /**
+     * Lawn where the mowers are moving.
+     */
+    private final Lawn lawn;
+    /**
+     * State of the mowers.
+     */
+    private final MowerFleet fleet;
+    /**
+     * Ordinals of the instructions of each mower, by index in the fleet.
+     */
+    private final byte[][] programs;
+    /**
+     * Pool running the parallel phases.
+     */
+    private final ForkJoinPool pool;
+    /**
+     * Indexes of the mowers whose program is not finished, in increasing order.
+     */
+    private final int[] active;
+    /**
+     * Slot claimed in the spatial hash by each active mower, or a negative proposal.
+     */
+    private final int[] proposals;
+    /**
+     * True for each active mower that won its target cell at the current tick.
+     */
+    private final boolean[] moved;
+    /**
+     * Spatial hash of the cells claimed at the current tick.
+     */
+    private final TargetTable targets;
+    /**
+     * Number of active mowers.
+     */
+    private int activeCount;
+    /**
+     * Number of ticks executed.
+     */
+    private long tick;
+
+    /**
+     * Constructor of the simulation. <br>
+     * The programs are checked and copied, so that an invalid instruction fails before any tick.
+     *
+     * @param lawn Lawn whose mowers are executed.
+     * @param instructionKeys Keys of the instructions of each mower of the fleet of the lawn, one byte per
+     *                        instruction, by index in the fleet.
+     * @param pool Pool running the parallel phases.
+     * @throws IllegalArgumentException If there is not one program per mower, or an invalid instruction is found.
+     */
+    public TickSimulation(Lawn lawn, byte[][] instructionKeys, ForkJoinPool pool) {
+        this.lawn = lawn;
+        this.fleet = lawn.getFleet();
+        this.pool = pool;
+        if (instructionKeys.length != fleet.size()) {
+            throw new IllegalArgumentException("Expected " + fleet.size() + " programs, got " + instructionKeys.length);
+        }
+        this.programs = new byte[instructionKeys.length][];
+        this.active = new int[instructionKeys.length];
+        for (int i = 0; i < instructionKeys.length; i++) {
+            byte[] keys = instructionKeys[i];
+            byte[] ordinals = new byte[keys.length];
+            for (int j = 0; j < keys.length; j++) {
+                ordinals[j] = (byte) EnumInstruction.fromKey((char) (keys[j] & 0xFF)).ordinal();
+            }
+            programs[i] = ordinals;
+            if (ordinals.length > 0) {
+                active[activeCount++] = i;
+            }
+        }
+        this.proposals = new int[activeCount];
+        this.moved = new boolean[activeCount];
+        this.targets = new TargetTable(activeCount);
+    }
+
+    /**
+     * Executes ticks until the programs of all the mowers are finished.
+     *
+     * @return The number of ticks executed by this call.
+     */
+    public long run() {
+        long start = tick;
+        while (tick()) {
+            // Next tick
+        }
+        return tick - start;
+    }
+
+    /**
+     * Executes one instruction of each mower whose program is not finished.
+     *
+     * @return True if a tick has been executed, false if all the programs are already finished.
+     */
+    public boolean tick() {
+        if (activeCount == 0) {
+            return false;
+        }
+        int instruction = (int) tick;
+        forEachChunk(from -> propose(from, Math.min(activeCount, from + CHUNK_SIZE), instruction));
+        forEachChunk(from -> resolve(from, Math.min(activeCount, from + CHUNK_SIZE)));
+        commit(instruction);
+        tick++;
+        return true;
+    }
+
+    /**
+     * @return the number of ticks executed
+     */
+    public long getTick() {
+        return tick;
+    }
+
+    /**
+     * @return the number of mowers whose program is not finished
+     */
+    public int getActiveCount() {
+        return activeCount;
+    }
+
+    /**
+     * Computes the proposals of a chunk of active mowers, and applies their rotations.
+     *
+     * @param from Index of the first active mower of the chunk.
+     * @param to Index after the last active mower of the chunk.
+     * @param instruction Index of the instruction executed in the programs.
+     */
+    private void propose(int from, int to, int instruction) {
+        for (int k = from; k < to; k++) {
+            int mower = active[k];
+            int x = fleet.getPositionX(mower);
+            int y = fleet.getPositionY(mower);
+            int transition = MowerEngine.transition(fleet.getOrientationOrdinal(mower), programs[mower][instruction]);
+            int moveX = MowerEngine.moveX(transition);
+            int moveY = MowerEngine.moveY(transition);
+            moved[k] = false;
+            if ((moveX | moveY) == 0) {
+                proposals[k] = NO_MOVE;
+                fleet.setState(mower, x, y, ORIENTATIONS[MowerEngine.nextOrientation(transition)]);
+            } else if (!lawn.isPositionInside(x + moveX, y + moveY)) {
+                proposals[k] = BLOCKED_BY_BOUNDARY;
+            } else if (lawn.isObstacle(x + moveX, y + moveY)) {
+                proposals[k] = BLOCKED_BY_OBSTACLE;
+            } else if (!lawn.isPositionFree(x + moveX, y + moveY)) {
+                proposals[k] = BLOCKED_BY_MOWER;
+            } else {
+                proposals[k] = targets.claim(PackedCoordinates.pack(x + moveX, y + moveY), mower);
+            }
+        }
+    }
+
+    /**
+     * Moves the mowers of a chunk that won the cell they claimed.
+     *
+     * @param from Index of the first active mower of the chunk.
+     * @param to Index after the last active mower of the chunk.
+     */
+    private void resolve(int from, int to) {
+        for (int k = from; k < to; k++) {
+            int slot = proposals[k];
+            int mower = active[k];
+            if (slot >= 0 && targets.getWinner(slot) == mower) {
+                long target = targets.getCell(slot);
+                fleet.setState(mower, PackedCoordinates.unpackX(target), PackedCoordinates.unpackY(target),
+                        fleet.getOrientation(mower));
+                moved[k] = true;
+            }
+        }
+    }
+
+    /**
+     * Commits the moves of the tick to the lawn, clears the spatial hash and removes the finished mowers.
+     *
+     * @param instruction Index of the instruction executed in the programs.
+     */
+    private void commit(int instruction) {
+        long blockedByBoundary = 0;
+        long blockedByObstacle = 0;
+        long blockedByMower = 0;
+        int remaining = 0;
+        CoverageTracker coverage = lawn.getCoverage();
+        TraceRecorder trace = lawn.getTraceRecorder();
+        for (int k = 0; k < activeCount; k++) {
+            int mower = active[k];
+            int proposal = proposals[k];
+            if (trace != null) {
+                trace.record(mower, fleet.getPositionX(mower), fleet.getPositionY(mower),
+                        fleet.getOrientationOrdinal(mower), proposal != NO_MOVE && !moved[k]);
+            }
+            if (proposal >= 0) {
+                if (moved[k]) {
+                    int x = fleet.getPositionX(mower);
+                    int y = fleet.getPositionY(mower);
+                    EnumOrientation orientation = fleet.getOrientation(mower);
+                    lawn.moveOccupant(x - orientation.getStepX(), y - orientation.getStepY(), x, y);
+                    if (coverage != null) {
+                        coverage.visit(mower, x, y);
+                    }
+                } else {
+                    blockedByMower++;
+                }
+                targets.clear(proposal);
+            } else if (proposal == BLOCKED_BY_BOUNDARY) {
+                blockedByBoundary++;
+            } else if (proposal == BLOCKED_BY_OBSTACLE) {
+                blockedByObstacle++;
+            } else if (proposal == BLOCKED_BY_MOWER) {
+                blockedByMower++;
+            }
+            if (programs[mower].length > instruction + 1) {
+                active[remaining++] = mower;
+            } else if (trace != null) {
+                trace.checkpoint(mower, fleet.getPositionX(mower), fleet.getPositionY(mower),
+                        fleet.getOrientationOrdinal(mower));
+            }
+        }
+        RunMetrics metrics = lawn.getMetrics();
+        metrics.recordInstructions(activeCount);
+        metrics.recordMovesBlockedByBoundary(blockedByBoundary);
+        metrics.recordMovesBlockedByObstacle(blockedByObstacle);
+        metrics.recordMovesBlockedByMower(blockedByMower);
+        activeCount = remaining;
+    }
+
+    /**
+     * Runs a task on each chunk of the active mowers, in parallel on the pool if there are several chunks.
+     *
+     * @param chunkTask Task given the index of the first active mower of its chunk.
+     * @throws IllegalStateException If the thread is interrupted while waiting for the pool.
+     */
+    private void forEachChunk(IntConsumer chunkTask) {
+        int chunkCount = (activeCount + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        if (chunkCount <= 1) {
+            chunkTask.accept(0);
+            return;
+        }
+        try {
+            pool.submit(() -> IntStream.range(0, chunkCount).parallel()
+                    .forEach(chunk -> chunkTask.accept(chunk * CHUNK_SIZE))).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while executing a tick", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Unable to execute a tick", e.getCause());
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "TickSimulation{" +
+                "tick=" + tick +
+                ", activeCount=" + activeCount +
+                ", mowers=" + fleet.size() +
+                '}';
+    }
+
+    /**
+     * Lock-free open addressing hash table of the cells claimed during a tick, with linear probing. <br>
+     * Each slot holds a cell and the lowest index of the mowers claiming it. All the used slots are cleared at the
+     * end of each tick, so there is never any removed slot to skip.
+     */
+    private static final class TargetTable {
+        /**
+         * Marker of an empty slot, never a packed position inside a lawn.
+         */
+        private static final long EMPTY = Long.MIN_VALUE;
+
+        /**
+         * Packed cells of the slots, {@link #EMPTY} when unused.
+         */
+        private final AtomicLongArray cells;
+        /**
+         * Lowest index of the mowers claiming the cell of each slot.
+         */
+        private final AtomicIntegerArray winners;
+        /**
+         * Mask applied to hashes to get a slot, the table length minus one.
+         */
+        private final int mask;
+
+        /**
+         * Creates an empty table.
+         *
+         * @param maxClaims Maximum number of cells claimed at once.
+         */
+        TargetTable(int maxClaims) {
+            int length = Integer.highestOneBit(Math.max(2, maxClaims) - 1) << 2;
+            this.cells = new AtomicLongArray(length);
+            this.winners = new AtomicIntegerArray(length);
+            this.mask = length - 1;
+            for (int slot = 0; slot < length; slot++) {
+                clear(slot);
+            }
+        }
+
+        /**
+         * Claims a cell for a mower.
+         *
+         * @param cell Packed position of the cell.
+         * @param mower Index of the mower.
+         * @return The slot of the cell, whose winner is known once all the claims of the tick are done.
+         */
+        int claim(long cell, int mower) {
+            int slot = (int) LongHashSet.mix(cell) & mask;
+            while (true) {
+                long current = cells.get(slot);
+                if (current == EMPTY && cells.compareAndSet(slot, EMPTY, cell)) {
+                    break;
+                }
+                if (cells.get(slot) == cell) {
+                    break;
+                }
+                slot = (slot + 1) & mask;
+            }
+            int winner;
+            while ((winner = winners.get(slot)) > mower && !winners.compareAndSet(slot, winner, mower)) {
+                // Claimed by a higher index meanwhile, retry
+            }
+            return slot;
+        }
+
+        /**
+         * @param slot a slot returned by {@link #claim(long, int)}
+         * @return the packed position of the cell of the slot
+         */
+        long getCell(int slot) {
+            return cells.get(slot);
+        }
+
+        /**
+         * @param slot a slot returned by {@link #claim(long, int)}
+         * @return the lowest index of the mowers claiming the cell of the slot
+         */
+        int getWinner(int slot) {
+            return winners.get(slot);
+        }
+
+        /**
+         * Empties a slot.
+         *
+         * @param slot a slot of the table
+         */
+        void clear(int slot) {
+            cells.set(slot, EMPTY);
+            winners.set(slot, Integer.MAX_VALUE);
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package fr.aymeric.kata.mower.model.occupancy;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Dense occupancy index storing one bit per cell in an {@link AtomicLongArray}, safe to use from several threads. <br>
+ * The cell (x, y) is stored at bit {@code y * (sizeX + 1) + x}. Each update is a compare-and-set of the long holding
+ * the bit, retried if another bit of the same long changed meanwhile, so no lock is ever taken.
+ * {@link #tryOccupy(int, int)} lets a single thread win a free cell.
+ */
+public class AtomicOccupancyIndex implements OccupancyIndex {
+    /**
+     * Maximum number of cells of the index, the number of bits of the largest atomic array.
+     */
+    static final long MAX_CELL_COUNT = (long) Integer.MAX_VALUE * Long.SIZE;
+
+    /**
+     * Highest X position of the indexed area.
+     */
+    private final int sizeX;
+    /**
+     * Highest Y position of the indexed area.
+     */
+    private final int sizeY;
+    /**
+     * One bit per cell, set when the cell is occupied.
+     */
+    private final AtomicLongArray words;
+
+    /**
+     * Constructor of the index.
+     *
+     * @param sizeX Size of the lawn on X axis.
+     * @param sizeY Size of the lawn on Y axis.
+     * @throws IllegalArgumentException If the lawn has too many cells to be indexed densely.
+     */
+    public AtomicOccupancyIndex(int sizeX, int sizeY) {
+        long cellCount = ((long) sizeX + 1) * ((long) sizeY + 1);
+        if (sizeX < 0 || sizeY < 0 || cellCount > MAX_CELL_COUNT) {
+            throw new IllegalArgumentException("Lawn too large for an atomic index: " + sizeX + "x" + sizeY);
+        }
+        this.sizeX = sizeX;
+        this.sizeY = sizeY;
+        this.words = new AtomicLongArray((int) ((cellCount + Long.SIZE - 1) / Long.SIZE));
+    }
+
+    @Override
+    public boolean isOccupied(int x, int y) {
+        if (!isIndexed(x, y)) {
+            return false;
+        }
+        long bit = toBitIndex(x, y);
+        return (words.get((int) (bit >>> 6)) & (1L << bit)) != 0;
+    }
+
+    @Override
+    public void occupy(int x, int y) {
+        if (!isIndexed(x, y)) {
+            throw new IndexOutOfBoundsException("Cell outside of the index: " + x + " " + y);
+        }
+        tryOccupy(x, y);
+    }
+
+    /**
+     * Mark a cell as occupied if it is free, atomically.
+     *
+     * @param x X position of the cell.
+     * @param y Y position of the cell.
+     * @return True if the cell was free and is now occupied by the caller, false if it was already occupied or is
+     * outside of the indexed area.
+     */
+    public boolean tryOccupy(int x, int y) {
+        if (!isIndexed(x, y)) {
+            return false;
+        }
+        long bit = toBitIndex(x, y);
+        int word = (int) (bit >>> 6);
+        long mask = 1L << bit;
+        long current;
+        do {
+            current = words.get(word);
+            if ((current & mask) != 0) {
+                return false;
+            }
+        } while (!words.compareAndSet(word, current, current | mask));
+        return true;
+    }
+
+    @Override
+    public void release(int x, int y) {
+        if (!isIndexed(x, y)) {
+            return;
+        }
+        long bit = toBitIndex(x, y);
+        int word = (int) (bit >>> 6);
+        long mask = 1L << bit;
+        long current;
+        do {
+            current = words.get(word);
+        } while ((current & mask) != 0 && !words.compareAndSet(word, current, current & ~mask));
+    }
+
+    /**
+     * Check if a cell is inside the indexed area.
+     *
+     * @param x X position of the cell.
+     * @param y Y position of the cell.
+     * @return True if the cell is inside the indexed area.
+     */
+    private boolean isIndexed(int x, int y) {
+        return x >= 0 && x <= sizeX && y >= 0 && y <= sizeY;
+    }
+
+    /**
+     * Get the bit storing a cell.
+     *
+     * @param x X position of the cell.
+     * @param y Y position of the cell.
+     * @return Index of the bit of the cell.
+     */
+    private long toBitIndex(int x, int y) {
+        return (long) y * ((long) sizeX + 1) + x;
+    }
+}
@@ -0,0 +1,92 @@
+package fr.aymeric.kata.mower.model.occupancy;
+
+import java.util.BitSet;
+
+/**
+ * Dense occupancy index storing one bit per cell of the lawn. <br>
+ * The cell (x, y) is stored at bit {@code y * (sizeX + 1) + x}.
+ */
+public class BitSetOccupancyIndex implements OccupancyIndex {
+    /**
+     * Highest X position of the indexed area.
+     */
+    private final int sizeX;
+    /**
+     * Highest Y position of the indexed area.
+     */
+    private final int sizeY;
+    /**
+     * One bit per cell, set when the cell is occupied.
+     */
+    private final BitSet cells;
+
+    /**
+     * Constructor of the index.
+     *
+     * @param sizeX Size of the lawn on X axis.
+     * @param sizeY Size of the lawn on Y axis.
+     * @throws IllegalArgumentException If the lawn has too many cells to be indexed densely.
+     */
+    public BitSetOccupancyIndex(int sizeX, int sizeY) {
+        long cellCount = ((long) sizeX + 1) * ((long) sizeY + 1);
+        if (sizeX < 0 || sizeY < 0 || cellCount > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Lawn too large for a dense index: " + sizeX + "x" + sizeY);
+        }
+        this.sizeX = sizeX;
+        this.sizeY = sizeY;
+        this.cells = new BitSet((int) cellCount);
+    }
+
+    @Override
+    public boolean isOccupied(int x, int y) {
+        return isIndexed(x, y) && cells.get(toBitIndex(x, y));
+    }
+
+    @Override
+    public void occupy(int x, int y) {
+        checkIndexed(x, y);
+        cells.set(toBitIndex(x, y));
+    }
+
+    @Override
+    public void release(int x, int y) {
+        if (isIndexed(x, y)) {
+            cells.clear(toBitIndex(x, y));
+        }
+    }
+
+    /**
+     * Check if a cell is inside the indexed area.
+     *
+     * @param x X position of the cell.
+     * @param y Y position of the cell.
+     * @return True if the cell is inside the indexed area.
+     */
+    private boolean isIndexed(int x, int y) {
+        return x >= 0 && x <= sizeX && y >= 0 && y <= sizeY;
+    }
+
+    /**
+     * Ensure a cell is inside the indexed area.
+     *
+     * @param x X position of the cell.
+     * @param y Y position of the cell.
+     * @throws IndexOutOfBoundsException If the cell is outside of the indexed area.
+     */
+    private void checkIndexed(int x, int y) {
+        if (!isIndexed(x, y)) {
+            throw new IndexOutOfBoundsException("Cell outside of the index: " + x + " " + y);
+        }
+    }
+
+    /**
+     * Get the bit storing a cell.
+     *
+     * @param x X position of the cell.
+     * @param y Y position of the cell.
+     * @return Index of the bit of the cell.
+     */
+    private int toBitIndex(int x, int y) {
+        return y * (sizeX + 1) + x;
+    }
+}
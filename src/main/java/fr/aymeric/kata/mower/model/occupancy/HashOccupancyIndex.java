@@ -0,0 +1,31 @@
+package fr.aymeric.kata.mower.model.occupancy;
+
+import fr.aymeric.kata.mower.util.LongHashSet;
+import fr.aymeric.kata.mower.util.PackedCoordinates;
+
+/**
+ * Sparse occupancy index storing the packed coordinates of the occupied cells in a hash set. <br>
+ * Its memory grows with the number of mowers, not with the size of the lawn.
+ */
+public class HashOccupancyIndex implements OccupancyIndex {
+    /**
+     * Packed coordinates of the occupied cells.
+     * @see PackedCoordinates
+     */
+    private final LongHashSet occupiedCells = new LongHashSet();
+
+    @Override
+    public boolean isOccupied(int x, int y) {
+        return occupiedCells.contains(PackedCoordinates.pack(x, y));
+    }
+
+    @Override
+    public void occupy(int x, int y) {
+        occupiedCells.add(PackedCoordinates.pack(x, y));
+    }
+
+    @Override
+    public void release(int x, int y) {
+        occupiedCells.remove(PackedCoordinates.pack(x, y));
+    }
+}
@@ -0,0 +1,493 @@
+package fr.aymeric.kata.mower.model.occupancy;
+
+import fr.aymeric.kata.mower.util.LongObjectHashMap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * ObstacleIndex keeps the static obstacles of a lawn (cells and rectangles) as sorted intervals per row and per
+ * column. <br>
+ * Overlapping and adjacent obstacles are merged when the index is built, so a line holds disjoint intervals. Checking
+ * a cell, or finding the nearest obstacle along a line, is a hash lookup of the line and a binary search of its
+ * intervals: its cost depends on the number of separate obstacles crossing that line, not on the total number of
+ * obstacles nor on their area. A rectangle takes one interval per row and per column it spans. <br>
+ * The index is immutable once built with a {@link Builder}, so it can be shared between lawns and threads.
+ */
+public final class ObstacleIndex {
+    /**
+     * Index without any obstacle.
+     */
+    public static final ObstacleIndex EMPTY = new Builder().build();
+
+    /**
+     * Blocked intervals of X positions, by row.
+     */
+    private final LongObjectHashMap<long[]> rows;
+    /**
+     * Blocked intervals of Y positions, by column.
+     */
+    private final LongObjectHashMap<long[]> columns;
+    /**
+     * Coordinates of the rows holding obstacles, to iterate over {@link #rows}.
+     */
+    private final int[] rowCoordinates;
+    /**
+     * Number of obstacles the index was built from.
+     */
+    private final int obstacleCount;
+    /**
+     * Smallest X position of an obstacle, {@link Integer#MAX_VALUE} if there is none.
+     */
+    private final int minX;
+    /**
+     * Smallest Y position of an obstacle, {@link Integer#MAX_VALUE} if there is none.
+     */
+    private final int minY;
+    /**
+     * Greatest X position of an obstacle, -1 if there is none.
+     */
+    private final int maxX;
+    /**
+     * Greatest Y position of an obstacle, -1 if there is none.
+     */
+    private final int maxY;
+
+    /**
+     * Constructor of the index, from the merged intervals of a builder.
+     *
+     * @param builder Builder of the index.
+     */
+    private ObstacleIndex(Builder builder) {
+        this.rows = builder.rows.build();
+        this.columns = builder.columns.build();
+        this.rowCoordinates = builder.rows.coordinates();
+        this.obstacleCount = builder.obstacleCount;
+        this.minX = builder.minX;
+        this.minY = builder.minY;
+        this.maxX = builder.maxX;
+        this.maxY = builder.maxY;
+    }
+
+    /**
+     * Check if a cell is blocked by an obstacle.
+     *
+     * @param x X position of the cell.
+     * @param y Y position of the cell.
+     * @return True if the cell is part of an obstacle.
+     */
+    public boolean contains(int x, int y) {
+        if (x < minX || x > maxX || y < minY || y > maxY) {
+            return false;
+        }
+        long[] row = rows.get(y);
+        if (row == null) {
+            return false;
+        }
+        int index = lastStartingAtOrBefore(row, x);
+        return index >= 0 && end(row[index]) >= x;
+    }
+
+    /**
+     * Get the nearest obstacle of a row after a given X position.
+     *
+     * @param y Row.
+     * @param x X position, excluded.
+     * @return The X position of the nearest blocked cell, or {@link Long#MAX_VALUE} if there is none.
+     */
+    public long nextOnRow(int y, int x) {
+        return y < minY || y > maxY ? Long.MAX_VALUE : next(rows.get(y), x);
+    }
+
+    /**
+     * Get the nearest obstacle of a row before a given X position.
+     *
+     * @param y Row.
+     * @param x X position, excluded.
+     * @return The X position of the nearest blocked cell, or {@link Long#MIN_VALUE} if there is none.
+     */
+    public long previousOnRow(int y, int x) {
+        return y < minY || y > maxY ? Long.MIN_VALUE : previous(rows.get(y), x);
+    }
+
+    /**
+     * Get the nearest obstacle of a column after a given Y position.
+     *
+     * @param x Column.
+     * @param y Y position, excluded.
+     * @return The Y position of the nearest blocked cell, or {@link Long#MAX_VALUE} if there is none.
+     */
+    public long nextOnColumn(int x, int y) {
+        return x < minX || x > maxX ? Long.MAX_VALUE : next(columns.get(x), y);
+    }
+
+    /**
+     * Get the nearest obstacle of a column before a given Y position.
+     *
+     * @param x Column.
+     * @param y Y position, excluded.
+     * @return The Y position of the nearest blocked cell, or {@link Long#MIN_VALUE} if there is none.
+     */
+    public long previousOnColumn(int x, int y) {
+        return x < minX || x > maxX ? Long.MIN_VALUE : previous(columns.get(x), y);
+    }
+
+    /**
+     * @return true if the index has no obstacle
+     */
+    public boolean isEmpty() {
+        return obstacleCount == 0;
+    }
+
+    /**
+     * @return the number of obstacles the index was built from, before merging
+     */
+    public int getObstacleCount() {
+        return obstacleCount;
+    }
+
+    /**
+     * @return the greatest X position of an obstacle, -1 if there is none
+     */
+    public int getMaxX() {
+        return maxX;
+    }
+
+    /**
+     * @return the greatest Y position of an obstacle, -1 if there is none
+     */
+    public int getMaxY() {
+        return maxY;
+    }
+
+    /**
+     * Get the blocked cells as disjoint segments of rows, from which an equal index can be built.
+     *
+     * @return The row, the first X position and the last X position of each segment, 3 values per segment.
+     */
+    public int[] getRowSegments() {
+        int count = 0;
+        for (int y : rowCoordinates) {
+            count += rows.get(y).length;
+        }
+        int[] segments = new int[count * 3];
+        int index = 0;
+        for (int y : rowCoordinates) {
+            for (long interval : rows.get(y)) {
+                segments[index++] = y;
+                segments[index++] = start(interval);
+                segments[index++] = end(interval);
+            }
+        }
+        return segments;
+    }
+
+    /**
+     * Get the nearest blocked position of a line after a given position.
+     *
+     * @param line Intervals of the line, null if it has none.
+     * @param position Position, excluded.
+     * @return The nearest blocked position, or {@link Long#MAX_VALUE} if there is none.
+     */
+    private static long next(long[] line, int position) {
+        if (line == null) {
+            return Long.MAX_VALUE;
+        }
+        long target = (long) position + 1;
+        int index = lastStartingAtOrBefore(line, target);
+        if (index >= 0 && end(line[index]) >= target) {
+            return target;
+        }
+        return index + 1 < line.length ? start(line[index + 1]) : Long.MAX_VALUE;
+    }
+
+    /**
+     * Get the nearest blocked position of a line before a given position.
+     *
+     * @param line Intervals of the line, null if it has none.
+     * @param position Position, excluded.
+     * @return The nearest blocked position, or {@link Long#MIN_VALUE} if there is none.
+     */
+    private static long previous(long[] line, int position) {
+        if (line == null) {
+            return Long.MIN_VALUE;
+        }
+        long target = (long) position - 1;
+        int index = lastStartingAtOrBefore(line, target);
+        return index >= 0 ? Math.min(end(line[index]), target) : Long.MIN_VALUE;
+    }
+
+    /**
+     * Binary search of the last interval starting at or before a position.
+     *
+     * @param line Sorted disjoint intervals of a line.
+     * @param position A position.
+     * @return The index of the interval, or -1 if all the intervals start after the position.
+     */
+    private static int lastStartingAtOrBefore(long[] line, long position) {
+        int low = 0;
+        int high = line.length - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            if (start(line[middle]) <= position) {
+                low = middle + 1;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return high;
+    }
+
+    /**
+     * @param interval an interval packed by {@link #interval(int, int)}
+     * @return the first position of the interval
+     */
+    private static int start(long interval) {
+        return (int) (interval >>> 32);
+    }
+
+    /**
+     * @param interval an interval packed by {@link #interval(int, int)}
+     * @return the last position of the interval, included
+     */
+    private static int end(long interval) {
+        return (int) interval;
+    }
+
+    /**
+     * Pack an interval of non-negative positions in a long, ordered by its start.
+     *
+     * @param start First position of the interval.
+     * @param end Last position of the interval, included.
+     * @return The packed interval.
+     */
+    private static long interval(int start, int end) {
+        return ((long) start << 32) | end;
+    }
+
+    @Override
+    public String toString() {
+        return "ObstacleIndex{obstacles=" + obstacleCount + '}';
+    }
+
+    /**
+     * Builder of an {@link ObstacleIndex}, collecting cells and rectangles. Not thread-safe.
+     */
+    public static final class Builder {
+        /**
+         * Greatest X position accepted for an obstacle, the size of the lawn on X axis.
+         */
+        private final int limitX;
+        /**
+         * Greatest Y position accepted for an obstacle, the size of the lawn on Y axis.
+         */
+        private final int limitY;
+        /**
+         * Intervals of X positions, by row.
+         */
+        private final Lines rows = new Lines();
+        /**
+         * Intervals of Y positions, by column.
+         */
+        private final Lines columns = new Lines();
+        /**
+         * Number of obstacles added.
+         */
+        private int obstacleCount;
+        /**
+         * Smallest X position of an obstacle.
+         */
+        private int minX = Integer.MAX_VALUE;
+        /**
+         * Smallest Y position of an obstacle.
+         */
+        private int minY = Integer.MAX_VALUE;
+        /**
+         * Greatest X position of an obstacle.
+         */
+        private int maxX = -1;
+        /**
+         * Greatest Y position of an obstacle.
+         */
+        private int maxY = -1;
+
+        /**
+         * Constructor of a builder accepting obstacles at any non-negative position.
+         */
+        public Builder() {
+            this(Integer.MAX_VALUE, Integer.MAX_VALUE);
+        }
+
+        /**
+         * Constructor of a builder for the obstacles of a lawn. <br>
+         * An obstacle outside of the lawn is rejected when it is added, before its rows and columns are expanded.
+         *
+         * @param sizeX Size of the lawn on X axis.
+         * @param sizeY Size of the lawn on Y axis.
+         */
+        public Builder(int sizeX, int sizeY) {
+            this.limitX = sizeX;
+            this.limitY = sizeY;
+        }
+
+        /**
+         * Add an obstacle on a single cell.
+         *
+         * @param x X position of the cell.
+         * @param y Y position of the cell.
+         * @return This builder.
+         * @throws IllegalArgumentException If a position is negative or outside of the lawn.
+         */
+        public Builder addCell(int x, int y) {
+            return addRectangle(x, y, x, y);
+        }
+
+        /**
+         * Add an obstacle on a rectangle of cells, given by two opposite corners included in the rectangle.
+         *
+         * @param x1 X position of a corner.
+         * @param y1 Y position of a corner.
+         * @param x2 X position of the opposite corner.
+         * @param y2 Y position of the opposite corner.
+         * @return This builder.
+         * @throws IllegalArgumentException If a position is negative or outside of the lawn.
+         */
+        public Builder addRectangle(int x1, int y1, int x2, int y2) {
+            if ((x1 | y1 | x2 | y2) < 0) {
+                throw new IllegalArgumentException("Obstacle position cannot be negative");
+            }
+            int fromX = Math.min(x1, x2);
+            int toX = Math.max(x1, x2);
+            int fromY = Math.min(y1, y2);
+            int toY = Math.max(y1, y2);
+            if (toX > limitX || toY > limitY) {
+                throw new IllegalArgumentException("Obstacle outside of the lawn");
+            }
+            for (int y = fromY; y <= toY && y >= 0; y++) {
+                rows.add(y, interval(fromX, toX));
+            }
+            for (int x = fromX; x <= toX && x >= 0; x++) {
+                columns.add(x, interval(fromY, toY));
+            }
+            obstacleCount++;
+            minX = Math.min(minX, fromX);
+            minY = Math.min(minY, fromY);
+            maxX = Math.max(maxX, toX);
+            maxY = Math.max(maxY, toY);
+            return this;
+        }
+
+        /**
+         * Build the index from the obstacles added so far.
+         *
+         * @return The index.
+         */
+        public ObstacleIndex build() {
+            return new ObstacleIndex(this);
+        }
+    }
+
+    /**
+     * Intervals of the lines of one axis, while they are collected.
+     */
+    private static final class Lines {
+        /**
+         * Intervals by line.
+         */
+        private final LongObjectHashMap<Line> lines = new LongObjectHashMap<>();
+        /**
+         * The lines in the order they were created, to iterate over them.
+         */
+        private final List<Line> created = new ArrayList<>();
+
+        /**
+         * @param line coordinate of the line
+         * @param interval packed interval to add to the line
+         */
+        private void add(int line, long interval) {
+            Line intervals = lines.get(line);
+            if (intervals == null) {
+                intervals = new Line(line);
+                lines.put(line, intervals);
+                created.add(intervals);
+            }
+            intervals.add(interval);
+        }
+
+        /**
+         * @return the coordinates of the lines, in the order they were created
+         */
+        private int[] coordinates() {
+            int[] coordinates = new int[created.size()];
+            for (int i = 0; i < coordinates.length; i++) {
+                coordinates[i] = created.get(i).coordinate;
+            }
+            return coordinates;
+        }
+
+        /**
+         * @return the sorted disjoint intervals of each line
+         */
+        private LongObjectHashMap<long[]> build() {
+            LongObjectHashMap<long[]> built = new LongObjectHashMap<>(created.size());
+            for (Line line : created) {
+                built.put(line.coordinate, line.merge());
+            }
+            return built;
+        }
+    }
+
+    /**
+     * Intervals of a line, while they are collected.
+     */
+    private static final class Line {
+        /**
+         * Coordinate of the line.
+         */
+        private final int coordinate;
+        /**
+         * Packed intervals, the first {@link #size} entries are used.
+         */
+        private long[] intervals = new long[2];
+        /**
+         * Number of intervals.
+         */
+        private int size;
+
+        /**
+         * @param coordinate coordinate of the line
+         */
+        private Line(int coordinate) {
+            this.coordinate = coordinate;
+        }
+
+        /**
+         * @param interval packed interval to add
+         */
+        private void add(long interval) {
+            if (size == intervals.length) {
+                intervals = Arrays.copyOf(intervals, size << 1);
+            }
+            intervals[size++] = interval;
+        }
+
+        /**
+         * @return the intervals sorted by start, with the overlapping and adjacent ones merged
+         */
+        private long[] merge() {
+            long[] sorted = Arrays.copyOf(intervals, size);
+            Arrays.sort(sorted);
+            int merged = 0;
+            for (long interval : sorted) {
+                if (merged > 0 && (long) start(interval) <= (long) end(sorted[merged - 1]) + 1) {
+                    int end = Math.max(end(sorted[merged - 1]), end(interval));
+                    sorted[merged - 1] = interval(start(sorted[merged - 1]), end);
+                } else {
+                    sorted[merged++] = interval;
+                }
+            }
+            return Arrays.copyOf(sorted, merged);
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package fr.aymeric.kata.mower.model.occupancy;
+
+/**
+ * OccupancyIndex keeps track of the cells of a lawn that are occupied by a mower. <br>
+ * Implementations must answer {@link #isOccupied(int, int)} in constant time and without allocation,
+ * because it is called for every forward move of every mower.
+ */
+public interface OccupancyIndex {
+    /**
+     * Maximum number of cells for which a dense {@link BitSetOccupancyIndex} is used by {@link #forLawn(int, int)}.
+     * It represents 8 MB of bits.
+     */
+    long DENSE_CELL_LIMIT = 1L << 26;
+    /**
+     * System property selecting the storage of the indexes created by {@link #forLawn(int, int)}:
+     * "auto" (the default) chooses an index on the heap according to the size of the lawn, "direct" and "mapped"
+     * create an {@link OffHeapOccupancyIndex} in direct memory or in a memory-mapped temporary file.
+     */
+    String STORAGE_PROPERTY = "fr.aymeric.kata.mower.occupancy";
+
+    /**
+     * Check if a cell is occupied. <br>
+     * Cells outside of the indexed area are never occupied.
+     *
+     * @param x X position of the cell.
+     * @param y Y position of the cell.
+     * @return True if the cell is occupied, false otherwise.
+     */
+    boolean isOccupied(int x, int y);
+
+    /**
+     * Mark a cell as occupied.
+     *
+     * @param x X position of the cell.
+     * @param y Y position of the cell.
+     */
+    void occupy(int x, int y);
+
+    /**
+     * Mark a cell as free.
+     *
+     * @param x X position of the cell.
+     * @param y Y position of the cell.
+     */
+    void release(int x, int y);
+
+    /**
+     * Creates the most suitable index for a lawn of the given size. <br>
+     * Small lawns use a dense bitset, larger ones a sparse index made of tiles allocated on demand, unless an off-heap
+     * storage is selected with the {@link #STORAGE_PROPERTY} system property.
+     *
+     * @param sizeX Size of the lawn on X axis.
+     * @param sizeY Size of the lawn on Y axis.
+     * @return A new empty occupancy index.
+     * @throws IllegalArgumentException If the storage property is invalid.
+     */
+    static OccupancyIndex forLawn(int sizeX, int sizeY) {
+        String storage = System.getProperty(STORAGE_PROPERTY, "auto");
+        switch (storage) {
+            case "auto":
+                break;
+            case "direct":
+                return OffHeapOccupancyIndex.direct(sizeX, sizeY);
+            case "mapped":
+                return OffHeapOccupancyIndex.mapped(sizeX, sizeY);
+            default:
+                throw new IllegalArgumentException("Invalid occupancy storage: " + storage);
+        }
+        long cells = ((long) sizeX + 1) * ((long) sizeY + 1);
+        if (cells <= DENSE_CELL_LIMIT) {
+            return new BitSetOccupancyIndex(sizeX, sizeY);
+        }
+        return new TiledOccupancyIndex();
+    }
+}
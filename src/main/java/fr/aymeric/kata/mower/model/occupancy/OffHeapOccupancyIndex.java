@@ -0,0 +1,204 @@
+package fr.aymeric.kata.mower.model.occupancy;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Dense occupancy index storing one bit per cell outside of the Java heap. <br>
+ * The cell (x, y) is stored at bit {@code y * (sizeX + 1) + x}, like in {@link BitSetOccupancyIndex}, but the bits
+ * are kept in segments of direct memory or of a memory-mapped temporary file, so a huge lawn neither fills the heap
+ * nor slows down the garbage collector. A segment is limited to {@link #SEGMENT_SIZE} bytes, so the index is not
+ * limited to 2^31 cells.
+ * <ul>
+ *     <li>{@link #direct(int, int)} allocates direct buffers, whose total is bounded by {@code -XX:MaxDirectMemorySize}
+ *     (the maximum heap size by default).</li>
+ *     <li>{@link #mapped(int, int)} maps a temporary file, so the operating system pages the bits in and out and the
+ *     index can be larger than the physical memory. The file is deleted as soon as it is mapped, or on Windows when
+ *     the mappings are released.</li>
+ * </ul>
+ * The memory is released when the index is garbage collected.
+ */
+public class OffHeapOccupancyIndex implements OccupancyIndex {
+    /**
+     * Number of bits of the bytes index in a segment.
+     */
+    private static final int SEGMENT_BITS = 30;
+    /**
+     * Size of a segment in bytes.
+     */
+    static final int SEGMENT_SIZE = 1 << SEGMENT_BITS;
+
+    /**
+     * Highest X position of the indexed area.
+     */
+    private final int sizeX;
+    /**
+     * Highest Y position of the indexed area.
+     */
+    private final int sizeY;
+    /**
+     * Segments of the bits, each of {@link #SEGMENT_SIZE} bytes except the last one.
+     */
+    private final ByteBuffer[] segments;
+
+    /**
+     * Constructor of the index.
+     *
+     * @param sizeX Size of the lawn on X axis.
+     * @param sizeY Size of the lawn on Y axis.
+     * @param segments Zeroed segments storing the bits.
+     */
+    private OffHeapOccupancyIndex(int sizeX, int sizeY, ByteBuffer[] segments) {
+        this.sizeX = sizeX;
+        this.sizeY = sizeY;
+        this.segments = segments;
+    }
+
+    /**
+     * Creates an index stored in direct memory.
+     *
+     * @param sizeX Size of the lawn on X axis.
+     * @param sizeY Size of the lawn on Y axis.
+     * @return A new empty index.
+     * @throws IllegalArgumentException If a size is negative.
+     * @throws OutOfMemoryError If there is not enough direct memory.
+     */
+    public static OffHeapOccupancyIndex direct(int sizeX, int sizeY) {
+        long byteCount = byteCount(sizeX, sizeY);
+        ByteBuffer[] segments = new ByteBuffer[segmentCount(byteCount)];
+        for (int i = 0; i < segments.length; i++) {
+            segments[i] = ByteBuffer.allocateDirect(segmentLength(byteCount, i));
+        }
+        return new OffHeapOccupancyIndex(sizeX, sizeY, segments);
+    }
+
+    /**
+     * Creates an index stored in a memory-mapped temporary file.
+     *
+     * @param sizeX Size of the lawn on X axis.
+     * @param sizeY Size of the lawn on Y axis.
+     * @return A new empty index.
+     * @throws IllegalArgumentException If a size is negative.
+     * @throws UncheckedIOException If the temporary file cannot be created or mapped.
+     */
+    public static OffHeapOccupancyIndex mapped(int sizeX, int sizeY) {
+        long byteCount = byteCount(sizeX, sizeY);
+        ByteBuffer[] segments = new ByteBuffer[segmentCount(byteCount)];
+        try {
+            Path file = Files.createTempFile("lawn-occupancy", ".bits");
+            FileChannel channel;
+            try {
+                // The file is deleted when the channel is closed, or once unmapped where a mapped file can't be deleted
+                channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE,
+                        StandardOpenOption.DELETE_ON_CLOSE);
+            } catch (IOException e) {
+                Files.deleteIfExists(file);
+                throw e;
+            }
+            try (FileChannel mappedChannel = channel) {
+                // Mapping beyond the end of the file extends it with zeros, without writing them
+                for (int i = 0; i < segments.length; i++) {
+                    segments[i] = mappedChannel.map(FileChannel.MapMode.READ_WRITE, (long) i * SEGMENT_SIZE,
+                            segmentLength(byteCount, i));
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to map the occupancy index", e);
+        }
+        return new OffHeapOccupancyIndex(sizeX, sizeY, segments);
+    }
+
+    @Override
+    public boolean isOccupied(int x, int y) {
+        if (!isIndexed(x, y)) {
+            return false;
+        }
+        long bit = toBitIndex(x, y);
+        long offset = bit >>> 3;
+        return (segments[(int) (offset >>> SEGMENT_BITS)].get((int) offset & (SEGMENT_SIZE - 1)) & (1 << (bit & 7))) != 0;
+    }
+
+    @Override
+    public void occupy(int x, int y) {
+        if (!isIndexed(x, y)) {
+            throw new IndexOutOfBoundsException("Cell outside of the index: " + x + " " + y);
+        }
+        long bit = toBitIndex(x, y);
+        long offset = bit >>> 3;
+        ByteBuffer segment = segments[(int) (offset >>> SEGMENT_BITS)];
+        int index = (int) offset & (SEGMENT_SIZE - 1);
+        segment.put(index, (byte) (segment.get(index) | (1 << (bit & 7))));
+    }
+
+    @Override
+    public void release(int x, int y) {
+        if (!isIndexed(x, y)) {
+            return;
+        }
+        long bit = toBitIndex(x, y);
+        long offset = bit >>> 3;
+        ByteBuffer segment = segments[(int) (offset >>> SEGMENT_BITS)];
+        int index = (int) offset & (SEGMENT_SIZE - 1);
+        segment.put(index, (byte) (segment.get(index) & ~(1 << (bit & 7))));
+    }
+
+    /**
+     * Check if a cell is inside the indexed area.
+     *
+     * @param x X position of the cell.
+     * @param y Y position of the cell.
+     * @return True if the cell is inside the indexed area.
+     */
+    private boolean isIndexed(int x, int y) {
+        return x >= 0 && x <= sizeX && y >= 0 && y <= sizeY;
+    }
+
+    /**
+     * Get the bit storing a cell.
+     *
+     * @param x X position of the cell.
+     * @param y Y position of the cell.
+     * @return Index of the bit of the cell.
+     */
+    private long toBitIndex(int x, int y) {
+        return (long) y * ((long) sizeX + 1) + x;
+    }
+
+    /**
+     * Get the number of bytes storing the cells of a lawn.
+     *
+     * @param sizeX Size of the lawn on X axis.
+     * @param sizeY Size of the lawn on Y axis.
+     * @return The number of bytes.
+     * @throws IllegalArgumentException If a size is negative.
+     */
+    private static long byteCount(int sizeX, int sizeY) {
+        if (sizeX < 0 || sizeY < 0) {
+            throw new IllegalArgumentException("Invalid lawn size: " + sizeX + "x" + sizeY);
+        }
+        long cellCount = ((long) sizeX + 1) * ((long) sizeY + 1);
+        return (cellCount + 7) >>> 3;
+    }
+
+    /**
+     * @param byteCount number of bytes of the index
+     * @return the number of segments storing them
+     */
+    private static int segmentCount(long byteCount) {
+        return (int) ((byteCount + SEGMENT_SIZE - 1) >>> SEGMENT_BITS);
+    }
+
+    /**
+     * @param byteCount number of bytes of the index
+     * @param segment index of a segment
+     * @return the number of bytes of the segment
+     */
+    private static int segmentLength(long byteCount, int segment) {
+        return (int) Math.min(SEGMENT_SIZE, byteCount - (long) segment * SEGMENT_SIZE);
+    }
+}
@@ -0,0 +1,186 @@
+package fr.aymeric.kata.mower.model.occupancy;
+
+import fr.aymeric.kata.mower.util.LongObjectHashMap;
+
+import java.util.Arrays;
+
+/**
+ * RowColumnIndex keeps the occupied cells of each row and of each column as sorted arrays. <br>
+ * It answers "nearest occupied cell along a line" queries by binary search, which allows a run of forward moves to be
+ * executed as a single ray cast instead of a check per cell.
+ */
+public class RowColumnIndex {
+    /**
+     * X positions of the occupied cells, by row.
+     */
+    private final LongObjectHashMap<SortedInts> rows = new LongObjectHashMap<>();
+    /**
+     * Y positions of the occupied cells, by column.
+     */
+    private final LongObjectHashMap<SortedInts> columns = new LongObjectHashMap<>();
+
+    /**
+     * Mark a cell as occupied.
+     *
+     * @param x X position of the cell.
+     * @param y Y position of the cell.
+     */
+    public void occupy(int x, int y) {
+        add(rows, y, x);
+        add(columns, x, y);
+    }
+
+    /**
+     * Mark a cell as free.
+     *
+     * @param x X position of the cell.
+     * @param y Y position of the cell.
+     */
+    public void release(int x, int y) {
+        remove(rows, y, x);
+        remove(columns, x, y);
+    }
+
+    /**
+     * Get the nearest occupied cell of a row after a given X position.
+     *
+     * @param y Row.
+     * @param x X position, excluded.
+     * @return The X position of the nearest occupied cell, or {@link Long#MAX_VALUE} if there is none.
+     */
+    public long nextOnRow(int y, int x) {
+        SortedInts row = rows.get(y);
+        return row == null ? Long.MAX_VALUE : row.higher(x);
+    }
+
+    /**
+     * Get the nearest occupied cell of a row before a given X position.
+     *
+     * @param y Row.
+     * @param x X position, excluded.
+     * @return The X position of the nearest occupied cell, or {@link Long#MIN_VALUE} if there is none.
+     */
+    public long previousOnRow(int y, int x) {
+        SortedInts row = rows.get(y);
+        return row == null ? Long.MIN_VALUE : row.lower(x);
+    }
+
+    /**
+     * Get the nearest occupied cell of a column after a given Y position.
+     *
+     * @param x Column.
+     * @param y Y position, excluded.
+     * @return The Y position of the nearest occupied cell, or {@link Long#MAX_VALUE} if there is none.
+     */
+    public long nextOnColumn(int x, int y) {
+        SortedInts column = columns.get(x);
+        return column == null ? Long.MAX_VALUE : column.higher(y);
+    }
+
+    /**
+     * Get the nearest occupied cell of a column before a given Y position.
+     *
+     * @param x Column.
+     * @param y Y position, excluded.
+     * @return The Y position of the nearest occupied cell, or {@link Long#MIN_VALUE} if there is none.
+     */
+    public long previousOnColumn(int x, int y) {
+        SortedInts column = columns.get(x);
+        return column == null ? Long.MIN_VALUE : column.lower(y);
+    }
+
+    /**
+     * Add a value to the sorted values of a line, creating the line if needed.
+     *
+     * @param lines Lines by coordinate.
+     * @param line Coordinate of the line.
+     * @param value Value to add.
+     */
+    private static void add(LongObjectHashMap<SortedInts> lines, int line, int value) {
+        SortedInts values = lines.get(line);
+        if (values == null) {
+            values = new SortedInts();
+            lines.put(line, values);
+        }
+        values.add(value);
+    }
+
+    /**
+     * Remove a value from the sorted values of a line, removing the line once empty.
+     *
+     * @param lines Lines by coordinate.
+     * @param line Coordinate of the line.
+     * @param value Value to remove.
+     */
+    private static void remove(LongObjectHashMap<SortedInts> lines, int line, int value) {
+        SortedInts values = lines.get(line);
+        if (values != null && values.remove(value) && values.size == 0) {
+            lines.remove(line);
+        }
+    }
+
+    /**
+     * Sorted set of ints backed by an array.
+     */
+    private static final class SortedInts {
+        /**
+         * Sorted values, the first {@link #size} entries are used.
+         */
+        private int[] values = new int[2];
+        /**
+         * Number of values.
+         */
+        private int size;
+
+        /**
+         * @param value value to add, ignored if already present
+         */
+        private void add(int value) {
+            int index = Arrays.binarySearch(values, 0, size, value);
+            if (index >= 0) {
+                return;
+            }
+            int insertion = -index - 1;
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size << 1);
+            }
+            System.arraycopy(values, insertion, values, insertion + 1, size - insertion);
+            values[insertion] = value;
+            size++;
+        }
+
+        /**
+         * @param value value to remove
+         * @return true if the value was present
+         */
+        private boolean remove(int value) {
+            int index = Arrays.binarySearch(values, 0, size, value);
+            if (index < 0) {
+                return false;
+            }
+            System.arraycopy(values, index + 1, values, index, size - index - 1);
+            size--;
+            return true;
+        }
+
+        /**
+         * @param value a value, excluded
+         * @return the smallest value greater than the given one, or {@link Long#MAX_VALUE} if there is none
+         */
+        private long higher(int value) {
+            int index = Arrays.binarySearch(values, 0, size, value);
+            int next = index >= 0 ? index + 1 : -index - 1;
+            return next < size ? values[next] : Long.MAX_VALUE;
+        }
+
+        /**
+         * @param value a value, excluded
+         * @return the greatest value lower than the given one, or {@link Long#MIN_VALUE} if there is none
+         */
+        private long lower(int value) {
+            int index = Arrays.binarySearch(values, 0, size, value);
+            int previous = index >= 0 ? index - 1 : -index - 2;
+            return previous >= 0 ? values[previous] : Long.MIN_VALUE;
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package fr.aymeric.kata.mower.model.occupancy;
+
+import fr.aymeric.kata.mower.util.LongObjectHashMap;
+import fr.aymeric.kata.mower.util.PackedCoordinates;
+
+/**
+ * Sparse occupancy index splitting the lawn in square tiles of {@link #TILE_SIZE} x {@link #TILE_SIZE} cells. <br>
+ * A tile is a small bitset, allocated when a mower enters it and released when its last mower leaves it.
+ * Its memory grows with the number of mowers, not with the size of the lawn, while neighbouring cells share their tile.
+ */
+public class TiledOccupancyIndex implements OccupancyIndex {
+    /**
+     * Number of bits used by a coordinate inside of a tile.
+     */
+    private static final int TILE_SHIFT = 6;
+    /**
+     * Size of a tile on each axis, one long per row of the tile.
+     */
+    public static final int TILE_SIZE = 1 << TILE_SHIFT;
+    /**
+     * Mask giving a coordinate inside of a tile.
+     */
+    private static final int TILE_MASK = TILE_SIZE - 1;
+    /**
+     * Maximum number of empty tiles kept for reuse.
+     */
+    private static final int MAX_SPARE_TILES = 16;
+
+    /**
+     * Allocated tiles, by packed tile coordinates.
+     */
+    private final LongObjectHashMap<Tile> tiles = new LongObjectHashMap<>();
+    /**
+     * Empty tiles kept to avoid reallocating a tile when a mower goes back and forth over a tile border.
+     */
+    private final Tile[] spareTiles = new Tile[MAX_SPARE_TILES];
+    /**
+     * Number of tiles in {@link #spareTiles}.
+     */
+    private int spareTileCount;
+
+    @Override
+    public boolean isOccupied(int x, int y) {
+        Tile tile = tiles.get(tileKey(x, y));
+        return tile != null && (tile.rows[y & TILE_MASK] & (1L << (x & TILE_MASK))) != 0;
+    }
+
+    @Override
+    public void occupy(int x, int y) {
+        long key = tileKey(x, y);
+        Tile tile = tiles.get(key);
+        if (tile == null) {
+            tile = newTile();
+            tiles.put(key, tile);
+        }
+        long bit = 1L << (x & TILE_MASK);
+        int row = y & TILE_MASK;
+        if ((tile.rows[row] & bit) == 0) {
+            tile.rows[row] |= bit;
+            tile.occupiedCells++;
+        }
+    }
+
+    @Override
+    public void release(int x, int y) {
+        long key = tileKey(x, y);
+        Tile tile = tiles.get(key);
+        if (tile == null) {
+            return;
+        }
+        long bit = 1L << (x & TILE_MASK);
+        int row = y & TILE_MASK;
+        if ((tile.rows[row] & bit) != 0) {
+            tile.rows[row] &= ~bit;
+            if (--tile.occupiedCells == 0) {
+                tiles.remove(key);
+                recycle(tile);
+            }
+        }
+    }
+
+    /**
+     * @return the number of tiles currently allocated
+     */
+    public int getTileCount() {
+        return tiles.size();
+    }
+
+    /**
+     * @return an empty tile, reused if possible
+     */
+    private Tile newTile() {
+        if (spareTileCount > 0) {
+            Tile tile = spareTiles[--spareTileCount];
+            spareTiles[spareTileCount] = null;
+            return tile;
+        }
+        return new Tile();
+    }
+
+    /**
+     * Keeps an empty tile for reuse, if there is room for it.
+     *
+     * @param tile the empty tile
+     */
+    private void recycle(Tile tile) {
+        if (spareTileCount < MAX_SPARE_TILES) {
+            spareTiles[spareTileCount++] = tile;
+        }
+    }
+
+    /**
+     * @param x X position of a cell
+     * @param y Y position of a cell
+     * @return the packed coordinates of the tile containing the cell
+     */
+    private static long tileKey(int x, int y) {
+        return PackedCoordinates.pack(x >> TILE_SHIFT, y >> TILE_SHIFT);
+    }
+
+    /**
+     * A tile of the lawn, one long per row.
+     */
+    private static final class Tile {
+        /**
+         * Rows of the tile, bit i of a row is set when the cell at i on the X axis is occupied.
+         */
+        private final long[] rows = new long[TILE_SIZE];
+        /**
+         * Number of occupied cells of the tile.
+         */
+        private int occupiedCells;
+    }
+}
@@ -0,0 +1,158 @@
+package fr.aymeric.kata.mower.output;
+
+import fr.aymeric.kata.mower.util.EnumOrientation;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * BufferedResultSink writes the final positions as lines "Mower n position: x y O" to an output stream. <br>
+ * Lines are encoded directly as ASCII bytes in a reusable buffer from the int fields and the orientation key,
+ * without building intermediate Strings, and the buffer is written when it is full or flushed.
+ */
+public class BufferedResultSink implements ResultSink {
+    /**
+     * Default size of the buffer.
+     */
+    static final int BUFFER_SIZE = 64 * 1024;
+    /**
+     * Beginning of a line.
+     */
+    private static final byte[] PREFIX = "Mower ".getBytes(StandardCharsets.US_ASCII);
+    /**
+     * Separator between the number of the mower and its position.
+     */
+    private static final byte[] SEPARATOR = " position: ".getBytes(StandardCharsets.US_ASCII);
+    /**
+     * Maximum length of a line: the prefix, the separator, three ints, two spaces, the orientation and a new line.
+     */
+    private static final int MAX_LINE_LENGTH = PREFIX.length + SEPARATOR.length + 3 * 11 + 4;
+
+    /**
+     * Stream to write the lines to.
+     */
+    private final OutputStream out;
+    /**
+     * True if the stream is closed with the sink.
+     */
+    private final boolean closeStream;
+    /**
+     * Buffer of the lines not written yet.
+     */
+    private final byte[] buffer;
+    /**
+     * Number of bytes in the buffer.
+     */
+    private int length;
+
+    /**
+     * Constructor of the sink.
+     *
+     * @param out Stream to write the lines to.
+     * @param closeStream True if the stream is closed with the sink.
+     */
+    public BufferedResultSink(OutputStream out, boolean closeStream) {
+        this(out, closeStream, BUFFER_SIZE);
+    }
+
+    /**
+     * Constructor of the sink with a given buffer size.
+     *
+     * @param out Stream to write the lines to.
+     * @param closeStream True if the stream is closed with the sink.
+     * @param bufferSize Size of the buffer, at least the length of a line.
+     */
+    BufferedResultSink(OutputStream out, boolean closeStream, int bufferSize) {
+        this.out = out;
+        this.closeStream = closeStream;
+        this.buffer = new byte[Math.max(bufferSize, MAX_LINE_LENGTH)];
+    }
+
+    @Override
+    public void accept(int mowerNumber, int x, int y, EnumOrientation orientation) {
+        if (buffer.length - length < MAX_LINE_LENGTH) {
+            writeBuffer();
+        }
+        length = put(PREFIX, length);
+        length = putInt(mowerNumber, length);
+        length = put(SEPARATOR, length);
+        length = putInt(x, length);
+        buffer[length++] = ' ';
+        length = putInt(y, length);
+        buffer[length++] = ' ';
+        buffer[length++] = (byte) orientation.getOrientationKey();
+        buffer[length++] = '\n';
+    }
+
+    @Override
+    public void flush() {
+        writeBuffer();
+        try {
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to write the results", e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        flush();
+        if (closeStream) {
+            out.close();
+        }
+    }
+
+    /**
+     * Writes the content of the buffer to the stream and empties it.
+     */
+    private void writeBuffer() {
+        if (length == 0) {
+            return;
+        }
+        try {
+            out.write(buffer, 0, length);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to write the results", e);
+        }
+        length = 0;
+    }
+
+    /**
+     * Copies bytes to the buffer.
+     *
+     * @param bytes Bytes to copy.
+     * @param offset Position in the buffer.
+     * @return The position after the bytes.
+     */
+    private int put(byte[] bytes, int offset) {
+        System.arraycopy(bytes, 0, buffer, offset, bytes.length);
+        return offset + bytes.length;
+    }
+
+    /**
+     * Writes the decimal digits of an int to the buffer.
+     *
+     * @param value The int.
+     * @param offset Position in the buffer.
+     * @return The position after the digits.
+     */
+    private int putInt(int value, int offset) {
+        // Work on the negative value, so that Integer.MIN_VALUE doesn't overflow
+        int negative = value < 0 ? value : -value;
+        if (value < 0) {
+            buffer[offset++] = '-';
+        }
+        int digits = 1;
+        for (int rest = negative / 10; rest != 0; rest /= 10) {
+            digits++;
+        }
+        int end = offset + digits;
+        for (int position = end - 1; position >= offset; position--) {
+            buffer[position] = (byte) ('0' - negative % 10);
+            negative /= 10;
+        }
+        return end;
+    }
+}
@@ -0,0 +1,46 @@
+package fr.aymeric.kata.mower.output;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * InMemoryResultSink keeps the lines of the final positions in memory, for tests and for callers that post-process them.
+ */
+public class InMemoryResultSink extends BufferedResultSink {
+    /**
+     * Stream holding the flushed lines.
+     */
+    private final ByteArrayOutputStream content;
+
+    /**
+     * Constructor of an empty sink.
+     */
+    public InMemoryResultSink() {
+        this(new ByteArrayOutputStream());
+    }
+
+    /**
+     * Constructor of the sink around its stream.
+     *
+     * @param content Stream holding the flushed lines.
+     */
+    private InMemoryResultSink(ByteArrayOutputStream content) {
+        super(content, false);
+        this.content = content;
+    }
+
+    /**
+     * @return the bytes of the lines received so far
+     */
+    public byte[] toByteArray() {
+        flush();
+        return content.toByteArray();
+    }
+
+    /**
+     * @return the lines received so far, each one ended by a new line
+     */
+    public String getContent() {
+        return new String(toByteArray(), StandardCharsets.US_ASCII);
+    }
+}
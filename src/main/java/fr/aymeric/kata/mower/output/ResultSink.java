@@ -0,0 +1,61 @@
+package fr.aymeric.kata.mower.output;
+
+import fr.aymeric.kata.mower.model.Mower;
+import fr.aymeric.kata.mower.util.EnumOrientation;
+
+import java.io.Closeable;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * ResultSink receives the final position of each mower of a run.
+ */
+public interface ResultSink extends Closeable {
+    /**
+     * Receives the final position of a mower.
+     *
+     * @param mowerNumber Number of the mower in the run, starting at 1.
+     * @param x Final X position.
+     * @param y Final Y position.
+     * @param orientation Final orientation.
+     * @throws java.io.UncheckedIOException If the position cannot be written.
+     */
+    void accept(int mowerNumber, int x, int y, EnumOrientation orientation);
+
+    /**
+     * Receives the final position of a mower.
+     *
+     * @param mowerNumber Number of the mower in the run, starting at 1.
+     * @param mower The mower.
+     * @throws java.io.UncheckedIOException If the position cannot be written.
+     */
+    default void accept(int mowerNumber, Mower mower) {
+        accept(mowerNumber, mower.getPositionX(), mower.getPositionY(), mower.getOrientation());
+    }
+
+    /**
+     * Writes the buffered positions, called at the end of a run.
+     *
+     * @throws java.io.UncheckedIOException If the positions cannot be written.
+     */
+    void flush();
+
+    /**
+     * @return a sink writing to the standard output, which is never closed by the sink
+     */
+    static ResultSink stdout() {
+        return new BufferedResultSink(System.out, false);
+    }
+
+    /**
+     * Creates a sink writing to a file, created or truncated.
+     *
+     * @param file The file.
+     * @return A sink writing to the file, to be closed by the caller.
+     * @throws IOException If the file cannot be opened.
+     */
+    static ResultSink toFile(Path file) throws IOException {
+        return new BufferedResultSink(new FileOutputStream(file.toFile()), true);
+    }
+}
@@ -0,0 +1,597 @@
+package fr.aymeric.kata.mower.planner;
+
+import fr.aymeric.kata.mower.model.Lawn;
+import fr.aymeric.kata.mower.util.CompressedBitmap;
+import fr.aymeric.kata.mower.util.EnumInstruction;
+import fr.aymeric.kata.mower.util.EnumOrientation;
+import fr.aymeric.kata.mower.util.LongHashSet;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * PathPlanner computes instruction programs moving a mower on a lawn, around its obstacles and the mowers on it. <br>
+ * A program is found by an A* search over the states (x, y, orientation), where each instruction costs 1: a
+ * rotation changes the orientation, a forward move changes the position if the next cell is valid, and a blocked
+ * move is never part of a shortest program. The heuristic is the Manhattan distance to the target plus the
+ * rotations needed to face the directions of the target, which never overestimates the remaining instructions, so
+ * the programs are the shortest ones. Ties are broken towards the deepest states, so that on an open lawn the
+ * search expands little more than the states of the program. <br>
+ * The states are stored in primitive arrays (packed states, costs, parents and an open addressing table) and the
+ * open set is a binary heap of packed priorities, so a search doesn't allocate any node object. The arrays are
+ * kept between the searches, and the table is reset in constant time. A planner is not thread-safe: use one per
+ * thread.
+ */
+public class PathPlanner {
+    /**
+     * Default maximum number of states expanded by a search.
+     */
+    public static final int DEFAULT_MAX_EXPANDED_STATES = 1 << 24;
+
+    /**
+     * Orientations by ordinal.
+     */
+    private static final EnumOrientation[] ORIENTATIONS = EnumOrientation.values();
+    /**
+     * Keys of the instructions, by ordinal.
+     */
+    private static final byte[] INSTRUCTION_KEYS = new byte[EnumInstruction.values().length];
+    /**
+     * Ordinal of the forward instruction.
+     */
+    private static final int FRONT = EnumInstruction.FRONT.ordinal();
+    /**
+     * Ordinal of the left rotation.
+     */
+    private static final int LEFT = EnumInstruction.LEFT.ordinal();
+    /**
+     * Ordinal of the right rotation.
+     */
+    private static final int RIGHT = EnumInstruction.RIGHT.ordinal();
+    /**
+     * Minimal number of rotations between two orientations, by {@code from * 4 + to}.
+     */
+    private static final int[] ROTATIONS = new int[16];
+    /**
+     * Marker of a missing orientation, for a target with any orientation.
+     */
+    private static final int ANY = -1;
+
+    static {
+        for (EnumInstruction instruction : EnumInstruction.values()) {
+            INSTRUCTION_KEYS[instruction.ordinal()] = (byte) instruction.getInstructionKey();
+        }
+        for (int from = 0; from < 4; from++) {
+            for (int to = 0; to < 4; to++) {
+                int clockwise = (to - from) & 3;
+                ROTATIONS[from * 4 + to] = Math.min(clockwise, 4 - clockwise);
+            }
+        }
+    }
+
+    /**
+     * Maximum number of states expanded by a search.
+     */
+    private final int maxExpandedStates;
+
+    /**
+     * Packed state of each node, see {@link #state(int, int, int)}.
+     */
+    private long[] nodeStates = new long[1024];
+    /**
+     * Number of instructions from the start to each node.
+     */
+    private int[] nodeCosts = new int[1024];
+    /**
+     * Parent of each node, -1 for the start node.
+     */
+    private int[] nodeParents = new int[1024];
+    /**
+     * Ordinal of the instruction leading to each node from its parent.
+     */
+    private byte[] nodeInstructions = new byte[1024];
+    /**
+     * True for the nodes already expanded.
+     */
+    private boolean[] nodeClosed = new boolean[1024];
+    /**
+     * Number of nodes of the current search.
+     */
+    private int nodeCount;
+
+    /**
+     * Node of each slot of the table, valid if the stamp of the slot is the current one.
+     */
+    private int[] tableNodes = new int[2048];
+    /**
+     * Search that filled each slot of the table.
+     */
+    private int[] tableStamps = new int[2048];
+    /**
+     * Stamp of the current search, incremented to clear the table.
+     */
+    private int stamp;
+
+    /**
+     * Priorities of the heap entries, see {@link #push(int, int)}.
+     */
+    private long[] heapPriorities = new long[1024];
+    /**
+     * Nodes of the heap entries.
+     */
+    private int[] heapNodes = new int[1024];
+    /**
+     * Number of heap entries.
+     */
+    private int heapSize;
+
+    /**
+     * X position of the target of the current search.
+     */
+    private int targetX;
+    /**
+     * Y position of the target of the current search.
+     */
+    private int targetY;
+    /**
+     * Ordinal of the orientation of the target of the current search, {@link #ANY} if any orientation.
+     */
+    private int targetOrientation;
+    /**
+     * Number of states expanded by the last search.
+     */
+    private int expanded;
+
+    /**
+     * Constructor of a planner with the {@link #DEFAULT_MAX_EXPANDED_STATES default} limit of states.
+     */
+    public PathPlanner() {
+        this(DEFAULT_MAX_EXPANDED_STATES);
+    }
+
+    /**
+     * Constructor of a planner.
+     *
+     * @param maxExpandedStates Maximum number of states expanded by a search, which bounds its time and memory.
+     * @throws IllegalArgumentException If the maximum is not greater than 0.
+     */
+    public PathPlanner(int maxExpandedStates) {
+        if (maxExpandedStates <= 0) {
+            throw new IllegalArgumentException("Maximum expanded states must be greater than 0");
+        }
+        this.maxExpandedStates = maxExpandedStates;
+    }
+
+    /**
+     * Plan the shortest program moving a mower to a target. <br>
+     * The start cell is considered free, as it is the cell of the planned mower whether it is on the lawn or not.
+     * The other mowers of the lawn are considered static.
+     *
+     * @param lawn Lawn where the mower moves.
+     * @param startX X position of the mower.
+     * @param startY Y position of the mower.
+     * @param startOrientation Orientation of the mower.
+     * @param targetX X position to reach.
+     * @param targetY Y position to reach.
+     * @param targetOrientation Orientation to reach, or null for any orientation.
+     * @return The shortest plan, or null if the target cannot be reached.
+     * @throws NullPointerException If the lawn or the start orientation is null.
+     * @throws IllegalArgumentException If the start or the target is outside of the lawn.
+     * @throws IllegalStateException If the search expands more than the maximum number of states.
+     */
+    public Plan planTo(Lawn lawn, int startX, int startY, EnumOrientation startOrientation,
+                       int targetX, int targetY, EnumOrientation targetOrientation) {
+        checkStart(lawn, startX, startY, startOrientation);
+        if (!lawn.isPositionInside(targetX, targetY)) {
+            throw new IllegalArgumentException("Target outside of the lawn");
+        }
+        int goal = search(lawn, startX, startY, startOrientation.ordinal(), startX, startY, targetX, targetY,
+                targetOrientation == null ? ANY : targetOrientation.ordinal());
+        if (goal < 0) {
+            return null;
+        }
+        byte[] keys = new byte[nodeCosts[goal]];
+        appendProgram(goal, keys, 0);
+        return new Plan(keys, targetX, targetY, ORIENTATIONS[stateOrientation(nodeStates[goal])], expanded);
+    }
+
+    /**
+     * Plan a program mowing all the reachable cells of a rectangle. <br>
+     * The free cells are visited row by row, alternating the direction of the rows, and the mower goes to the next
+     * cell not mowed yet with the shortest program, mowing the cells on its way. Each leg is the shortest one, but
+     * the whole program is not necessarily the shortest covering program. The cells that cannot be reached are
+     * skipped. The start cell is considered free in every leg, as it is the cell of the planned mower whether it is on
+     * the lawn or not.
+     *
+     * @param lawn Lawn where the mower moves.
+     * @param startX X position of the mower.
+     * @param startY Y position of the mower.
+     * @param startOrientation Orientation of the mower.
+     * @param x1 X position of a corner of the rectangle.
+     * @param y1 Y position of a corner of the rectangle.
+     * @param x2 X position of the opposite corner of the rectangle.
+     * @param y2 Y position of the opposite corner of the rectangle.
+     * @return The plan, empty if no cell of the rectangle other than the start one can be reached.
+     * @throws NullPointerException If the lawn or the start orientation is null.
+     * @throws IllegalArgumentException If the start or the rectangle is outside of the lawn.
+     * @throws IllegalStateException If a search expands more than the maximum number of states.
+     */
+    public Plan planCoverage(Lawn lawn, int startX, int startY, EnumOrientation startOrientation,
+                             int x1, int y1, int x2, int y2) {
+        checkStart(lawn, startX, startY, startOrientation);
+        if (!lawn.isPositionInside(x1, y1) || !lawn.isPositionInside(x2, y2)) {
+            throw new IllegalArgumentException("Rectangle outside of the lawn");
+        }
+        long rowLength = (long) lawn.getSizeX() + 1;
+        CompressedBitmap mowed = new CompressedBitmap();
+        mowed.add(startY * rowLength + startX);
+        byte[] keys = new byte[64];
+        int length = 0;
+        int x = startX;
+        int y = startY;
+        int orientation = startOrientation.ordinal();
+        long totalExpanded = 0;
+        // After a failed search, the table holds all the states reachable from the current one
+        boolean reachableKnown = false;
+        int fromY = Math.min(y1, y2);
+        int toY = Math.max(y1, y2);
+        int fromX = Math.min(x1, x2);
+        int toX = Math.max(x1, x2);
+        for (int row = fromY; row <= toY; row++) {
+            boolean forward = ((row - fromY) & 1) == 0;
+            for (int column = forward ? fromX : toX; forward ? column <= toX : column >= fromX;
+                 column += forward ? 1 : -1) {
+                if (mowed.contains(row * rowLength + column) || !lawn.isPositionValid(column, row)
+                        || (reachableKnown && !isReached(column, row))) {
+                    continue;
+                }
+                int goal = search(lawn, x, y, orientation, startX, startY, column, row, ANY);
+                totalExpanded += expanded;
+                reachableKnown = goal < 0;
+                if (goal < 0) {
+                    continue;
+                }
+                int legLength = nodeCosts[goal];
+                if (length + legLength > keys.length) {
+                    keys = Arrays.copyOf(keys, Math.max(length + legLength, keys.length << 1));
+                }
+                appendProgram(goal, keys, length);
+                // Replay the leg to mow the cells on its way
+                for (int i = length; i < length + legLength; i++) {
+                    if (keys[i] == INSTRUCTION_KEYS[FRONT]) {
+                        x += ORIENTATIONS[orientation].getStepX();
+                        y += ORIENTATIONS[orientation].getStepY();
+                        mowed.add(y * rowLength + x);
+                    } else {
+                        orientation = (orientation + (keys[i] == INSTRUCTION_KEYS[RIGHT] ? 1 : 3)) & 3;
+                    }
+                }
+                length += legLength;
+            }
+        }
+        return new Plan(Arrays.copyOf(keys, length), x, y, ORIENTATIONS[orientation], totalExpanded);
+    }
+
+    /**
+     * Check the start state of a plan.
+     *
+     * @param lawn Lawn where the mower moves.
+     * @param startX X position of the mower.
+     * @param startY Y position of the mower.
+     * @param startOrientation Orientation of the mower.
+     * @throws NullPointerException If the lawn or the orientation is null.
+     * @throws IllegalArgumentException If the start is outside of the lawn.
+     */
+    private static void checkStart(Lawn lawn, int startX, int startY, EnumOrientation startOrientation) {
+        Objects.requireNonNull(lawn, "Lawn cannot be null");
+        Objects.requireNonNull(startOrientation, "Orientation cannot be null");
+        if (!lawn.isPositionInside(startX, startY)) {
+            throw new IllegalArgumentException("Start outside of the lawn");
+        }
+    }
+
+    /**
+     * A* search of the shortest program from a start state to a target.
+     *
+     * @param lawn Lawn where the mower moves.
+     * @param startX X position of the mower.
+     * @param startY Y position of the mower.
+     * @param startOrientation Ordinal of the orientation of the mower.
+     * @param freeX X position of the cell of the planned mower, considered free.
+     * @param freeY Y position of the cell of the planned mower, considered free.
+     * @param x X position to reach.
+     * @param y Y position to reach.
+     * @param orientation Ordinal of the orientation to reach, or {@link #ANY}.
+     * @return The node of the target, or -1 if it cannot be reached.
+     * @throws IllegalStateException If the search expands more than the maximum number of states.
+     */
+    private int search(Lawn lawn, int startX, int startY, int startOrientation, int freeX, int freeY,
+                       int x, int y, int orientation) {
+        targetX = x;
+        targetY = y;
+        targetOrientation = orientation;
+        expanded = 0;
+        nodeCount = 0;
+        heapSize = 0;
+        if (++stamp == 0) {
+            Arrays.fill(tableStamps, 0);
+            stamp = 1;
+        }
+        if ((x != freeX || y != freeY) && !lawn.isPositionValid(x, y)) {
+            return -1;
+        }
+        relax(state(startX, startY, startOrientation), 0, -1, FRONT);
+        while (heapSize > 0) {
+            int node = pop();
+            if (nodeClosed[node]) {
+                continue;
+            }
+            nodeClosed[node] = true;
+            if (++expanded > maxExpandedStates) {
+                throw new IllegalStateException("More than " + maxExpandedStates + " states expanded");
+            }
+            long state = nodeStates[node];
+            int nodeX = stateX(state);
+            int nodeY = stateY(state);
+            int nodeOrientation = stateOrientation(state);
+            if (nodeX == x && nodeY == y && (orientation == ANY || nodeOrientation == orientation)) {
+                return node;
+            }
+            int cost = nodeCosts[node] + 1;
+            relax(state(nodeX, nodeY, (nodeOrientation + 3) & 3), cost, node, LEFT);
+            relax(state(nodeX, nodeY, (nodeOrientation + 1) & 3), cost, node, RIGHT);
+            int nextX = nodeX + ORIENTATIONS[nodeOrientation].getStepX();
+            int nextY = nodeY + ORIENTATIONS[nodeOrientation].getStepY();
+            if ((nextX == freeX && nextY == freeY && lawn.isPositionInside(nextX, nextY))
+                    || lawn.isPositionValid(nextX, nextY)) {
+                relax(state(nextX, nextY, nodeOrientation), cost, node, FRONT);
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Record a path to a state if it is the first or the shortest one found, and add the state to the open set.
+     *
+     * @param state Packed state.
+     * @param cost Number of instructions of the path.
+     * @param parent Node the path comes from, -1 for the start.
+     * @param instruction Ordinal of the instruction from the parent to the state.
+     */
+    private void relax(long state, int cost, int parent, int instruction) {
+        int slot = (int) LongHashSet.mix(state) & (tableNodes.length - 1);
+        while (tableStamps[slot] == stamp) {
+            int node = tableNodes[slot];
+            if (nodeStates[node] == state) {
+                if (cost < nodeCosts[node]) {
+                    nodeCosts[node] = cost;
+                    nodeParents[node] = parent;
+                    nodeInstructions[node] = (byte) instruction;
+                    nodeClosed[node] = false;
+                    push(node, cost);
+                }
+                return;
+            }
+            slot = (slot + 1) & (tableNodes.length - 1);
+        }
+        int node = addNode(state, cost, parent, instruction);
+        tableNodes[slot] = node;
+        tableStamps[slot] = stamp;
+        if (nodeCount * 2 > tableNodes.length) {
+            rehash(tableNodes.length << 1);
+        }
+        push(node, cost);
+    }
+
+    /**
+     * Check if a cell has been reached by the current search, in any orientation.
+     *
+     * @param x X position of the cell.
+     * @param y Y position of the cell.
+     * @return True if a state of the cell is in the table.
+     */
+    private boolean isReached(int x, int y) {
+        for (int orientation = 0; orientation < 4; orientation++) {
+            long state = state(x, y, orientation);
+            int slot = (int) LongHashSet.mix(state) & (tableNodes.length - 1);
+            while (tableStamps[slot] == stamp) {
+                if (nodeStates[tableNodes[slot]] == state) {
+                    return true;
+                }
+                slot = (slot + 1) & (tableNodes.length - 1);
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Add a node, growing the node arrays if needed.
+     *
+     * @param state Packed state.
+     * @param cost Number of instructions from the start.
+     * @param parent Parent node, -1 for the start.
+     * @param instruction Ordinal of the instruction from the parent.
+     * @return The new node.
+     */
+    private int addNode(long state, int cost, int parent, int instruction) {
+        if (nodeCount == nodeStates.length) {
+            int length = nodeCount << 1;
+            nodeStates = Arrays.copyOf(nodeStates, length);
+            nodeCosts = Arrays.copyOf(nodeCosts, length);
+            nodeParents = Arrays.copyOf(nodeParents, length);
+            nodeInstructions = Arrays.copyOf(nodeInstructions, length);
+            nodeClosed = Arrays.copyOf(nodeClosed, length);
+        }
+        int node = nodeCount++;
+        nodeStates[node] = state;
+        nodeCosts[node] = cost;
+        nodeParents[node] = parent;
+        nodeInstructions[node] = (byte) instruction;
+        nodeClosed[node] = false;
+        return node;
+    }
+
+    /**
+     * Rebuild the table of the current search with a new length.
+     *
+     * @param length New length of the table, a power of two.
+     */
+    private void rehash(int length) {
+        tableNodes = new int[length];
+        tableStamps = new int[length];
+        stamp = 1;
+        for (int node = 0; node < nodeCount; node++) {
+            int slot = (int) LongHashSet.mix(nodeStates[node]) & (length - 1);
+            while (tableStamps[slot] == stamp) {
+                slot = (slot + 1) & (length - 1);
+            }
+            tableNodes[slot] = node;
+            tableStamps[slot] = stamp;
+        }
+    }
+
+    /**
+     * Add a node to the heap of the open set. <br>
+     * The priority packs the estimated cost of the program through the node, then the opposite of the cost from the
+     * start, so that among equal estimates the deepest node comes first.
+     *
+     * @param node Node to add.
+     * @param cost Number of instructions from the start to the node.
+     */
+    private void push(int node, int cost) {
+        long state = nodeStates[node];
+        long estimate = (long) cost + heuristic(stateX(state), stateY(state), stateOrientation(state));
+        long priority = (estimate << 32) | (Integer.MAX_VALUE - cost);
+        if (heapSize == heapPriorities.length) {
+            heapPriorities = Arrays.copyOf(heapPriorities, heapSize << 1);
+            heapNodes = Arrays.copyOf(heapNodes, heapSize << 1);
+        }
+        int index = heapSize++;
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (heapPriorities[parent] <= priority) {
+                break;
+            }
+            heapPriorities[index] = heapPriorities[parent];
+            heapNodes[index] = heapNodes[parent];
+            index = parent;
+        }
+        heapPriorities[index] = priority;
+        heapNodes[index] = node;
+    }
+
+    /**
+     * Remove the entry of lowest priority from the heap of the open set.
+     *
+     * @return The node of the entry.
+     */
+    private int pop() {
+        int top = heapNodes[0];
+        long priority = heapPriorities[--heapSize];
+        int node = heapNodes[heapSize];
+        int index = 0;
+        int half = heapSize >>> 1;
+        while (index < half) {
+            int child = 2 * index + 1;
+            if (child + 1 < heapSize && heapPriorities[child + 1] < heapPriorities[child]) {
+                child++;
+            }
+            if (priority <= heapPriorities[child]) {
+                break;
+            }
+            heapPriorities[index] = heapPriorities[child];
+            heapNodes[index] = heapNodes[child];
+            index = child;
+        }
+        heapPriorities[index] = priority;
+        heapNodes[index] = node;
+        return top;
+    }
+
+    /**
+     * Lower bound of the number of instructions from a state to the target: the forward moves to the target, plus
+     * the rotations to face each direction towards the target, then the target orientation.
+     *
+     * @param x X position.
+     * @param y Y position.
+     * @param orientation Ordinal of the orientation.
+     * @return The lower bound.
+     */
+    private int heuristic(int x, int y, int orientation) {
+        int dx = targetX - x;
+        int dy = targetY - y;
+        int horizontal = dx > 0 ? EnumOrientation.EAST.ordinal() : dx < 0 ? EnumOrientation.WEST.ordinal() : ANY;
+        int vertical = dy > 0 ? EnumOrientation.NORTH.ordinal() : dy < 0 ? EnumOrientation.SOUTH.ordinal() : ANY;
+        int rotations;
+        if (horizontal == ANY && vertical == ANY) {
+            rotations = rotations(orientation, targetOrientation);
+        } else if (horizontal == ANY || vertical == ANY) {
+            int direction = Math.max(horizontal, vertical);
+            rotations = rotations(orientation, direction) + rotations(direction, targetOrientation);
+        } else {
+            // Both directions are needed, one after the other
+            rotations = 1 + Math.min(rotations(orientation, horizontal) + rotations(vertical, targetOrientation),
+                    rotations(orientation, vertical) + rotations(horizontal, targetOrientation));
+        }
+        return Math.abs(dx) + Math.abs(dy) + rotations;
+    }
+
+    /**
+     * @param from ordinal of an orientation
+     * @param to ordinal of an orientation, or {@link #ANY}
+     * @return the minimal number of rotations from an orientation to the other, 0 to any orientation
+     */
+    private static int rotations(int from, int to) {
+        return to == ANY ? 0 : ROTATIONS[from * 4 + to];
+    }
+
+    /**
+     * Write the program leading to a node, from the start of its search.
+     *
+     * @param node Node reached by the program.
+     * @param keys Array receiving the keys of the instructions.
+     * @param offset Index of the first instruction in the array.
+     */
+    private void appendProgram(int node, byte[] keys, int offset) {
+        for (int index = offset + nodeCosts[node] - 1; nodeParents[node] >= 0; index--) {
+            keys[index] = INSTRUCTION_KEYS[nodeInstructions[node]];
+            node = nodeParents[node];
+        }
+    }
+
+    /**
+     * Pack a state in a long, never negative.
+     *
+     * @param x X position, non-negative.
+     * @param y Y position, non-negative.
+     * @param orientation Ordinal of the orientation.
+     * @return The packed state.
+     */
+    private static long state(int x, int y, int orientation) {
+        return ((long) x << 33) | ((long) y << 2) | orientation;
+    }
+
+    /**
+     * @param state a packed state
+     * @return the X position of the state
+     */
+    private static int stateX(long state) {
+        return (int) (state >>> 33);
+    }
+
+    /**
+     * @param state a packed state
+     * @return the Y position of the state
+     */
+    private static int stateY(long state) {
+        return (int) ((state >>> 2) & Integer.MAX_VALUE);
+    }
+
+    /**
+     * @param state a packed state
+     * @return the ordinal of the orientation of the state
+     */
+    private static int stateOrientation(long state) {
+        return (int) (state & 3);
+    }
+}
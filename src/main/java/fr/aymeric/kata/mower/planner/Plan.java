@@ -0,0 +1,123 @@
+package fr.aymeric.kata.mower.planner;
+
+import fr.aymeric.kata.mower.util.EnumInstruction;
+import fr.aymeric.kata.mower.util.EnumOrientation;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Plan is a program computed by the {@link PathPlanner}, with the state of the mower once it is executed. <br>
+ * The instructions are stored as their keys, so the program can be written to an instructions file as is, or
+ * executed with {@link fr.aymeric.kata.mower.model.MowerEngine#execute(fr.aymeric.kata.mower.model.Mower, byte[], int, int)}.
+ */
+public final class Plan {
+    /**
+     * Keys of the instructions of the program.
+     */
+    private final byte[] instructionKeys;
+    /**
+     * X position of the mower after the program.
+     */
+    private final int finalX;
+    /**
+     * Y position of the mower after the program.
+     */
+    private final int finalY;
+    /**
+     * Orientation of the mower after the program.
+     */
+    private final EnumOrientation finalOrientation;
+    /**
+     * Number of states expanded by the searches of the plan.
+     */
+    private final long expandedStates;
+
+    /**
+     * Constructor of a plan.
+     *
+     * @param instructionKeys Keys of the instructions, owned by the plan.
+     * @param finalX X position of the mower after the program.
+     * @param finalY Y position of the mower after the program.
+     * @param finalOrientation Orientation of the mower after the program.
+     * @param expandedStates Number of states expanded by the searches of the plan.
+     */
+    Plan(byte[] instructionKeys, int finalX, int finalY, EnumOrientation finalOrientation, long expandedStates) {
+        this.instructionKeys = instructionKeys;
+        this.finalX = finalX;
+        this.finalY = finalY;
+        this.finalOrientation = finalOrientation;
+        this.expandedStates = expandedStates;
+    }
+
+    /**
+     * @return the number of instructions of the program
+     */
+    public int getLength() {
+        return instructionKeys.length;
+    }
+
+    /**
+     * @return the program, as written in an instructions file
+     */
+    public String getProgram() {
+        return new String(instructionKeys, StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * @return a copy of the keys of the instructions, one byte per instruction
+     */
+    public byte[] getInstructionKeys() {
+        return Arrays.copyOf(instructionKeys, instructionKeys.length);
+    }
+
+    /**
+     * @return the instructions of the program
+     */
+    public List<EnumInstruction> getInstructions() {
+        List<EnumInstruction> instructions = new ArrayList<>(instructionKeys.length);
+        for (byte key : instructionKeys) {
+            instructions.add(EnumInstruction.fromKey((char) key));
+        }
+        return instructions;
+    }
+
+    /**
+     * @return the X position of the mower after the program
+     */
+    public int getFinalX() {
+        return finalX;
+    }
+
+    /**
+     * @return the Y position of the mower after the program
+     */
+    public int getFinalY() {
+        return finalY;
+    }
+
+    /**
+     * @return the orientation of the mower after the program
+     */
+    public EnumOrientation getFinalOrientation() {
+        return finalOrientation;
+    }
+
+    /**
+     * @return the number of states expanded by the searches of the plan
+     */
+    public long getExpandedStates() {
+        return expandedStates;
+    }
+
+    @Override
+    public String toString() {
+        return "Plan{" +
+                "length=" + instructionKeys.length +
+                ", final=" + finalX + " " + finalY + " " + finalOrientation.getOrientationKey() +
+                ", expandedStates=" + expandedStates +
+                '}';
+    }
+}
@@ -0,0 +1,76 @@
+package fr.aymeric.kata.mower.server;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * SimulationClient sends jobs to a {@link SimulationServer} on the local host. <br>
+ * Jobs can be pipelined: {@link #send(byte[])} only buffers the request, and {@link #receive()} sends the buffered
+ * requests before waiting for the next response, the responses coming in the order of the requests.
+ */
+public class SimulationClient implements Closeable {
+    /**
+     * Socket of the connection.
+     */
+    private final Socket socket;
+    /**
+     * Stream of the requests.
+     */
+    private final DataOutputStream output;
+    /**
+     * Stream of the responses.
+     */
+    private final DataInputStream input;
+
+    /**
+     * Constructor of the client, connected to a server on the loopback interface.
+     *
+     * @param port Port of the server.
+     * @throws IOException If the connection cannot be opened.
+     */
+    public SimulationClient(int port) throws IOException {
+        this.socket = new Socket(InetAddress.getLoopbackAddress(), port);
+        socket.setTcpNoDelay(true);
+        this.output = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+        this.input = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+    }
+
+    /**
+     * Buffers a job, sent at the latest by the next call to {@link #receive()}.
+     *
+     * @param instructions Instructions in the text format.
+     * @throws IOException If the request cannot be written.
+     */
+    public void send(byte[] instructions) throws IOException {
+        SimulationProtocol.writeRequest(output, instructions);
+    }
+
+    /**
+     * Sends the buffered jobs and waits for the response to the oldest job without response.
+     *
+     * @return The lines of the final positions of the job.
+     * @throws IOException If the response cannot be read.
+     * @throws RuntimeException If the job failed, with the message of the error of the server.
+     */
+    public String receive() throws IOException {
+        output.flush();
+        byte status = SimulationProtocol.readStatus(input);
+        byte[] payload = SimulationProtocol.readPayload(input);
+        if (status != SimulationProtocol.STATUS_OK) {
+            throw new RuntimeException(new String(payload, StandardCharsets.UTF_8));
+        }
+        return new String(payload, StandardCharsets.US_ASCII);
+    }
+
+    @Override
+    public void close() throws IOException {
+        socket.close();
+    }
+}
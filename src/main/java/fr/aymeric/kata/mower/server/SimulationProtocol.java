@@ -0,0 +1,118 @@
+package fr.aymeric.kata.mower.server;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+
+/**
+ * SimulationProtocol describes the frames exchanged with the {@link SimulationServer}. <br>
+ * A request is a job: {@code int length} (big endian) followed by the instructions in the text format of
+ * {@link fr.aymeric.kata.mower.MowerProgramExecutor}. A response is {@code byte status},
+ * {@code int length} and the payload: the lines of the final positions if the status is {@link #STATUS_OK}, the
+ * error message in UTF-8 if it is {@link #STATUS_FAILED}. <br>
+ * Requests can be sent back-to-back on a connection without waiting for the responses, which come back in the
+ * order of the requests.
+ */
+public final class SimulationProtocol {
+    /**
+     * Status of a response to a job executed successfully.
+     */
+    public static final byte STATUS_OK = 0;
+    /**
+     * Status of a response to a job that failed.
+     */
+    public static final byte STATUS_FAILED = 1;
+    /**
+     * Maximum length of a payload.
+     */
+    public static final int MAX_PAYLOAD_LENGTH = 64 << 20;
+
+    /**
+     * Utility class, not instantiable.
+     */
+    private SimulationProtocol() {
+    }
+
+    /**
+     * Writes a request.
+     *
+     * @param output Stream of the connection, not flushed.
+     * @param instructions Instructions of the job.
+     * @throws IOException If the request cannot be written.
+     */
+    public static void writeRequest(DataOutputStream output, byte[] instructions) throws IOException {
+        output.writeInt(instructions.length);
+        output.write(instructions);
+    }
+
+    /**
+     * Reads a request.
+     *
+     * @param input Stream of the connection.
+     * @return The instructions of the job, or null if the connection has been closed between two requests.
+     * @throws IOException If the request cannot be read or is too long.
+     */
+    public static byte[] readRequest(DataInputStream input) throws IOException {
+        int first = input.read();
+        if (first < 0) {
+            return null;
+        }
+        int length = (first << 24) | (input.readUnsignedByte() << 16) | input.readUnsignedShort();
+        return readPayload(input, length);
+    }
+
+    /**
+     * Writes a response.
+     *
+     * @param output Stream of the connection, not flushed.
+     * @param status {@link #STATUS_OK} or {@link #STATUS_FAILED}.
+     * @param payload Final positions or error message.
+     * @throws IOException If the response cannot be written.
+     */
+    public static void writeResponse(DataOutputStream output, byte status, byte[] payload) throws IOException {
+        output.writeByte(status);
+        output.writeInt(payload.length);
+        output.write(payload);
+    }
+
+    /**
+     * Reads the status of a response, followed by its payload to read with {@link #readPayload(DataInputStream)}.
+     *
+     * @param input Stream of the connection.
+     * @return The status of the response.
+     * @throws EOFException If the connection has been closed.
+     * @throws IOException If the response cannot be read.
+     */
+    public static byte readStatus(DataInputStream input) throws IOException {
+        return input.readByte();
+    }
+
+    /**
+     * Reads a length-prefixed payload.
+     *
+     * @param input Stream of the connection.
+     * @return The payload.
+     * @throws IOException If the payload cannot be read or is too long.
+     */
+    public static byte[] readPayload(DataInputStream input) throws IOException {
+        return readPayload(input, input.readInt());
+    }
+
+    /**
+     * Reads a payload whose length is already read.
+     *
+     * @param input Stream of the connection.
+     * @param length Length of the payload.
+     * @return The payload.
+     * @throws IOException If the payload cannot be read or is too long.
+     */
+    private static byte[] readPayload(DataInputStream input, int length) throws IOException {
+        if (length < 0 || length > MAX_PAYLOAD_LENGTH) {
+            throw new IOException("Invalid payload length: " + length);
+        }
+        byte[] payload = new byte[length];
+        input.readFully(payload);
+        return payload;
+    }
+}
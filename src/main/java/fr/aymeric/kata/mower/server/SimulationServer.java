@@ -0,0 +1,425 @@
+package fr.aymeric.kata.mower.server;
+
+import fr.aymeric.kata.mower.KataMowerMain;
+import fr.aymeric.kata.mower.MowerProgramExecutor;
+import fr.aymeric.kata.mower.cache.CachedResult;
+import fr.aymeric.kata.mower.cache.ResultCache;
+import fr.aymeric.kata.mower.model.Lawn;
+import fr.aymeric.kata.mower.output.InMemoryResultSink;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+
+/**
+ * SimulationServer is a long-running service executing instruction files sent on a local socket, so that many
+ * small jobs don't each pay for the start of a JVM and a cold JIT. <br>
+ * The frames are described by {@link SimulationProtocol}. Each connection has a reader thread, which submits the
+ * jobs to a shared pool of workers as soon as they are read, and a writer thread, which sends the results back in
+ * the order of the requests as soon as they are ready. A client can then pipeline its jobs: at most
+ * {@link #MAX_PENDING_JOBS} jobs of a connection wait for their response, after which the reading of the connection
+ * waits. The workers are warmed up before the server accepts connections, and the results are cached by content
+ * so that identical jobs are only executed once.
+ */
+public class SimulationServer implements Closeable {
+    /**
+     * Default port of the server.
+     */
+    public static final int DEFAULT_PORT = 7070;
+    /**
+     * Maximum number of jobs of a connection submitted and not answered yet.
+     */
+    static final int MAX_PENDING_JOBS = 64;
+    /**
+     * Default number of warm-up jobs run by each worker.
+     */
+    static final int DEFAULT_WARM_UP_JOBS = 200;
+    /**
+     * Maximum approximate size of the results kept in memory to answer identical jobs.
+     */
+    static final long RESULT_CACHE_SIZE = 64 << 20;
+    /**
+     * Time after which a reader waiting for room in the queue of its connection checks if the writer is done.
+     */
+    private static final long ENQUEUE_CHECK_MILLIS = 100;
+
+    /**
+     * Socket accepting the connections.
+     */
+    private final ServerSocket serverSocket;
+    /**
+     * Workers executing the jobs.
+     */
+    private final ExecutorService workers;
+    /**
+     * Reader and writer threads of the connections, and the thread accepting them.
+     */
+    private final ExecutorService connections;
+    /**
+     * Sockets of the open connections, closed with the server.
+     */
+    private final Set<Socket> openSockets = ConcurrentHashMap.newKeySet();
+    /**
+     * Released when the server is closed.
+     */
+    private final CountDownLatch closed = new CountDownLatch(1);
+    /**
+     * Results of the jobs by content, shared by the connections.
+     */
+    private final ResultCache cache = new ResultCache(RESULT_CACHE_SIZE);
+
+    /**
+     * Constructor of the server, which doesn't accept connections yet.
+     *
+     * @param serverSocket Bound socket accepting the connections.
+     * @param workerCount Number of workers executing the jobs.
+     */
+    private SimulationServer(ServerSocket serverSocket, int workerCount) {
+        this.serverSocket = serverSocket;
+        this.workers = Executors.newFixedThreadPool(workerCount, daemonThreads("mower-worker"));
+        this.connections = Executors.newCachedThreadPool(daemonThreads("mower-connection"));
+    }
+
+    /**
+     * Starts a server on the loopback interface, with one worker per processor.
+     *
+     * @param port Port to listen to, 0 for any free port.
+     * @return The started server.
+     * @throws IOException If the port cannot be bound.
+     */
+    public static SimulationServer start(int port) throws IOException {
+        return start(new InetSocketAddress(InetAddress.getLoopbackAddress(), port),
+                Runtime.getRuntime().availableProcessors(), DEFAULT_WARM_UP_JOBS);
+    }
+
+    /**
+     * Starts a server. <br>
+     * The workers run their warm-up jobs before the first connection is accepted.
+     *
+     * @param address Address to listen to.
+     * @param workerCount Number of workers executing the jobs.
+     * @param warmUpJobs Number of warm-up jobs run by each worker.
+     * @return The started server.
+     * @throws IOException If the address cannot be bound.
+     * @throws IllegalArgumentException If the number of workers is not positive.
+     */
+    public static SimulationServer start(InetSocketAddress address, int workerCount, int warmUpJobs) throws IOException {
+        if (workerCount <= 0) {
+            throw new IllegalArgumentException("Invalid number of workers: " + workerCount);
+        }
+        ServerSocket serverSocket = new ServerSocket();
+        try {
+            serverSocket.bind(address);
+        } catch (IOException e) {
+            serverSocket.close();
+            throw e;
+        }
+        SimulationServer server = new SimulationServer(serverSocket, workerCount);
+        server.warmUp(workerCount * warmUpJobs);
+        server.connections.execute(server::acceptConnections);
+        KataMowerMain.getLogger().info("Simulation server listening on " + serverSocket.getLocalSocketAddress());
+        return server;
+    }
+
+    /**
+     * @return the port the server listens to
+     */
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * Waits until the server is closed.
+     *
+     * @throws InterruptedException If the thread is interrupted while waiting.
+     */
+    public void awaitClose() throws InterruptedException {
+        closed.await();
+    }
+
+    /**
+     * @return the statistics of the cache of the results of the jobs
+     */
+    public ResultCache.Stats getCacheStats() {
+        return cache.getStats();
+    }
+
+    /**
+     * Executes a job, or gets its result from the cache if the same instructions have already been executed.
+     *
+     * @param instructions Instructions in the text format.
+     * @return The lines of the final positions.
+     * @throws RuntimeException If the instructions are invalid.
+     */
+    private byte[] executeCached(byte[] instructions) {
+        String key = ResultCache.key(instructions);
+        CachedResult cached = cache.get(key);
+        if (cached != null) {
+            InMemoryResultSink sink = new InMemoryResultSink();
+            cached.replay(sink);
+            return sink.toByteArray();
+        }
+        InMemoryResultSink sink = new InMemoryResultSink();
+        Lawn lawn = MowerProgramExecutor.readAndExecuteInstructions(
+                Channels.newChannel(new ByteArrayInputStream(instructions)), sink);
+        cache.put(key, CachedResult.of(lawn));
+        return sink.toByteArray();
+    }
+
+    /**
+     * Executes a job.
+     *
+     * @param instructions Instructions in the text format.
+     * @return The lines of the final positions.
+     * @throws RuntimeException If the instructions are invalid.
+     */
+    static byte[] execute(byte[] instructions) {
+        InMemoryResultSink sink = new InMemoryResultSink();
+        MowerProgramExecutor.readAndExecuteInstructions(Channels.newChannel(new ByteArrayInputStream(instructions)), sink);
+        return sink.toByteArray();
+    }
+
+    /**
+     * Runs generated jobs on the workers, so that the execution code is compiled before the first real job. <br>
+     * The warm-up jobs are counted in the {@link fr.aymeric.kata.mower.metrics.SimulationMetrics} like the others.
+     *
+     * @param jobCount Number of jobs to run.
+     */
+    private void warmUp(int jobCount) {
+        CompletableFuture<?>[] jobs = new CompletableFuture<?>[jobCount];
+        for (int i = 0; i < jobCount; i++) {
+            byte[] instructions = warmUpInstructions(i);
+            jobs[i] = CompletableFuture.runAsync(() -> {
+                try {
+                    execute(instructions);
+                } catch (RuntimeException e) {
+                    // A mower may start on the final position of another one, the error path is warmed up too
+                }
+            }, workers);
+        }
+        CompletableFuture.allOf(jobs).join();
+    }
+
+    /**
+     * Generates the instructions of a warm-up job.
+     *
+     * @param seed Seed of the job.
+     * @return Instructions of a few mowers on a small lawn.
+     */
+    static byte[] warmUpInstructions(int seed) {
+        Random random = new Random(seed);
+        StringBuilder instructions = new StringBuilder("20 20\n");
+        for (int x = 0; x <= 20; x += 4) {
+            instructions.append(x).append(' ').append(random.nextInt(21)).append(' ')
+                    .append("NESW".charAt(random.nextInt(4))).append('\n');
+            for (int i = 0; i < 64; i++) {
+                instructions.append("AAGD".charAt(random.nextInt(4)));
+            }
+            instructions.append('\n');
+        }
+        return instructions.toString().getBytes(StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Accepts the connections until the server is closed.
+     */
+    private void acceptConnections() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                socket.setTcpNoDelay(true);
+                openSockets.add(socket);
+                BlockingQueue<CompletableFuture<byte[]>> pending = new ArrayBlockingQueue<>(MAX_PENDING_JOBS);
+                AtomicBoolean writerDone = new AtomicBoolean();
+                connections.execute(() -> readJobs(socket, pending, writerDone));
+                connections.execute(() -> writeResults(socket, pending, writerDone));
+            } catch (IOException e) {
+                if (!serverSocket.isClosed()) {
+                    KataMowerMain.getLogger().log(Level.WARNING, "Unable to accept a connection", e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads the jobs of a connection and submits them to the workers, until the connection is closed or its writer
+     * is done. <br>
+     * An empty future is queued at the end, for the writer to close the connection.
+     *
+     * @param socket Socket of the connection.
+     * @param pending Jobs waiting for their response, in the order of the requests.
+     * @param writerDone Set once the writer of the connection stops taking the jobs.
+     */
+    private void readJobs(Socket socket, BlockingQueue<CompletableFuture<byte[]>> pending, AtomicBoolean writerDone) {
+        try {
+            DataInputStream input = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            byte[] instructions;
+            while ((instructions = SimulationProtocol.readRequest(input)) != null) {
+                byte[] job = instructions;
+                if (!enqueue(pending, CompletableFuture.supplyAsync(() -> executeCached(job), workers), writerDone)) {
+                    return;
+                }
+            }
+        } catch (SocketException e) {
+            // Connection closed by the writer after a write error
+        } catch (IOException e) {
+            KataMowerMain.getLogger().log(Level.WARNING, "Unable to read a job", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            try {
+                enqueue(pending, CompletableFuture.completedFuture(null), writerDone);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Queues a job for the writer of its connection, waiting for room in the queue as long as the writer runs. <br>
+     * A job that can't be queued is cancelled.
+     *
+     * @param pending Jobs waiting for their response, in the order of the requests.
+     * @param job Job to queue.
+     * @param writerDone Set once the writer of the connection stops taking the jobs.
+     * @return True if the job is queued, false if the writer is done.
+     * @throws InterruptedException If the reader is interrupted while waiting.
+     */
+    private static boolean enqueue(BlockingQueue<CompletableFuture<byte[]>> pending, CompletableFuture<byte[]> job,
+                                   AtomicBoolean writerDone) throws InterruptedException {
+        while (!writerDone.get()) {
+            if (pending.offer(job, ENQUEUE_CHECK_MILLIS, TimeUnit.MILLISECONDS)) {
+                return true;
+            }
+        }
+        job.cancel(false);
+        return false;
+    }
+
+    /**
+     * Writes the results of the jobs of a connection in the order of the requests, then closes the connection. <br>
+     * If the results can't be written, the jobs still queued are cancelled and dropped, and the reader stops.
+     *
+     * @param socket Socket of the connection.
+     * @param pending Jobs waiting for their response, in the order of the requests.
+     * @param writerDone Set when the writer stops taking the jobs.
+     */
+    private void writeResults(Socket socket, BlockingQueue<CompletableFuture<byte[]>> pending,
+                              AtomicBoolean writerDone) {
+        try {
+            DataOutputStream output = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            while (true) {
+                CompletableFuture<byte[]> job = pending.take();
+                byte[] result;
+                byte status = SimulationProtocol.STATUS_OK;
+                try {
+                    result = job.get();
+                } catch (ExecutionException e) {
+                    status = SimulationProtocol.STATUS_FAILED;
+                    Throwable cause = e.getCause();
+                    String message = cause.getMessage() != null ? cause.getMessage() : cause.toString();
+                    result = message.getBytes(StandardCharsets.UTF_8);
+                }
+                if (result == null) {
+                    break;
+                }
+                SimulationProtocol.writeResponse(output, status, result);
+                // Wait for the next result with an empty buffer, unless it is already done
+                if (pending.isEmpty() || !pending.peek().isDone()) {
+                    output.flush();
+                }
+            }
+            output.flush();
+        } catch (IOException e) {
+            if (!serverSocket.isClosed()) {
+                KataMowerMain.getLogger().log(Level.WARNING, "Unable to write a result", e);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            writerDone.set(true);
+            CompletableFuture<byte[]> job;
+            while ((job = pending.poll()) != null) {
+                job.cancel(false);
+            }
+            closeConnection(socket);
+        }
+    }
+
+    /**
+     * Closes a connection, which stops its reader thread.
+     *
+     * @param socket Socket of the connection.
+     */
+    private void closeConnection(Socket socket) {
+        openSockets.remove(socket);
+        try {
+            socket.close();
+        } catch (IOException e) {
+            KataMowerMain.getLogger().log(Level.FINE, "Unable to close a connection", e);
+        }
+    }
+
+    /**
+     * Stops accepting connections and stops the workers. The connections in progress are closed.
+     *
+     * @throws IOException If the server socket cannot be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+        for (Socket socket : openSockets) {
+            closeConnection(socket);
+        }
+        connections.shutdownNow();
+        workers.shutdownNow();
+        try {
+            workers.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            closed.countDown();
+        }
+    }
+
+    /**
+     * Creates a factory of named daemon threads, so that the server never prevents the JVM from exiting.
+     *
+     * @param prefix Prefix of the names of the threads.
+     * @return The thread factory.
+     */
+    private static ThreadFactory daemonThreads(String prefix) {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + "-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
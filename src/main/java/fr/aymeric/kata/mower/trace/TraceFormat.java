@@ -0,0 +1,95 @@
+package fr.aymeric.kata.mower.trace;
+
+/**
+ * TraceFormat describes the binary file written by a {@link TraceRecorder}. <br>
+ * The file starts with a header of 4 ints: the {@link #MAGIC}, the {@link #VERSION}, the step interval and the mower
+ * interval of the sampling. Then each event is made of 3 longs, all in big-endian order:
+ * <ul>
+ *     <li>the index of the mower in the 32 highest bits, then in the lowest bits the {@link #LAWN_FLAG}, the
+ *     ordinal of the orientation on 2 bits and the {@link #BLOCKED_FLAG},</li>
+ *     <li>the step of the run,</li>
+ *     <li>the position of the mower packed by {@link fr.aymeric.kata.mower.util.PackedCoordinates}.</li>
+ * </ul>
+ * A lawn event gives the size of the lawn instead of a position, the first event of a mower is its placement on the
+ * lawn, and the events are in the order of their steps.
+ */
+public final class TraceFormat {
+    /**
+     * Int starting a trace file, "KTMT".
+     */
+    static final int MAGIC = ('K' << 24) | ('T' << 16) | ('M' << 8) | 'T';
+    /**
+     * Version of the format.
+     */
+    static final int VERSION = 1;
+    /**
+     * Size of the header, in bytes.
+     */
+    static final int HEADER_SIZE = 4 * Integer.BYTES;
+    /**
+     * Number of longs of an event.
+     */
+    static final int EVENT_LONGS = 3;
+    /**
+     * Size of an event, in bytes.
+     */
+    static final int EVENT_SIZE = EVENT_LONGS * Long.BYTES;
+    /**
+     * Flag of the events whose move is blocked.
+     */
+    static final long BLOCKED_FLAG = 1;
+    /**
+     * Flag of the events giving the size of the lawn.
+     */
+    static final long LAWN_FLAG = 1 << 3;
+
+    /**
+     * Utility class, not instantiable.
+     */
+    private TraceFormat() {
+    }
+
+    /**
+     * Pack the description of an event.
+     *
+     * @param mower Index of the mower.
+     * @param orientation Ordinal of the orientation of the mower.
+     * @param blocked True if the move of the mower is blocked.
+     * @return The first long of the event.
+     */
+    static long describe(int mower, int orientation, boolean blocked) {
+        return ((long) mower << 32) | (orientation << 1) | (blocked ? BLOCKED_FLAG : 0);
+    }
+
+    /**
+     * @param description first long of an event
+     * @return the index of the mower of the event
+     */
+    static int mower(long description) {
+        return (int) (description >>> 32);
+    }
+
+    /**
+     * @param description first long of an event
+     * @return the ordinal of the orientation of the mower
+     */
+    static int orientation(long description) {
+        return (int) (description >>> 1) & 3;
+    }
+
+    /**
+     * @param description first long of an event
+     * @return true if the move of the mower is blocked
+     */
+    static boolean isBlocked(long description) {
+        return (description & BLOCKED_FLAG) != 0;
+    }
+
+    /**
+     * @param description first long of an event
+     * @return true if the event gives the size of the lawn
+     */
+    static boolean isLawn(long description) {
+        return (description & LAWN_FLAG) != 0;
+    }
+}
@@ -0,0 +1,424 @@
+package fr.aymeric.kata.mower.trace;
+
+import fr.aymeric.kata.mower.util.PackedCoordinates;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * TraceRecorder records every state change of the mowers of a lawn, to replay the run with a {@link TraceReplay}.
+ * <br>
+ * Each instruction executed, and each placement of a mower, is a step of the run. The state of the mower after the
+ * step is written as 3 longs in a preallocated ring buffer, and a background thread flushes the buffer to a file in
+ * the {@link TraceFormat}: recording an event never allocates nor blocks on the file, unless the ring buffer is full.
+ * <br>
+ * The recorder can sample the events: with a step interval, only the steps multiple of the interval are recorded, and
+ * the last state of a mower when its program ends; with a mower interval, only the mowers whose index is a multiple
+ * of the interval are recorded. <br>
+ * The recorder is attached to a lawn with {@link fr.aymeric.kata.mower.model.Lawn#setTraceRecorder(TraceRecorder)}.
+ * Events must be recorded by a single thread.
+ */
+public final class TraceRecorder implements Closeable {
+    /**
+     * System property giving the trace file of the runs of the executors, no trace is recorded if it is not set.
+     */
+    public static final String TRACE_PROPERTY = "fr.aymeric.kata.mower.trace";
+    /**
+     * System property giving the step interval of the traces of the executors, {@link #DEFAULT_STEP_INTERVAL} by
+     * default. With an interval of 1, every step is traced.
+     */
+    public static final String STEP_INTERVAL_PROPERTY = "fr.aymeric.kata.mower.trace.steps";
+    /**
+     * System property giving the mower interval of the traces of the executors, 1 by default.
+     */
+    public static final String MOWER_INTERVAL_PROPERTY = "fr.aymeric.kata.mower.trace.mowers";
+    /**
+     * Default step interval of the traces of the executors. Tracing every step slows the execution down by about a
+     * half, while 1 step out of 256 only costs a few percent, and the final state of each mower is still exact.
+     */
+    public static final int DEFAULT_STEP_INTERVAL = 256;
+    /**
+     * Default number of events of the ring buffer.
+     */
+    public static final int DEFAULT_CAPACITY = 1 << 18;
+    /**
+     * Number of events written to the file at once.
+     */
+    private static final int FLUSH_EVENTS = 4096;
+    /**
+     * Time the flush thread waits for new events, in nanoseconds.
+     */
+    private static final long IDLE_WAIT = 1_000_000;
+    /**
+     * Time a full ring buffer waits for the flush thread, in nanoseconds.
+     */
+    private static final long FULL_WAIT = 10_000;
+
+    /**
+     * Channel of the trace file.
+     */
+    private final FileChannel channel;
+    /**
+     * Events of the ring buffer, {@link TraceFormat#EVENT_LONGS} longs each.
+     */
+    private final long[] ring;
+    /**
+     * Number of events of the ring buffer, a power of 2.
+     */
+    private final int capacity;
+    /**
+     * Only the steps multiple of this interval are recorded.
+     */
+    private final int stepInterval;
+    /**
+     * Only the mowers whose index is a multiple of this interval are recorded.
+     */
+    private final int mowerInterval;
+    /**
+     * Number of events written to the ring buffer, published to the flush thread.
+     */
+    private final AtomicLong published = new AtomicLong();
+    /**
+     * Number of events written to the ring buffer, as seen by the recording thread.
+     */
+    private long written;
+    /**
+     * Number of events flushed to the file, whose slots can be reused.
+     */
+    private volatile long flushed;
+    /**
+     * Last value of {@link #flushed} read by the recording thread.
+     */
+    private long flushedSeen;
+    /**
+     * Next step of the run.
+     */
+    private long step;
+    /**
+     * Next step to record, a multiple of the step interval.
+     */
+    private long nextSampledStep;
+    /**
+     * Step of the last event recorded, -1 if there is none.
+     */
+    private long lastRecordedStep = -1;
+    /**
+     * True once the recorder is closed.
+     */
+    private volatile boolean closed;
+    /**
+     * First error writing the file, null if there is none.
+     */
+    private volatile IOException failure;
+    /**
+     * Thread flushing the ring buffer to the file.
+     */
+    private final Thread flushThread;
+
+    /**
+     * Constructor of the recorder, the header of the trace is written and the flush thread is started. <br>
+     * The recorder takes the ownership of the channel, which is closed when the recorder is closed.
+     *
+     * @param channel Channel of the trace file, positioned at its beginning.
+     * @param capacity Number of events of the ring buffer, rounded up to a power of 2.
+     * @param stepInterval Only the steps multiple of this interval are recorded.
+     * @param mowerInterval Only the mowers whose index is a multiple of this interval are recorded.
+     * @throws IOException If the header cannot be written.
+     * @throws IllegalArgumentException If the capacity or an interval is not positive.
+     */
+    TraceRecorder(FileChannel channel, int capacity, int stepInterval, int mowerInterval) throws IOException {
+        if (capacity <= 0 || capacity > 1 << 28) {
+            throw new IllegalArgumentException("Invalid trace capacity: " + capacity);
+        }
+        if (stepInterval <= 0 || mowerInterval <= 0) {
+            throw new IllegalArgumentException("Trace intervals must be positive");
+        }
+        this.channel = channel;
+        this.capacity = capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+        this.ring = new long[this.capacity * TraceFormat.EVENT_LONGS];
+        this.stepInterval = stepInterval;
+        this.mowerInterval = mowerInterval;
+        ByteBuffer header = ByteBuffer.allocate(TraceFormat.HEADER_SIZE);
+        header.putInt(TraceFormat.MAGIC).putInt(TraceFormat.VERSION).putInt(stepInterval).putInt(mowerInterval);
+        header.flip();
+        while (header.hasRemaining()) {
+            channel.write(header);
+        }
+        this.flushThread = new Thread(this::flushEvents, "mower-trace-flush");
+        this.flushThread.setDaemon(true);
+        this.flushThread.start();
+    }
+
+    /**
+     * Opens a recorder writing every event to a file.
+     *
+     * @param file Trace file, replaced if it exists.
+     * @return A new recorder, to be closed by the caller.
+     * @throws IOException If the file cannot be written.
+     */
+    public static TraceRecorder open(File file) throws IOException {
+        return open(file, DEFAULT_CAPACITY, 1, 1);
+    }
+
+    /**
+     * Opens a recorder writing sampled events to a file.
+     *
+     * @param file Trace file, replaced if it exists.
+     * @param capacity Number of events of the ring buffer, rounded up to a power of 2.
+     * @param stepInterval Only the steps multiple of this interval are recorded.
+     * @param mowerInterval Only the mowers whose index is a multiple of this interval are recorded.
+     * @return A new recorder, to be closed by the caller.
+     * @throws IOException If the file cannot be written.
+     * @throws IllegalArgumentException If the capacity or an interval is not positive.
+     */
+    public static TraceRecorder open(File file, int capacity, int stepInterval, int mowerInterval) throws IOException {
+        FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        try {
+            return new TraceRecorder(channel, capacity, stepInterval, mowerInterval);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Record the size of the lawn, when the recorder is attached to it.
+     *
+     * @param sizeX Size of the lawn on X axis.
+     * @param sizeY Size of the lawn on Y axis.
+     */
+    public void recordLawn(int sizeX, int sizeY) {
+        append(TraceFormat.LAWN_FLAG, step, PackedCoordinates.pack(sizeX, sizeY));
+    }
+
+    /**
+     * Record the placement of a mower on the lawn, whatever the step interval.
+     *
+     * @param mower Index of the mower.
+     * @param x X position of the mower.
+     * @param y Y position of the mower.
+     * @param orientation Ordinal of the orientation of the mower.
+     */
+    public void recordPlacement(int mower, int x, int y, int orientation) {
+        long current = step++;
+        if (current == nextSampledStep) {
+            nextSampledStep += stepInterval;
+        }
+        if (mower % mowerInterval == 0) {
+            append(TraceFormat.describe(mower, orientation, false), current, PackedCoordinates.pack(x, y));
+        }
+    }
+
+    /**
+     * Record the state of a mower after an instruction.
+     *
+     * @param mower Index of the mower.
+     * @param x X position of the mower.
+     * @param y Y position of the mower.
+     * @param orientation Ordinal of the orientation of the mower.
+     * @param blocked True if the instruction was a move which is blocked.
+     */
+    public void record(int mower, int x, int y, int orientation, boolean blocked) {
+        // Compared to the next sampled step rather than divided by the interval, to keep each step cheap
+        if (step++ == nextSampledStep) {
+            recordSampled(mower, x, y, orientation, blocked);
+        }
+    }
+
+    /**
+     * Record the state of a mower at a sampled step, kept out of {@link #record(int, int, int, int, boolean)} so
+     * that the steps not sampled are inlined in the loop of the caller.
+     *
+     * @param mower Index of the mower.
+     * @param x X position of the mower.
+     * @param y Y position of the mower.
+     * @param orientation Ordinal of the orientation of the mower.
+     * @param blocked True if the instruction was a move which is blocked.
+     */
+    private void recordSampled(int mower, int x, int y, int orientation, boolean blocked) {
+        nextSampledStep += stepInterval;
+        if (mowerInterval == 1 || mower % mowerInterval == 0) {
+            append(TraceFormat.describe(mower, orientation, blocked), step - 1, PackedCoordinates.pack(x, y));
+        }
+    }
+
+    /**
+     * Get the number of steps before the next sampled one, which a caller can count itself and report with
+     * {@link #skipSteps(long)} instead of calling {@link #record(int, int, int, int, boolean)} at each step.
+     *
+     * @return The number of steps which would not be recorded.
+     */
+    public long getUnsampledSteps() {
+        return nextSampledStep - step;
+    }
+
+    /**
+     * Skip steps which are not sampled.
+     *
+     * @param count Number of steps, at most {@link #getUnsampledSteps()}.
+     */
+    public void skipSteps(long count) {
+        step += count;
+    }
+
+    /**
+     * Record the state of a mower at the end of its program, if its last step was not sampled.
+     *
+     * @param mower Index of the mower, which made the last step.
+     * @param x X position of the mower.
+     * @param y Y position of the mower.
+     * @param orientation Ordinal of the orientation of the mower.
+     */
+    public void checkpoint(int mower, int x, int y, int orientation) {
+        if (step > 0 && lastRecordedStep != step - 1 && mower % mowerInterval == 0) {
+            append(TraceFormat.describe(mower, orientation, false), step - 1, PackedCoordinates.pack(x, y));
+        }
+    }
+
+    /**
+     * @return the number of steps of the run so far
+     */
+    public long getStepCount() {
+        return step;
+    }
+
+    /**
+     * @return the number of events recorded so far
+     */
+    public long getEventCount() {
+        return written;
+    }
+
+    /**
+     * Close the recorder, once all the events are written to the file.
+     *
+     * @throws UncheckedIOException If the trace file cannot be written.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        LockSupport.unpark(flushThread);
+        boolean interrupted = false;
+        while (flushThread.isAlive()) {
+            try {
+                flushThread.join();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            if (failure == null) {
+                failure = e;
+            }
+        }
+        if (failure != null) {
+            throw new UncheckedIOException("Unable to write trace file", failure);
+        }
+    }
+
+    /**
+     * Write an event to the ring buffer, waiting for the flush thread if it is full.
+     *
+     * @param description Description of the event, see {@link TraceFormat#describe(int, int, boolean)}.
+     * @param eventStep Step of the event.
+     * @param position Packed position of the mower, or size of the lawn.
+     */
+    private void append(long description, long eventStep, long position) {
+        if (written - flushedSeen >= capacity) {
+            waitForSpace();
+        }
+        int slot = (int) (written & (capacity - 1)) * TraceFormat.EVENT_LONGS;
+        ring[slot] = description;
+        ring[slot + 1] = eventStep;
+        ring[slot + 2] = position;
+        written++;
+        published.lazySet(written);
+        lastRecordedStep = eventStep;
+    }
+
+    /**
+     * Wait until the flush thread frees a slot of the ring buffer.
+     */
+    private void waitForSpace() {
+        while (written - (flushedSeen = flushed) >= capacity) {
+            LockSupport.unpark(flushThread);
+            LockSupport.parkNanos(this, FULL_WAIT);
+        }
+    }
+
+    /**
+     * Loop of the flush thread, writing the published events to the file until the recorder is closed.
+     */
+    private void flushEvents() {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(FLUSH_EVENTS * TraceFormat.EVENT_SIZE);
+        LongBuffer events = buffer.asLongBuffer();
+        long done = 0;
+        while (true) {
+            long available = published.get();
+            if (available == done) {
+                if (closed && published.get() == done) {
+                    return;
+                }
+                LockSupport.parkNanos(this, IDLE_WAIT);
+                continue;
+            }
+            // Copy the events by contiguous runs of the ring buffer, at most a flush buffer at a time
+            for (long event = done; event < available; ) {
+                int slot = (int) (event & (capacity - 1));
+                int count = (int) Math.min(Math.min(available - event, capacity - slot), FLUSH_EVENTS);
+                events.clear();
+                events.put(ring, slot * TraceFormat.EVENT_LONGS, count * TraceFormat.EVENT_LONGS);
+                buffer.clear();
+                buffer.limit(count * TraceFormat.EVENT_SIZE);
+                write(buffer);
+                event += count;
+            }
+            done = available;
+            flushed = done;
+        }
+    }
+
+    /**
+     * Write the content of the flush buffer to the file and clear it. <br>
+     * After a first error, the events are dropped, and the error is thrown when the recorder is closed.
+     *
+     * @param buffer Flush buffer, from its position to its limit.
+     */
+    private void write(ByteBuffer buffer) {
+        try {
+            while (failure == null && buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        } catch (IOException e) {
+            failure = e;
+        }
+        buffer.clear();
+    }
+
+    @Override
+    public String toString() {
+        return "TraceRecorder{" +
+                "steps=" + step +
+                ", events=" + written +
+                ", stepInterval=" + stepInterval +
+                ", mowerInterval=" + mowerInterval +
+                '}';
+    }
+}
@@ -0,0 +1,448 @@
+package fr.aymeric.kata.mower.trace;
+
+import fr.aymeric.kata.mower.model.Lawn;
+import fr.aymeric.kata.mower.model.occupancy.ObstacleIndex;
+import fr.aymeric.kata.mower.output.ResultSink;
+import fr.aymeric.kata.mower.util.EnumOrientation;
+import fr.aymeric.kata.mower.util.PackedCoordinates;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.InputMismatchException;
+import java.util.NoSuchElementException;
+
+/**
+ * TraceReplay rebuilds the state of a lawn at any step of a run, from the file written by a {@link TraceRecorder}.
+ * <br>
+ * The events are loaded in memory and indexed by mower, so the state of a mower at a step is found by a binary search
+ * in its events, and the whole lawn is rebuilt in O(mowers * log(events)). The state of a mower at a step is the one
+ * of its last event at or before the step: it is exact for a trace recorded without step interval, and the last
+ * sampled state otherwise. A trace truncated by a crash can be replayed up to its last complete event.
+ */
+public final class TraceReplay {
+    /**
+     * Orientations by ordinal.
+     */
+    private static final EnumOrientation[] ORIENTATIONS = EnumOrientation.values();
+
+    /**
+     * Size of the lawn on X axis.
+     */
+    private final int sizeX;
+    /**
+     * Size of the lawn on Y axis.
+     */
+    private final int sizeY;
+    /**
+     * Step interval of the trace.
+     */
+    private final int stepInterval;
+    /**
+     * Mower interval of the trace.
+     */
+    private final int mowerInterval;
+    /**
+     * Step of each event, in the order of the file.
+     */
+    private final long[] steps;
+    /**
+     * Packed position of each event.
+     */
+    private final long[] positions;
+    /**
+     * Orientation ordinal and blocked flag of each event, as in {@link TraceFormat#describe(int, int, boolean)}.
+     */
+    private final byte[] states;
+    /**
+     * Events grouped by mower, in the order of their steps.
+     */
+    private final int[] eventsByMower;
+    /**
+     * Index in {@link #eventsByMower} of the first event of each mower, and the number of events at the end.
+     */
+    private final int[] mowerStarts;
+    /**
+     * Greatest step of the events, -1 if there is none.
+     */
+    private final long lastStep;
+
+    /**
+     * Constructor of a replay, indexing the events by mower.
+     *
+     * @param stepInterval Step interval of the trace.
+     * @param mowerInterval Mower interval of the trace.
+     * @param descriptions First long of each mower event.
+     * @param steps Step of each mower event.
+     * @param positions Packed position of each mower event.
+     * @param sizes Packed size of the lawn.
+     */
+    private TraceReplay(int stepInterval, int mowerInterval, long[] descriptions, long[] steps, long[] positions,
+                        long sizes) {
+        this.stepInterval = stepInterval;
+        this.mowerInterval = mowerInterval;
+        this.sizeX = PackedCoordinates.unpackX(sizes);
+        this.sizeY = PackedCoordinates.unpackY(sizes);
+        this.steps = steps;
+        this.positions = positions;
+        this.states = new byte[descriptions.length];
+        int mowerCount = 0;
+        for (int i = 0; i < descriptions.length; i++) {
+            states[i] = (byte) descriptions[i];
+            mowerCount = Math.max(mowerCount, TraceFormat.mower(descriptions[i]) + 1);
+        }
+        // Counting sort of the events by mower, stable so the events of a mower stay in the order of their steps
+        this.mowerStarts = new int[mowerCount + 1];
+        for (long description : descriptions) {
+            mowerStarts[TraceFormat.mower(description) + 1]++;
+        }
+        for (int mower = 0; mower < mowerCount; mower++) {
+            mowerStarts[mower + 1] += mowerStarts[mower];
+        }
+        int[] next = new int[mowerCount];
+        System.arraycopy(mowerStarts, 0, next, 0, mowerCount);
+        this.eventsByMower = new int[descriptions.length];
+        for (int i = 0; i < descriptions.length; i++) {
+            eventsByMower[next[TraceFormat.mower(descriptions[i])]++] = i;
+        }
+        this.lastStep = steps.length == 0 ? -1 : steps[steps.length - 1];
+    }
+
+    /**
+     * Replays a trace file, and prints the final position of each mower at a step.
+     *
+     * @param args Command line arguments.
+     *             args[0]: Path to the trace file.
+     *             args[1]: Optional step, the last step of the trace by default.
+     */
+    public static void main(String[] args) {
+        if (args.length < 1 || args.length > 2) {
+            System.err.println("Usage: TraceReplay traceFile [step]");
+            return;
+        }
+        TraceReplay replay;
+        try {
+            replay = load(new File(args[0]));
+        } catch (NoSuchElementException e) {
+            throw new RuntimeException("Invalid trace file format", e);
+        } catch (NoSuchFileException e) {
+            throw new RuntimeException("Trace file not found", e);
+        } catch (IOException e) {
+            throw new RuntimeException("Unable to read trace file", e);
+        }
+        long step = args.length == 2 ? Long.parseLong(args[1]) : replay.getLastStep();
+        ResultSink sink = ResultSink.stdout();
+        for (int mower = 0; mower < replay.getMowerCount(); mower++) {
+            if (replay.isPlaced(mower, step)) {
+                sink.accept(mower + 1, replay.getPositionX(mower, step), replay.getPositionY(mower, step),
+                        replay.getOrientation(mower, step));
+            }
+        }
+        sink.flush();
+    }
+
+    /**
+     * Loads a trace file.
+     *
+     * @param file Trace file.
+     * @return The replay of the trace.
+     * @throws IOException If the file cannot be read, {@link NoSuchFileException} if it doesn't exist.
+     * @throws NoSuchElementException If the header or the size of the lawn is missing.
+     * @throws InputMismatchException If the file is not a trace of a supported version.
+     * @throws IllegalArgumentException If the trace has too many events to be loaded.
+     */
+    public static TraceReplay load(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(TraceFormat.HEADER_SIZE);
+            while (header.hasRemaining()) {
+                if (channel.read(header) < 0) {
+                    throw new NoSuchElementException("Trace header is truncated");
+                }
+            }
+            header.flip();
+            if (header.getInt(0) != TraceFormat.MAGIC) {
+                throw new InputMismatchException("Not a trace file");
+            }
+            if (header.getInt(Integer.BYTES) != TraceFormat.VERSION) {
+                throw new InputMismatchException("Unsupported trace file version: " + header.getInt(Integer.BYTES));
+            }
+            long eventCount = (channel.size() - TraceFormat.HEADER_SIZE) / TraceFormat.EVENT_SIZE;
+            if (eventCount > Integer.MAX_VALUE - 8) {
+                throw new IllegalArgumentException("Too many events to replay: " + eventCount);
+            }
+            long[] descriptions = new long[(int) eventCount];
+            long[] steps = new long[(int) eventCount];
+            long[] positions = new long[(int) eventCount];
+            int mowerEvents = 0;
+            long sizes = 0;
+            boolean lawnFound = false;
+            ByteBuffer buffer = ByteBuffer.allocate(4096 * TraceFormat.EVENT_SIZE);
+            for (long remaining = eventCount; remaining > 0; ) {
+                buffer.clear();
+                buffer.limit((int) Math.min(buffer.capacity(), remaining * TraceFormat.EVENT_SIZE));
+                while (buffer.hasRemaining()) {
+                    if (channel.read(buffer) < 0) {
+                        throw new NoSuchElementException("Trace is truncated");
+                    }
+                }
+                buffer.flip();
+                while (buffer.hasRemaining()) {
+                    long description = buffer.getLong();
+                    long step = buffer.getLong();
+                    long position = buffer.getLong();
+                    remaining--;
+                    if (TraceFormat.isLawn(description)) {
+                        sizes = position;
+                        lawnFound = true;
+                    } else {
+                        descriptions[mowerEvents] = description;
+                        steps[mowerEvents] = step;
+                        positions[mowerEvents++] = position;
+                    }
+                }
+            }
+            if (!lawnFound) {
+                throw new NoSuchElementException("Trace has no lawn");
+            }
+            return new TraceReplay(header.getInt(2 * Integer.BYTES), header.getInt(3 * Integer.BYTES),
+                    shrink(descriptions, mowerEvents), shrink(steps, mowerEvents), shrink(positions, mowerEvents), sizes);
+        }
+    }
+
+    /**
+     * Check if a mower is on the lawn at a step.
+     *
+     * @param mower Index of the mower.
+     * @param step Step of the run.
+     * @return True if the mower was placed at or before the step, and is recorded in the trace.
+     */
+    public boolean isPlaced(int mower, long step) {
+        return findEvent(mower, step) >= 0;
+    }
+
+    /**
+     * Get the X position of a mower at a step.
+     *
+     * @param mower Index of the mower.
+     * @param step Step of the run.
+     * @return The X position of the mower after the step.
+     * @throws IllegalArgumentException If the mower is not on the lawn at the step.
+     */
+    public int getPositionX(int mower, long step) {
+        return PackedCoordinates.unpackX(positions[checkEvent(mower, step)]);
+    }
+
+    /**
+     * Get the Y position of a mower at a step.
+     *
+     * @param mower Index of the mower.
+     * @param step Step of the run.
+     * @return The Y position of the mower after the step.
+     * @throws IllegalArgumentException If the mower is not on the lawn at the step.
+     */
+    public int getPositionY(int mower, long step) {
+        return PackedCoordinates.unpackY(positions[checkEvent(mower, step)]);
+    }
+
+    /**
+     * Get the orientation of a mower at a step.
+     *
+     * @param mower Index of the mower.
+     * @param step Step of the run.
+     * @return The orientation of the mower after the step.
+     * @throws IllegalArgumentException If the mower is not on the lawn at the step.
+     */
+    public EnumOrientation getOrientation(int mower, long step) {
+        return ORIENTATIONS[TraceFormat.orientation(states[checkEvent(mower, step)])];
+    }
+
+    /**
+     * Check if the last recorded move of a mower at or before a step is blocked.
+     *
+     * @param mower Index of the mower.
+     * @param step Step of the run.
+     * @return True if the last event of the mower at or before the step is a blocked move.
+     * @throws IllegalArgumentException If the mower is not on the lawn at the step.
+     */
+    public boolean isBlocked(int mower, long step) {
+        return TraceFormat.isBlocked(states[checkEvent(mower, step)]);
+    }
+
+    /**
+     * Rebuild the lawn at a step, without obstacles.
+     *
+     * @param step Step of the run.
+     * @return A new lawn with the recorded mowers placed at or before the step, in the order of their index.
+     * @throws IllegalArgumentException If two sampled states are on the same cell.
+     */
+    public Lawn lawnAt(long step) {
+        return lawnAt(step, ObstacleIndex.EMPTY);
+    }
+
+    /**
+     * Rebuild the lawn at a step. <br>
+     * The obstacles are not recorded in the trace, so they are given by the caller. Without mower interval, the index
+     * of a mower in the fleet of the lawn is its index in the run.
+     *
+     * @param step Step of the run.
+     * @param obstacles Obstacles of the lawn of the run.
+     * @return A new lawn with the recorded mowers placed at or before the step, in the order of their index.
+     * @throws IllegalArgumentException If two sampled states are on the same cell, or on an obstacle.
+     */
+    public Lawn lawnAt(long step, ObstacleIndex obstacles) {
+        Lawn lawn = new Lawn(sizeX, sizeY);
+        lawn.setObstacles(obstacles);
+        for (int mower = 0; mower < getMowerCount(); mower++) {
+            int event = findEvent(mower, step);
+            if (event >= 0) {
+                lawn.addMower(PackedCoordinates.unpackX(positions[event]), PackedCoordinates.unpackY(positions[event]),
+                        ORIENTATIONS[TraceFormat.orientation(states[event])]);
+            }
+        }
+        return lawn;
+    }
+
+    /**
+     * @return the size of the lawn on X axis
+     */
+    public int getSizeX() {
+        return sizeX;
+    }
+
+    /**
+     * @return the size of the lawn on Y axis
+     */
+    public int getSizeY() {
+        return sizeY;
+    }
+
+    /**
+     * @return the step interval of the trace
+     */
+    public int getStepInterval() {
+        return stepInterval;
+    }
+
+    /**
+     * @return the mower interval of the trace
+     */
+    public int getMowerInterval() {
+        return mowerInterval;
+    }
+
+    /**
+     * @return the greatest index of a recorded mower plus one
+     */
+    public int getMowerCount() {
+        return mowerStarts.length - 1;
+    }
+
+    /**
+     * @return the number of mower events of the trace
+     */
+    public int getEventCount() {
+        return steps.length;
+    }
+
+    /**
+     * @return the step of the last event of the trace, -1 if there is none
+     */
+    public long getLastStep() {
+        return lastStep;
+    }
+
+    /**
+     * @param mower index of a recorded mower
+     * @return the index in the events grouped by mower of the first event of the mower
+     */
+    int getFirstEvent(int mower) {
+        return mowerStarts[mower];
+    }
+
+    /**
+     * @param index index in the events grouped by mower, between the first event of a mower and the one of the next
+     * @return the index of the event in the order of the file
+     */
+    int getMowerEvent(int index) {
+        return eventsByMower[index];
+    }
+
+    /**
+     * @param event index of an event in the order of the file
+     * @return the step of the event
+     */
+    long getStep(int event) {
+        return steps[event];
+    }
+
+    /**
+     * @param event index of an event in the order of the file
+     * @return the packed position of the mower after the event
+     */
+    long getPosition(int event) {
+        return positions[event];
+    }
+
+    /**
+     * Binary search of the last event of a mower at or before a step.
+     *
+     * @param mower Index of the mower.
+     * @param step Step of the run.
+     * @return The index of the event, or -1 if there is none.
+     */
+    private int findEvent(int mower, long step) {
+        if (mower < 0 || mower >= getMowerCount()) {
+            return -1;
+        }
+        int low = mowerStarts[mower];
+        int high = mowerStarts[mower + 1] - 1;
+        int found = -1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            if (steps[eventsByMower[middle]] <= step) {
+                found = eventsByMower[middle];
+                low = middle + 1;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * @param mower index of the mower
+     * @param step step of the run
+     * @return the index of the last event of the mower at or before the step
+     * @throws IllegalArgumentException if the mower is not on the lawn at the step
+     */
+    private int checkEvent(int mower, long step) {
+        int event = findEvent(mower, step);
+        if (event < 0) {
+            throw new IllegalArgumentException("Mower " + mower + " is not on the lawn at step " + step);
+        }
+        return event;
+    }
+
+    /**
+     * @param values an array
+     * @param length the number of values to keep
+     * @return the array, or a copy of its first values if it is longer
+     */
+    private static long[] shrink(long[] values, int length) {
+        return values.length == length ? values : Arrays.copyOf(values, length);
+    }
+
+    @Override
+    public String toString() {
+        return "TraceReplay{" +
+                "lawn=" + sizeX + "x" + sizeY +
+                ", mowers=" + getMowerCount() +
+                ", events=" + steps.length +
+                ", lastStep=" + lastStep +
+                '}';
+    }
+}
@@ -0,0 +1,358 @@
+package fr.aymeric.kata.mower.trace;
+
+import fr.aymeric.kata.mower.util.EnumOrientation;
+import fr.aymeric.kata.mower.util.PackedCoordinates;
+
+import java.util.Arrays;
+
+/**
+ * TrajectoryIndex answers spatio-temporal queries on the trajectories of a run recorded by a {@link TraceRecorder}:
+ * which mower was on a cell at a step, and which cells a mower passed through between two steps. <br>
+ * The events of each mower are compressed into segments: a straight run of forward moves, one cell per event at
+ * regular steps, is a single segment, and so are the rotations and blocked moves of a mower staying on a cell. The
+ * visits of the cells are then indexed by cell and by step, so both queries are binary searches and don't re-run the
+ * simulation. As for the {@link TraceReplay}, the answers are exact for a trace recorded without step interval, and
+ * use the last sampled state otherwise.
+ */
+public final class TrajectoryIndex {
+    /**
+     * Orientations by ordinal.
+     */
+    private static final EnumOrientation[] ORIENTATIONS = EnumOrientation.values();
+    /**
+     * Direction of a segment where the mower stays on its cell.
+     */
+    private static final byte STILL = -1;
+    /**
+     * Empty array of cells.
+     */
+    private static final long[] NO_CELLS = new long[0];
+
+    /**
+     * Index of the first segment of each mower, and the number of segments at the end.
+     */
+    private final int[] mowerSegments;
+    /**
+     * Mower of each segment.
+     */
+    private final int[] segmentMowers;
+    /**
+     * Step of the first event of each segment.
+     */
+    private final long[] segmentStarts;
+    /**
+     * Steps between two cells of each moving segment.
+     */
+    private final int[] segmentStrides;
+    /**
+     * Packed position of the first cell of each segment.
+     */
+    private final long[] segmentOrigins;
+    /**
+     * Orientation ordinal of the moves of each segment, or {@link #STILL}.
+     */
+    private final byte[] segmentDirections;
+    /**
+     * Number of cells of each segment.
+     */
+    private final int[] segmentLengths;
+    /**
+     * Packed positions of the visited cells, sorted.
+     */
+    private final long[] cells;
+    /**
+     * Index of the first visit of each cell, and the number of visits at the end.
+     */
+    private final int[] cellVisits;
+    /**
+     * Step when each visit enters its cell, the visits of a cell being in the order of their steps.
+     */
+    private final long[] visitSteps;
+    /**
+     * Segment of each visit.
+     */
+    private final int[] visitSegments;
+
+    /**
+     * Constructor of the index of the trajectories of a trace.
+     *
+     * @param replay Replay of the trace.
+     */
+    public TrajectoryIndex(TraceReplay replay) {
+        int eventCount = replay.getEventCount();
+        int mowerCount = replay.getMowerCount();
+        // Compression of the events of each mower into segments, with the segment of each event
+        int[] eventSegments = new int[eventCount];
+        int[] mowers = new int[eventCount];
+        long[] starts = new long[eventCount];
+        int[] strides = new int[eventCount];
+        long[] origins = new long[eventCount];
+        byte[] directions = new byte[eventCount];
+        int[] lengths = new int[eventCount];
+        this.mowerSegments = new int[mowerCount + 1];
+        int segment = 0;
+        for (int mower = 0; mower < mowerCount; mower++) {
+            mowerSegments[mower] = segment;
+            int last = replay.getFirstEvent(mower + 1);
+            for (int first = replay.getFirstEvent(mower); first < last; segment++) {
+                int event = replay.getMowerEvent(first);
+                long origin = replay.getPosition(event);
+                long start = replay.getStep(event);
+                int end = first + 1;
+                byte direction = STILL;
+                long stride = 0;
+                if (end < last) {
+                    direction = direction(origin, replay.getPosition(replay.getMowerEvent(end)));
+                    stride = replay.getStep(replay.getMowerEvent(end)) - start;
+                }
+                if (direction == STILL) {
+                    while (end < last && replay.getPosition(replay.getMowerEvent(end)) == origin) {
+                        end++;
+                    }
+                } else if (stride <= Integer.MAX_VALUE) {
+                    EnumOrientation orientation = ORIENTATIONS[direction];
+                    int x = PackedCoordinates.unpackX(origin);
+                    int y = PackedCoordinates.unpackY(origin);
+                    while (end < last) {
+                        int next = replay.getMowerEvent(end);
+                        int cell = end - first;
+                        long position = PackedCoordinates.pack(x + cell * orientation.getStepX(),
+                                y + cell * orientation.getStepY());
+                        if (replay.getStep(next) != start + cell * stride || replay.getPosition(next) != position) {
+                            break;
+                        }
+                        end++;
+                    }
+                } else {
+                    direction = STILL;
+                }
+                for (int i = first; i < end; i++) {
+                    eventSegments[replay.getMowerEvent(i)] = segment;
+                }
+                mowers[segment] = mower;
+                starts[segment] = start;
+                strides[segment] = (int) stride;
+                origins[segment] = origin;
+                directions[segment] = direction;
+                lengths[segment] = direction == STILL ? 1 : end - first;
+                first = end;
+            }
+        }
+        mowerSegments[mowerCount] = segment;
+        this.segmentMowers = Arrays.copyOf(mowers, segment);
+        this.segmentStarts = Arrays.copyOf(starts, segment);
+        this.segmentStrides = Arrays.copyOf(strides, segment);
+        this.segmentOrigins = Arrays.copyOf(origins, segment);
+        this.segmentDirections = Arrays.copyOf(directions, segment);
+        this.segmentLengths = Arrays.copyOf(lengths, segment);
+        // A visit starts at the first event of a segment, and at each event of a moving one
+        long[] visitCells = new long[eventCount];
+        long[] steps = new long[eventCount];
+        int[] segments = new int[eventCount];
+        int visitCount = 0;
+        for (int event = 0; event < eventCount; event++) {
+            int eventSegment = eventSegments[event];
+            long step = replay.getStep(event);
+            if (segmentDirections[eventSegment] != STILL || step == segmentStarts[eventSegment]) {
+                visitCells[visitCount] = replay.getPosition(event);
+                steps[visitCount] = step;
+                segments[visitCount++] = eventSegment;
+            }
+        }
+        long[] sortedCells = Arrays.copyOf(visitCells, visitCount);
+        Arrays.sort(sortedCells);
+        int cellCount = 0;
+        for (int i = 0; i < visitCount; i++) {
+            if (cellCount == 0 || sortedCells[i] != sortedCells[cellCount - 1]) {
+                sortedCells[cellCount++] = sortedCells[i];
+            }
+        }
+        this.cells = Arrays.copyOf(sortedCells, cellCount);
+        // Counting sort of the visits by cell, stable so the visits of a cell stay in the order of the trace steps
+        int[] visitCellIndexes = new int[visitCount];
+        this.cellVisits = new int[cellCount + 1];
+        for (int i = 0; i < visitCount; i++) {
+            visitCellIndexes[i] = Arrays.binarySearch(cells, visitCells[i]);
+            cellVisits[visitCellIndexes[i] + 1]++;
+        }
+        for (int cell = 0; cell < cellCount; cell++) {
+            cellVisits[cell + 1] += cellVisits[cell];
+        }
+        int[] next = Arrays.copyOf(cellVisits, cellCount);
+        this.visitSteps = new long[visitCount];
+        this.visitSegments = new int[visitCount];
+        for (int i = 0; i < visitCount; i++) {
+            int visit = next[visitCellIndexes[i]]++;
+            visitSteps[visit] = steps[i];
+            visitSegments[visit] = segments[i];
+        }
+    }
+
+    /**
+     * Find the mower on a cell at a step.
+     *
+     * @param x X position of the cell.
+     * @param y Y position of the cell.
+     * @param step Step of the run.
+     * @return The index of the mower on the cell after the step, the last one entered if the trace is sampled, or -1
+     * if there is none.
+     */
+    public int getMowerAt(int x, int y, long step) {
+        int cell = Arrays.binarySearch(cells, PackedCoordinates.pack(x, y));
+        if (cell < 0) {
+            return -1;
+        }
+        int low = cellVisits[cell];
+        int high = cellVisits[cell + 1] - 1;
+        int found = -1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            if (visitSteps[middle] <= step) {
+                found = middle;
+                low = middle + 1;
+            } else {
+                high = middle - 1;
+            }
+        }
+        if (found < 0) {
+            return -1;
+        }
+        int segment = visitSegments[found];
+        long leave = cellIndex(segment, visitSteps[found]) < segmentLengths[segment] - 1
+                ? visitSteps[found] + segmentStrides[segment] : segmentEnd(segment);
+        return leave > step ? segmentMowers[segment] : -1;
+    }
+
+    /**
+     * Find the cells a mower passed through between two steps.
+     *
+     * @param mower Index of the mower.
+     * @param from First step, included.
+     * @param to Last step, included.
+     * @return The packed positions of the cells of the mower after each step from the first to the last one, without
+     * the repetitions of a cell where the mower stays, so a cell visited again later is listed again.
+     */
+    public long[] getCellsBetween(int mower, long from, long to) {
+        if (mower < 0 || mower >= getMowerCount() || mowerSegments[mower] == mowerSegments[mower + 1] || from > to) {
+            return NO_CELLS;
+        }
+        int segment = findSegment(mower, from);
+        long first = from;
+        if (segment < 0) {
+            segment = mowerSegments[mower];
+            first = segmentStarts[segment];
+        }
+        long[] found = new long[16];
+        int count = 0;
+        for (; segment < mowerSegments[mower + 1] && segmentStarts[segment] <= to; segment++) {
+            int last = cellIndex(segment, Math.min(to, segmentEnd(segment) - 1));
+            EnumOrientation orientation = segmentDirections[segment] == STILL
+                    ? null : ORIENTATIONS[segmentDirections[segment]];
+            int x = PackedCoordinates.unpackX(segmentOrigins[segment]);
+            int y = PackedCoordinates.unpackY(segmentOrigins[segment]);
+            for (int cell = cellIndex(segment, Math.max(first, segmentStarts[segment])); cell <= last; cell++) {
+                long position = orientation == null ? segmentOrigins[segment]
+                        : PackedCoordinates.pack(x + cell * orientation.getStepX(), y + cell * orientation.getStepY());
+                if (count == 0 || found[count - 1] != position) {
+                    if (count == found.length) {
+                        found = Arrays.copyOf(found, 2 * count);
+                    }
+                    found[count++] = position;
+                }
+            }
+        }
+        return Arrays.copyOf(found, count);
+    }
+
+    /**
+     * @return the greatest index of a recorded mower plus one
+     */
+    public int getMowerCount() {
+        return mowerSegments.length - 1;
+    }
+
+    /**
+     * @return the number of segments of the trajectories
+     */
+    public int getSegmentCount() {
+        return segmentStarts.length;
+    }
+
+    /**
+     * @return the number of visits of a cell indexed
+     */
+    public int getVisitCount() {
+        return visitSteps.length;
+    }
+
+    /**
+     * Binary search of the last segment of a mower starting at or before a step.
+     *
+     * @param mower Index of the mower.
+     * @param step Step of the run.
+     * @return The index of the segment, or -1 if there is none.
+     */
+    private int findSegment(int mower, long step) {
+        int low = mowerSegments[mower];
+        int high = mowerSegments[mower + 1] - 1;
+        int found = -1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            if (segmentStarts[middle] <= step) {
+                found = middle;
+                low = middle + 1;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * @param segment index of a segment
+     * @param step step of the run, at or after the start of the segment
+     * @return the index of the cell of the segment where the mower is after the step
+     */
+    private int cellIndex(int segment, long step) {
+        if (segmentLengths[segment] == 1) {
+            return 0;
+        }
+        return (int) Math.min((step - segmentStarts[segment]) / segmentStrides[segment], segmentLengths[segment] - 1);
+    }
+
+    /**
+     * @param segment index of a segment
+     * @return the step of the next segment of the mower, or {@link Long#MAX_VALUE} for its last one
+     */
+    private long segmentEnd(int segment) {
+        return segment + 1 < mowerSegments[segmentMowers[segment] + 1] ? segmentStarts[segment + 1] : Long.MAX_VALUE;
+    }
+
+    /**
+     * Get the direction of a move between two cells.
+     *
+     * @param from Packed position before the move.
+     * @param to Packed position after the move.
+     * @return The orientation ordinal of a move of one cell, {@link #STILL} otherwise.
+     */
+    private static byte direction(long from, long to) {
+        int moveX = PackedCoordinates.unpackX(to) - PackedCoordinates.unpackX(from);
+        int moveY = PackedCoordinates.unpackY(to) - PackedCoordinates.unpackY(from);
+        for (EnumOrientation orientation : ORIENTATIONS) {
+            if (orientation.getStepX() == moveX && orientation.getStepY() == moveY) {
+                return (byte) orientation.ordinal();
+            }
+        }
+        return STILL;
+    }
+
+    @Override
+    public String toString() {
+        return "TrajectoryIndex{" +
+                "mowers=" + getMowerCount() +
+                ", segments=" + getSegmentCount() +
+                ", cells=" + cells.length +
+                ", visits=" + visitSteps.length +
+                '}';
+    }
+}
@@ -0,0 +1,290 @@
+package fr.aymeric.kata.mower.util;
+
+import java.util.Arrays;
+
+/**
+ * CompressedBitmap is a set of non-negative longs split in Roaring-style containers. <br>
+ * The high bits of a value select a container of 2^16 values, the 16 low bits are stored in the container: as a
+ * sorted array of chars while it holds at most {@link #ARRAY_MAX_SIZE} values, as a bitmap of 8 KB beyond. A sparse
+ * set then takes about 2 bytes per value and a dense one 1 bit per value, and empty areas take nothing. <br>
+ * The last container used is kept, so that adding neighbouring values doesn't look up the container map.
+ */
+public class CompressedBitmap {
+    /**
+     * Number of low bits stored in a container.
+     */
+    private static final int CONTAINER_BITS = 16;
+    /**
+     * Maximum number of values of an array container, above which a bitmap container is smaller.
+     */
+    static final int ARRAY_MAX_SIZE = 4096;
+    /**
+     * Number of longs of a bitmap container.
+     */
+    private static final int BITMAP_WORDS = (1 << CONTAINER_BITS) / Long.SIZE;
+
+    /**
+     * Containers by high bits.
+     */
+    private final LongObjectHashMap<Container> containers = new LongObjectHashMap<>();
+    /**
+     * High bits of the last container used, -1 if none.
+     */
+    private long lastKey = -1;
+    /**
+     * Last container used.
+     */
+    private Container lastContainer;
+    /**
+     * Number of values of the set.
+     */
+    private long cardinality;
+    /**
+     * Number of bytes taken by the containers, updated when a container grows.
+     */
+    private long containerBytes;
+
+    /**
+     * Adds a value to the set.
+     *
+     * @param value Value to add.
+     * @return True if the value was not already in the set.
+     * @throws IllegalArgumentException If the value is negative.
+     */
+    public boolean add(long value) {
+        if (containerFor(value).add((int) value & 0xFFFF)) {
+            cardinality++;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Adds a range of values to the set.
+     *
+     * @param from First value of the range.
+     * @param to Value after the last value of the range.
+     * @throws IllegalArgumentException If a value is negative.
+     */
+    public void addRange(long from, long to) {
+        while (from < to) {
+            long containerEnd = ((from >>> CONTAINER_BITS) + 1) << CONTAINER_BITS;
+            long end = Math.min(to, containerEnd);
+            Container container = containerFor(from);
+            cardinality += container.addRange((int) from & 0xFFFF, (int) (end - from));
+            from = end;
+        }
+    }
+
+    /**
+     * Adds all the values of another set to the set. <br>
+     * The containers of the other set are merged with the ones of the same high bits, a bitmap container by words.
+     *
+     * @param other Set whose values are added, unchanged.
+     */
+    public void addAll(CompressedBitmap other) {
+        other.containers.forEach((key, otherContainer) ->
+                cardinality += containerFor(key << CONTAINER_BITS).addAll(otherContainer));
+    }
+
+    /**
+     * @param value the value to look for
+     * @return true if the set contains the value
+     */
+    public boolean contains(long value) {
+        if (value < 0) {
+            return false;
+        }
+        Container container = containers.get(value >>> CONTAINER_BITS);
+        return container != null && container.contains((int) value & 0xFFFF);
+    }
+
+    /**
+     * @return the number of values of the set
+     */
+    public long getCardinality() {
+        return cardinality;
+    }
+
+    /**
+     * @return the approximate number of bytes taken by the containers
+     */
+    public long getSizeInBytes() {
+        return containerBytes;
+    }
+
+    /**
+     * Get the container of a value, creating it if needed.
+     *
+     * @param value A value.
+     * @return The container of the value.
+     * @throws IllegalArgumentException If the value is negative.
+     */
+    private Container containerFor(long value) {
+        long key = value >>> CONTAINER_BITS;
+        if (key == lastKey) {
+            return lastContainer;
+        }
+        if (value < 0) {
+            throw new IllegalArgumentException("Negative value: " + value);
+        }
+        Container container = containers.get(key);
+        if (container == null) {
+            container = new Container();
+            containers.put(key, container);
+            containerBytes += container.sizeInBytes();
+        }
+        lastKey = key;
+        lastContainer = container;
+        return container;
+    }
+
+    /**
+     * Container of the values sharing the same high bits, either a sorted array or a bitmap of their low bits.
+     * A single class for both forms keeps the calls monomorphic.
+     */
+    private final class Container {
+        /**
+         * Sorted low bits, null once the container is a bitmap.
+         */
+        private char[] array = new char[4];
+        /**
+         * Bits of the low bits, null while the container is an array.
+         */
+        private long[] bitmap;
+        /**
+         * Number of values of the container.
+         */
+        private int size;
+
+        /**
+         * Adds a value.
+         *
+         * @param low Low bits of the value.
+         * @return True if the value was not already in the container.
+         */
+        boolean add(int low) {
+            if (bitmap != null) {
+                long word = bitmap[low >>> 6];
+                long updated = word | (1L << low);
+                if (updated == word) {
+                    return false;
+                }
+                bitmap[low >>> 6] = updated;
+                size++;
+                return true;
+            }
+            int index = Arrays.binarySearch(array, 0, size, (char) low);
+            if (index >= 0) {
+                return false;
+            }
+            if (size == ARRAY_MAX_SIZE) {
+                toBitmap();
+                return add(low);
+            }
+            index = -index - 1;
+            if (size == array.length) {
+                containerBytes -= sizeInBytes();
+                array = Arrays.copyOf(array, Math.min(ARRAY_MAX_SIZE, size << 1));
+                containerBytes += sizeInBytes();
+            }
+            System.arraycopy(array, index, array, index + 1, size - index);
+            array[index] = (char) low;
+            size++;
+            return true;
+        }
+
+        /**
+         * Adds a range of values.
+         *
+         * @param low Low bits of the first value.
+         * @param count Number of values, such that the range doesn't cross the end of the container.
+         * @return The number of values added.
+         */
+        int addRange(int low, int count) {
+            if (bitmap == null && count < Long.SIZE) {
+                int added = 0;
+                for (int i = 0; i < count; i++) {
+                    if (add(low + i)) {
+                        added++;
+                    }
+                }
+                return added;
+            }
+            if (bitmap == null) {
+                toBitmap();
+            }
+            int before = size;
+            int end = low + count;
+            for (int wordIndex = low >>> 6; wordIndex <= (end - 1) >>> 6; wordIndex++) {
+                int first = Math.max(low, wordIndex << 6) & 63;
+                int last = Math.min(end, (wordIndex + 1) << 6) - (wordIndex << 6);
+                long mask = (last == Long.SIZE ? -1L : (1L << last) - 1) & (-1L << first);
+                long word = bitmap[wordIndex];
+                size += Long.bitCount(mask & ~word);
+                bitmap[wordIndex] = word | mask;
+            }
+            return size - before;
+        }
+
+        /**
+         * Adds the values of another container.
+         *
+         * @param other Container whose values are added.
+         * @return The number of values added.
+         */
+        int addAll(Container other) {
+            if (other.bitmap == null) {
+                int added = 0;
+                for (int i = 0; i < other.size; i++) {
+                    if (add(other.array[i])) {
+                        added++;
+                    }
+                }
+                return added;
+            }
+            if (bitmap == null) {
+                toBitmap();
+            }
+            int before = size;
+            for (int wordIndex = 0; wordIndex < BITMAP_WORDS; wordIndex++) {
+                long word = bitmap[wordIndex];
+                long otherWord = other.bitmap[wordIndex];
+                size += Long.bitCount(otherWord & ~word);
+                bitmap[wordIndex] = word | otherWord;
+            }
+            return size - before;
+        }
+
+        /**
+         * @param low low bits of a value
+         * @return true if the container holds the value
+         */
+        boolean contains(int low) {
+            if (bitmap != null) {
+                return (bitmap[low >>> 6] & (1L << low)) != 0;
+            }
+            return Arrays.binarySearch(array, 0, size, (char) low) >= 0;
+        }
+
+        /**
+         * Converts the array to a bitmap.
+         */
+        private void toBitmap() {
+            containerBytes -= sizeInBytes();
+            bitmap = new long[BITMAP_WORDS];
+            for (int i = 0; i < size; i++) {
+                bitmap[array[i] >>> 6] |= 1L << array[i];
+            }
+            array = null;
+            containerBytes += sizeInBytes();
+        }
+
+        /**
+         * @return the approximate number of bytes taken by the container
+         */
+        long sizeInBytes() {
+            return 32 + (bitmap != null ? 8L * bitmap.length : 2L * array.length);
+        }
+    }
+}
@@ -14,6 +14,18 @@ public enum EnumInstruction {
      */
     private final char instructionKey;
 
+    /**
+     * Lookup table giving the instruction of each 8-bit key, null for invalid keys.
+     * It avoids scanning (and copying) {@link #values()} for every parsed key.
+     */
+    private static final EnumInstruction[] BY_KEY = new EnumInstruction[256];
+
+    static {
+        for(EnumInstruction instruction : values()) {
+            BY_KEY[instruction.instructionKey] = instruction;
+        }
+    }
+
     /**
      * EnumInstruction constructor.
      *
@@ -31,12 +43,11 @@ public enum EnumInstruction {
      * @throws IllegalArgumentException if the character does not correspond to any instruction
      */
     public static EnumInstruction fromKey(char instructionKey) throws IllegalArgumentException {
-        for(EnumInstruction instruction : values()) {
-            if(instruction.getInstructionKey() == instructionKey) {
-                return instruction;
-            }
+        EnumInstruction instruction = instructionKey < BY_KEY.length ? BY_KEY[instructionKey] : null;
+        if(instruction == null) {
+            throw new IllegalArgumentException("Invalid instruction key: " + instructionKey);
         }
-        throw new IllegalArgumentException("Invalid instruction key: " + instructionKey);
+        return instruction;
     }
 
     /**
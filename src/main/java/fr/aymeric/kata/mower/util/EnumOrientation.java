@@ -4,24 +4,48 @@ package fr.aymeric.kata.mower.util;
  * EnumOrientation represents the orientation of a mower.
  */
 public enum EnumOrientation {
-    NORTH('N'),
-    EAST('E'),
-    SOUTH('S'),
-    WEST('W');
+    NORTH('N', 0, 1),
+    EAST('E', 1, 0),
+    SOUTH('S', 0, -1),
+    WEST('W', -1, 0);
 
     /**
      * The key representing the orientation.
      * It is used to parse the orientation from a character.
      */
     private final char orientationKey;
+    /**
+     * Move on X axis of a forward move in this orientation.
+     */
+    private final int stepX;
+    /**
+     * Move on Y axis of a forward move in this orientation.
+     */
+    private final int stepY;
+
+    /**
+     * Lookup table giving the orientation of each 8-bit key, null for invalid keys.
+     * It avoids scanning (and copying) {@link #values()} for every parsed key.
+     */
+    private static final EnumOrientation[] BY_KEY = new EnumOrientation[256];
+
+    static {
+        for(EnumOrientation orientation : values()) {
+            BY_KEY[orientation.orientationKey] = orientation;
+        }
+    }
 
     /**
      * EnumOrientation constructor.
      *
      * @param orientationKey the character representing the orientation
+     * @param stepX the move on X axis of a forward move
+     * @param stepY the move on Y axis of a forward move
      */
-    EnumOrientation(char orientationKey) {
+    EnumOrientation(char orientationKey, int stepX, int stepY) {
         this.orientationKey = orientationKey;
+        this.stepX = stepX;
+        this.stepY = stepY;
     }
 
     /**
@@ -32,12 +56,11 @@ public enum EnumOrientation {
      * @throws IllegalArgumentException if the character does not correspond to any orientation
      */
     public static EnumOrientation fromKey(char orientationKey) throws IllegalArgumentException {
-        for(EnumOrientation orientation : values()) {
-            if(orientation.getOrientationKey() == orientationKey) {
-                return orientation;
-            }
+        EnumOrientation orientation = orientationKey < BY_KEY.length ? BY_KEY[orientationKey] : null;
+        if(orientation == null) {
+            throw new IllegalArgumentException("Invalid orientation key: " + orientationKey);
         }
-        throw new IllegalArgumentException("Invalid orientation key: " + orientationKey);
+        return orientation;
     }
 
     /**
@@ -46,4 +69,18 @@ public enum EnumOrientation {
     public char getOrientationKey() {
         return orientationKey;
     }
+
+    /**
+     * @return the move on X axis of a forward move in this orientation
+     */
+    public int getStepX() {
+        return stepX;
+    }
+
+    /**
+     * @return the move on Y axis of a forward move in this orientation
+     */
+    public int getStepY() {
+        return stepY;
+    }
 }
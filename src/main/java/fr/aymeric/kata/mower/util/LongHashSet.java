@@ -0,0 +1,73 @@
+package fr.aymeric.kata.mower.util;
+
+/**
+ * LongHashSet is a set of primitive longs based on open addressing with linear probing, see
+ * {@link LongOpenHashTable}. <br>
+ * Lookups, insertions and removals do not allocate, except when the table grows.
+ * The value {@link Long#MIN_VALUE} is reserved and cannot be stored.
+ */
+public class LongHashSet extends LongOpenHashTable {
+    /**
+     * Creates an empty set.
+     */
+    public LongHashSet() {
+        this(16);
+    }
+
+    /**
+     * Creates an empty set able to hold the given number of values without growing.
+     *
+     * @param expectedSize Expected number of values.
+     */
+    public LongHashSet(int expectedSize) {
+        super(expectedSize, false);
+    }
+
+    /**
+     * Check if a value is in the set.
+     *
+     * @param value Value to look for.
+     * @return True if the set contains the value, false otherwise.
+     */
+    public boolean contains(long value) {
+        return value != EMPTY && probe(value) >= 0;
+    }
+
+    /**
+     * Adds a value to the set.
+     *
+     * @param value Value to add.
+     * @return True if the value was not already in the set, false otherwise.
+     * @throws IllegalArgumentException If the value is the reserved {@link Long#MIN_VALUE}.
+     */
+    public boolean add(long value) {
+        if (value == EMPTY) {
+            throw new IllegalArgumentException("Reserved value: " + value);
+        }
+        int slot = probe(value);
+        if (slot >= 0) {
+            return false;
+        }
+        insertAt(-slot - 1, value);
+        return true;
+    }
+
+    /**
+     * Removes a value from the set. <br>
+     * The following values of the probe sequence are shifted back, so no tombstone is left in the table.
+     *
+     * @param value Value to remove.
+     * @return True if the value was in the set, false otherwise.
+     */
+    public boolean remove(long value) {
+        if (value == EMPTY) {
+            return false;
+        }
+        int slot = probe(value);
+        if (slot < 0) {
+            return false;
+        }
+        removeAt(slot);
+        return true;
+    }
+}
@@ -0,0 +1,122 @@
+package fr.aymeric.kata.mower.util;
+
+/**
+ * LongObjectHashMap is a map from primitive longs to objects based on open addressing with linear probing, see
+ * {@link LongOpenHashTable}. <br>
+ * Lookups, insertions and removals do not allocate, except when the table grows.
+ * The key {@link Long#MIN_VALUE} is reserved and null values are not supported.
+ *
+ * @param <V> Type of the values.
+ */
+public class LongObjectHashMap<V> extends LongOpenHashTable {
+    /**
+     * Creates an empty map.
+     */
+    public LongObjectHashMap() {
+        this(16);
+    }
+
+    /**
+     * Creates an empty map able to hold the given number of entries without growing.
+     *
+     * @param expectedSize Expected number of entries.
+     */
+    public LongObjectHashMap(int expectedSize) {
+        super(expectedSize, true);
+    }
+
+    /**
+     * Get the value associated to a key.
+     *
+     * @param key Key to look for.
+     * @return The value associated to the key, or null if there is none.
+     */
+    @SuppressWarnings("unchecked")
+    public V get(long key) {
+        if (key == EMPTY) {
+            return null;
+        }
+        int slot = probe(key);
+        return slot >= 0 ? (V) values[slot] : null;
+    }
+
+    /**
+     * Associates a value to a key.
+     *
+     * @param key Key of the entry.
+     * @param value Value of the entry, not null.
+     * @return The previous value associated to the key, or null if there was none.
+     * @throws IllegalArgumentException If the key is the reserved {@link Long#MIN_VALUE}.
+     * @throws NullPointerException If the value is null.
+     */
+    @SuppressWarnings("unchecked")
+    public V put(long key, V value) {
+        if (key == EMPTY) {
+            throw new IllegalArgumentException("Reserved key: " + key);
+        }
+        if (value == null) {
+            throw new NullPointerException("Value cannot be null");
+        }
+        int slot = probe(key);
+        if (slot >= 0) {
+            V previous = (V) values[slot];
+            values[slot] = value;
+            return previous;
+        }
+        slot = -slot - 1;
+        values[slot] = value;
+        insertAt(slot, key);
+        return null;
+    }
+
+    /**
+     * Removes the entry of a key. <br>
+     * The following entries of the probe sequence are shifted back, so no tombstone is left in the table.
+     *
+     * @param key Key to remove.
+     * @return The value that was associated to the key, or null if there was none.
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(long key) {
+        if (key == EMPTY) {
+            return null;
+        }
+        int slot = probe(key);
+        if (slot < 0) {
+            return null;
+        }
+        V previous = (V) values[slot];
+        removeAt(slot);
+        return previous;
+    }
+
+    /**
+     * Calls an action on each entry of the map, in no particular order. The map must not be modified by the action.
+     *
+     * @param action Action called with the key and the value of each entry.
+     */
+    @SuppressWarnings("unchecked")
+    public void forEach(EntryConsumer<? super V> action) {
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (keys[slot] != EMPTY) {
+                action.accept(keys[slot], (V) values[slot]);
+            }
+        }
+    }
+
+    /**
+     * Action called on the entries of a map, without boxing the keys.
+     *
+     * @param <V> Type of the values.
+     */
+    @FunctionalInterface
+    public interface EntryConsumer<V> {
+        /**
+         * Called on an entry of the map.
+         *
+         * @param key Key of the entry.
+         * @param value Value of the entry.
+         */
+        void accept(long key, V value);
+    }
+}
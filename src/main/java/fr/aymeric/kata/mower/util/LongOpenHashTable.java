@@ -0,0 +1,227 @@
+package fr.aymeric.kata.mower.util;
+
+import java.util.Arrays;
+
+/**
+ * LongOpenHashTable is the table of primitive long keys shared by {@link LongHashSet} and {@link LongObjectHashMap},
+ * based on open addressing with linear probing. <br>
+ * The keys are spread with {@link #mix(long)}, the table grows once half full, and a removal shifts back the following
+ * keys of its probe sequence, so no tombstone is left. A map keeps its values in a parallel array, moved with the
+ * keys. The key {@link Long#MIN_VALUE} marks the empty slots and is reserved.
+ */
+abstract class LongOpenHashTable {
+    /**
+     * Marker of an empty slot.
+     */
+    static final long EMPTY = Long.MIN_VALUE;
+    /**
+     * Maximum fill ratio of the table before it grows.
+     */
+    private static final double LOAD_FACTOR = 0.5;
+
+    /**
+     * True if the table stores a value for each key.
+     */
+    private final boolean withValues;
+    /**
+     * Keys of the table, {@link #EMPTY} when unused.
+     */
+    long[] keys;
+    /**
+     * Values of the table, at the same slot as their key, null if the table has no values.
+     */
+    Object[] values;
+    /**
+     * Mask applied to hashes to get a slot, the table length minus one.
+     */
+    private int mask;
+    /**
+     * Number of stored keys.
+     */
+    private int size;
+    /**
+     * Number of stored keys above which the table grows.
+     */
+    private int resizeThreshold;
+
+    /**
+     * Creates an empty table able to hold the given number of keys without growing.
+     *
+     * @param expectedSize Expected number of keys.
+     * @param withValues True if the table stores a value for each key.
+     */
+    LongOpenHashTable(int expectedSize, boolean withValues) {
+        this.withValues = withValues;
+        allocate(tableSizeFor(expectedSize));
+    }
+
+    /**
+     * Finds the slot of a key.
+     *
+     * @param key Key to look for, not {@link #EMPTY}.
+     * @return The slot of the key if it is stored, else {@code -(slot + 1)} with the empty slot where it can be
+     *         inserted.
+     */
+    final int probe(long key) {
+        long[] table = keys;
+        int slot = slotOf(key);
+        while (true) {
+            long current = table[slot];
+            if (current == key) {
+                return slot;
+            }
+            if (current == EMPTY) {
+                return -(slot + 1);
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    /**
+     * Stores a key in the empty slot given by {@link #probe(long)}, then grows the table if it is too full. <br>
+     * The value of the key, if any, must be stored in the slot before.
+     *
+     * @param slot Empty slot where the key is inserted.
+     * @param key Key to insert.
+     */
+    final void insertAt(int slot, long key) {
+        keys[slot] = key;
+        if (++size > resizeThreshold) {
+            rehash(keys.length << 1);
+        }
+    }
+
+    /**
+     * Removes the key of a slot, moving back the keys that were displaced by it.
+     *
+     * @param hole Slot of the key to remove.
+     */
+    final void removeAt(int hole) {
+        int slot = hole;
+        while (true) {
+            slot = (slot + 1) & mask;
+            long key = keys[slot];
+            if (key == EMPTY) {
+                break;
+            }
+            int home = slotOf(key);
+            // Move the key only if its home slot is not between the hole and its current slot (cyclically)
+            if (((slot - home) & mask) >= ((slot - hole) & mask)) {
+                keys[hole] = key;
+                if (withValues) {
+                    values[hole] = values[slot];
+                }
+                hole = slot;
+            }
+        }
+        keys[hole] = EMPTY;
+        if (withValues) {
+            values[hole] = null;
+        }
+        size--;
+    }
+
+    /**
+     * Get the number of keys in the table.
+     *
+     * @return Number of stored keys.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Check if the table is empty.
+     *
+     * @return True if the table contains no key, false otherwise.
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Removes all the keys of the table, keeping its length.
+     */
+    public void clear() {
+        Arrays.fill(keys, EMPTY);
+        if (withValues) {
+            Arrays.fill(values, null);
+        }
+        size = 0;
+    }
+
+    /**
+     * Grows the table and re-inserts all the keys, with their values.
+     *
+     * @param newLength New length of the table, a power of two.
+     */
+    private void rehash(int newLength) {
+        long[] oldKeys = keys;
+        Object[] oldValues = values;
+        allocate(newLength);
+        for (int i = 0; i < oldKeys.length; i++) {
+            long key = oldKeys[i];
+            if (key != EMPTY) {
+                int slot = slotOf(key);
+                while (keys[slot] != EMPTY) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = key;
+                if (withValues) {
+                    values[slot] = oldValues[i];
+                }
+            }
+        }
+    }
+
+    /**
+     * Allocates an empty table, keeping the current size.
+     *
+     * @param length Length of the table, a power of two.
+     */
+    private void allocate(int length) {
+        keys = new long[length];
+        Arrays.fill(keys, EMPTY);
+        values = withValues ? new Object[length] : null;
+        mask = length - 1;
+        resizeThreshold = (int) (length * LOAD_FACTOR);
+    }
+
+    /**
+     * Get the slot where the probe sequence of a key starts.
+     *
+     * @param key Key to hash.
+     * @return Home slot of the key.
+     */
+    private int slotOf(long key) {
+        return (int) mix(key) & mask;
+    }
+
+    /**
+     * Spreads the bits of a value, so that neighbouring positions do not collide. <br>
+     * This is the finalizer of MurmurHash3.
+     *
+     * @param value Value to hash.
+     * @return The hash of the value.
+     */
+    public static long mix(long value) {
+        long h = value;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb3fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    /**
+     * Get the length of a table holding a number of keys without growing.
+     *
+     * @param expectedSize Expected number of keys.
+     * @return Length of the table, a power of two.
+     */
+    static int tableSizeFor(int expectedSize) {
+        long needed = Math.max(4L, (long) Math.ceil(expectedSize / LOAD_FACTOR));
+        return (int) Math.min(1 << 30, Long.highestOneBit(needed - 1) << 1);
+    }
+}
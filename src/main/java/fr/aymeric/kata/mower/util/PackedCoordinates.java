@@ -0,0 +1,41 @@
+package fr.aymeric.kata.mower.util;
+
+/**
+ * PackedCoordinates packs a (x, y) position into a single long, allowing positions to be stored in primitive collections.
+ * <br>
+ * The X position is stored in the 32 high bits and the Y position in the 32 low bits.
+ */
+public final class PackedCoordinates {
+    /**
+     * Utility class, not instantiable.
+     */
+    private PackedCoordinates() {
+    }
+
+    /**
+     * Packs a position into a long.
+     *
+     * @param x X position.
+     * @param y Y position.
+     * @return The packed position.
+     */
+    public static long pack(int x, int y) {
+        return ((long) x << 32) | (y & 0xFFFFFFFFL);
+    }
+
+    /**
+     * @param packed a position packed with {@link #pack(int, int)}
+     * @return the X position
+     */
+    public static int unpackX(long packed) {
+        return (int) (packed >> 32);
+    }
+
+    /**
+     * @param packed a position packed with {@link #pack(int, int)}
+     * @return the Y position
+     */
+    public static int unpackY(long packed) {
+        return (int) packed;
+    }
+}
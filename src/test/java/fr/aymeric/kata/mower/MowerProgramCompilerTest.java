@@ -0,0 +1,122 @@
+package fr.aymeric.kata.mower;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the {@link MowerProgramCompiler} class.
+ */
+class MowerProgramCompilerTest {
+    /**
+     * Test the folding of consecutive rotations into their net rotation.
+     */
+    @Test
+    void testFoldRotations() {
+        assertOps(MowerProgramCompiler.compile("GGGGA"), MowerProgram.OP_FORWARD);
+        assertOps(MowerProgramCompiler.compile("GDDA"), MowerProgram.OP_RIGHT, MowerProgram.OP_FORWARD);
+        assertOps(MowerProgramCompiler.compile("GGGAD"), MowerProgram.OP_RIGHT, MowerProgram.OP_FORWARD, MowerProgram.OP_RIGHT);
+        assertOps(MowerProgramCompiler.compile("DDAG"), MowerProgram.OP_LEFT, MowerProgram.OP_LEFT, MowerProgram.OP_FORWARD, MowerProgram.OP_LEFT);
+        assertEquals(5, MowerProgramCompiler.compile("GDDAG").getInstructionCount());
+    }
+
+    /**
+     * Test the compilation of long runs of forward moves into a single operation.
+     */
+    @Test
+    void testForwardRuns() {
+        StringBuilder instructions = new StringBuilder();
+        for (int i = 0; i < MowerProgramCompiler.MIN_RUN_LENGTH + 4; i++) {
+            instructions.append('A');
+        }
+        instructions.append("DAA");
+        MowerProgram program = MowerProgramCompiler.compile(instructions);
+        assertOps(program, MowerProgram.OP_FORWARD_RUN, MowerProgram.OP_RIGHT, MowerProgram.OP_FORWARD, MowerProgram.OP_FORWARD);
+        assertEquals(MowerProgramCompiler.MIN_RUN_LENGTH + 4, program.getRunLength(0));
+        assertEquals(MowerProgramCompiler.MIN_RUN_LENGTH + 6, program.getForwardMoveCount());
+    }
+
+    /**
+     * Test the packing of programs longer than a long of operations.
+     */
+    @Test
+    void testLongProgram() {
+        StringBuilder instructions = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            instructions.append(i % 3 == 0 ? "AG" : "A");
+        }
+        MowerProgram program = MowerProgramCompiler.compile(instructions);
+        assertEquals(134, program.getOpCount());
+        int op = 0;
+        for (int i = 0; i < 100; i++) {
+            assertEquals(MowerProgram.OP_FORWARD, program.getOp(op++));
+            if (i % 3 == 0) {
+                assertEquals(MowerProgram.OP_LEFT, program.getOp(op++));
+            }
+        }
+        assertThrows(IndexOutOfBoundsException.class, () -> program.getOp(134));
+    }
+
+    /**
+     * Test the detection of the block repeated at the start of a program, and of its number of repetitions.
+     */
+    @Test
+    void testRepeatedBlock() {
+        StringBuilder instructions = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            instructions.append("AAGAD");
+        }
+        instructions.append("AAA");
+        MowerProgram program = MowerProgramCompiler.compile(instructions);
+        assertEquals(5, program.getBlockLength());
+        assertEquals(1000, program.getBlockRepetitions());
+
+        // Forward runs of different lengths are different operations
+        String shortRun = repeat('A', MowerProgramCompiler.MIN_RUN_LENGTH) + "G";
+        String longRun = repeat('A', MowerProgramCompiler.MIN_RUN_LENGTH + 1) + "G";
+        program = MowerProgramCompiler.compile(shortRun + shortRun + shortRun + longRun + shortRun);
+        assertEquals(2, program.getBlockLength());
+        assertEquals(3, program.getBlockRepetitions());
+
+        assertEquals(0, MowerProgramCompiler.compile("AGAAD").getBlockLength());
+        // Only a block at the very start of the program is detected
+        assertEquals(0, MowerProgramCompiler.compile("G" + instructions).getBlockLength());
+    }
+
+    /**
+     * Test the compilation of an invalid instruction.
+     * Ensure an {@link IllegalArgumentException} is thrown.
+     */
+    @Test
+    void testInvalidInstruction() {
+        assertThrows(IllegalArgumentException.class, () -> MowerProgramCompiler.compile("AGDF"));
+    }
+
+    /**
+     * Helper method to check the operations of a program.
+     *
+     * @param program the program to check
+     * @param expectedOps the expected operations
+     */
+    private void assertOps(MowerProgram program, int... expectedOps) {
+        assertEquals(expectedOps.length, program.getOpCount());
+        for (int i = 0; i < expectedOps.length; i++) {
+            assertEquals(expectedOps[i], program.getOp(i), "Operation " + i);
+        }
+    }
+
+    /**
+     * Helper method repeating an instruction.
+     *
+     * @param key the instruction key
+     * @param count the number of repetitions
+     * @return the instructions
+     */
+    private static String repeat(char key, int count) {
+        StringBuilder instructions = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            instructions.append(key);
+        }
+        return instructions.toString();
+    }
+}
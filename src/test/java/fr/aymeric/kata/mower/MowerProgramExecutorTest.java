@@ -1,16 +1,26 @@
 package fr.aymeric.kata.mower;
 
+import fr.aymeric.kata.mower.io.BinaryInstructionConverter;
 import fr.aymeric.kata.mower.model.Mower;
 import fr.aymeric.kata.mower.model.Lawn;
+import fr.aymeric.kata.mower.output.BufferedResultSink;
+import fr.aymeric.kata.mower.output.InMemoryResultSink;
+import fr.aymeric.kata.mower.output.ResultSink;
+import fr.aymeric.kata.mower.trace.TraceRecorder;
 import fr.aymeric.kata.mower.util.EnumOrientation;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
 import java.nio.file.Path;
 import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -46,6 +56,45 @@ class MowerProgramExecutorTest {
         checkMowerPosition(mowers.get(3), 3, 3, EnumOrientation.NORTH);
     }
 
+    /**
+     * Test the {@link MowerProgramExecutor#readAndExecuteInstructions(File, fr.aymeric.kata.mower.output.ResultSink)} method.
+     * The final positions should be written to the sink, in order.
+     *
+     * @throws IOException if an I/O error occurs while writing the instructions file
+     */
+    @Test
+    void testReadAndExecuteInstructionsToSink() throws IOException {
+        InMemoryResultSink sink = new InMemoryResultSink();
+        MowerProgramExecutor.readAndExecuteInstructions(getTestFile(), sink);
+        assertEquals("Mower 1 position: 1 2 S\n"
+                + "Mower 2 position: 5 6 E\n"
+                + "Mower 3 position: 7 8 W\n"
+                + "Mower 4 position: 3 3 N\n", sink.getContent());
+    }
+
+    /**
+     * Test the {@link MowerProgramExecutor#readAndExecuteBinaryInstructions(File, fr.aymeric.kata.mower.output.ResultSink)}
+     * method gives the same results as the text instructions.
+     *
+     * @throws IOException if an I/O error occurs while writing the instructions file
+     */
+    @Test
+    void testReadAndExecuteBinaryInstructions() throws IOException {
+        File binaryFile = tempDir.resolve("instructions1.bin").toFile();
+        BinaryInstructionConverter.convert(getTestFile(), binaryFile);
+        InMemoryResultSink sink = new InMemoryResultSink();
+        Lawn lawn = MowerProgramExecutor.readAndExecuteBinaryInstructions(binaryFile, sink);
+        assertLawnSize(lawn, 10, 10);
+        assertEquals("Mower 1 position: 1 2 S\n"
+                + "Mower 2 position: 5 6 E\n"
+                + "Mower 3 position: 7 8 W\n"
+                + "Mower 4 position: 3 3 N\n", sink.getContent());
+
+        RuntimeException exception = assertThrows(RuntimeException.class,
+                () -> MowerProgramExecutor.readAndExecuteBinaryInstructions(getTestFile(), sink));
+        assertEquals("Invalid instruction file format", exception.getMessage());
+    }
+
     /**
      * Helper method to create a temporary file with test instructions.
      *
@@ -115,6 +164,30 @@ class MowerProgramExecutorTest {
         assertThrows(IllegalArgumentException.class, () -> MowerProgramExecutor.readAndExecuteInstructions(instructionFile));
     }
 
+    /**
+     * Test the positions of the mowers executed before an invalid one are written to a buffered sink, in sequential
+     * and parallel modes.
+     *
+     * @throws IOException if an I/O error occurs while writing the instructions file
+     */
+    @Test
+    void testPartialOutputBeforeError() throws IOException {
+        File instructionFile = tempDir.resolve("instructions5.txt").toFile();
+        try (FileWriter writer = new FileWriter(instructionFile)) {
+            writer.write("5 5\n1 2 N\nGAGAGAGAA\n3 3 E\nAADAADADDA\n6 0 N\nA\n");
+        }
+        String expected = "Mower 1 position: 1 3 N\nMower 2 position: 5 1 E\n";
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        assertThrows(IllegalArgumentException.class, () -> MowerProgramExecutor.readAndExecuteInstructions(
+                instructionFile, new BufferedResultSink(output, false)));
+        assertEquals(expected, output.toString("US-ASCII"));
+
+        output.reset();
+        assertThrows(IllegalArgumentException.class, () -> ParallelMowerProgramExecutor.readAndExecuteInstructions(
+                instructionFile, ForkJoinPool.commonPool(), new BufferedResultSink(output, false)));
+        assertEquals(expected, output.toString("US-ASCII"));
+    }
+
     /**
      * Test the {@link MowerProgramExecutor#readAndExecuteInstructions(File)} method with invalid mower movement instruction.
      * Ensure an {@link IllegalArgumentException} is thrown.
@@ -134,4 +207,219 @@ class MowerProgramExecutorTest {
         }
         assertThrows(IllegalArgumentException.class, () -> MowerProgramExecutor.readAndExecuteInstructions(instructionFile));
     }
+
+    /**
+     * Test the obstacles of the input block the mowers, with the same results in sequential, parallel and
+     * simultaneous modes.
+     *
+     * @throws IOException if an I/O error occurs while writing the instructions file
+     */
+    @Test
+    void testObstacles() throws IOException {
+        File instructionFile = tempDir.resolve("instructions5.txt").toFile();
+        try (FileWriter writer = new FileWriter(instructionFile)) {
+            writer.write("5 5\nO 1 3\nR 3 0 3 2\n1 2 N\nAAA\n0 1 E\nAAAAA\n4 0 W\nA\n");
+        }
+        String expected = "Mower 1 position: 1 2 N\n"
+                + "Mower 2 position: 2 1 E\n"
+                + "Mower 3 position: 4 0 W\n";
+        InMemoryResultSink sink = new InMemoryResultSink();
+        Lawn lawn = MowerProgramExecutor.readAndExecuteInstructions(instructionFile, sink);
+        assertEquals(expected, sink.getContent());
+        assertTrue(lawn.isObstacle(3, 2));
+        sink = new InMemoryResultSink();
+        ParallelMowerProgramExecutor.readAndExecuteInstructions(instructionFile, ForkJoinPool.commonPool(), sink);
+        assertEquals(expected, sink.getContent());
+        sink = new InMemoryResultSink();
+        TickMowerProgramExecutor.readAndExecuteInstructions(instructionFile, ForkJoinPool.commonPool(), sink);
+        assertEquals(expected, sink.getContent());
+
+        try (FileWriter writer = new FileWriter(instructionFile)) {
+            writer.write("5 5\nO 1 3\n1 3 N\nA\n");
+        }
+        assertThrows(IllegalArgumentException.class, () -> MowerProgramExecutor.readAndExecuteInstructions(instructionFile));
+        try (FileWriter writer = new FileWriter(instructionFile)) {
+            writer.write("5 5\nR 1 3 6 3\n1 2 N\nA\n");
+        }
+        assertThrows(IllegalArgumentException.class, () -> MowerProgramExecutor.readAndExecuteInstructions(instructionFile));
+        // Rejected before its rows and columns are expanded
+        try (FileWriter writer = new FileWriter(instructionFile)) {
+            writer.write("5 5\nR 0 0 2000000000 0\n1 2 N\nA\n");
+        }
+        assertThrows(IllegalArgumentException.class, () -> MowerProgramExecutor.readAndExecuteInstructions(instructionFile));
+    }
+
+    /**
+     * Test the {@link MowerProgramExecutor#readAndExecuteInstructions(File, fr.aymeric.kata.mower.output.ResultSink, ForkJoinPool)}
+     * method gives the results of the sequential reading, whatever the size of the chunks and the layout of the file,
+     * with mowers split over several lines and blank lines between them.
+     *
+     * @throws IOException if an I/O error occurs while writing the instructions file
+     */
+    @Test
+    void testParallelParsing() throws IOException {
+        File instructionFile = tempDir.resolve("instructions6.txt").toFile();
+        Random random = new Random(42);
+        try (FileWriter writer = new FileWriter(instructionFile)) {
+            // The mowers start too far from each other to be on the initial position of another one
+            writer.write("1000 20000\nR 100 0 100 19000\n");
+            for (int i = 0; i < 500; i++) {
+                String[] separators = {" ", "\n", "\r\n", "\n\n", "\t"};
+                writer.write((i % 5 * 201) + separators[random.nextInt(separators.length)] + (i / 5 * 201));
+                writer.write(separators[random.nextInt(separators.length)] + "NESW".charAt(random.nextInt(4)) + "\n");
+                for (int j = 1 + random.nextInt(200); j > 0; j--) {
+                    writer.write("AAGD".charAt(random.nextInt(4)));
+                }
+                writer.write(i % 7 == 0 ? "\n\n" : "\n");
+            }
+        }
+        InMemoryResultSink expected = new InMemoryResultSink();
+        MowerProgramExecutor.readAndExecuteInstructions(instructionFile, expected);
+        for (int chunkSize : new int[] {1, 16, 100, 4096, 1 << 20}) {
+            InMemoryResultSink sink = new InMemoryResultSink();
+            Lawn lawn = MowerProgramExecutor.readAndExecuteInstructions(instructionFile, sink, ForkJoinPool.commonPool(),
+                    chunkSize);
+            assertEquals(expected.getContent(), sink.getContent());
+            assertEquals(500, lawn.getFleet().size());
+            assertTrue(lawn.isObstacle(100, 19000));
+        }
+    }
+
+    /**
+     * Test the errors of the parallel parsing are the ones of the sequential reading, with the same line.
+     *
+     * @throws IOException if an I/O error occurs while writing the instructions file
+     */
+    @Test
+    void testParallelParsingErrors() throws IOException {
+        File instructionFile = tempDir.resolve("instructions7.txt").toFile();
+        StringBuilder valid = new StringBuilder("20 20\n");
+        for (int i = 0; i < 100; i++) {
+            valid.append(i % 20).append(' ').append(i / 20).append(" N\nGDGDA\n");
+        }
+        String[] errors = {"1 2 N\n", "1 X N\nA\n", "19 19 Z\nA\n", "19 19 N\nAGF\n", "1 1 N\nA\n", "30 0 N\nA\n",
+                "O 1 1\n"};
+        for (String error : errors) {
+            for (int mower : new int[] {0, 37, 99}) {
+                String content = valid.substring(0, lineStart(valid, mower)) + error + valid.substring(lineStart(valid, mower));
+                try (FileWriter writer = new FileWriter(instructionFile)) {
+                    writer.write(content);
+                }
+                RuntimeException expected = assertThrows(RuntimeException.class,
+                        () -> MowerProgramExecutor.readAndExecuteInstructions(instructionFile, new InMemoryResultSink()));
+                for (int chunkSize : new int[] {1, 10, 64, 1000}) {
+                    RuntimeException exception = assertThrows(RuntimeException.class,
+                            () -> MowerProgramExecutor.readAndExecuteInstructions(instructionFile,
+                                    new InMemoryResultSink(), ForkJoinPool.commonPool(), chunkSize));
+                    assertEquals(expected.getClass(), exception.getClass());
+                    assertEquals(expected.getMessage(), exception.getMessage());
+                    if (expected.getCause() != null) {
+                        assertEquals(expected.getCause().getMessage(), exception.getCause().getMessage());
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Helper method to find the beginning of the record of a mower in the content of a test file.
+     *
+     * @param content   the content, a lawn line followed by two lines per mower
+     * @param mower     the index of the mower
+     * @return the position of the first character of the record
+     */
+    private static int lineStart(CharSequence content, int mower) {
+        int line = 0;
+        for (int i = 0; i < content.length(); i++) {
+            if (line == 1 + 2 * mower) {
+                return i;
+            }
+            if (content.charAt(i) == '\n') {
+                line++;
+            }
+        }
+        return content.length();
+    }
+
+    /**
+     * Test the {@link MowerProgramExecutor#readAndExecuteInstructions(File)} method with an invalid file format.
+     * Ensure a {@link RuntimeException} is thrown with the expected message.
+     *
+     * @throws IOException if an I/O error occurs while writing the instructions file
+     */
+    @Test
+    void testInvalidFileFormat() throws IOException {
+        File instructionFile = tempDir.resolve("instructions4.txt").toFile();
+        try (FileWriter writer = new FileWriter(instructionFile)) {
+            // The lawn size is not a number
+            writer.write("5 X\n");
+        }
+        RuntimeException exception = assertThrows(RuntimeException.class, () -> MowerProgramExecutor.readAndExecuteInstructions(instructionFile));
+        assertEquals("Invalid instruction file format", exception.getMessage());
+
+        try (FileWriter writer = new FileWriter(instructionFile)) {
+            // The instructions of the mower are missing
+            writer.write("5 5\n1 2 N\n");
+        }
+        exception = assertThrows(RuntimeException.class, () -> MowerProgramExecutor.readAndExecuteInstructions(instructionFile));
+        assertEquals("Invalid instruction file format", exception.getMessage());
+
+        File missingFile = tempDir.resolve("missing.txt").toFile();
+        exception = assertThrows(RuntimeException.class, () -> MowerProgramExecutor.readAndExecuteInstructions(missingFile));
+        assertEquals("Instructions file not found", exception.getMessage());
+    }
+
+    /**
+     * Test a run traced to a file which cannot be written. Ensure the error is reported as a trace error, and not as
+     * an error of the instructions file.
+     *
+     * @throws IOException if an I/O error occurs while writing the instructions file
+     */
+    @Test
+    void testUnwritableTrace() throws IOException {
+        File instructionFile = tempDir.resolve("instructions5.txt").toFile();
+        try (FileWriter writer = new FileWriter(instructionFile)) {
+            writer.write("5 5\n1 2 N\nGAGAGAGAA\n");
+        }
+        // The parent directory of the trace does not exist
+        File traceFile = tempDir.resolve("missing").resolve("trace.bin").toFile();
+        try {
+            System.setProperty(TraceRecorder.TRACE_PROPERTY, traceFile.getPath());
+            RuntimeException exception = assertThrows(RuntimeException.class,
+                    () -> MowerProgramExecutor.readAndExecuteInstructions(instructionFile, new InMemoryResultSink()));
+            assertEquals("Unable to write trace file", exception.getMessage());
+            exception = assertThrows(RuntimeException.class, () -> TickMowerProgramExecutor.readAndExecuteInstructions(
+                    instructionFile, ForkJoinPool.commonPool(), new InMemoryResultSink()));
+            assertEquals("Unable to write trace file", exception.getMessage());
+        } finally {
+            System.clearProperty(TraceRecorder.TRACE_PROPERTY);
+        }
+    }
+
+    /**
+     * Test the {@link MowerProgramExecutor#readAndExecuteInstructions(ReadableByteChannel, ResultSink)} method with an
+     * input failing while it is read. Ensure the error is reported like a file that cannot be read.
+     */
+    @Test
+    void testReadError() {
+        ReadableByteChannel failing = new ReadableByteChannel() {
+            @Override
+            public int read(ByteBuffer destination) throws IOException {
+                throw new IOException("Connection reset");
+            }
+
+            @Override
+            public boolean isOpen() {
+                return true;
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        RuntimeException exception = assertThrows(RuntimeException.class,
+                () -> MowerProgramExecutor.readAndExecuteInstructions(failing, new InMemoryResultSink()));
+        assertEquals("Unable to read instructions file", exception.getMessage());
+        assertEquals("Connection reset", exception.getCause().getMessage());
+    }
 }
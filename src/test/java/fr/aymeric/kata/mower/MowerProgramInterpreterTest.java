@@ -0,0 +1,146 @@
+package fr.aymeric.kata.mower;
+
+import fr.aymeric.kata.mower.metrics.SimulationMetrics;
+import fr.aymeric.kata.mower.model.Lawn;
+import fr.aymeric.kata.mower.model.Mower;
+import fr.aymeric.kata.mower.model.MowerEngine;
+import fr.aymeric.kata.mower.util.EnumInstruction;
+import fr.aymeric.kata.mower.util.EnumOrientation;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the {@link MowerProgramInterpreter} class.
+ */
+class MowerProgramInterpreterTest {
+    /**
+     * Test the interpreter on a simple program.
+     */
+    @Test
+    void testExecute() {
+        Lawn lawn = new Lawn(5, 5);
+        Mower mower = new Mower(lawn, 1, 2, EnumOrientation.NORTH);
+        lawn.addMower(mower);
+        MowerProgramInterpreter.execute(MowerProgramCompiler.compile("GAGAGAGAA"), mower);
+        assertEquals("1 3 N", mower.getCurrentPosition());
+    }
+
+    /**
+     * Compare the interpreter with the execution of the instructions one by one, on random programs with obstacles.
+     */
+    @Test
+    void testSameResultAsInstructionByInstruction() {
+        Random random = new Random(42);
+        for (int test = 0; test < 200; test++) {
+            StringBuilder instructions = new StringBuilder();
+            int length = random.nextInt(300);
+            for (int i = 0; i < length; i++) {
+                // Favour forward moves to get long runs
+                int key = random.nextInt(8);
+                instructions.append(key == 0 ? 'G' : key == 1 ? 'D' : 'A');
+            }
+            Mower expected = createMowerWithObstacles(new Random(test));
+            for (int i = 0; i < instructions.length(); i++) {
+                expected.executeInstruction(EnumInstruction.fromKey(instructions.charAt(i)));
+            }
+            Mower actual = createMowerWithObstacles(new Random(test));
+            MowerProgramInterpreter.execute(MowerProgramCompiler.compile(instructions), actual);
+            assertEquals(expected.getCurrentPosition(), actual.getCurrentPosition(), instructions.toString());
+        }
+    }
+
+    /**
+     * Compare the interpreter with the execution of the instructions one by one, on random repeated blocks. <br>
+     * The repetitions are skipped once the state of the mower becomes periodic.
+     */
+    @Test
+    void testRepeatedBlockSameResultAsInstructionByInstruction() {
+        Random random = new Random(7);
+        for (int test = 0; test < 200; test++) {
+            StringBuilder block = new StringBuilder();
+            int blockLength = 1 + random.nextInt(12);
+            for (int i = 0; i < blockLength; i++) {
+                int key = random.nextInt(4);
+                block.append(key == 0 ? 'G' : key == 1 ? 'D' : 'A');
+            }
+            StringBuilder instructions = new StringBuilder();
+            int repetitions = 1 + random.nextInt(2000);
+            for (int i = 0; i < repetitions; i++) {
+                instructions.append(block);
+            }
+            instructions.append("AGA");
+            Mower expected = createMowerWithObstacles(new Random(test));
+            for (int i = 0; i < instructions.length(); i++) {
+                expected.executeInstruction(EnumInstruction.fromKey(instructions.charAt(i)));
+            }
+            Mower actual = createMowerWithObstacles(new Random(test));
+            MowerProgramInterpreter.execute(MowerProgramCompiler.compile(instructions), actual);
+            assertEquals(expected.getCurrentPosition(), actual.getCurrentPosition(), block + " x" + repetitions);
+            assertSameBlockedMoves(expected.getLawn(), actual.getLawn());
+        }
+    }
+
+    /**
+     * Compare the metrics of the interpreter with the ones of the {@link MowerEngine} on a repeated block blocked
+     * by the border at each repetition. <br>
+     * The moves blocked during the skipped repetitions are counted.
+     */
+    @Test
+    void testRepeatedBlockMetrics() {
+        StringBuilder instructions = new StringBuilder();
+        for (int i = 0; i < 100000; i++) {
+            instructions.append("AGGGG");
+        }
+        Lawn expectedLawn = new Lawn(5, 5);
+        Mower expected = new Mower(expectedLawn, 0, 0, EnumOrientation.SOUTH);
+        expectedLawn.addMower(expected);
+        byte[] keys = instructions.toString().getBytes(StandardCharsets.US_ASCII);
+        MowerEngine.execute(expected, keys, 0, keys.length);
+        Lawn actualLawn = new Lawn(5, 5);
+        Mower actual = new Mower(actualLawn, 0, 0, EnumOrientation.SOUTH);
+        actualLawn.addMower(actual);
+        MowerProgramInterpreter.execute(MowerProgramCompiler.compile(instructions), actual);
+        assertEquals(expected.getCurrentPosition(), actual.getCurrentPosition());
+        assertEquals(100000, actualLawn.getMetrics().snapshot().getMovesBlockedByBoundary());
+        assertSameBlockedMoves(expectedLawn, actualLawn);
+    }
+
+    /**
+     * Helper method comparing the instructions and the blocked moves recorded in the metrics of two lawns.
+     *
+     * @param expected the lawn of the reference execution
+     * @param actual the lawn of the interpreted execution
+     */
+    private void assertSameBlockedMoves(Lawn expected, Lawn actual) {
+        SimulationMetrics.Snapshot expectedMetrics = expected.getMetrics().snapshot();
+        SimulationMetrics.Snapshot actualMetrics = actual.getMetrics().snapshot();
+        assertEquals(expectedMetrics.getInstructionsExecuted(), actualMetrics.getInstructionsExecuted());
+        assertEquals(expectedMetrics.getMovesBlockedByBoundary(), actualMetrics.getMovesBlockedByBoundary());
+        assertEquals(expectedMetrics.getMovesBlockedByObstacle(), actualMetrics.getMovesBlockedByObstacle());
+        assertEquals(expectedMetrics.getMovesBlockedByMower(), actualMetrics.getMovesBlockedByMower());
+    }
+
+    /**
+     * Helper method creating a mower on a lawn with other mowers as obstacles.
+     *
+     * @param random the random generator placing the mowers, seeded identically for the compared executions
+     * @return the mower to execute programs on
+     */
+    private Mower createMowerWithObstacles(Random random) {
+        Lawn lawn = new Lawn(20, 20);
+        Mower mower = new Mower(lawn, 10, 10, EnumOrientation.NORTH);
+        lawn.addMower(mower);
+        for (int i = 0; i < 10; i++) {
+            int x = random.nextInt(21);
+            int y = random.nextInt(21);
+            if (lawn.isPositionValid(x, y)) {
+                lawn.addMower(new Mower(lawn, x, y, EnumOrientation.NORTH));
+            }
+        }
+        return mower;
+    }
+}
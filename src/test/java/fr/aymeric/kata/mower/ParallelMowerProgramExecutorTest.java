@@ -0,0 +1,219 @@
+package fr.aymeric.kata.mower;
+
+import fr.aymeric.kata.mower.model.CoverageTracker;
+import fr.aymeric.kata.mower.model.Lawn;
+import fr.aymeric.kata.mower.model.Mower;
+import fr.aymeric.kata.mower.output.InMemoryResultSink;
+import fr.aymeric.kata.mower.trace.TraceRecorder;
+import fr.aymeric.kata.mower.util.EnumOrientation;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the {@link ParallelMowerProgramExecutor} class.
+ */
+class ParallelMowerProgramExecutorTest {
+    /**
+     * Temporary directory for the test instructions file.
+     */
+    @TempDir
+    Path tempDir;
+
+    /**
+     * Test the grouping of mowers whose reachable boxes overlap.
+     */
+    @Test
+    void testFindIndependentGroups() {
+        List<ParallelMowerProgramExecutor.ParsedMower> mowers = new ArrayList<>();
+        // Mowers 0 and 2 can reach the same cells, mower 1 is far away, mower 3 overlaps with mower 2
+        mowers.add(parsedMower(0, 0, "AA"));
+        mowers.add(parsedMower(50, 50, "AAGA"));
+        mowers.add(parsedMower(3, 0, "A"));
+        mowers.add(parsedMower(5, 1, "DDA"));
+        mowers.add(parsedMower(20, 0, ""));
+        List<int[]> groups = ParallelMowerProgramExecutor.findIndependentGroups(mowers, 100, 100);
+        assertEquals(3, groups.size());
+        assertArrayEquals(new int[]{0, 2, 3}, groups.get(0));
+        assertArrayEquals(new int[]{1}, groups.get(1));
+        assertArrayEquals(new int[]{4}, groups.get(2));
+    }
+
+    /**
+     * Test the grouping of mowers sharing a column or a row, where the sweep must be done on the other axis.
+     */
+    @Test
+    void testFindIndependentGroupsOnALine() {
+        List<ParallelMowerProgramExecutor.ParsedMower> column = new ArrayList<>();
+        List<ParallelMowerProgramExecutor.ParsedMower> row = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            column.add(parsedMower(5, 3 * i, "A"));
+            row.add(parsedMower(3 * i, 5, "A"));
+        }
+        // Mower 10 can reach cells of mowers 9 and 11
+        column.set(10, parsedMower(5, 30, "AA"));
+        row.set(10, parsedMower(30, 5, "AA"));
+        for (List<ParallelMowerProgramExecutor.ParsedMower> mowers : Arrays.asList(column, row)) {
+            List<int[]> groups = ParallelMowerProgramExecutor.findIndependentGroups(mowers, 3000, 3000);
+            assertEquals(998, groups.size());
+            assertArrayEquals(new int[]{9, 10, 11}, groups.get(9));
+            assertArrayEquals(new int[]{12}, groups.get(10));
+        }
+    }
+
+    /**
+     * Compare the parallel execution with the sequential one on a random file with many interacting mowers.
+     *
+     * @throws IOException if an I/O error occurs while writing the instructions file
+     */
+    @Test
+    void testSameResultAsSequential() throws IOException {
+        File instructionFile = tempDir.resolve("instructions.txt").toFile();
+        Random random = new Random(99);
+        try (FileWriter writer = new FileWriter(instructionFile)) {
+            writer.write("200 200\n");
+            // Mowers start on distinct columns, with this seed none starts on the final position of a previous one
+            for (int x = 0; x <= 200; x += 2) {
+                int y = random.nextInt(201);
+                writer.write(x + " " + y + " " + "NESW".charAt(random.nextInt(4)) + "\n");
+                int length = 1 + random.nextInt(30);
+                for (int j = 0; j < length; j++) {
+                    writer.write("AAGD".charAt(random.nextInt(4)));
+                }
+                writer.write("D\n");
+            }
+        }
+        Lawn expected = MowerProgramExecutor.readAndExecuteInstructions(instructionFile, new InMemoryResultSink());
+        Lawn actual = ParallelMowerProgramExecutor.readAndExecuteInstructions(instructionFile, new ForkJoinPool(4), new InMemoryResultSink());
+        assertEquals(101, actual.getMowers().size());
+        for (int i = 0; i < expected.getMowers().size(); i++) {
+            assertEquals(expected.getMowers().get(i).getCurrentPosition(), actual.getMowers().get(i).getCurrentPosition());
+        }
+    }
+
+    /**
+     * Test the coverage of a parallel execution is the one of the sequential execution, and the trace is rejected.
+     *
+     * @throws IOException if an I/O error occurs while writing the instructions file
+     */
+    @Test
+    void testCoverageAndTrace() throws IOException {
+        File instructionFile = tempDir.resolve("instructions4.txt").toFile();
+        try (FileWriter writer = new FileWriter(instructionFile)) {
+            writer.write("50 50\n1 2 N\nAAAAADAAAA\n3 1 E\nAAGAAAA\n40 40 S\nAAAAAAAAAAAAAAAGAAAA\n");
+        }
+        try {
+            System.setProperty(CoverageTracker.COVERAGE_PROPERTY, "true");
+            CoverageTracker expected = MowerProgramExecutor.readAndExecuteInstructions(instructionFile,
+                    new InMemoryResultSink()).getCoverage();
+            CoverageTracker actual = ParallelMowerProgramExecutor.readAndExecuteInstructions(instructionFile,
+                    new ForkJoinPool(2), new InMemoryResultSink()).getCoverage();
+            assertNotNull(actual);
+            assertEquals(expected.getCoveredCells(), actual.getCoveredCells());
+            for (int mower = 0; mower < 3; mower++) {
+                assertEquals(expected.getCoveredCells(mower), actual.getCoveredCells(mower));
+            }
+            assertTrue(actual.isCovered(1, 7));
+            assertTrue(actual.isCovered(44, 25));
+
+            System.setProperty(TraceRecorder.TRACE_PROPERTY, tempDir.resolve("trace.bin").toString());
+            assertThrows(UnsupportedOperationException.class,
+                    () -> ParallelMowerProgramExecutor.readAndExecuteInstructions(instructionFile));
+        } finally {
+            System.clearProperty(CoverageTracker.COVERAGE_PROPERTY);
+            System.clearProperty(TraceRecorder.TRACE_PROPERTY);
+        }
+    }
+
+    /**
+     * Test the parallel execution with a mower starting on the final position of a previous mower.
+     * Ensure an {@link IllegalArgumentException} is thrown.
+     *
+     * @throws IOException if an I/O error occurs while writing the instructions file
+     */
+    @Test
+    void testInvalidStartPosition() throws IOException {
+        File instructionFile = tempDir.resolve("instructions2.txt").toFile();
+        try (FileWriter writer = new FileWriter(instructionFile)) {
+            writer.write("5 5\n1 1 N\nA\n1 2 N\nD\n");
+        }
+        assertThrows(IllegalArgumentException.class, () -> ParallelMowerProgramExecutor.readAndExecuteInstructions(instructionFile));
+    }
+
+    /**
+     * Test the parallel execution of a file invalid partway through writes the same positions and throws the same
+     * error as the sequential execution.
+     *
+     * @throws IOException if an I/O error occurs while writing the instructions file
+     */
+    @Test
+    void testSameErrorAsSequential() throws IOException {
+        String[] contents = {
+                // Invalid position of mower 2, invalid instruction of mower 3
+                "5 5\n1 2 N\nGAGAGAGAA\n6 6 E\nAADAADADDA\n2 2 N\nAAX\n",
+                // Invalid instruction of mower 3
+                "5 5\n1 2 N\nGAGAGAGAA\n3 3 E\nAADAADADDA\n2 2 N\nAAX\n0 0 N\nA\n",
+                // Invalid orientation of mower 2
+                "5 5\n1 2 N\nGAGAGAGAA\n3 3 Z\nAADAADADDA\n",
+                // Truncated file
+                "5 5\n1 2 N\nGAGAGAGAA\n3 3 E\nAADAADADDA\n2 2",
+        };
+        for (int i = 0; i < contents.length; i++) {
+            File instructionFile = tempDir.resolve("invalid" + i + ".txt").toFile();
+            try (FileWriter writer = new FileWriter(instructionFile)) {
+                writer.write(contents[i]);
+            }
+            InMemoryResultSink expectedSink = new InMemoryResultSink();
+            RuntimeException expected = assertThrows(RuntimeException.class,
+                    () -> MowerProgramExecutor.readAndExecuteInstructions(instructionFile, expectedSink));
+            InMemoryResultSink actualSink = new InMemoryResultSink();
+            RuntimeException actual = assertThrows(RuntimeException.class,
+                    () -> ParallelMowerProgramExecutor.readAndExecuteInstructions(instructionFile,
+                            new ForkJoinPool(2), actualSink));
+            assertEquals(expected.getClass(), actual.getClass(), contents[i]);
+            assertEquals(expected.getMessage(), actual.getMessage(), contents[i]);
+            assertEquals(expectedSink.getContent(), actualSink.getContent(), contents[i]);
+            assertFalse(actualSink.getContent().isEmpty());
+        }
+    }
+
+    /**
+     * Test the parallel execution on the sample of the sequential executor tests.
+     *
+     * @throws IOException if an I/O error occurs while writing the instructions file
+     */
+    @Test
+    void testReadAndExecuteInstructions() throws IOException {
+        File instructionFile = tempDir.resolve("instructions3.txt").toFile();
+        try (FileWriter writer = new FileWriter(instructionFile)) {
+            writer.write("5 5\n1 2 N\nGAGAGAGAA\n3 3 E\nAADAADADDA\n");
+        }
+        Lawn lawn = ParallelMowerProgramExecutor.readAndExecuteInstructions(instructionFile);
+        List<Mower> mowers = lawn.getMowers();
+        assertEquals("1 3 N", mowers.get(0).getCurrentPosition());
+        assertEquals("5 1 E", mowers.get(1).getCurrentPosition());
+    }
+
+    /**
+     * Helper method to create a parsed mower facing north.
+     *
+     * @param x the initial X position
+     * @param y the initial Y position
+     * @param instructions the instructions of the mower
+     * @return the parsed mower
+     */
+    private ParallelMowerProgramExecutor.ParsedMower parsedMower(int x, int y, String instructions) {
+        return new ParallelMowerProgramExecutor.ParsedMower(x, y, EnumOrientation.NORTH, MowerProgramCompiler.compile(instructions));
+    }
+}
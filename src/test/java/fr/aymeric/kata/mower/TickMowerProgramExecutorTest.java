@@ -0,0 +1,70 @@
+package fr.aymeric.kata.mower;
+
+import fr.aymeric.kata.mower.model.Lawn;
+import fr.aymeric.kata.mower.output.InMemoryResultSink;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the {@link TickMowerProgramExecutor} class.
+ */
+class TickMowerProgramExecutorTest {
+    /**
+     * Temporary directory for the test instructions file.
+     */
+    @TempDir
+    Path tempDir;
+
+    /**
+     * Test the simultaneous execution on the sample of the sequential executor tests, whose mowers never meet.
+     *
+     * @throws IOException if an I/O error occurs while writing the instructions file
+     */
+    @Test
+    void testReadAndExecuteInstructions() throws IOException {
+        File instructionFile = tempDir.resolve("instructions.txt").toFile();
+        try (FileWriter writer = new FileWriter(instructionFile)) {
+            writer.write("5 5\n1 2 N\nGAGAGAGAA\n3 3 E\nAADAADADDA\n");
+        }
+        InMemoryResultSink sink = new InMemoryResultSink();
+        Lawn lawn = TickMowerProgramExecutor.readAndExecuteInstructions(instructionFile, ForkJoinPool.commonPool(), sink);
+        assertEquals("1 3 N", lawn.getMowers().get(0).getCurrentPosition());
+        assertEquals("5 1 E", lawn.getMowers().get(1).getCurrentPosition());
+        assertEquals("Mower 1 position: 1 3 N\nMower 2 position: 5 1 E\n", sink.getContent());
+    }
+
+    /**
+     * Test all the mowers are placed before the first tick: a mower blocks a previous one moving to its start
+     * position, and two mowers cannot start on the same position.
+     *
+     * @throws IOException if an I/O error occurs while writing the instructions file
+     */
+    @Test
+    void testStartPositions() throws IOException {
+        File instructionFile = tempDir.resolve("instructions2.txt").toFile();
+        try (FileWriter writer = new FileWriter(instructionFile)) {
+            writer.write("5 5\n1 1 N\nA\n1 2 N\nD\n");
+        }
+        Lawn lawn = TickMowerProgramExecutor.readAndExecuteInstructions(instructionFile, ForkJoinPool.commonPool(),
+                new InMemoryResultSink());
+        assertEquals("1 1 N", lawn.getMowers().get(0).getCurrentPosition());
+        assertEquals("1 2 E", lawn.getMowers().get(1).getCurrentPosition());
+
+        File invalidFile = tempDir.resolve("instructions3.txt").toFile();
+        try (FileWriter writer = new FileWriter(invalidFile)) {
+            writer.write("5 5\n1 1 N\nA\n1 1 N\nD\n");
+        }
+        assertThrows(IllegalArgumentException.class, () -> TickMowerProgramExecutor.readAndExecuteInstructions(
+                invalidFile, ForkJoinPool.commonPool(), new InMemoryResultSink()));
+        assertThrows(RuntimeException.class, () -> TickMowerProgramExecutor.readAndExecuteInstructions(
+                tempDir.resolve("missing.txt").toFile(), ForkJoinPool.commonPool(), new InMemoryResultSink()));
+    }
+}
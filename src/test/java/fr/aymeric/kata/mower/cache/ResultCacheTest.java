@@ -0,0 +1,173 @@
+package fr.aymeric.kata.mower.cache;
+
+import fr.aymeric.kata.mower.MowerProgramExecutor;
+import fr.aymeric.kata.mower.metrics.SimulationMetrics;
+import fr.aymeric.kata.mower.model.Lawn;
+import fr.aymeric.kata.mower.output.InMemoryResultSink;
+import fr.aymeric.kata.mower.util.EnumOrientation;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the {@link ResultCache} class.
+ */
+class ResultCacheTest {
+    /**
+     * Temporary directory for the disk tier and the instructions files.
+     */
+    @TempDir
+    Path tempDir;
+
+    /**
+     * Test the memory tier keeps the most recently used results within its size.
+     */
+    @Test
+    void testMemoryTier() {
+        CachedResult result = result(1);
+        ResultCache cache = new ResultCache(2 * result.getWeight());
+        cache.put("a", result);
+        cache.put("b", result(1));
+        assertSame(result, cache.get("a"));
+        cache.put("c", result(1));
+        assertNull(cache.get("b"));
+        assertNotNull(cache.get("a"));
+        assertNotNull(cache.get("c"));
+
+        ResultCache.Stats stats = cache.getStats();
+        assertEquals(3, stats.getMemoryHits());
+        assertEquals(1, stats.getMisses());
+        assertEquals(1, stats.getEvictions());
+        assertEquals(2, stats.getMemoryEntries());
+        assertEquals(0.75, stats.getHitRatio());
+    }
+
+    /**
+     * Test the disk tier survives a new cache, evicts the least recently used files, and ignores invalid files.
+     *
+     * @throws IOException if the directory cannot be used
+     */
+    @Test
+    void testDiskTier() throws IOException {
+        Path directory = tempDir.resolve("cache");
+        ResultCache cache = new ResultCache(0, directory, 1000);
+        cache.put("small", result(2));
+        cache.put("large", result(70));
+        assertEquals(2, cache.getStats().getDiskEntries());
+        cache.put("other", result(10));
+        assertEquals(2, cache.getStats().getDiskEntries());
+        assertFalse(Files.exists(directory.resolve("small.result")));
+
+        ResultCache reloaded = new ResultCache(1 << 20, directory, 1000);
+        CachedResult large = reloaded.get("large");
+        assertNotNull(large);
+        assertEquals(70, large.getMowerCount());
+        assertSame(large, reloaded.get("large"));
+        assertEquals(1, reloaded.getStats().getDiskHits());
+        assertEquals(1, reloaded.getStats().getMemoryHits());
+
+        Files.write(directory.resolve("other.result"), new byte[]{1, 2, 3});
+        assertNull(reloaded.get("other"));
+        assertEquals(1, reloaded.getStats().getDiskEntries());
+        assertFalse(Files.exists(directory.resolve("other.result")));
+    }
+
+    /**
+     * Test a result which cannot be moved to its file of the disk tier leaves no temporary file behind.
+     *
+     * @throws IOException if the directory cannot be used
+     */
+    @Test
+    void testDiskWriteFailure() throws IOException {
+        Path directory = tempDir.resolve("failure");
+        ResultCache cache = new ResultCache(1 << 20, directory, 1000);
+        // A non empty directory cannot be replaced by the file of the result
+        Files.createDirectories(directory.resolve("blocked.result").resolve("content"));
+        cache.put("blocked", result(2));
+        assertEquals(0, cache.getStats().getDiskEntries());
+        assertNotNull(cache.get("blocked"));
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(1, files.count());
+        }
+    }
+
+    /**
+     * Test a second run of the same content is answered from the cache, without executing it.
+     *
+     * @throws IOException if an I/O error occurs while writing the instructions files
+     */
+    @Test
+    void testExecutorHit() throws IOException {
+        File first = tempDir.resolve("first.txt").toFile();
+        File second = tempDir.resolve("second.txt").toFile();
+        byte[] content = "5 5\n1 2 N\nGAGAGAGAA\n3 3 E\nAADAADADDA\n".getBytes(StandardCharsets.US_ASCII);
+        Files.write(first.toPath(), content);
+        Files.write(second.toPath(), content);
+        assertEquals(ResultCache.key(content), ResultCache.key(first));
+
+        ResultCache cache = new ResultCache(1 << 20);
+        InMemoryResultSink expected = new InMemoryResultSink();
+        MowerProgramExecutor.readAndExecuteInstructions(first, expected, cache);
+        SimulationMetrics.Snapshot start = SimulationMetrics.get().snapshot();
+        InMemoryResultSink actual = new InMemoryResultSink();
+        Lawn lawn = MowerProgramExecutor.readAndExecuteInstructions(second, actual, cache);
+        assertEquals(0, SimulationMetrics.get().snapshot().since(start).getMowersProcessed());
+        assertEquals(expected.getContent(), actual.getContent());
+        assertEquals("5 1 E", lawn.getMowers().get(1).getCurrentPosition());
+        assertFalse(lawn.isPositionFree(1, 3));
+        assertEquals(1, cache.getStats().getMemoryHits());
+        assertEquals(1, cache.getStats().getMisses());
+
+        assertThrows(RuntimeException.class, () -> MowerProgramExecutor.readAndExecuteInstructions(
+                tempDir.resolve("missing.txt").toFile(), new InMemoryResultSink(), cache));
+    }
+
+    /**
+     * Test the lawn of a hit keeps the obstacles of the run, from the memory and the disk tiers.
+     *
+     * @throws IOException if an I/O error occurs while writing the instructions file
+     */
+    @Test
+    void testObstacles() throws IOException {
+        File instructions = tempDir.resolve("obstacles.txt").toFile();
+        Files.write(instructions.toPath(), "5 5\nR 3 0 3 2\nO 1 4\n0 1 E\nAAAAA\n".getBytes(StandardCharsets.US_ASCII));
+        Path directory = tempDir.resolve("obstacles");
+        ResultCache cache = new ResultCache(1 << 20, directory, 1 << 20);
+        Lawn executed = MowerProgramExecutor.readAndExecuteInstructions(instructions, new InMemoryResultSink(), cache);
+        Lawn fromMemory = MowerProgramExecutor.readAndExecuteInstructions(instructions, new InMemoryResultSink(), cache);
+        Lawn fromDisk = new ResultCache(1 << 20, directory, 1 << 20).get(ResultCache.key(instructions))
+                .replay(new InMemoryResultSink());
+        for (Lawn lawn : new Lawn[] {fromMemory, fromDisk}) {
+            for (int x = 0; x <= 5; x++) {
+                for (int y = 0; y <= 5; y++) {
+                    assertEquals(executed.isObstacle(x, y), lawn.isObstacle(x, y));
+                    assertEquals(executed.isPositionValid(x, y), lawn.isPositionValid(x, y));
+                }
+            }
+        }
+        assertTrue(fromDisk.isObstacle(3, 1));
+        assertEquals("2 1 E", fromDisk.getMowers().get(0).getCurrentPosition());
+    }
+
+    /**
+     * Helper method to create a result with mowers on the first row of a lawn.
+     *
+     * @param mowerCount the number of mowers
+     * @return the result
+     */
+    private static CachedResult result(int mowerCount) {
+        Lawn lawn = new Lawn(100, 100);
+        for (int x = 0; x < mowerCount; x++) {
+            lawn.addMower(x, 0, EnumOrientation.EAST);
+        }
+        return CachedResult.of(lawn);
+    }
+}
@@ -0,0 +1,170 @@
+package fr.aymeric.kata.mower.io;
+
+import fr.aymeric.kata.mower.model.Lawn;
+import fr.aymeric.kata.mower.model.Mower;
+import fr.aymeric.kata.mower.util.EnumOrientation;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.InputMismatchException;
+import java.util.NoSuchElementException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the {@link BinaryInstructionConverter} and {@link BinaryInstructionReader} classes.
+ */
+class BinaryInstructionReaderTest {
+    /**
+     * Temporary directory for the test files.
+     */
+    @TempDir
+    Path tempDir;
+
+    /**
+     * Test converting a text file and executing the binary file, including long programs read through small windows.
+     *
+     * @throws IOException if the files cannot be written or read
+     */
+    @Test
+    void testConvertAndExecute() throws IOException {
+        StringBuilder longProgram = new StringBuilder();
+        for (int i = 0; i < 10001; i++) {
+            longProgram.append(i % 3 == 0 ? 'D' : 'A');
+        }
+        File binaryFile = convert("5 5\n1 2 N\nGAGAGAGAA\n3 3 E\nAADAADADDA\n0 0 S\n" + longProgram + "\n");
+        assertTrue(BinaryInstructionReader.isBinaryFile(binaryFile));
+
+        try (BinaryInstructionReader reader = openWithWindow(binaryFile, 7)) {
+            Lawn lawn = reader.createLawn();
+            assertEquals(5, lawn.getSizeX());
+            assertEquals(5, lawn.getSizeY());
+            assertTrue(reader.hasNextMower());
+            Mower first = reader.nextMower(lawn);
+            assertEquals("1 2 N", first.getCurrentPosition());
+            reader.executeInstructions(first);
+            assertEquals("1 3 N", first.getCurrentPosition());
+            Mower second = reader.nextMower(lawn);
+            reader.executeInstructions(second);
+            assertEquals("5 1 E", second.getCurrentPosition());
+            Mower third = reader.nextMower(lawn);
+            assertEquals(EnumOrientation.SOUTH, third.getOrientation());
+            reader.executeInstructions(third);
+            assertEquals("0 1 N", third.getCurrentPosition());
+            assertFalse(reader.hasNextMower());
+            assertThrows(NoSuchElementException.class, () -> reader.nextMower(lawn));
+        }
+    }
+
+    /**
+     * Test skipping mower records, with or without reading them.
+     *
+     * @throws IOException if the files cannot be written or read
+     */
+    @Test
+    void testSkipMowers() throws IOException {
+        File binaryFile = convert("5 5\n1 2 N\nGAGAGAGAA\n3 3 E\nAADAADADDA\n4 4 W\nA");
+        try (BinaryInstructionReader reader = BinaryInstructionReader.open(binaryFile)) {
+            Lawn lawn = reader.createLawn();
+            reader.skipMower();
+            // The instructions of this mower are never executed
+            reader.nextMower(lawn);
+            Mower last = reader.nextMower(lawn);
+            reader.executeInstructions(last);
+            assertEquals("3 4 W", last.getCurrentPosition());
+        }
+    }
+
+    /**
+     * Test the conversion of invalid text files.
+     */
+    @Test
+    void testConvertInvalidFiles() {
+        assertThrows(RuntimeException.class, () -> convert("5 5\n1 2 N\nGAGAX"));
+        assertThrows(RuntimeException.class, () -> convert("5 5\n1 2 X\nGAGA"));
+        RuntimeException exception = assertThrows(RuntimeException.class, () -> convert("5 5\n1 N\nGAGA"));
+        assertEquals("Invalid instruction file format", exception.getMessage());
+        exception = assertThrows(RuntimeException.class,
+                () -> BinaryInstructionConverter.convert(tempDir.resolve("missing.txt").toFile(), tempDir.resolve("out.bin").toFile()));
+        assertEquals("Instructions file not found", exception.getMessage());
+    }
+
+    /**
+     * Test reading invalid binary files.
+     *
+     * @throws IOException if the files cannot be written
+     */
+    @Test
+    void testReadInvalidFiles() throws IOException {
+        Path textFile = tempDir.resolve("text.txt");
+        Files.write(textFile, "5 5\n1 2 N\nGA".getBytes(StandardCharsets.US_ASCII));
+        assertFalse(BinaryInstructionReader.isBinaryFile(textFile.toFile()));
+        assertThrows(InputMismatchException.class, () -> BinaryInstructionReader.open(textFile.toFile()));
+
+        byte[] valid = Files.readAllBytes(convert("5 5\n1 2 N\nGAGAGAGAA").toPath());
+        Path truncated = tempDir.resolve("truncated.bin");
+        Files.write(truncated, Arrays.copyOf(valid, valid.length - 1));
+        try (BinaryInstructionReader reader = BinaryInstructionReader.open(truncated.toFile())) {
+            assertTrue(reader.hasNextMower());
+            assertThrows(NoSuchElementException.class, () -> reader.nextMower(reader.createLawn()));
+        }
+
+        byte[] newerVersion = valid.clone();
+        newerVersion[BinaryInstructionFormat.MAGIC.length]++;
+        Path newer = tempDir.resolve("newer.bin");
+        Files.write(newer, newerVersion);
+        assertThrows(InputMismatchException.class, () -> BinaryInstructionReader.open(newer.toFile()));
+    }
+
+    /**
+     * Test the encoding of varints.
+     */
+    @Test
+    void testVarints() {
+        assertEquals(0, BinaryInstructionFormat.zigzag(0));
+        assertEquals(1, BinaryInstructionFormat.zigzag(-1));
+        assertEquals(2, BinaryInstructionFormat.zigzag(1));
+        for (int value : new int[]{0, 1, -1, 63, -64, 64, Integer.MAX_VALUE, Integer.MIN_VALUE}) {
+            assertEquals(value, BinaryInstructionFormat.unzigzag(BinaryInstructionFormat.zigzag(value)));
+        }
+        assertEquals(1, BinaryInstructionFormat.unsignedVarintLength(127));
+        assertEquals(2, BinaryInstructionFormat.unsignedVarintLength(128));
+        assertEquals(BinaryInstructionFormat.MAX_VARINT_LENGTH, BinaryInstructionFormat.unsignedVarintLength(-1L));
+        assertEquals(5, BinaryInstructionFormat.signedVarintLength(Integer.MIN_VALUE));
+    }
+
+    /**
+     * Helper method converting text instructions to a binary file.
+     *
+     * @param text the text instructions
+     * @return the binary file
+     * @throws IOException if the text file cannot be written
+     */
+    private File convert(String text) throws IOException {
+        Path textFile = Files.createTempFile(tempDir, "instructions", ".txt");
+        Files.write(textFile, text.getBytes(StandardCharsets.US_ASCII));
+        Path binaryFile = Files.createTempFile(tempDir, "instructions", ".bin");
+        BinaryInstructionConverter.convert(textFile.toFile(), binaryFile.toFile());
+        return binaryFile.toFile();
+    }
+
+    /**
+     * Helper method opening a reader with a custom mapping window.
+     *
+     * @param file the binary file
+     * @param mappingWindow the size of the memory-mapped windows
+     * @return the reader
+     * @throws IOException if the file cannot be opened
+     */
+    private static BinaryInstructionReader openWithWindow(File file, int mappingWindow) throws IOException {
+        return new BinaryInstructionReader(FileChannel.open(file.toPath(), StandardOpenOption.READ), mappingWindow);
+    }
+}
@@ -0,0 +1,182 @@
+package fr.aymeric.kata.mower.io;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.InputMismatchException;
+import java.util.NoSuchElementException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the {@link InstructionReader} class.
+ */
+class InstructionReaderTest {
+    /**
+     * Temporary directory for the test files.
+     */
+    @TempDir
+    Path tempDir;
+
+    /**
+     * Test reading ints, characters and tokens separated by various whitespaces.
+     *
+     * @throws IOException if the reader cannot be created
+     */
+    @Test
+    void testReadTokens() throws IOException {
+        try (InstructionReader reader = readerOf("  5 -12\r\n+3\tNorth\n\nGDA \n2147483647 -2147483648")) {
+            assertTrue(reader.hasNext());
+            assertEquals(5, reader.nextInt());
+            assertEquals(-12, reader.nextInt());
+            assertEquals(3, reader.nextInt());
+            assertEquals('N', reader.nextChar());
+            int length = reader.nextToken();
+            assertEquals("GDA", new String(reader.getToken(), 0, length, StandardCharsets.US_ASCII));
+            assertEquals(Integer.MAX_VALUE, reader.nextInt());
+            assertEquals(Integer.MIN_VALUE, reader.nextInt());
+            assertFalse(reader.hasNext());
+            assertThrows(NoSuchElementException.class, reader::nextInt);
+            assertThrows(NoSuchElementException.class, reader::nextChar);
+            assertThrows(NoSuchElementException.class, reader::nextToken);
+        }
+    }
+
+    /**
+     * Test reading invalid ints.
+     * Ensure an {@link InputMismatchException} is thrown, like with a {@link java.util.Scanner}.
+     *
+     * @throws IOException if the reader cannot be created
+     */
+    @Test
+    void testReadInvalidInts() throws IOException {
+        assertThrows(InputMismatchException.class, () -> readerOf("N").nextInt());
+        assertThrows(InputMismatchException.class, () -> readerOf("12a").nextInt());
+        assertThrows(InputMismatchException.class, () -> readerOf("-").nextInt());
+        assertThrows(InputMismatchException.class, () -> readerOf("2147483648").nextInt());
+        assertThrows(InputMismatchException.class, () -> readerOf("-2147483649").nextInt());
+    }
+
+    /**
+     * Test reading tokens longer than the token buffer and than a chunk of the input.
+     *
+     * @throws IOException if the reader cannot be created
+     */
+    @Test
+    void testReadLongToken() throws IOException {
+        StringBuilder instructions = new StringBuilder();
+        for (int i = 0; i < InstructionReader.CHUNK_SIZE * 3; i++) {
+            instructions.append("GDA".charAt(i % 3));
+        }
+        try (InstructionReader reader = readerOf("1 " + instructions + " 2")) {
+            assertEquals(1, reader.nextInt());
+            int length = reader.nextToken();
+            assertEquals(instructions.toString(), new String(reader.getToken(), 0, length, StandardCharsets.US_ASCII));
+            assertEquals(2, reader.nextInt());
+        }
+    }
+
+    /**
+     * Test streaming the bytes of tokens.
+     *
+     * @throws IOException if the reader cannot be created
+     */
+    @Test
+    void testStreamToken() throws IOException {
+        try (InstructionReader reader = readerOf(" GDA\nAG")) {
+            reader.startToken();
+            assertEquals('G', reader.nextTokenByte());
+            assertEquals('D', reader.nextTokenByte());
+            assertEquals('A', reader.nextTokenByte());
+            assertEquals(-1, reader.nextTokenByte());
+            assertEquals(-1, reader.nextTokenByte());
+            reader.startToken();
+            assertEquals('A', reader.nextTokenByte());
+            assertEquals('G', reader.nextTokenByte());
+            assertEquals(-1, reader.nextTokenByte());
+            assertThrows(NoSuchElementException.class, reader::startToken);
+        }
+    }
+
+    /**
+     * Test reading a memory-mapped file.
+     *
+     * @throws IOException if the test file cannot be written or read
+     */
+    @Test
+    void testReadMappedFile() throws IOException {
+        Path file = tempDir.resolve("instructions.txt");
+        Files.write(file, "10 10\n1 2 N\nGAGA\n".getBytes(StandardCharsets.US_ASCII));
+        try (InstructionReader reader = new InstructionReader(FileChannel.open(file, StandardOpenOption.READ), 0)) {
+            assertEquals(10, reader.nextInt());
+            assertEquals(10, reader.nextInt());
+            assertEquals(1, reader.nextInt());
+            assertEquals(2, reader.nextInt());
+            assertEquals('N', reader.nextChar());
+            assertEquals(4, reader.nextToken());
+            assertFalse(reader.hasNext());
+        }
+    }
+
+    /**
+     * Test the line numbers and positions of the reader, and the line given in the format errors.
+     *
+     * @throws IOException if the test file cannot be written or read
+     */
+    @Test
+    void testLineNumbers() throws IOException {
+        try (InstructionReader reader = readerOf("5 5\n\n1 2 N\r\nGA\n3 X")) {
+            assertEquals(1, reader.getLineNumber());
+            reader.nextInt();
+            reader.nextInt();
+            assertEquals(3, reader.getPosition());
+            assertEquals('1', reader.peekToken());
+            assertEquals(3, reader.getLineNumber());
+            assertEquals(5, reader.getPosition());
+            reader.nextInt();
+            reader.nextInt();
+            reader.nextChar();
+            reader.nextToken();
+            assertEquals(3, reader.nextInt());
+            InputMismatchException exception = assertThrows(InputMismatchException.class, reader::nextInt);
+            assertEquals("Expected an int at line 5", exception.getMessage());
+        }
+        Path file = tempDir.resolve("lines.txt");
+        Files.write(file, "# 10 10\n1 2 N\n".getBytes(StandardCharsets.US_ASCII));
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            channel.position(2);
+            InstructionReader reader = new InstructionReader(channel, 0);
+            reader.setLineNumber(7);
+            assertEquals(2, reader.getPosition());
+            reader.nextInt();
+            assertEquals(4, reader.getPosition());
+            reader.nextInt();
+            reader.nextInt();
+            reader.nextInt();
+            reader.nextChar();
+            assertEquals(13, reader.getPosition());
+            NoSuchElementException exception = assertThrows(NoSuchElementException.class, reader::nextToken);
+            assertEquals("Expected a token but reached the end of the input at line 9", exception.getMessage());
+        }
+    }
+
+    /**
+     * Helper method to create a reader on a string.
+     *
+     * @param input the content to read
+     * @return a reader of the content
+     * @throws IOException if the reader cannot be created
+     */
+    private static InstructionReader readerOf(String input) throws IOException {
+        byte[] bytes = input.getBytes(StandardCharsets.US_ASCII);
+        return new InstructionReader(Channels.newChannel(new ByteArrayInputStream(bytes)));
+    }
+}
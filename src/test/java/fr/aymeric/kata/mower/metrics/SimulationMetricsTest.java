@@ -0,0 +1,97 @@
+package fr.aymeric.kata.mower.metrics;
+
+import fr.aymeric.kata.mower.model.Lawn;
+import fr.aymeric.kata.mower.model.Mower;
+import fr.aymeric.kata.mower.model.MowerEngine;
+import fr.aymeric.kata.mower.model.occupancy.ObstacleIndex;
+import fr.aymeric.kata.mower.util.EnumInstruction;
+import fr.aymeric.kata.mower.util.EnumOrientation;
+import org.junit.jupiter.api.Test;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the {@link SimulationMetrics} class.
+ */
+class SimulationMetricsTest {
+    /**
+     * Test the counting of instructions and blocked moves, by reason.
+     */
+    @Test
+    void testCountBlockedMoves() {
+        SimulationMetrics metrics = SimulationMetrics.get();
+        SimulationMetrics.Snapshot start = metrics.snapshot();
+        Lawn lawn = new Lawn(5, 5);
+        lawn.setObstacles(new ObstacleIndex.Builder().addCell(4, 5).build());
+        Mower mower = new Mower(lawn, 5, 5, EnumOrientation.NORTH);
+        lawn.addMower(mower);
+        lawn.addMower(new Mower(lawn, 5, 4, EnumOrientation.NORTH));
+        // Blocked by the boundary, then by the other mower
+        mower.executeInstruction(EnumInstruction.FRONT);
+        mower.executeInstruction(EnumInstruction.RIGHT);
+        mower.executeInstruction(EnumInstruction.RIGHT);
+        mower.executeInstruction(EnumInstruction.FRONT);
+        // Each remaining move of a blocked run is counted
+        assertEquals(0, mower.moveForward(3));
+        // Blocked by the boundary, then by the obstacle
+        byte[] keys = "GADDA".getBytes(StandardCharsets.US_ASCII);
+        MowerEngine.execute(mower, keys, 0, keys.length);
+        // The moves of the mower are recorded once the metrics of its lawn are read
+        assertEquals(0, mower.moveForward(2));
+        assertEquals(1, metrics.snapshot().since(start).getMovesBlockedByObstacle());
+        lawn.getMetrics();
+
+        SimulationMetrics.Snapshot run = metrics.snapshot().since(start);
+        assertEquals(9, run.getInstructionsExecuted());
+        assertEquals(2, run.getMovesBlockedByBoundary());
+        assertEquals(3, run.getMovesBlockedByObstacle());
+        assertEquals(4, run.getMovesBlockedByMower());
+        assertTrue(run.summary().contains("9 moves blocked (2 by the boundary, 3 by an obstacle, 4 by a mower)"));
+    }
+
+    /**
+     * Test the metrics of a run only count its own mowers, and are added to the metrics of the JVM.
+     */
+    @Test
+    void testRunMetrics() {
+        SimulationMetrics.Snapshot start = SimulationMetrics.get().snapshot();
+        Lawn lawn = new Lawn(5, 5);
+        Lawn otherLawn = new Lawn(5, 5);
+        RunMetrics shared = new RunMetrics();
+        lawn.setMetrics(shared);
+        byte[] keys = "AAAAAAG".getBytes(StandardCharsets.US_ASCII);
+        lawn.getFleet().execute(lawn.addMower(0, 3, EnumOrientation.NORTH), keys, 0, keys.length);
+        otherLawn.getFleet().execute(otherLawn.addMower(0, 0, EnumOrientation.EAST), keys, 0, 3);
+
+        assertSame(shared, lawn.getMetrics());
+        SimulationMetrics.Snapshot run = shared.snapshot();
+        assertEquals(7, run.getInstructionsExecuted());
+        assertEquals(4, run.getMovesBlockedByBoundary());
+        assertEquals(3, otherLawn.getMetrics().snapshot().getInstructionsExecuted());
+        assertEquals(0, otherLawn.getMetrics().snapshot().getMovesBlockedByBoundary());
+        assertTrue(SimulationMetrics.get().snapshot().since(start).getInstructionsExecuted() >= 10);
+    }
+
+    /**
+     * Test the exposition of the metrics through JMX.
+     *
+     * @throws JMException if the metrics cannot be read through JMX
+     */
+    @Test
+    void testRegisterMBean() throws JMException {
+        SimulationMetrics metrics = SimulationMetrics.get();
+        metrics.registerMBean();
+        // Registering twice has no effect
+        metrics.registerMBean();
+        metrics.recordMowerProcessed();
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        Object mowersProcessed = server.getAttribute(new ObjectName(SimulationMetrics.OBJECT_NAME), "MowersProcessed");
+        assertTrue((Long) mowersProcessed >= 1);
+    }
+}
@@ -0,0 +1,119 @@
+package fr.aymeric.kata.mower.model;
+
+import fr.aymeric.kata.mower.util.EnumOrientation;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the {@link ConcurrentLawn} class.
+ */
+class ConcurrentLawnTest {
+    /**
+     * Test the moves on a concurrent lawn give the same results as on a lawn, from a single thread.
+     */
+    @Test
+    void testSingleThread() {
+        Lawn lawn = new ConcurrentLawn(5, 5, 4);
+        Mower mower = new Mower(lawn, 1, 2, EnumOrientation.NORTH);
+        lawn.addMower(mower);
+        lawn.addMower(1, 4, EnumOrientation.SOUTH);
+        assertEquals(1, lawn.getFreeDistance(1, 2, EnumOrientation.NORTH, 10));
+        assertEquals(1, mower.moveForward(10));
+        assertEquals("1 3 N", mower.getCurrentPosition());
+        assertFalse(lawn.isPositionFree(1, 3));
+        assertTrue(lawn.isPositionFree(1, 2));
+
+        byte[] keys = "DAAAAAAGAAA".getBytes(StandardCharsets.US_ASCII);
+        MowerEngine.execute(mower, keys, 0, keys.length);
+        assertEquals("5 5 N", mower.getCurrentPosition());
+        assertFalse(lawn.isPositionFree(5, 5));
+        assertTrue(lawn.isPositionFree(1, 3));
+        assertTrue(lawn.isPositionFree(5, 3));
+
+        assertThrows(IllegalArgumentException.class, () -> lawn.addMower(1, 4, EnumOrientation.NORTH));
+        lawn.addMower(0, 0, EnumOrientation.NORTH);
+        lawn.addMower(0, 1, EnumOrientation.NORTH);
+        assertThrows(IllegalStateException.class, () -> lawn.addMower(0, 2, EnumOrientation.NORTH));
+        assertTrue(lawn.isPositionFree(0, 2));
+    }
+
+    /**
+     * Test mowers moved from several threads never share a cell, and the lawn ends up with exactly their cells occupied.
+     *
+     * @throws InterruptedException if the test is interrupted
+     */
+    @Test
+    void testConcurrentMoves() throws InterruptedException {
+        int size = 15;
+        int threadCount = 8;
+        int mowersPerThread = 10;
+        ConcurrentLawn lawn = new ConcurrentLawn(size, size, threadCount * mowersPerThread);
+        Random random = new Random(11);
+        while (lawn.getFleet().size() < threadCount * mowersPerThread) {
+            int x = random.nextInt(size + 1);
+            int y = random.nextInt(size + 1);
+            if (lawn.isPositionValid(x, y)) {
+                lawn.addMower(x, y, EnumOrientation.values()[random.nextInt(4)]);
+            }
+        }
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < threadCount; t++) {
+            int firstMower = t * mowersPerThread;
+            long seed = t;
+            Thread thread = new Thread(() -> {
+                Random instructions = new Random(seed);
+                byte[] keys = new byte[64];
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                for (int round = 0; round < 2000; round++) {
+                    for (int i = 0; i < keys.length; i++) {
+                        keys[i] = (byte) "AAAGD".charAt(instructions.nextInt(5));
+                    }
+                    int mower = firstMower + instructions.nextInt(mowersPerThread);
+                    if (round % 2 == 0) {
+                        lawn.getFleet().execute(mower, keys, 0, keys.length);
+                    } else {
+                        lawn.getFleet().get(mower).moveForward(1 + instructions.nextInt(10));
+                    }
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        Set<Long> cells = new HashSet<>();
+        MowerFleet fleet = lawn.getFleet();
+        for (int i = 0; i < fleet.size(); i++) {
+            assertTrue(cells.add(((long) fleet.getPositionX(i) << 32) | fleet.getPositionY(i)), "Shared cell");
+        }
+        AtomicInteger occupied = new AtomicInteger();
+        for (int x = 0; x <= size; x++) {
+            for (int y = 0; y <= size; y++) {
+                if (!lawn.isPositionFree(x, y)) {
+                    occupied.incrementAndGet();
+                    assertTrue(cells.contains(((long) x << 32) | y));
+                }
+            }
+        }
+        assertEquals(fleet.size(), occupied.get());
+    }
+}
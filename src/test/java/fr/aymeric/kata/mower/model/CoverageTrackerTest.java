@@ -0,0 +1,115 @@
+package fr.aymeric.kata.mower.model;
+
+import fr.aymeric.kata.mower.util.EnumOrientation;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the {@link CoverageTracker} class.
+ */
+class CoverageTrackerTest {
+    /**
+     * Test the cells mowed by the different ways of moving a mower.
+     */
+    @Test
+    void testMoves() {
+        Lawn lawn = new Lawn(9, 4);
+        lawn.addMower(2, 2, EnumOrientation.NORTH);
+        CoverageTracker coverage = lawn.enableCoverage();
+        assertSame(coverage, lawn.enableCoverage());
+        assertTrue(coverage.isCovered(0, 2, 2));
+
+        Mower mower = new Mower(lawn, 0, 0, EnumOrientation.EAST);
+        lawn.addMower(mower);
+        assertEquals(2, mower.moveForward(2));
+        mower.setOrientation(EnumOrientation.NORTH);
+        assertEquals(1, mower.moveForward(10));
+        mower.setOrientation(EnumOrientation.EAST);
+        mower.moveForwardIfValid();
+        mower.moveToPositionIfValid(8, 0);
+        byte[] keys = "GGAAAA".getBytes(StandardCharsets.US_ASCII);
+        MowerEngine.execute(mower, keys, 0, keys.length);
+        assertEquals("4 0 W", mower.getCurrentPosition());
+
+        // 0 0 to 2 0, blocked by the other mower at 2 1, then 3 1, 8 0 and back to 4 0
+        assertEquals(10, coverage.getCoveredCells(1));
+        assertTrue(coverage.isCovered(1, 1, 0));
+        assertTrue(coverage.isCovered(1, 2, 1));
+        assertTrue(coverage.isCovered(1, 3, 1));
+        assertTrue(coverage.isCovered(1, 5, 0));
+        assertFalse(coverage.isCovered(1, 3, 0));
+        assertFalse(coverage.isCovered(1, 2, 2));
+        assertEquals(11, coverage.getCoveredCells());
+        assertEquals(1, coverage.getCoveredCells(0));
+        assertEquals(0, coverage.getCoveredCells(5));
+        assertEquals(22.0, coverage.getCoveredPercentage(), 1e-9);
+        assertFalse(coverage.isCovered(-1, 0));
+        assertFalse(coverage.isCovered(10, 0));
+    }
+
+    /**
+     * Test random programs record the same cells as the positions of the mowers after each instruction.
+     */
+    @Test
+    void testRandomPrograms() {
+        Random random = new Random(7);
+        Lawn lawn = new Lawn(40, 30);
+        CoverageTracker coverage = lawn.enableCoverage();
+        Set<Long> expected = new HashSet<>();
+        for (int m = 0; m < 20; m++) {
+            Mower mower = new Mower(lawn, random.nextInt(41), random.nextInt(31), EnumOrientation.values()[m % 4]);
+            if (!lawn.isPositionFree(mower.getPositionX(), mower.getPositionY())) {
+                continue;
+            }
+            lawn.addMower(mower);
+            expected.add(cell(mower.getPositionX(), mower.getPositionY()));
+            for (int i = 0; i < 200; i++) {
+                int choice = random.nextInt(4);
+                if (choice == 0) {
+                    int startX = mower.getPositionX();
+                    int startY = mower.getPositionY();
+                    int done = mower.moveForward(random.nextInt(15));
+                    for (int step = 1; step <= done; step++) {
+                        expected.add(cell(startX + mower.getOrientation().getStepX() * step,
+                                startY + mower.getOrientation().getStepY() * step));
+                    }
+                } else {
+                    byte[] key = {(byte) "AGD".charAt(choice - 1)};
+                    MowerEngine.execute(mower, key, 0, 1);
+                    expected.add(cell(mower.getPositionX(), mower.getPositionY()));
+                }
+            }
+        }
+        assertEquals(expected.size(), coverage.getCoveredCells());
+        for (int x = 0; x <= 40; x++) {
+            for (int y = 0; y <= 30; y++) {
+                assertEquals(expected.contains(cell(x, y)), coverage.isCovered(x, y), x + " " + y);
+            }
+        }
+    }
+
+    /**
+     * Test the coverage is not available on a concurrent lawn.
+     */
+    @Test
+    void testConcurrentLawn() {
+        assertThrows(UnsupportedOperationException.class, () -> new ConcurrentLawn(5, 5, 2).enableCoverage());
+    }
+
+    /**
+     * Helper method to identify a cell of the 40x30 lawn.
+     *
+     * @param x the X position of the cell
+     * @param y the Y position of the cell
+     * @return the identifier of the cell
+     */
+    private static long cell(int x, int y) {
+        return y * 41L + x;
+    }
+}
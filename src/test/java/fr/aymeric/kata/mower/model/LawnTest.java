@@ -1,8 +1,11 @@
 package fr.aymeric.kata.mower.model;
 
+import fr.aymeric.kata.mower.model.occupancy.ObstacleIndex;
 import fr.aymeric.kata.mower.util.EnumOrientation;
 import org.junit.jupiter.api.Test;
 
+import java.nio.charset.StandardCharsets;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 /**
@@ -90,4 +93,119 @@ class LawnTest {
         assertFalse(lawn.isPositionValid(6, 6));
         assertFalse(lawn.isPositionValid(-1, 0));
     }
+
+    /**
+     * Test the occupancy of the lawn is updated when a mower moves.
+     * The previous position of the mower should be freed and the new one occupied.
+     */
+    @Test
+    void isPositionFreeAfterMove() {
+        Lawn lawn = new Lawn(5, 5);
+        Mower mower = new Mower(lawn, 1, 2, EnumOrientation.NORTH);
+        lawn.addMower(mower);
+        mower.moveForwardIfValid();
+        assertTrue(lawn.isPositionFree(1, 2));
+        assertFalse(lawn.isPositionFree(1, 3));
+        // A mower can't be added on an occupied position
+        Mower other = new Mower(lawn, 1, 2, EnumOrientation.NORTH);
+        mower.rotateRight();
+        mower.rotateRight();
+        mower.moveForwardIfValid();
+        assertThrows(IllegalArgumentException.class, () -> lawn.addMower(other));
+    }
+
+    /**
+     * Test a mower created on another lawn can't be added to the lawn.
+     * The lawn and the fleet of the mower should not change.
+     */
+    @Test
+    void addMowerOfAnotherLawn() {
+        Lawn lawn = new Lawn(5, 5);
+        Mower mower = new Mower(new Lawn(5, 5), 1, 2, EnumOrientation.NORTH);
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> lawn.addMower(mower));
+        assertEquals("Mower created on another lawn", exception.getMessage());
+        assertTrue(lawn.isPositionFree(1, 2));
+        assertEquals(0, lawn.getFleet().size());
+        assertFalse(mower.isPlaced());
+    }
+
+    /**
+     * Test the isPositionFree method on a lawn too large for a dense occupancy index.
+     */
+    @Test
+    void isPositionFreeOnLargeLawn() {
+        Lawn lawn = new Lawn(Integer.MAX_VALUE, Integer.MAX_VALUE);
+        Mower mower = new Mower(lawn, Integer.MAX_VALUE, 0, EnumOrientation.WEST);
+        lawn.addMower(mower);
+        assertFalse(lawn.isPositionFree(Integer.MAX_VALUE, 0));
+        mower.moveForwardIfValid();
+        assertTrue(lawn.isPositionFree(Integer.MAX_VALUE, 0));
+        assertFalse(lawn.isPositionFree(Integer.MAX_VALUE - 1, 0));
+    }
+
+    /**
+     * Test the getFreeDistance method.
+     * The distance should be bounded by the border of the lawn, the nearest mower and the maximum.
+     */
+    @Test
+    void getFreeDistance() {
+        Lawn lawn = new Lawn(Integer.MAX_VALUE, 10);
+        lawn.addMower(new Mower(lawn, 5, 4, EnumOrientation.NORTH));
+        assertEquals(Integer.MAX_VALUE - 5, lawn.getFreeDistance(5, 4, EnumOrientation.EAST, Integer.MAX_VALUE));
+        assertEquals(3, lawn.getFreeDistance(5, 4, EnumOrientation.EAST, 3));
+        assertEquals(5, lawn.getFreeDistance(5, 4, EnumOrientation.WEST, Integer.MAX_VALUE));
+        assertEquals(6, lawn.getFreeDistance(5, 4, EnumOrientation.NORTH, Integer.MAX_VALUE));
+        assertEquals(4, lawn.getFreeDistance(5, 4, EnumOrientation.SOUTH, Integer.MAX_VALUE));
+        // Another mower of the row or column blocks the way
+        assertEquals(0, lawn.getFreeDistance(5, 3, EnumOrientation.NORTH, 10));
+        assertEquals(2, lawn.getFreeDistance(2, 4, EnumOrientation.EAST, 10));
+        assertEquals(3, lawn.getFreeDistance(5, 8, EnumOrientation.SOUTH, 10));
+    }
+
+    /**
+     * Test the getFreeDistance method after moves made before the first ray cast, and after it.
+     */
+    @Test
+    void getFreeDistanceAfterMoves() {
+        Lawn lawn = new Lawn(10, 10);
+        MowerFleet fleet = lawn.getFleet();
+        byte[] keys = "AAAA".getBytes(StandardCharsets.US_ASCII);
+        fleet.execute(lawn.addMower(0, 0, EnumOrientation.NORTH), keys, 0, keys.length);
+        fleet.execute(lawn.addMower(3, 7, EnumOrientation.WEST), keys, 0, 2);
+        // The mowers are now on (0, 4) and (1, 7)
+        assertEquals(3, lawn.getFreeDistance(0, 0, EnumOrientation.NORTH, 10));
+        assertEquals(0, lawn.getFreeDistance(0, 7, EnumOrientation.EAST, 10));
+        assertEquals(6, lawn.getFreeDistance(1, 0, EnumOrientation.NORTH, 10));
+        fleet.execute(1, keys, 0, 1);
+        assertEquals(2, lawn.getFreeDistance(0, 7, EnumOrientation.SOUTH, 10));
+        assertEquals(10, lawn.getFreeDistance(0, 7, EnumOrientation.EAST, 10));
+    }
+
+    /**
+     * Test the obstacles of a lawn block the positions and the ray casts.
+     */
+    @Test
+    void testObstacles() {
+        Lawn lawn = new Lawn(5, 5);
+        assertThrows(IllegalArgumentException.class,
+                () -> lawn.setObstacles(new ObstacleIndex.Builder().addCell(6, 0).build()));
+        lawn.setObstacles(new ObstacleIndex.Builder().addRectangle(2, 1, 2, 3).addCell(4, 4).build());
+        assertTrue(lawn.isObstacle(2, 2));
+        assertFalse(lawn.isPositionValid(2, 3));
+        assertTrue(lawn.isPositionFree(2, 3));
+        assertTrue(lawn.isPositionValid(2, 4));
+        assertThrows(IllegalArgumentException.class, () -> lawn.addMower(4, 4, EnumOrientation.NORTH));
+
+        Mower mower = new Mower(lawn, 0, 2, EnumOrientation.EAST);
+        lawn.addMower(mower);
+        assertEquals(1, lawn.getFreeDistance(0, 2, EnumOrientation.EAST, 10));
+        assertEquals(3, lawn.getFreeDistance(4, 0, EnumOrientation.NORTH, 10));
+        assertEquals(2, lawn.getFreeDistance(3, 2, EnumOrientation.EAST, 10));
+        assertEquals(0, lawn.getFreeDistance(3, 2, EnumOrientation.WEST, 10));
+        assertEquals(0, lawn.getFreeDistance(2, 4, EnumOrientation.SOUTH, 10));
+        assertEquals(1, mower.moveForward(5));
+        mower.moveForwardIfValid();
+        assertEquals("1 2 E", mower.getCurrentPosition());
+        assertThrows(IllegalStateException.class, () -> lawn.setObstacles(ObstacleIndex.EMPTY));
+    }
 }
@@ -0,0 +1,97 @@
+package fr.aymeric.kata.mower.model;
+
+import fr.aymeric.kata.mower.util.EnumInstruction;
+import fr.aymeric.kata.mower.util.EnumOrientation;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit-level testing for {@link MowerEngine}.
+ */
+class MowerEngineTest {
+    /**
+     * Test the execution of instructions, including a return to the start position of the mower.
+     */
+    @Test
+    void executeInstructions() {
+        Lawn lawn = new Lawn(5, 5);
+        Mower mower = new Mower(lawn, 1, 2, EnumOrientation.NORTH);
+        lawn.addMower(mower);
+        execute(mower, "GAGAGAGAA");
+        assertEquals("1 3 N", mower.getCurrentPosition());
+        // The lawn occupancy follows the mower
+        assertTrue(lawn.isPositionFree(1, 2));
+        assertFalse(lawn.isPositionFree(1, 3));
+    }
+
+    /**
+     * Test the execution of an invalid instruction.
+     * The previous instructions should stay executed and an IllegalArgumentException should be thrown.
+     */
+    @Test
+    void executeInvalidInstruction() {
+        Lawn lawn = new Lawn(5, 5);
+        Mower mower = new Mower(lawn, 1, 2, EnumOrientation.NORTH);
+        lawn.addMower(mower);
+        assertThrows(IllegalArgumentException.class, () -> execute(mower, "ADXA"));
+        assertEquals("1 3 E", mower.getCurrentPosition());
+        assertFalse(lawn.isPositionFree(1, 3));
+    }
+
+    /**
+     * Compare the engine with {@link Mower#executeInstruction(EnumInstruction)} on random programs with obstacles.
+     */
+    @Test
+    void executeSameAsMower() {
+        Random random = new Random(7);
+        for (int test = 0; test < 200; test++) {
+            StringBuilder instructions = new StringBuilder();
+            int length = random.nextInt(200);
+            for (int i = 0; i < length; i++) {
+                instructions.append("AAGD".charAt(random.nextInt(4)));
+            }
+            Mower expected = createMowerWithObstacles(new Random(test));
+            for (int i = 0; i < instructions.length(); i++) {
+                expected.executeInstruction(EnumInstruction.fromKey(instructions.charAt(i)));
+            }
+            Mower actual = createMowerWithObstacles(new Random(test));
+            execute(actual, instructions.toString());
+            assertEquals(expected.getCurrentPosition(), actual.getCurrentPosition(), instructions.toString());
+        }
+    }
+
+    /**
+     * Helper method executing an instruction string with the engine.
+     *
+     * @param mower the mower to execute the instructions on
+     * @param instructions the instruction keys
+     */
+    private void execute(Mower mower, String instructions) {
+        byte[] keys = instructions.getBytes(StandardCharsets.US_ASCII);
+        MowerEngine.execute(mower, keys, 0, keys.length);
+    }
+
+    /**
+     * Helper method creating a mower on a small lawn with other mowers as obstacles.
+     *
+     * @param random the random generator placing the mowers, seeded identically for the compared executions
+     * @return the mower to execute programs on
+     */
+    private Mower createMowerWithObstacles(Random random) {
+        Lawn lawn = new Lawn(8, 8);
+        Mower mower = new Mower(lawn, 4, 4, EnumOrientation.values()[random.nextInt(4)]);
+        lawn.addMower(mower);
+        for (int i = 0; i < 8; i++) {
+            int x = random.nextInt(9);
+            int y = random.nextInt(9);
+            if (lawn.isPositionValid(x, y)) {
+                lawn.addMower(new Mower(lawn, x, y, EnumOrientation.NORTH));
+            }
+        }
+        return mower;
+    }
+}
@@ -0,0 +1,123 @@
+package fr.aymeric.kata.mower.model;
+
+import fr.aymeric.kata.mower.util.EnumInstruction;
+import fr.aymeric.kata.mower.util.EnumOrientation;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the {@link MowerFleet} class.
+ */
+class MowerFleetTest {
+    /**
+     * Test adding mowers by position, and reading them from the fleet and from the views.
+     */
+    @Test
+    void testAddMowers() {
+        Lawn lawn = new Lawn(5, 5);
+        MowerFleet fleet = lawn.getFleet();
+        assertEquals(0, lawn.addMower(1, 2, EnumOrientation.NORTH));
+        Mower mower = new Mower(lawn, 3, 3, EnumOrientation.EAST);
+        lawn.addMower(mower);
+        assertEquals(2, fleet.size());
+        assertEquals("1 2 N", fleet.getCurrentPosition(0));
+        assertEquals(3, fleet.getPositionX(1));
+        assertEquals(3, fleet.getPositionY(1));
+        assertEquals(EnumOrientation.EAST, fleet.getOrientation(1));
+        List<Mower> mowers = lawn.getMowers();
+        assertEquals("1 2 N", mowers.get(0).getCurrentPosition());
+        assertEquals("3 3 E", mowers.get(1).getCurrentPosition());
+
+        assertThrows(IllegalArgumentException.class, () -> lawn.addMower(1, 2, EnumOrientation.SOUTH));
+        assertThrows(IllegalArgumentException.class, () -> lawn.addMower(6, 2, EnumOrientation.SOUTH));
+        assertThrows(IllegalStateException.class, () -> lawn.addMower(mower));
+        assertThrows(IndexOutOfBoundsException.class, () -> fleet.get(2));
+        assertThrows(UnsupportedOperationException.class, () -> mowers.remove(0));
+    }
+
+    /**
+     * Test the moves of a mower are seen by all the views and by the lawn.
+     */
+    @Test
+    void testViews() {
+        Lawn lawn = new Lawn(5, 5);
+        Mower mower = new Mower(lawn, 1, 2, EnumOrientation.NORTH);
+        lawn.addMower(mower);
+        Mower view = lawn.getFleet().get(0);
+        mower.moveForwardIfValid();
+        mower.rotateRight();
+        assertEquals("1 3 E", view.getCurrentPosition());
+        view.moveForward(10);
+        assertEquals("5 3 E", mower.getCurrentPosition());
+        assertFalse(lawn.isPositionFree(5, 3));
+        assertTrue(lawn.isPositionFree(1, 3));
+        assertTrue(lawn.isPositionFree(1, 2));
+    }
+
+    /**
+     * Test the views of a mower are equal to the mower added to the lawn, and not to the other mowers.
+     */
+    @Test
+    void testViewsEquality() {
+        Lawn lawn = new Lawn(5, 5);
+        Lawn otherLawn = new Lawn(5, 5);
+        Mower mower = new Mower(lawn, 1, 2, EnumOrientation.NORTH);
+        Mower notPlaced = new Mower(lawn, 3, 3, EnumOrientation.NORTH);
+        assertNotEquals(mower, new Mower(lawn, 1, 2, EnumOrientation.NORTH));
+        lawn.addMower(0, 0, EnumOrientation.EAST);
+        lawn.addMower(mower);
+        otherLawn.addMower(0, 0, EnumOrientation.EAST);
+        otherLawn.addMower(1, 2, EnumOrientation.NORTH);
+
+        List<Mower> mowers = lawn.getMowers();
+        assertTrue(mowers.contains(mower));
+        assertEquals(1, mowers.indexOf(mower));
+        assertEquals(mower, mowers.get(1));
+        assertEquals(mower.hashCode(), mowers.get(1).hashCode());
+        assertNotEquals(mowers.get(0), mowers.get(1));
+        assertNotEquals(otherLawn.getMowers().get(1), mower);
+        assertFalse(mowers.contains(notPlaced));
+        assertEquals(notPlaced, notPlaced);
+    }
+
+    /**
+     * Compare the execution by index on the fleet with the execution of the instructions one by one on mowers.
+     */
+    @Test
+    void testExecuteSameResultAsMowers() {
+        Random random = new Random(3);
+        Lawn expectedLawn = new Lawn(20, 20);
+        Lawn actualLawn = new Lawn(20, 20);
+        for (int test = 0; test < 100; test++) {
+            int x = random.nextInt(21);
+            int y = random.nextInt(21);
+            EnumOrientation orientation = EnumOrientation.values()[random.nextInt(4)];
+            if (!expectedLawn.isPositionValid(x, y)) {
+                continue;
+            }
+            StringBuilder instructions = new StringBuilder();
+            for (int i = random.nextInt(50); i > 0; i--) {
+                instructions.append("AAGD".charAt(random.nextInt(4)));
+            }
+            Mower expected = new Mower(expectedLawn, x, y, orientation);
+            expectedLawn.addMower(expected);
+            for (int i = 0; i < instructions.length(); i++) {
+                expected.executeInstruction(EnumInstruction.fromKey(instructions.charAt(i)));
+            }
+            int index = actualLawn.addMower(x, y, orientation);
+            byte[] keys = instructions.toString().getBytes(StandardCharsets.US_ASCII);
+            actualLawn.getFleet().execute(index, keys, 0, keys.length);
+            assertEquals(expected.getCurrentPosition(), actualLawn.getFleet().getCurrentPosition(index));
+        }
+        for (int x = 0; x <= 20; x++) {
+            for (int y = 0; y <= 20; y++) {
+                assertEquals(expectedLawn.isPositionFree(x, y), actualLawn.isPositionFree(x, y));
+            }
+        }
+    }
+}
@@ -5,6 +5,8 @@ import fr.aymeric.kata.mower.util.EnumInstruction;
 import fr.aymeric.kata.mower.util.EnumOrientation;
 import org.junit.jupiter.api.Test;
 
+import java.util.Random;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 /**
@@ -76,6 +78,72 @@ class MowerTest {
         assertEquals(EnumOrientation.SOUTH, mower.getOrientation());
     }
 
+    /**
+     * Test the movement of a land mower over several cells.
+     * The land mower should stop before the first invalid position.
+     */
+    @Test
+    void moveMowerSeveralCells() {
+        Lawn lawn = new Lawn(5, 5);
+        Mower mower = new Mower(lawn, 1, 1, EnumOrientation.EAST);
+        lawn.addMower(mower);
+        lawn.addMower(new Mower(lawn, 4, 1, EnumOrientation.NORTH));
+
+        assertEquals(2, mower.moveForward(10));
+        assertEquals("3 1 E", mower.getCurrentPosition());
+        assertTrue(lawn.isPositionFree(1, 1));
+        assertFalse(lawn.isPositionFree(3, 1));
+
+        mower.rotateLeft();
+        assertEquals(4, mower.moveForward(10));
+        assertEquals("3 5 N", mower.getCurrentPosition());
+        assertEquals(0, mower.moveForward(1));
+    }
+
+    /**
+     * Compare the movement over several cells with the movement one cell at a time, on random lawns.
+     */
+    @Test
+    void moveMowerSeveralCellsSameAsOneByOne() {
+        for (int test = 0; test < 500; test++) {
+            Mower expected = createMowerWithObstacles(new Random(test));
+            Mower actual = createMowerWithObstacles(new Random(test));
+            int moves = new Random(-test).nextInt(12);
+            int done = 0;
+            for (int i = 0; i < moves; i++) {
+                int previousX = expected.getPositionX();
+                int previousY = expected.getPositionY();
+                expected.moveForwardIfValid();
+                if (expected.getPositionX() != previousX || expected.getPositionY() != previousY) {
+                    done++;
+                }
+            }
+            assertEquals(done, actual.moveForward(moves));
+            assertEquals(expected.getCurrentPosition(), actual.getCurrentPosition());
+        }
+    }
+
+    /**
+     * Helper method creating a mower on a small lawn with other mowers as obstacles.
+     *
+     * @param random the random generator placing the mowers, seeded identically for the compared mowers
+     * @return the mower to move
+     */
+    private Mower createMowerWithObstacles(Random random) {
+        Lawn lawn = new Lawn(1 + random.nextInt(8), 1 + random.nextInt(8));
+        Mower mower = new Mower(lawn, random.nextInt(lawn.getSizeX() + 1), random.nextInt(lawn.getSizeY() + 1),
+                EnumOrientation.values()[random.nextInt(4)]);
+        lawn.addMower(mower);
+        for (int i = 0; i < 6; i++) {
+            int x = random.nextInt(lawn.getSizeX() + 1);
+            int y = random.nextInt(lawn.getSizeY() + 1);
+            if (lawn.isPositionValid(x, y)) {
+                lawn.addMower(new Mower(lawn, x, y, EnumOrientation.NORTH));
+            }
+        }
+        return mower;
+    }
+
     /**
      * Test the getCurrentPosition method output.
      */
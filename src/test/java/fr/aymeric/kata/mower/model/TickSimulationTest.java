@@ -0,0 +1,175 @@
+package fr.aymeric.kata.mower.model;
+
+import fr.aymeric.kata.mower.metrics.SimulationMetrics;
+import fr.aymeric.kata.mower.model.occupancy.ObstacleIndex;
+import fr.aymeric.kata.mower.util.EnumOrientation;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the {@link TickSimulation} class.
+ */
+class TickSimulationTest {
+    /**
+     * Test a mower following another one waits for the cell to be left at the previous tick.
+     */
+    @Test
+    void testCellLeftDuringTickIsNotEntered() {
+        Lawn lawn = new Lawn(5, 5);
+        lawn.addMower(0, 0, EnumOrientation.NORTH);
+        lawn.addMower(0, 1, EnumOrientation.NORTH);
+        TickSimulation simulation = new TickSimulation(lawn, programs("AA", "AA"), ForkJoinPool.commonPool());
+        assertTrue(simulation.tick());
+        assertEquals("0 0 N", lawn.getFleet().getCurrentPosition(0));
+        assertEquals("0 2 N", lawn.getFleet().getCurrentPosition(1));
+        assertEquals(1, simulation.run());
+        assertEquals(2, simulation.getTick());
+        assertEquals("0 1 N", lawn.getFleet().getCurrentPosition(0));
+        assertEquals("0 3 N", lawn.getFleet().getCurrentPosition(1));
+        assertFalse(simulation.tick());
+        assertTrue(lawn.isPositionFree(0, 0));
+        assertFalse(lawn.isPositionFree(0, 1));
+    }
+
+    /**
+     * Test the lowest index wins when several mowers move to the same cell, and facing mowers never swap.
+     */
+    @Test
+    void testConflicts() {
+        Lawn lawn = new Lawn(5, 5);
+        lawn.addMower(2, 1, EnumOrientation.WEST);
+        lawn.addMower(0, 1, EnumOrientation.EAST);
+        lawn.addMower(1, 0, EnumOrientation.NORTH);
+        lawn.addMower(4, 4, EnumOrientation.WEST);
+        lawn.addMower(4, 3, EnumOrientation.NORTH);
+        lawn.addMower(3, 4, EnumOrientation.EAST);
+        lawn.addMower(5, 0, EnumOrientation.NORTH);
+        TickSimulation simulation = new TickSimulation(lawn, programs("A", "A", "A", "A", "A", "A", "DA"),
+                ForkJoinPool.commonPool());
+        assertEquals(2, simulation.run());
+        MowerFleet fleet = lawn.getFleet();
+        assertEquals("1 1 W", fleet.getCurrentPosition(0));
+        assertEquals("0 1 E", fleet.getCurrentPosition(1));
+        assertEquals("1 0 N", fleet.getCurrentPosition(2));
+        assertEquals("4 4 W", fleet.getCurrentPosition(3));
+        assertEquals("4 3 N", fleet.getCurrentPosition(4));
+        assertEquals("3 4 E", fleet.getCurrentPosition(5));
+        assertEquals("5 0 E", fleet.getCurrentPosition(6));
+        assertFalse(lawn.isPositionFree(1, 1));
+        assertTrue(lawn.isPositionFree(2, 1));
+    }
+
+    /**
+     * Test the blocked moves are counted in the metrics of the lawn by reason.
+     */
+    @Test
+    void testCountBlockedMoves() {
+        Lawn lawn = new Lawn(5, 5);
+        lawn.setObstacles(new ObstacleIndex.Builder().addCell(1, 1).build());
+        lawn.addMower(1, 0, EnumOrientation.NORTH);
+        lawn.addMower(5, 5, EnumOrientation.NORTH);
+        lawn.addMower(3, 3, EnumOrientation.NORTH);
+        lawn.addMower(3, 4, EnumOrientation.SOUTH);
+        new TickSimulation(lawn, programs("A", "A", "A", "A"), ForkJoinPool.commonPool()).run();
+        SimulationMetrics.Snapshot metrics = lawn.getMetrics().snapshot();
+        assertEquals(4, metrics.getInstructionsExecuted());
+        assertEquals(1, metrics.getMovesBlockedByBoundary());
+        assertEquals(1, metrics.getMovesBlockedByObstacle());
+        assertEquals(2, metrics.getMovesBlockedByMower());
+    }
+
+    /**
+     * Test the parallel ticks give the same result as the ticks run on a single thread, on a crowded lawn.
+     */
+    @Test
+    void testSameResultWithAnyParallelism() {
+        Lawn sequential = randomLawn();
+        Lawn parallel = randomLawn();
+        byte[][] programs = randomPrograms(sequential.getFleet().size());
+        new TickSimulation(sequential, programs, new ForkJoinPool(1)).run();
+        new TickSimulation(parallel, programs, new ForkJoinPool(4)).run();
+
+        MowerFleet fleet = parallel.getFleet();
+        Set<Long> cells = new HashSet<>();
+        for (int i = 0; i < fleet.size(); i++) {
+            assertEquals(sequential.getFleet().getCurrentPosition(i), fleet.getCurrentPosition(i));
+            assertTrue(cells.add(((long) fleet.getPositionX(i) << 32) | fleet.getPositionY(i)), "Shared cell");
+            assertFalse(parallel.isPositionFree(fleet.getPositionX(i), fleet.getPositionY(i)));
+        }
+    }
+
+    /**
+     * Test an invalid instruction fails before any tick.
+     */
+    @Test
+    void testInvalidInstruction() {
+        Lawn lawn = new Lawn(5, 5);
+        lawn.addMower(0, 0, EnumOrientation.NORTH);
+        lawn.addMower(1, 1, EnumOrientation.NORTH);
+        assertThrows(IllegalArgumentException.class,
+                () -> new TickSimulation(lawn, programs("A", "AX"), ForkJoinPool.commonPool()));
+        assertThrows(IllegalArgumentException.class,
+                () -> new TickSimulation(lawn, programs("A"), ForkJoinPool.commonPool()));
+        assertEquals("0 0 N", lawn.getFleet().getCurrentPosition(0));
+    }
+
+    /**
+     * Helper method to create the instruction keys of mowers.
+     *
+     * @param instructions the instructions of each mower
+     * @return the instruction keys of each mower
+     */
+    private static byte[][] programs(String... instructions) {
+        byte[][] programs = new byte[instructions.length][];
+        for (int i = 0; i < instructions.length; i++) {
+            programs[i] = instructions[i].getBytes(StandardCharsets.US_ASCII);
+        }
+        return programs;
+    }
+
+    /**
+     * Helper method to create a crowded lawn, with enough mowers to run the ticks in several chunks.
+     *
+     * @return a lawn with one mower on a quarter of its cells
+     */
+    private static Lawn randomLawn() {
+        Random random = new Random(5);
+        Lawn lawn = new Lawn(199, 199);
+        for (int x = 0; x < 200; x++) {
+            for (int y = 0; y < 200; y++) {
+                if (random.nextInt(4) == 0) {
+                    lawn.addMower(x, y, EnumOrientation.values()[random.nextInt(4)]);
+                }
+            }
+        }
+        assertTrue(lawn.getFleet().size() > 2 * TickSimulation.CHUNK_SIZE);
+        return lawn;
+    }
+
+    /**
+     * Helper method to create random programs of different lengths.
+     *
+     * @param count the number of programs
+     * @return the instruction keys of each mower
+     */
+    private static byte[][] randomPrograms(int count) {
+        Random random = new Random(8);
+        String[] instructions = new String[count];
+        for (int i = 0; i < count; i++) {
+            StringBuilder program = new StringBuilder();
+            int length = random.nextInt(40);
+            for (int j = 0; j < length; j++) {
+                program.append("AAGD".charAt(random.nextInt(4)));
+            }
+            instructions[i] = program.toString();
+        }
+        return programs(instructions);
+    }
+}
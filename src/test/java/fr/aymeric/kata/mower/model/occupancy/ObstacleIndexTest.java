@@ -0,0 +1,117 @@
+package fr.aymeric.kata.mower.model.occupancy;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the {@link ObstacleIndex} class.
+ */
+class ObstacleIndexTest {
+    /**
+     * Test the blocked cells and nearest obstacle queries of merged obstacles.
+     */
+    @Test
+    void testObstacles() {
+        ObstacleIndex index = new ObstacleIndex.Builder()
+                .addRectangle(5, 4, 2, 2)
+                .addRectangle(6, 3, 6, 3)
+                .addCell(9, 3)
+                .addCell(0, 8)
+                .build();
+        assertEquals(4, index.getObstacleCount());
+        assertFalse(index.isEmpty());
+        assertEquals(9, index.getMaxX());
+        assertEquals(8, index.getMaxY());
+        assertTrue(index.contains(2, 2));
+        assertTrue(index.contains(5, 4));
+        assertTrue(index.contains(6, 3));
+        assertFalse(index.contains(7, 3));
+        assertFalse(index.contains(1, 3));
+        assertFalse(index.contains(-1, 3));
+
+        // Row 3 is blocked from 2 to 6, then at 9
+        assertEquals(2, index.nextOnRow(3, 0));
+        assertEquals(4, index.nextOnRow(3, 3));
+        assertEquals(9, index.nextOnRow(3, 6));
+        assertEquals(Long.MAX_VALUE, index.nextOnRow(3, 9));
+        assertEquals(6, index.previousOnRow(3, 8));
+        assertEquals(3, index.previousOnRow(3, 4));
+        assertEquals(Long.MIN_VALUE, index.previousOnRow(3, 2));
+        assertEquals(Long.MAX_VALUE, index.nextOnRow(5, 0));
+        assertEquals(8, index.nextOnColumn(0, 0));
+        assertEquals(4, index.previousOnColumn(3, 7));
+        assertEquals(Long.MIN_VALUE, index.previousOnColumn(3, 2));
+
+        assertTrue(ObstacleIndex.EMPTY.isEmpty());
+        assertFalse(ObstacleIndex.EMPTY.contains(0, 0));
+        assertEquals(Long.MAX_VALUE, ObstacleIndex.EMPTY.nextOnColumn(0, 0));
+        assertThrows(IllegalArgumentException.class, () -> new ObstacleIndex.Builder().addCell(-1, 0));
+    }
+
+    /**
+     * Test random obstacles give the same answers as a grid of the blocked cells.
+     */
+    @Test
+    void testRandomObstacles() {
+        int size = 60;
+        Random random = new Random(3);
+        boolean[][] grid = new boolean[size][size];
+        ObstacleIndex.Builder builder = new ObstacleIndex.Builder();
+        for (int i = 0; i < 80; i++) {
+            int x1 = random.nextInt(size);
+            int y1 = random.nextInt(size);
+            int x2 = Math.min(size - 1, x1 + random.nextInt(6));
+            int y2 = Math.min(size - 1, y1 + random.nextInt(6));
+            builder.addRectangle(x2, y1, x1, y2);
+            for (int x = x1; x <= x2; x++) {
+                for (int y = y1; y <= y2; y++) {
+                    grid[x][y] = true;
+                }
+            }
+        }
+        ObstacleIndex index = builder.build();
+        for (int x = 0; x < size; x++) {
+            for (int y = 0; y < size; y++) {
+                assertEquals(grid[x][y], index.contains(x, y));
+                long next = Long.MAX_VALUE;
+                for (int other = size - 1; other > x; other--) {
+                    next = grid[other][y] ? other : next;
+                }
+                assertEquals(next, index.nextOnRow(y, x));
+                long previous = Long.MIN_VALUE;
+                for (int other = 0; other < y; other++) {
+                    previous = grid[x][other] ? other : previous;
+                }
+                assertEquals(previous, index.previousOnColumn(x, y));
+            }
+        }
+    }
+
+    /**
+     * Test the obstacles outside of the lawn of the builder are rejected, and the row segments rebuild the index.
+     */
+    @Test
+    void testBoundsAndRowSegments() {
+        ObstacleIndex.Builder builder = new ObstacleIndex.Builder(5, 5);
+        assertThrows(IllegalArgumentException.class, () -> builder.addRectangle(0, 0, 2_000_000_000, 0));
+        assertThrows(IllegalArgumentException.class, () -> builder.addCell(2, 6));
+        ObstacleIndex index = builder.addRectangle(1, 1, 3, 2).addCell(4, 1).addCell(5, 5).build();
+
+        int[] segments = index.getRowSegments();
+        assertEquals(9, segments.length);
+        ObstacleIndex.Builder rebuilt = new ObstacleIndex.Builder(5, 5);
+        for (int i = 0; i < segments.length; i += 3) {
+            rebuilt.addRectangle(segments[i + 1], segments[i], segments[i + 2], segments[i]);
+        }
+        ObstacleIndex copy = rebuilt.build();
+        for (int x = 0; x <= 5; x++) {
+            for (int y = 0; y <= 5; y++) {
+                assertEquals(index.contains(x, y), copy.contains(x, y));
+            }
+        }
+        assertEquals(0, ObstacleIndex.EMPTY.getRowSegments().length);
+    }
+}
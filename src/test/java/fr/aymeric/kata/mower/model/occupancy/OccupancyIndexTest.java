@@ -0,0 +1,121 @@
+package fr.aymeric.kata.mower.model.occupancy;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the {@link OccupancyIndex} implementations.
+ */
+class OccupancyIndexTest {
+    /**
+     * Test the choice of the index according to the size of the lawn.
+     */
+    @Test
+    void testForLawn() {
+        assertTrue(OccupancyIndex.forLawn(5, 5) instanceof BitSetOccupancyIndex);
+        assertTrue(OccupancyIndex.forLawn(Integer.MAX_VALUE, Integer.MAX_VALUE) instanceof TiledOccupancyIndex);
+    }
+
+    /**
+     * Test the {@link BitSetOccupancyIndex} implementation.
+     */
+    @Test
+    void testBitSetIndex() {
+        checkOccupyAndRelease(new BitSetOccupancyIndex(5, 5), 5, 5);
+        assertThrows(IllegalArgumentException.class, () -> new BitSetOccupancyIndex(Integer.MAX_VALUE, 2));
+        assertThrows(IndexOutOfBoundsException.class, () -> new BitSetOccupancyIndex(5, 5).occupy(6, 0));
+    }
+
+    /**
+     * Test the {@link HashOccupancyIndex} implementation.
+     */
+    @Test
+    void testHashIndex() {
+        checkOccupyAndRelease(new HashOccupancyIndex(), Integer.MAX_VALUE, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Test the {@link TiledOccupancyIndex} implementation.
+     * Tiles should be allocated when a cell is occupied and released once they are empty.
+     */
+    @Test
+    void testTiledIndex() {
+        TiledOccupancyIndex index = new TiledOccupancyIndex();
+        checkOccupyAndRelease(index, Integer.MAX_VALUE, Integer.MAX_VALUE);
+        // Only (0, 0) and the opposite corner remain occupied
+        assertEquals(2, index.getTileCount());
+
+        // Two cells of the same tile share it
+        index.occupy(1, 1);
+        index.occupy(TiledOccupancyIndex.TILE_SIZE - 1, TiledOccupancyIndex.TILE_SIZE - 1);
+        assertEquals(2, index.getTileCount());
+        // A cell of the next tile allocates a new one
+        index.occupy(TiledOccupancyIndex.TILE_SIZE, 0);
+        assertEquals(3, index.getTileCount());
+        assertTrue(index.isOccupied(TiledOccupancyIndex.TILE_SIZE, 0));
+        assertFalse(index.isOccupied(TiledOccupancyIndex.TILE_SIZE, 1));
+
+        // Occupying a cell twice counts it once
+        index.occupy(TiledOccupancyIndex.TILE_SIZE, 0);
+        index.release(TiledOccupancyIndex.TILE_SIZE, 0);
+        assertEquals(2, index.getTileCount());
+
+        index.release(0, 0);
+        index.release(1, 1);
+        index.release(TiledOccupancyIndex.TILE_SIZE - 1, TiledOccupancyIndex.TILE_SIZE - 1);
+        index.release(Integer.MAX_VALUE, Integer.MAX_VALUE);
+        assertEquals(0, index.getTileCount());
+        assertFalse(index.isOccupied(1, 1));
+    }
+
+    /**
+     * Test the {@link OffHeapOccupancyIndex} implementations, and their selection by system property.
+     */
+    @Test
+    void testOffHeapIndex() {
+        checkOccupyAndRelease(OffHeapOccupancyIndex.direct(5, 5), 5, 5);
+        checkOccupyAndRelease(OffHeapOccupancyIndex.mapped(5, 5), 5, 5);
+        checkOccupyAndRelease(OffHeapOccupancyIndex.mapped(100_000, 999), 100_000, 999);
+        assertThrows(IndexOutOfBoundsException.class, () -> OffHeapOccupancyIndex.direct(5, 5).occupy(0, 6));
+        assertThrows(IllegalArgumentException.class, () -> OffHeapOccupancyIndex.direct(-1, 5));
+
+        try {
+            System.setProperty(OccupancyIndex.STORAGE_PROPERTY, "mapped");
+            assertTrue(OccupancyIndex.forLawn(5, 5) instanceof OffHeapOccupancyIndex);
+            System.setProperty(OccupancyIndex.STORAGE_PROPERTY, "unknown");
+            assertThrows(IllegalArgumentException.class, () -> OccupancyIndex.forLawn(5, 5));
+        } finally {
+            System.clearProperty(OccupancyIndex.STORAGE_PROPERTY);
+        }
+    }
+
+    /**
+     * Helper method checking the occupation and release of cells, including the corners of the lawn.
+     *
+     * @param index the index to check
+     * @param sizeX the size of the lawn on X axis
+     * @param sizeY the size of the lawn on Y axis
+     */
+    private void checkOccupyAndRelease(OccupancyIndex index, int sizeX, int sizeY) {
+        assertFalse(index.isOccupied(0, 0));
+        index.occupy(0, 0);
+        index.occupy(sizeX, sizeY);
+        index.occupy(1, 2);
+        assertTrue(index.isOccupied(0, 0));
+        assertTrue(index.isOccupied(sizeX, sizeY));
+        assertTrue(index.isOccupied(1, 2));
+        assertFalse(index.isOccupied(2, 1));
+        // Cells outside of the lawn are never occupied
+        assertFalse(index.isOccupied(-1, 0));
+        assertFalse(index.isOccupied(0, -1));
+
+        index.release(1, 2);
+        assertFalse(index.isOccupied(1, 2));
+        assertTrue(index.isOccupied(0, 0));
+        // Releasing a free or outside cell has no effect
+        index.release(1, 2);
+        index.release(-1, -1);
+        assertTrue(index.isOccupied(sizeX, sizeY));
+    }
+}
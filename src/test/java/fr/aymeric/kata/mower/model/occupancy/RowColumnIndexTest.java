@@ -0,0 +1,41 @@
+package fr.aymeric.kata.mower.model.occupancy;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the {@link RowColumnIndex} class.
+ */
+class RowColumnIndexTest {
+    /**
+     * Test the nearest occupied cell queries on rows and columns.
+     */
+    @Test
+    void testNearestCells() {
+        RowColumnIndex index = new RowColumnIndex();
+        index.occupy(2, 5);
+        index.occupy(8, 5);
+        index.occupy(2, 1);
+        // Occupying twice has no effect
+        index.occupy(8, 5);
+
+        assertEquals(8, index.nextOnRow(5, 2));
+        assertEquals(8, index.nextOnRow(5, 3));
+        assertEquals(Long.MAX_VALUE, index.nextOnRow(5, 8));
+        assertEquals(2, index.previousOnRow(5, 8));
+        assertEquals(Long.MIN_VALUE, index.previousOnRow(5, 2));
+        assertEquals(Long.MAX_VALUE, index.nextOnRow(4, 0));
+
+        assertEquals(5, index.nextOnColumn(2, 1));
+        assertEquals(1, index.previousOnColumn(2, 4));
+        assertEquals(Long.MIN_VALUE, index.previousOnColumn(8, 5));
+
+        index.release(8, 5);
+        assertEquals(Long.MAX_VALUE, index.nextOnRow(5, 2));
+        assertEquals(Long.MAX_VALUE, index.nextOnColumn(8, 0));
+        // Releasing a free cell has no effect
+        index.release(8, 5);
+        assertEquals(5, index.nextOnColumn(2, 1));
+    }
+}
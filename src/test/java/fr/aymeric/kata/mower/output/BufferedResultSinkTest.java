@@ -0,0 +1,74 @@
+package fr.aymeric.kata.mower.output;
+
+import fr.aymeric.kata.mower.model.Lawn;
+import fr.aymeric.kata.mower.model.Mower;
+import fr.aymeric.kata.mower.util.EnumOrientation;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the {@link BufferedResultSink} class and its implementations.
+ */
+class BufferedResultSinkTest {
+    /**
+     * Temporary directory for the output file.
+     */
+    @TempDir
+    Path tempDir;
+
+    /**
+     * Test the encoding of the lines, including extreme ints.
+     */
+    @Test
+    void testLineFormat() {
+        InMemoryResultSink sink = new InMemoryResultSink();
+        Lawn lawn = new Lawn(5, 5);
+        sink.accept(1, new Mower(lawn, 1, 3, EnumOrientation.NORTH));
+        sink.accept(2, 0, 10, EnumOrientation.WEST);
+        sink.accept(Integer.MAX_VALUE, Integer.MAX_VALUE, Integer.MIN_VALUE, EnumOrientation.SOUTH);
+        assertEquals("Mower 1 position: 1 3 N\n"
+                + "Mower 2 position: 0 10 W\n"
+                + "Mower 2147483647 position: 2147483647 -2147483648 S\n", sink.getContent());
+    }
+
+    /**
+     * Test the writing of the buffer when it is full: no line should be lost or cut.
+     */
+    @Test
+    void testBufferFull() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BufferedResultSink sink = new BufferedResultSink(out, false, 0);
+        StringBuilder expected = new StringBuilder();
+        for (int i = 1; i <= 100; i++) {
+            sink.accept(i, i, i * 2, EnumOrientation.EAST);
+            expected.append("Mower ").append(i).append(" position: ").append(i).append(' ').append(i * 2).append(" E\n");
+        }
+        // Some lines are already written, the last ones are still buffered
+        assertTrue(out.size() > 0);
+        assertTrue(out.size() < expected.length());
+        sink.flush();
+        assertEquals(expected.toString(), new String(out.toByteArray(), StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * Test the file sink.
+     *
+     * @throws IOException if the file cannot be written or read
+     */
+    @Test
+    void testFileSink() throws IOException {
+        Path file = tempDir.resolve("results.txt");
+        try (ResultSink sink = ResultSink.toFile(file)) {
+            sink.accept(1, 4, 2, EnumOrientation.EAST);
+        }
+        assertEquals("Mower 1 position: 4 2 E\n", new String(Files.readAllBytes(file), StandardCharsets.US_ASCII));
+    }
+}
@@ -0,0 +1,248 @@
+package fr.aymeric.kata.mower.planner;
+
+import fr.aymeric.kata.mower.model.CoverageTracker;
+import fr.aymeric.kata.mower.model.Lawn;
+import fr.aymeric.kata.mower.model.Mower;
+import fr.aymeric.kata.mower.model.MowerEngine;
+import fr.aymeric.kata.mower.model.occupancy.ObstacleIndex;
+import fr.aymeric.kata.mower.util.EnumInstruction;
+import fr.aymeric.kata.mower.util.EnumOrientation;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the {@link PathPlanner} class.
+ */
+class PathPlannerTest {
+    /**
+     * Test the plans to a target on an open lawn and around obstacles.
+     */
+    @Test
+    void testPlanTo() {
+        PathPlanner planner = new PathPlanner();
+        Lawn lawn = new Lawn(5, 5);
+        Plan plan = planner.planTo(lawn, 0, 0, EnumOrientation.NORTH, 3, 2, null);
+        assertEquals(6, plan.getLength());
+        assertEquals(3, plan.getFinalX());
+        assertEquals(2, plan.getFinalY());
+        assertEquals(plan.getLength(), plan.getInstructions().size());
+        assertEquals(2, planner.planTo(lawn, 0, 0, EnumOrientation.NORTH, 0, 0, EnumOrientation.SOUTH).getLength());
+        assertEquals(0, planner.planTo(lawn, 1, 1, EnumOrientation.EAST, 1, 1, null).getLength());
+        assertEquals("AAA", planner.planTo(lawn, 1, 1, EnumOrientation.EAST, 4, 1, EnumOrientation.EAST).getProgram());
+
+        // A wall on column 2 with a gap at the top, and a mower in the gap
+        Lawn walled = new Lawn(5, 5);
+        walled.setObstacles(new ObstacleIndex.Builder().addRectangle(2, 0, 2, 3).build());
+        walled.addMower(2, 5, EnumOrientation.NORTH);
+        plan = planner.planTo(walled, 0, 0, EnumOrientation.EAST, 4, 0, EnumOrientation.SOUTH);
+        // 4 moves up, 4 moves right and 4 moves down, with 3 rotations
+        assertEquals(15, plan.getLength());
+        assertEquals(4, execute(walled, 0, 0, EnumOrientation.EAST, plan).getPositionX());
+        assertEquals(EnumOrientation.SOUTH, plan.getFinalOrientation());
+
+        walled.addMower(2, 4, EnumOrientation.NORTH);
+        assertNull(planner.planTo(walled, 0, 0, EnumOrientation.EAST, 4, 0, null));
+        assertNull(planner.planTo(walled, 0, 0, EnumOrientation.EAST, 2, 1, null));
+        assertThrows(IllegalArgumentException.class, () -> planner.planTo(walled, 0, 0, EnumOrientation.EAST, 6, 0, null));
+        assertThrows(IllegalStateException.class,
+                () -> new PathPlanner(10).planTo(walled, 0, 0, EnumOrientation.EAST, 4, 0, null));
+    }
+
+    /**
+     * Test the coverage plan of a mower already placed on the lawn, whose cell stays free in every leg: on a corridor
+     * of one row, the mower turns back through its own cell to reach the cells behind it.
+     */
+    @Test
+    void testPlanCoverageOfPlacedMower() {
+        Lawn lawn = new Lawn(4, 1);
+        lawn.setObstacles(new ObstacleIndex.Builder().addRectangle(0, 1, 4, 1).build());
+        lawn.addMower(2, 0, EnumOrientation.EAST);
+        Plan plan = new PathPlanner().planCoverage(lawn, 2, 0, EnumOrientation.EAST, 0, 0, 4, 0);
+        assertEquals("GGAAGGAAAA", plan.getProgram());
+        assertEquals(4, plan.getFinalX());
+        byte[] keys = plan.getInstructionKeys();
+        MowerEngine.execute(lawn.getFleet(), 0, keys, 0, keys.length);
+        assertEquals("4 0 E", lawn.getMowers().get(0).getCurrentPosition());
+    }
+
+    /**
+     * Test the plans on random lawns are as short as the programs found by a breadth-first search, and reach the
+     * target when executed.
+     */
+    @Test
+    void testShortestPlans() {
+        Random random = new Random(11);
+        PathPlanner planner = new PathPlanner();
+        for (int test = 0; test < 200; test++) {
+            int size = 3 + random.nextInt(10);
+            Lawn lawn = new Lawn(size, size);
+            ObstacleIndex.Builder obstacles = new ObstacleIndex.Builder();
+            for (int i = 0; i < size; i++) {
+                obstacles.addCell(random.nextInt(size + 1), random.nextInt(size + 1));
+            }
+            lawn.setObstacles(obstacles.build());
+            for (int i = 0; i < size; i++) {
+                int x = random.nextInt(size + 1);
+                int y = random.nextInt(size + 1);
+                if (lawn.isPositionValid(x, y)) {
+                    lawn.addMower(x, y, EnumOrientation.NORTH);
+                }
+            }
+            int startX = random.nextInt(size + 1);
+            int startY = random.nextInt(size + 1);
+            if (!lawn.isPositionValid(startX, startY)) {
+                continue;
+            }
+            EnumOrientation start = EnumOrientation.values()[random.nextInt(4)];
+            int targetX = random.nextInt(size + 1);
+            int targetY = random.nextInt(size + 1);
+            EnumOrientation target = random.nextBoolean() ? null : EnumOrientation.values()[random.nextInt(4)];
+            int expected = shortestLength(lawn, startX, startY, start, targetX, targetY, target);
+            Plan plan = planner.planTo(lawn, startX, startY, start, targetX, targetY, target);
+            if (expected < 0) {
+                assertNull(plan);
+                continue;
+            }
+            assertEquals(expected, plan.getLength());
+            Mower mower = execute(lawn, startX, startY, start, plan);
+            assertEquals(targetX, mower.getPositionX());
+            assertEquals(targetY, mower.getPositionY());
+            assertEquals(plan.getFinalOrientation(), mower.getOrientation());
+        }
+    }
+
+    /**
+     * Test a coverage plan mows all the reachable cells of a rectangle.
+     */
+    @Test
+    void testPlanCoverage() {
+        Lawn lawn = new Lawn(7, 5);
+        // The cell 6 5 is enclosed by the obstacles
+        lawn.setObstacles(new ObstacleIndex.Builder().addRectangle(2, 1, 4, 2).addCell(5, 5).addCell(6, 4)
+                .addCell(7, 5).build());
+        lawn.addMower(0, 3, EnumOrientation.NORTH);
+        Plan plan = new PathPlanner().planCoverage(lawn, 0, 0, EnumOrientation.NORTH, 7, 5, 0, 0);
+
+        CoverageTracker coverage = lawn.enableCoverage();
+        Mower mower = new Mower(lawn, 0, 0, EnumOrientation.NORTH);
+        lawn.addMower(mower);
+        byte[] keys = plan.getInstructionKeys();
+        MowerEngine.execute(mower, keys, 0, keys.length);
+        // 48 cells, minus 9 obstacles, the enclosed cell and the other mower
+        assertEquals(37, coverage.getCoveredCells(1));
+        assertEquals(plan.getFinalX(), mower.getPositionX());
+        assertFalse(coverage.isCovered(1, 6, 5));
+
+        plan = new PathPlanner().planCoverage(lawn, 0, 0, EnumOrientation.NORTH, 2, 1, 4, 2);
+        assertEquals(0, plan.getLength());
+    }
+
+    /**
+     * Test a plan across a large lawn with scattered obstacles only expands a small part of the states.
+     */
+    @Test
+    void testLargeLawn() {
+        int size = 10_000;
+        Random random = new Random(5);
+        Lawn lawn = new Lawn(size, size);
+        ObstacleIndex.Builder obstacles = new ObstacleIndex.Builder();
+        for (int i = 0; i < 2000; i++) {
+            int x = 1 + random.nextInt(size - 10);
+            int y = 1 + random.nextInt(size - 10);
+            obstacles.addRectangle(x, y, x + random.nextInt(8), y + random.nextInt(8));
+        }
+        lawn.setObstacles(obstacles.build());
+        Plan plan = new PathPlanner().planTo(lawn, 0, 0, EnumOrientation.EAST, size, size, EnumOrientation.NORTH);
+        assertNotNull(plan);
+        assertTrue(plan.getLength() >= 2 * size + 1);
+        assertTrue(plan.getExpandedStates() < 1_000_000, "Expanded states: " + plan.getExpandedStates());
+        assertEquals(size, execute(lawn, 0, 0, EnumOrientation.EAST, plan).getPositionY());
+    }
+
+    /**
+     * Helper method to execute a plan on a mower not added to the lawn.
+     *
+     * @param lawn the lawn
+     * @param x the X position of the mower
+     * @param y the Y position of the mower
+     * @param orientation the orientation of the mower
+     * @param plan the plan to execute
+     * @return the mower after the plan
+     */
+    private static Mower execute(Lawn lawn, int x, int y, EnumOrientation orientation, Plan plan) {
+        Mower mower = new Mower(lawn, x, y, orientation);
+        byte[] keys = plan.getInstructionKeys();
+        MowerEngine.execute(mower, keys, 0, keys.length);
+        return mower;
+    }
+
+    /**
+     * Helper method to find the length of the shortest program with a breadth-first search.
+     *
+     * @param lawn the lawn
+     * @param x the X position of the mower
+     * @param y the Y position of the mower
+     * @param orientation the orientation of the mower
+     * @param targetX the X position to reach
+     * @param targetY the Y position to reach
+     * @param target the orientation to reach, or null for any
+     * @return the length of the shortest program, -1 if there is none
+     */
+    private static int shortestLength(Lawn lawn, int x, int y, EnumOrientation orientation,
+                                      int targetX, int targetY, EnumOrientation target) {
+        int width = lawn.getSizeX() + 1;
+        int[] distances = new int[width * (lawn.getSizeY() + 1) * 4];
+        Arrays.fill(distances, -1);
+        ArrayDeque<int[]> queue = new ArrayDeque<>();
+        int start = ((y * width) + x) * 4 + orientation.ordinal();
+        distances[start] = 0;
+        queue.add(new int[]{x, y, orientation.ordinal()});
+        while (!queue.isEmpty()) {
+            int[] state = queue.poll();
+            int distance = distances[((state[1] * width) + state[0]) * 4 + state[2]];
+            if (state[0] == targetX && state[1] == targetY && (target == null || target.ordinal() == state[2])) {
+                return distance;
+            }
+            for (EnumInstruction instruction : EnumInstruction.values()) {
+                int[] next = next(lawn, state, instruction, x, y);
+                int index = ((next[1] * width) + next[0]) * 4 + next[2];
+                if (distances[index] < 0) {
+                    distances[index] = distance + 1;
+                    queue.add(next);
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Helper method to get the state after an instruction.
+     *
+     * @param lawn the lawn
+     * @param state the state (x, y, orientation ordinal)
+     * @param instruction the instruction
+     * @param startX the X position of the start cell, free for the planned mower
+     * @param startY the Y position of the start cell, free for the planned mower
+     * @return the next state
+     */
+    private static int[] next(Lawn lawn, int[] state, EnumInstruction instruction, int startX, int startY) {
+        if (instruction == EnumInstruction.LEFT) {
+            return new int[]{state[0], state[1], (state[2] + 3) & 3};
+        }
+        if (instruction == EnumInstruction.RIGHT) {
+            return new int[]{state[0], state[1], (state[2] + 1) & 3};
+        }
+        EnumOrientation orientation = EnumOrientation.values()[state[2]];
+        int x = state[0] + orientation.getStepX();
+        int y = state[1] + orientation.getStepY();
+        if ((x == startX && y == startY) || lawn.isPositionValid(x, y)) {
+            return new int[]{x, y, state[2]};
+        }
+        return state;
+    }
+}
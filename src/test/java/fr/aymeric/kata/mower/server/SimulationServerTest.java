@@ -0,0 +1,147 @@
+package fr.aymeric.kata.mower.server;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the {@link SimulationServer} class, through the {@link SimulationClient}.
+ */
+class SimulationServerTest {
+    /**
+     * Server under test, listening on a free port.
+     */
+    private SimulationServer server;
+
+    /**
+     * Start the server with a few workers and warm-up jobs.
+     *
+     * @throws IOException if the server cannot be started
+     */
+    @BeforeEach
+    void startServer() throws IOException {
+        server = SimulationServer.start(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 3, 2);
+    }
+
+    /**
+     * Stop the server.
+     *
+     * @throws IOException if the server cannot be stopped
+     */
+    @AfterEach
+    void stopServer() throws IOException {
+        server.close();
+    }
+
+    /**
+     * Test pipelined jobs are answered in the order of the requests, a failing job not stopping the next ones.
+     *
+     * @throws IOException if the connection fails
+     */
+    @Test
+    void testPipelinedJobs() throws IOException {
+        try (SimulationClient client = new SimulationClient(server.getPort())) {
+            for (int i = 0; i < 100; i++) {
+                client.send(SimulationServer.warmUpInstructions(i));
+                if (i == 50) {
+                    client.send("5 5\n1 2 N\nGAGAX\n".getBytes(StandardCharsets.US_ASCII));
+                }
+            }
+            client.send("5 5\n1 2 N\nGAGAGAGAA\n3 3 E\nAADAADADDA\n".getBytes(StandardCharsets.US_ASCII));
+            for (int i = 0; i < 100; i++) {
+                byte[] instructions = SimulationServer.warmUpInstructions(i);
+                String expected;
+                try {
+                    expected = new String(SimulationServer.execute(instructions), StandardCharsets.US_ASCII);
+                } catch (RuntimeException e) {
+                    RuntimeException failure = assertThrows(RuntimeException.class, client::receive);
+                    assertEquals(e.getMessage(), failure.getMessage());
+                    continue;
+                }
+                assertEquals(expected, client.receive());
+                if (i == 50) {
+                    RuntimeException failure = assertThrows(RuntimeException.class, client::receive);
+                    assertEquals("Invalid instruction key: X", failure.getMessage());
+                }
+            }
+            assertEquals("Mower 1 position: 1 3 N\nMower 2 position: 5 1 E\n", client.receive());
+        }
+    }
+
+    /**
+     * Test several connections are served at the same time, and the server keeps running after a client leaves.
+     *
+     * @throws IOException if a connection fails
+     */
+    @Test
+    void testSeveralConnections() throws IOException {
+        byte[] instructions = "5 5\n1 2 N\nGAGAGAGAA\n".getBytes(StandardCharsets.US_ASCII);
+        try (SimulationClient first = new SimulationClient(server.getPort());
+             SimulationClient second = new SimulationClient(server.getPort())) {
+            first.send(instructions);
+            second.send(instructions);
+            assertEquals("Mower 1 position: 1 3 N\n", second.receive());
+            assertEquals("Mower 1 position: 1 3 N\n", first.receive());
+            first.send(instructions);
+        }
+        try (SimulationClient client = new SimulationClient(server.getPort())) {
+            client.send("5 5\n1 2".getBytes(StandardCharsets.US_ASCII));
+            RuntimeException failure = assertThrows(RuntimeException.class, client::receive);
+            assertEquals("Invalid instruction file format", failure.getMessage());
+        }
+    }
+
+    /**
+     * Test the reader of a connection stops when its client stops reading the results in the middle of a stream of
+     * jobs, instead of waiting forever for room in the queue of the connection.
+     *
+     * @throws IOException if the connection fails
+     * @throws InterruptedException if the test is interrupted while waiting for the reader
+     */
+    @Test
+    void testClientStopsReading() throws IOException, InterruptedException {
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), server.getPort())) {
+            DataOutputStream output = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            // Distinct jobs, more than the queue of the connection can hold
+            for (int i = 0; i < 4 * SimulationServer.MAX_PENDING_JOBS; i++) {
+                SimulationProtocol.writeRequest(output, SimulationServer.warmUpInstructions(i));
+            }
+            output.flush();
+            socket.shutdownInput();
+            // The results written now reset the connection
+        }
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (isReadingJobs() && System.nanoTime() < deadline) {
+            Thread.sleep(50);
+        }
+        assertFalse(isReadingJobs());
+    }
+
+    /**
+     * Helper method to check if a thread is reading the jobs of a connection.
+     *
+     * @return true if a thread is running the reader of a connection
+     */
+    private boolean isReadingJobs() {
+        for (StackTraceElement[] stack : Thread.getAllStackTraces().values()) {
+            for (StackTraceElement frame : stack) {
+                if (frame.getClassName().equals(SimulationServer.class.getName())
+                        && frame.getMethodName().equals("readJobs")) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,165 @@
+package fr.aymeric.kata.mower.trace;
+
+import fr.aymeric.kata.mower.MowerProgramExecutor;
+import fr.aymeric.kata.mower.TickMowerProgramExecutor;
+import fr.aymeric.kata.mower.model.Lawn;
+import fr.aymeric.kata.mower.model.MowerFleet;
+import fr.aymeric.kata.mower.output.InMemoryResultSink;
+import fr.aymeric.kata.mower.util.EnumOrientation;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the {@link TraceRecorder} class, whose traces are read by a {@link TraceReplay}.
+ */
+class TraceRecorderTest {
+    /**
+     * Temporary directory for the trace files.
+     */
+    @TempDir
+    Path tempDir;
+
+    /**
+     * Test a trace rebuilds the lawn at each step, with a ring buffer smaller than the trace.
+     *
+     * @throws IOException if the trace cannot be written or read
+     */
+    @Test
+    void testRecordAndReplay() throws IOException {
+        File traceFile = tempDir.resolve("trace.bin").toFile();
+        Lawn lawn = new Lawn(5, 5);
+        try (TraceRecorder recorder = TraceRecorder.open(traceFile, 4, 1, 1)) {
+            lawn.setTraceRecorder(recorder);
+            runKata(lawn);
+            assertEquals(23, recorder.getStepCount());
+            assertEquals(24, recorder.getEventCount());
+        }
+        TraceReplay replay = TraceReplay.load(traceFile);
+        assertEquals(5, replay.getSizeX());
+        assertEquals(5, replay.getSizeY());
+        assertEquals(3, replay.getMowerCount());
+        assertEquals(23, replay.getEventCount());
+        assertEquals(22, replay.getLastStep());
+        // The first mower is placed at step 0 and executes its 9 instructions at steps 1 to 9
+        assertEquals(1, replay.getPositionX(0, 1));
+        assertEquals(2, replay.getPositionY(0, 1));
+        assertEquals(EnumOrientation.WEST, replay.getOrientation(0, 1));
+        Lawn atStep9 = replay.lawnAt(9);
+        assertEquals(1, atStep9.getFleet().size());
+        assertEquals("1 3 N", atStep9.getFleet().get(0).getCurrentPosition());
+        assertFalse(replay.isPlaced(1, 9));
+        assertThrows(IllegalArgumentException.class, () -> replay.getPositionX(1, 9));
+        assertTrue(replay.isPlaced(1, 10));
+        // The move of the last mower is blocked by the border
+        assertFalse(replay.isBlocked(2, 21));
+        assertTrue(replay.isBlocked(2, 22));
+        Lawn last = replay.lawnAt(replay.getLastStep());
+        for (int i = 0; i < lawn.getFleet().size(); i++) {
+            assertEquals(lawn.getFleet().get(i).getCurrentPosition(), last.getFleet().get(i).getCurrentPosition());
+        }
+    }
+
+    /**
+     * Test the sampling of the steps and of the mowers, the final state of the sampled mowers staying exact.
+     *
+     * @throws IOException if the trace cannot be written or read
+     */
+    @Test
+    void testSampling() throws IOException {
+        File traceFile = tempDir.resolve("sampled.bin").toFile();
+        Lawn lawn = new Lawn(5, 5);
+        try (TraceRecorder recorder = TraceRecorder.open(traceFile, 16, 4, 2)) {
+            lawn.setTraceRecorder(recorder);
+            runKata(lawn);
+        }
+        TraceReplay replay = TraceReplay.load(traceFile);
+        assertEquals(4, replay.getStepInterval());
+        assertEquals(2, replay.getMowerInterval());
+        // Placement, steps 4 and 8 and checkpoint of the first mower, placement and checkpoint of the last one
+        assertEquals(6, replay.getEventCount());
+        assertEquals("1 3 N", replay.lawnAt(9).getFleet().get(0).getCurrentPosition());
+        assertFalse(replay.isPlaced(1, replay.getLastStep()));
+        assertEquals(0, replay.getPositionX(2, replay.getLastStep()));
+        assertEquals(EnumOrientation.SOUTH, replay.getOrientation(2, replay.getLastStep()));
+    }
+
+    /**
+     * Test the traces requested to the executors give their final positions, in sequential and simultaneous modes,
+     * with the default sampling and with every step. The runs of a channel are not traced.
+     *
+     * @throws IOException if the instructions or the trace cannot be written or read
+     */
+    @Test
+    void testRequestedTrace() throws IOException {
+        byte[] instructions = "5 5\n1 2 N\nGAGAGAGAA\n3 3 E\nAADAADADDA\n0 0 N\nAAAD\n"
+                .getBytes(StandardCharsets.US_ASCII);
+        Path instructionFile = tempDir.resolve("instructions.txt");
+        Files.write(instructionFile, instructions);
+        File traceFile = tempDir.resolve("requested.bin").toFile();
+        try {
+            System.setProperty(TraceRecorder.TRACE_PROPERTY, traceFile.getPath());
+            Lawn lawn = MowerProgramExecutor.readAndExecuteInstructions(instructionFile.toFile(),
+                    new InMemoryResultSink());
+            TraceReplay replay = TraceReplay.load(traceFile);
+            assertEquals(TraceRecorder.DEFAULT_STEP_INTERVAL, replay.getStepInterval());
+            assertFinalPositions(lawn, replay);
+            long traceSize = traceFile.length();
+            MowerProgramExecutor.readAndExecuteInstructions(
+                    Channels.newChannel(new ByteArrayInputStream(instructions)), new InMemoryResultSink());
+            assertEquals(traceSize, traceFile.length());
+
+            System.setProperty(TraceRecorder.STEP_INTERVAL_PROPERTY, "1");
+            lawn = TickMowerProgramExecutor.readAndExecuteInstructions(instructionFile.toFile(),
+                    ForkJoinPool.commonPool(), new InMemoryResultSink());
+            replay = TraceReplay.load(traceFile);
+            assertFinalPositions(lawn, replay);
+            // Steps 0 to 2 are the placements, each tick is then a step of each mower still running
+            assertEquals(EnumOrientation.WEST, replay.getOrientation(0, 3));
+            assertEquals(4, replay.getPositionX(1, 4));
+            assertEquals(1, replay.getPositionY(2, 5));
+        } finally {
+            System.clearProperty(TraceRecorder.TRACE_PROPERTY);
+            System.clearProperty(TraceRecorder.STEP_INTERVAL_PROPERTY);
+        }
+    }
+
+    /**
+     * Helper method to run the mowers of the kata, and a last mower blocked by the border of the lawn.
+     *
+     * @param lawn the lawn where the mowers are added
+     */
+    private static void runKata(Lawn lawn) {
+        MowerFleet fleet = lawn.getFleet();
+        byte[] first = "GAGAGAGAA".getBytes(StandardCharsets.US_ASCII);
+        fleet.execute(lawn.addMower(1, 2, EnumOrientation.NORTH), first, 0, first.length);
+        byte[] second = "AADAADADDA".getBytes(StandardCharsets.US_ASCII);
+        fleet.execute(lawn.addMower(3, 3, EnumOrientation.EAST), second, 0, second.length);
+        byte[] third = "A".getBytes(StandardCharsets.US_ASCII);
+        fleet.execute(lawn.addMower(0, 0, EnumOrientation.SOUTH), third, 0, third.length);
+    }
+
+    /**
+     * Helper method to check the final positions of a run are the ones of its trace.
+     *
+     * @param lawn   the lawn at the end of the run
+     * @param replay the replay of the trace of the run
+     */
+    private static void assertFinalPositions(Lawn lawn, TraceReplay replay) {
+        Lawn replayed = replay.lawnAt(replay.getLastStep());
+        assertEquals(lawn.getFleet().size(), replayed.getFleet().size());
+        for (int i = 0; i < lawn.getFleet().size(); i++) {
+            assertEquals(lawn.getFleet().get(i).getCurrentPosition(), replayed.getFleet().get(i).getCurrentPosition());
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package fr.aymeric.kata.mower.trace;
+
+import fr.aymeric.kata.mower.MowerProgramExecutor;
+import fr.aymeric.kata.mower.TickMowerProgramExecutor;
+import fr.aymeric.kata.mower.model.Lawn;
+import fr.aymeric.kata.mower.output.InMemoryResultSink;
+import fr.aymeric.kata.mower.util.EnumOrientation;
+import fr.aymeric.kata.mower.util.PackedCoordinates;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the {@link TrajectoryIndex} class.
+ */
+class TrajectoryIndexTest {
+    /**
+     * Temporary directory for the instruction and trace files.
+     */
+    @TempDir
+    Path tempDir;
+
+    /**
+     * Test the queries on the trajectories of the kata, compressed into segments.
+     *
+     * @throws IOException if the instructions or the trace cannot be written or read
+     */
+    @Test
+    void testKata() throws IOException {
+        TraceReplay replay = traceRun("5 5\n1 2 N\nGAGAGAGAA\n3 3 E\nAADAADADDA\n", false);
+        TrajectoryIndex index = new TrajectoryIndex(replay);
+        assertEquals(2, index.getMowerCount());
+        // Steps 0 to 9 are the first mower, steps 10 to 20 the second one
+        assertEquals(0, index.getMowerAt(1, 2, 0));
+        assertEquals(0, index.getMowerAt(0, 2, 2));
+        assertEquals(-1, index.getMowerAt(1, 2, 2));
+        assertEquals(0, index.getMowerAt(1, 3, 25));
+        assertEquals(1, index.getMowerAt(5, 3, 12));
+        assertEquals(-1, index.getMowerAt(3, 3, 9));
+        assertEquals(-1, index.getMowerAt(5, 5, 20));
+        assertArrayEquals(cells(1, 2, 0, 2, 0, 1, 1, 1, 1, 2, 1, 3), index.getCellsBetween(0, 0, 9));
+        assertArrayEquals(cells(0, 2, 0, 1, 1, 1), index.getCellsBetween(0, 3, 6));
+        assertArrayEquals(cells(3, 3, 4, 3, 5, 3), index.getCellsBetween(1, 0, 12));
+        assertArrayEquals(cells(1, 3), index.getCellsBetween(0, 12, 20));
+        assertEquals(0, index.getCellsBetween(1, 0, 9).length);
+        assertEquals(0, index.getCellsBetween(2, 0, 20).length);
+        // The straight runs and the rotations on a cell are single segments
+        assertTrue(index.getSegmentCount() < replay.getEventCount());
+    }
+
+    /**
+     * Test the queries of random runs against the replay of their trace, in sequential and simultaneous modes.
+     *
+     * @throws IOException if the instructions or the trace cannot be written or read
+     */
+    @Test
+    void testRandomRuns() throws IOException {
+        Random random = new Random(42);
+        File traceFile = tempDir.resolve("random.bin").toFile();
+        for (int run = 0; run < 10; run++) {
+            String[] programs = new String[12];
+            for (int mower = 0; mower < programs.length; mower++) {
+                StringBuilder program = new StringBuilder();
+                int length = 1 + random.nextInt(30);
+                for (int i = 0; i < length; i++) {
+                    program.append(random.nextInt(3) == 0 ? "GDA".charAt(random.nextInt(3)) : 'A');
+                }
+                programs[mower] = program.toString();
+            }
+            // In sequential mode, each mower starts on a cell left free by the previous ones
+            Lawn lawn = new Lawn(7, 7);
+            try (TraceRecorder recorder = TraceRecorder.open(traceFile)) {
+                lawn.setTraceRecorder(recorder);
+                for (String program : programs) {
+                    int x;
+                    int y;
+                    do {
+                        x = random.nextInt(8);
+                        y = random.nextInt(8);
+                    } while (!lawn.isPositionFree(x, y));
+                    byte[] keys = program.getBytes(StandardCharsets.US_ASCII);
+                    lawn.getFleet().execute(lawn.addMower(x, y, EnumOrientation.values()[random.nextInt(4)]), keys, 0,
+                            keys.length);
+                }
+            }
+            TraceReplay replay = TraceReplay.load(traceFile);
+            assertQueries(replay, new TrajectoryIndex(replay), random);
+            // In simultaneous mode, all the mowers are placed first
+            StringBuilder instructions = new StringBuilder("7 7\n");
+            boolean[] used = new boolean[64];
+            for (String program : programs) {
+                int cell;
+                do {
+                    cell = random.nextInt(64);
+                } while (used[cell]);
+                used[cell] = true;
+                instructions.append(cell % 8).append(' ').append(cell / 8).append(' ')
+                        .append("NESW".charAt(random.nextInt(4))).append('\n').append(program).append('\n');
+            }
+            replay = traceRun(instructions.toString(), true);
+            assertQueries(replay, new TrajectoryIndex(replay), random);
+        }
+    }
+
+    /**
+     * Helper method to execute instructions with a trace of every step, and to load it.
+     *
+     * @param instructions  the content of the instruction file
+     * @param simultaneous  true to execute the mowers with the {@link TickMowerProgramExecutor}
+     * @return the replay of the trace
+     * @throws IOException if the instructions or the trace cannot be written or read
+     */
+    private TraceReplay traceRun(String instructions, boolean simultaneous) throws IOException {
+        Path instructionFile = tempDir.resolve("instructions.txt");
+        Files.write(instructionFile, instructions.getBytes(StandardCharsets.US_ASCII));
+        File traceFile = tempDir.resolve("trace.bin").toFile();
+        try {
+            System.setProperty(TraceRecorder.TRACE_PROPERTY, traceFile.getPath());
+            System.setProperty(TraceRecorder.STEP_INTERVAL_PROPERTY, "1");
+            if (simultaneous) {
+                TickMowerProgramExecutor.readAndExecuteInstructions(instructionFile.toFile(), ForkJoinPool.commonPool(),
+                        new InMemoryResultSink());
+            } else {
+                MowerProgramExecutor.readAndExecuteInstructions(instructionFile.toFile(), new InMemoryResultSink());
+            }
+        } finally {
+            System.clearProperty(TraceRecorder.TRACE_PROPERTY);
+            System.clearProperty(TraceRecorder.STEP_INTERVAL_PROPERTY);
+        }
+        return TraceReplay.load(traceFile);
+    }
+
+    /**
+     * Helper method to compare the queries of an index to the states of the mowers given by a replay.
+     *
+     * @param replay the replay of a trace
+     * @param index  the index of the trace
+     * @param random the generator of the step ranges
+     */
+    private static void assertQueries(TraceReplay replay, TrajectoryIndex index, Random random) {
+        for (long step = 0; step <= replay.getLastStep() + 1; step++) {
+            int[][] mowers = new int[replay.getSizeX() + 1][replay.getSizeY() + 1];
+            for (int[] column : mowers) {
+                Arrays.fill(column, -1);
+            }
+            for (int mower = 0; mower < replay.getMowerCount(); mower++) {
+                if (replay.isPlaced(mower, step)) {
+                    mowers[replay.getPositionX(mower, step)][replay.getPositionY(mower, step)] = mower;
+                }
+            }
+            for (int x = 0; x <= replay.getSizeX(); x++) {
+                for (int y = 0; y <= replay.getSizeY(); y++) {
+                    assertEquals(mowers[x][y], index.getMowerAt(x, y, step), "Cell " + x + " " + y + " at " + step);
+                }
+            }
+        }
+        for (int query = 0; query < 200; query++) {
+            int mower = random.nextInt(replay.getMowerCount());
+            long from = random.nextInt((int) replay.getLastStep() + 2);
+            long to = from + random.nextInt((int) replay.getLastStep() + 2);
+            long[] expected = new long[0];
+            for (long step = from; step <= to; step++) {
+                if (replay.isPlaced(mower, step)) {
+                    long cell = PackedCoordinates.pack(replay.getPositionX(mower, step),
+                            replay.getPositionY(mower, step));
+                    if (expected.length == 0 || expected[expected.length - 1] != cell) {
+                        expected = Arrays.copyOf(expected, expected.length + 1);
+                        expected[expected.length - 1] = cell;
+                    }
+                }
+            }
+            assertArrayEquals(expected, index.getCellsBetween(mower, from, to),
+                    "Mower " + mower + " from " + from + " to " + to);
+        }
+    }
+
+    /**
+     * Helper method to pack cells.
+     *
+     * @param coordinates the X and Y positions of each cell
+     * @return the packed positions
+     */
+    private static long[] cells(int... coordinates) {
+        long[] cells = new long[coordinates.length / 2];
+        for (int i = 0; i < cells.length; i++) {
+            cells[i] = PackedCoordinates.pack(coordinates[2 * i], coordinates[2 * i + 1]);
+        }
+        return cells;
+    }
+}
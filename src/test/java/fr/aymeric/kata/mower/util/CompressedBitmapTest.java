@@ -0,0 +1,101 @@
+package fr.aymeric.kata.mower.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the {@link CompressedBitmap} class.
+ */
+class CompressedBitmapTest {
+    /**
+     * Test single values, including the conversion of a container from an array to a bitmap.
+     */
+    @Test
+    void testAdd() {
+        CompressedBitmap bitmap = new CompressedBitmap();
+        assertTrue(bitmap.add(3));
+        assertFalse(bitmap.add(3));
+        assertTrue(bitmap.add(1L << 40));
+        assertTrue(bitmap.contains(3));
+        assertTrue(bitmap.contains(1L << 40));
+        assertFalse(bitmap.contains(4));
+        assertFalse(bitmap.contains(-1));
+        assertEquals(2, bitmap.getCardinality());
+        assertThrows(IllegalArgumentException.class, () -> bitmap.add(-1));
+
+        long arraySize = bitmap.getSizeInBytes();
+        for (int i = 0; i <= CompressedBitmap.ARRAY_MAX_SIZE; i++) {
+            bitmap.add(i * 7L);
+        }
+        assertEquals(CompressedBitmap.ARRAY_MAX_SIZE + 3, bitmap.getCardinality());
+        assertTrue(bitmap.getSizeInBytes() > arraySize);
+        for (int i = 0; i <= CompressedBitmap.ARRAY_MAX_SIZE; i++) {
+            assertTrue(bitmap.contains(i * 7L));
+            assertFalse(bitmap.contains(i * 7L + 1));
+        }
+        assertTrue(bitmap.contains(3));
+    }
+
+    /**
+     * Test random values and ranges, some crossing containers, give the same set as a hash set.
+     */
+    @Test
+    void testRandomRanges() {
+        Random random = new Random(42);
+        CompressedBitmap bitmap = new CompressedBitmap();
+        Set<Long> expected = new HashSet<>();
+        for (int i = 0; i < 2000; i++) {
+            long from = random.nextInt(300_000);
+            if (random.nextBoolean()) {
+                assertEquals(expected.add(from), bitmap.add(from));
+            } else {
+                long to = from + random.nextInt(random.nextBoolean() ? 40 : 5000);
+                bitmap.addRange(from, to);
+                for (long value = from; value < to; value++) {
+                    expected.add(value);
+                }
+            }
+        }
+        assertEquals(expected.size(), bitmap.getCardinality());
+        for (long value = 0; value < 310_000; value++) {
+            assertEquals(expected.contains(value), bitmap.contains(value), "Value " + value);
+        }
+    }
+
+    /**
+     * Test adding a set to another one, with array and bitmap containers on both sides.
+     */
+    @Test
+    void testAddAll() {
+        Random random = new Random(7);
+        CompressedBitmap bitmap = new CompressedBitmap();
+        CompressedBitmap other = new CompressedBitmap();
+        Set<Long> expected = new HashSet<>();
+        bitmap.addRange(0, 10_000);
+        other.addRange(65_536, 80_000);
+        for (int i = 0; i < 3000; i++) {
+            long value = random.nextInt(200_000);
+            bitmap.add(value);
+            expected.add(value);
+            value = random.nextInt(200_000);
+            other.add(value);
+            expected.add(value);
+        }
+        for (long value = 0; value < 10_000; value++) {
+            expected.add(value);
+        }
+        for (long value = 65_536; value < 80_000; value++) {
+            expected.add(value);
+        }
+        bitmap.addAll(other);
+        assertEquals(expected.size(), bitmap.getCardinality());
+        for (long value = 0; value < 200_000; value++) {
+            assertEquals(expected.contains(value), bitmap.contains(value), "Value " + value);
+        }
+    }
+}
@@ -27,5 +27,6 @@ class EnumInstructionTest {
     @Test
     void testFromKeyInvalid() {
         assertThrows(IllegalArgumentException.class, () -> EnumInstruction.fromKey('X'));
+        assertThrows(IllegalArgumentException.class, () -> EnumInstruction.fromKey('\u0141'));
     }
 }
@@ -28,5 +28,6 @@ class EnumOrientationTest {
     @Test
     void testFromKeyInvalid() {
         assertThrows(IllegalArgumentException.class, () -> EnumOrientation.fromKey('X'));
+        assertThrows(IllegalArgumentException.class, () -> EnumOrientation.fromKey('\u0141'));
     }
 }
@@ -0,0 +1,58 @@
+package fr.aymeric.kata.mower.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for LongHashSet class.
+ */
+class LongHashSetTest {
+    /**
+     * Test adding, finding and removing values.
+     */
+    @Test
+    void testAddContainsRemove() {
+        LongHashSet set = new LongHashSet();
+        assertTrue(set.isEmpty());
+        assertTrue(set.add(42));
+        assertFalse(set.add(42));
+        assertTrue(set.contains(42));
+        assertFalse(set.contains(43));
+        assertFalse(set.contains(Long.MIN_VALUE));
+        assertEquals(1, set.size());
+        assertTrue(set.remove(42));
+        assertFalse(set.remove(42));
+        assertFalse(set.contains(42));
+        assertThrows(IllegalArgumentException.class, () -> set.add(Long.MIN_VALUE));
+    }
+
+    /**
+     * Compare the set with a {@link HashSet} on random operations, forcing the table to grow and values to be shifted back.
+     */
+    @Test
+    void testRandomOperations() {
+        LongHashSet set = new LongHashSet(4);
+        Set<Long> expected = new HashSet<>();
+        Random random = new Random(1234);
+        for (int i = 0; i < 100_000; i++) {
+            long value = PackedCoordinates.pack(random.nextInt(64), random.nextInt(64));
+            if (random.nextBoolean()) {
+                assertEquals(expected.add(value), set.add(value));
+            } else {
+                assertEquals(expected.remove(value), set.remove(value));
+            }
+        }
+        assertEquals(expected.size(), set.size());
+        for (int x = 0; x < 64; x++) {
+            for (int y = 0; y < 64; y++) {
+                long value = PackedCoordinates.pack(x, y);
+                assertEquals(expected.contains(value), set.contains(value));
+            }
+        }
+    }
+}
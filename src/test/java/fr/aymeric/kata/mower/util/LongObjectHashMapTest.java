@@ -0,0 +1,54 @@
+package fr.aymeric.kata.mower.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for LongObjectHashMap class.
+ */
+class LongObjectHashMapTest {
+    /**
+     * Test putting, getting and removing entries.
+     */
+    @Test
+    void testPutGetRemove() {
+        LongObjectHashMap<String> map = new LongObjectHashMap<>();
+        assertNull(map.put(7, "a"));
+        assertEquals("a", map.put(7, "b"));
+        assertEquals("b", map.get(7));
+        assertNull(map.get(8));
+        assertEquals(1, map.size());
+        assertEquals("b", map.remove(7));
+        assertNull(map.remove(7));
+        assertTrue(map.isEmpty());
+        assertThrows(NullPointerException.class, () -> map.put(1, null));
+        assertThrows(IllegalArgumentException.class, () -> map.put(Long.MIN_VALUE, "c"));
+    }
+
+    /**
+     * Compare the map with a {@link HashMap} on random operations, forcing the table to grow and entries to be shifted back.
+     */
+    @Test
+    void testRandomOperations() {
+        LongObjectHashMap<Integer> map = new LongObjectHashMap<>(4);
+        Map<Long, Integer> expected = new HashMap<>();
+        Random random = new Random(4321);
+        for (int i = 0; i < 100_000; i++) {
+            long key = random.nextInt(2048);
+            if (random.nextBoolean()) {
+                assertEquals(expected.put(key, i), map.put(key, i));
+            } else {
+                assertEquals(expected.remove(key), map.remove(key));
+            }
+        }
+        assertEquals(expected.size(), map.size());
+        for (long key = 0; key < 2048; key++) {
+            assertEquals(expected.get(key), map.get(key));
+        }
+    }
+}